@@ -2,11 +2,17 @@ package com.smartcity;
 
 import com.smartcity.common.Graph;
 import com.smartcity.common.GraphLoader;
+import com.smartcity.common.Metrics;
+import com.smartcity.common.OperationType;
 import com.smartcity.graph.scc.TarjanSCC;
 import com.smartcity.graph.scc.CondensationGraph;
+import com.smartcity.graph.scc.CycleDiagnosis;
 import com.smartcity.graph.topo.KahnTopologicalSort;
 import com.smartcity.graph.topo.ComponentTopologicalSort;
+import com.smartcity.graph.dagsp.ComponentShortestPath;
 import com.smartcity.graph.dagsp.DAGShortestPath;
+import com.smartcity.plan.EnginePlan;
+import com.smartcity.plan.EnginePlanner;
 
 import java.io.IOException;
 import java.util.List;
@@ -33,9 +39,19 @@ public class Main {
             "data/large_multi_scc.json"
         };
         
+        // Calibrated once per run, or loaded from -Dsmartcity.planner.profile=<file>
+        EnginePlanner planner;
+        try {
+            planner = EnginePlanner.atStartup();
+        } catch (IOException e) {
+            System.err.println("Error loading planner profile: " + e.getMessage());
+            return;
+        }
+        System.out.println("Planner profile: " + planner.getProfile() + "\n");
+        
         for (String dataset : datasets) {
             try {
-                processDataset(dataset);
+                processDataset(dataset, planner);
             } catch (IOException e) {
                 System.err.println("Error processing " + dataset + ": " + e.getMessage());
             }
@@ -45,33 +61,50 @@ public class Main {
     }
     
     // Process a single dataset and output results
-    private static void processDataset(String filename) throws IOException {
+    private static void processDataset(String filename, EnginePlanner planner) throws IOException {
         System.out.println("Processing: " + filename);
         
         GraphLoader.GraphData data = GraphLoader.loadFromFile(filename);
+        EnginePlan plan = planner.plan(data);
+        // Rebind so nothing keeps the adjacency lists alive next to a compressed copy
+        data = data.withGraph(plan.prepare(data.graph));
         Graph graph = data.graph;
         int source = data.source;
         
         System.out.println("Graph Statistics:");
         System.out.println("  Vertices: " + graph.getVertices());
         System.out.println("  Directed: " + graph.isDirected());
-        System.out.println("  Source: " + source);
+        System.out.println("  Source: " + data.labelOf(source));
         System.out.println("  Weight Model: " + data.weightModel + " (edge weights represent task duration in hours)");
+        System.out.println("  Degree Skew: " + String.format("%.2f", plan.getStatistics().getDegreeSkew()));
+        System.out.println("  DAG Fraction (trim estimate): " + String.format("%.3f", plan.getStatistics().getDagFraction()));
+        System.out.println("  Engine Plan: " + plan);
         
-        System.out.println("\n--- Strongly Connected Components (Tarjan) ---");
-        TarjanSCC tarjan = new TarjanSCC(graph);
-        TarjanSCC.SCCResult sccResult = tarjan.findSCCs();
+        System.out.println("\n--- Strongly Connected Components (" + plan.getSccEngine() + ") ---");
+        TarjanSCC.SCCResult sccResult = plan.findSCCs(graph);
         
         System.out.println("Number of SCCs: " + sccResult.getComponents().size());
         System.out.println("Components:");
         for (int i = 0; i < sccResult.getComponents().size(); i++) {
             List<Integer> component = sccResult.getComponents().get(i);
-            System.out.println("  Component " + i + ": " + component + " (size: " + component.size() + ")");
+            System.out.println("  Component " + i + ": " + data.labelsOf(component) + " (size: " + component.size() + ")");
         }
         System.out.println("Metrics:");
-        System.out.println("  DFS Visits: " + sccResult.getMetrics().getOperations());
+        printOperations(sccResult.getMetrics());
         System.out.println("  Time: " + String.format("%.3f", sccResult.getMetrics().getElapsedMillis()) + " ms");
         
+        CycleDiagnosis.CycleReport cycleReport = new CycleDiagnosis(graph).diagnose();
+        if (!cycleReport.isAcyclic()) {
+            System.out.println("\n--- Cycle Diagnosis ---");
+            for (List<Integer> cycle : cycleReport.getWitnessCycles()) {
+                System.out.println("  Witness cycle: " + data.labelsOf(cycle));
+            }
+            System.out.println("  Dependencies to drop for a DAG (" + cycleReport.getFeedbackArcs().size() + "):");
+            for (CycleDiagnosis.FeedbackArc arc : cycleReport.getFeedbackArcs()) {
+                System.out.println("    " + data.labelOf(arc.from) + " -> " + data.labelOf(arc.to));
+            }
+        }
+        
         System.out.println("\nCondensation Graph");
         CondensationGraph condensationGraph = new CondensationGraph(graph, sccResult.getComponents());
         Graph condensation = condensationGraph.getCondensationGraph();
@@ -95,9 +128,9 @@ public class Main {
         
         System.out.println("Is DAG: " + componentTopoResult.isDAG());
         System.out.println("Component Order: " + componentTopoResult.getComponentOrder());
-        System.out.println("Task Order (derived): " + componentTopoResult.getTaskOrder());
+        System.out.println("Task Order (derived): " + data.labelsOf(componentTopoResult.getTaskOrder()));
         System.out.println("Metrics:");
-        System.out.println("  Operations (pushes/pops): " + componentTopoResult.getMetrics().getOperations());
+        printOperations(componentTopoResult.getMetrics());
         System.out.println("  Time: " + String.format("%.3f", componentTopoResult.getMetrics().getElapsedMillis()) + " ms");
         
         if (componentTopoResult.isDAG()) {
@@ -110,30 +143,30 @@ public class Main {
             System.out.println("Shortest distances from component " + condensedSource + ":");
             System.out.println(String.format("  %-12s %-12s %-20s", "Destination", "Distance", "Path"));
             System.out.println("  " + "-".repeat(50));
-            int[] distances = shortestResult.getDistances();
+            long[] distances = shortestResult.getDistances();
             for (int i = 0; i < distances.length; i++) {
-                if (distances[i] != Integer.MAX_VALUE) {
+                if (shortestResult.isReachable(i)) {
                     List<Integer> path = shortestResult.reconstructPath(i);
                     System.out.println(String.format("  %-12d %-12d %-20s", i, distances[i], path));
                 }
             }
             System.out.println("Metrics:");
-            System.out.println("  Relaxations: " + shortestResult.getMetrics().getOperations());
+            printOperations(shortestResult.getMetrics());
             System.out.println("  Time: " + String.format("%.3f", shortestResult.getMetrics().getElapsedMillis()) + " ms");
             
             System.out.println("\nDAG Longest Paths");
             DAGShortestPath.PathResult longestResult = dagsp.longestPaths(condensedSource);
             
             System.out.println("Longest distances from component " + condensedSource + ":");
-            int[] longDistances = longestResult.getDistances();
+            long[] longDistances = longestResult.getDistances();
             for (int i = 0; i < longDistances.length; i++) {
-                if (longDistances[i] != Integer.MIN_VALUE) {
+                if (longestResult.isReachable(i)) {
                     List<Integer> path = longestResult.reconstructPath(i);
                     System.out.println("  To component " + i + ": " + longDistances[i] + " | Path: " + path);
                 }
             }
             System.out.println("Metrics:");
-            System.out.println("  Relaxations: " + longestResult.getMetrics().getOperations());
+            printOperations(longestResult.getMetrics());
             System.out.println("  Time: " + String.format("%.3f", longestResult.getMetrics().getElapsedMillis()) + " ms");
             
             System.out.println("\n--- Critical Path ---");
@@ -142,5 +175,28 @@ public class Main {
             System.out.println("Critical Path: " + criticalPath.getPath() + " with length " + criticalPath.getLength());
             System.out.println("From component " + criticalPath.getSource() + " to component " + criticalPath.getDestination());
         }
+        
+        System.out.println("\n--- Task-Level Shortest Paths ---");
+        ComponentShortestPath.TaskPathResult taskResult = new ComponentShortestPath(graph).shortestPaths(source);
+        System.out.println("Shortest distances from task " + data.labelOf(source) + ":");
+        long[] taskDistances = taskResult.getDistances();
+        for (int v = 0; v < taskDistances.length; v++) {
+            if (taskResult.isReachable(v)) {
+                System.out.println("  To " + data.labelOf(v) + ": " + taskDistances[v]
+                        + " | Path: " + data.labelsOf(taskResult.reconstructPath(v)));
+            }
+        }
+        System.out.println("Metrics:");
+        printOperations(taskResult.getMetrics());
+        System.out.println("  Time: " + String.format("%.3f", taskResult.getMetrics().getElapsedMillis()) + " ms");
+    }
+    
+    // One line per operation type the algorithm counted
+    private static void printOperations(Metrics metrics) {
+        for (OperationType type : OperationType.values()) {
+            if (metrics.getOperations(type) > 0) {
+                System.out.println("  " + type.getLabel() + ": " + metrics.getOperations(type));
+            }
+        }
     }
 }
@@ -0,0 +1,73 @@
+package com.smartcity.bench;
+
+import com.smartcity.common.BitMatrixGraph;
+import com.smartcity.common.Graph;
+import com.smartcity.graph.dense.BitParallelSCC;
+import com.smartcity.graph.dense.HybridSCC;
+import com.smartcity.graph.scc.TarjanSCC;
+
+import java.util.Random;
+
+/**
+ * TarjanSCC against the bit-parallel engine on single districts of growing
+ * density (conversion to the bit matrix included), then TarjanSCC against
+ * HybridSCC on a city of dense districts and a sparse suburb of the same size.
+ * Usage: BitMatrixBenchmark [districtSize] [districts]  (run with -Xmx3g)
+ */
+public class BitMatrixBenchmark {
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int count = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        System.out.println("One district of " + size + " vertices");
+        for (int inverse : new int[] {256, 64, 32, 16, 8, 4}) {
+            Graph district = city(1, size, 1.0 / inverse, 0, 2L);
+            double tarjan = time(() -> new TarjanSCC(district).findSCCs());
+            double bits = time(() -> new BitParallelSCC(BitMatrixGraph.of(district)).findSCCs());
+            System.out.println(String.format("  density 1/%-4d Tarjan %8.1f ms  bit-parallel %8.1f ms  speedup %5.2fx",
+                    inverse, tarjan, bits, tarjan / bits));
+        }
+
+        Graph city = city(count, size, 0.25, count * size, 3L);
+        System.out.println(count + " districts of " + size + " vertices at density 1/4, suburb of "
+                + count * size + " vertices");
+        double tarjan = time(() -> new TarjanSCC(city).findSCCs());
+        double hybrid = time(() -> new HybridSCC(city).findSCCs());
+        System.out.println(String.format("  Tarjan %8.1f ms  hybrid %8.1f ms  speedup %5.2fx",
+                tarjan, hybrid, tarjan / hybrid));
+    }
+
+    // Districts of random edges at the given density, plus a suburb with two edges per vertex
+    private static Graph city(int count, int size, double density, int suburb, long seed) {
+        Random random = new Random(seed);
+        Graph graph = new Graph(count * size + suburb, true);
+        for (int d = 0; d < count; d++) {
+            int base = d * size;
+            for (int u = 0; u < size; u++) {
+                for (int v = 0; v < size; v++) {
+                    if (u != v && random.nextDouble() < density) {
+                        graph.addEdge(base + u, base + v, 1 + random.nextInt(9));
+                    }
+                }
+            }
+        }
+        int offset = count * size;
+        for (int i = 0; i < 2 * suburb; i++) {
+            graph.addEdge(offset + random.nextInt(suburb), offset + random.nextInt(suburb), 1 + random.nextInt(9));
+        }
+        return graph;
+    }
+
+    // Best of five runs after one warm-up, in milliseconds
+    private static double time(Runnable run) {
+        run.run();
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            long start = System.nanoTime();
+            run.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best / 1e6;
+    }
+}
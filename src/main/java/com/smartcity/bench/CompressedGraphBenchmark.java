@@ -0,0 +1,84 @@
+package com.smartcity.bench;
+
+import com.smartcity.common.CompressedGraph;
+import com.smartcity.common.CsrGraph;
+import com.smartcity.common.Graph;
+import com.smartcity.common.GraphGenerator;
+import com.smartcity.graph.scc.TarjanSCC;
+
+/**
+ * Compares the compressed representation against uncompressed storage:
+ * bits per edge and the cost of a full sequential neighbor scan.
+ * Usage: CompressedGraphBenchmark [vertices] [edges]
+ */
+public class CompressedGraphBenchmark {
+    private static final int ROUNDS = 10;
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int m = args.length > 1 ? Integer.parseInt(args[1]) : 2_000_000;
+
+        Graph graph = GraphGenerator.randomDag(n, m, 9, 1L);
+        CsrGraph csr = CsrGraph.of(graph);
+        CompressedGraph compressed = CompressedGraph.of(graph);
+
+        System.out.println("Compressed adjacency benchmark (" + n + " vertices, " + m + " edges)");
+        System.out.println(String.format("  CSR: 64.0 bits/edge | Compressed: %.2f bits/edge (weights %d bits)",
+                compressed.getBitsPerEdge(), compressed.getWeightBits()));
+        System.out.println(String.format("  Compressed total footprint: %.1f MiB",
+                compressed.getTotalBytes() / (double) (1 << 20)));
+
+        double csrScan = Double.MAX_VALUE;
+        double cursorScan = Double.MAX_VALUE;
+        double listScan = Double.MAX_VALUE;
+        double viewScan = Double.MAX_VALUE;
+        long checksum = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            int[] offsets = csr.offsets();
+            int[] targets = csr.targets();
+            int[] weights = csr.weights();
+            for (int u = 0; u < n; u++) {
+                for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                    checksum += targets[e] + weights[e];
+                }
+            }
+            csrScan = Math.min(csrScan, (System.nanoTime() - start) / 1e6);
+
+            start = System.nanoTime();
+            CompressedGraph.NeighborCursor cursor = compressed.cursor();
+            for (int u = 0; u < n; u++) {
+                cursor.reset(u);
+                while (cursor.next()) {
+                    checksum += cursor.target() + cursor.weight();
+                }
+            }
+            cursorScan = Math.min(cursorScan, (System.nanoTime() - start) / 1e6);
+
+            start = System.nanoTime();
+            for (int u = 0; u < n; u++) {
+                for (Graph.Edge edge : graph.getAdjacentEdges(u)) {
+                    checksum += edge.to + edge.weight;
+                }
+            }
+            listScan = Math.min(listScan, (System.nanoTime() - start) / 1e6);
+
+            start = System.nanoTime();
+            for (int u = 0; u < n; u++) {
+                for (Graph.Edge edge : compressed.getAdjacentEdges(u)) {
+                    checksum += edge.to + edge.weight;
+                }
+            }
+            viewScan = Math.min(viewScan, (System.nanoTime() - start) / 1e6);
+        }
+
+        System.out.println(String.format("  Full scan: CSR %.2f ms | cursor %.2f ms (penalty %.2fx)",
+                csrScan, cursorScan, cursorScan / csrScan));
+        System.out.println(String.format("  Full scan: Graph lists %.2f ms | compressed view %.2f ms (penalty %.2fx)",
+                listScan, viewScan, viewScan / listScan));
+
+        double plain = new TarjanSCC(graph).findSCCs().getMetrics().getElapsedMillis();
+        double packed = new TarjanSCC(compressed).findSCCs().getMetrics().getElapsedMillis();
+        System.out.println(String.format("  TarjanSCC: %.2f ms -> %.2f ms | checksum %d", plain, packed, checksum));
+    }
+}
@@ -0,0 +1,39 @@
+package com.smartcity.bench;
+
+import com.smartcity.common.Graph;
+import com.smartcity.common.GraphGenerator;
+import com.smartcity.graph.reach.DominatorTree;
+
+/**
+ * Dominator and post-dominator trees on a random graph with cycles, and
+ * the time of one million O(1) dominance queries.
+ * Usage: DominatorTreeBenchmark [vertices] [edges]
+ */
+public class DominatorTreeBenchmark {
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int m = args.length > 1 ? Integer.parseInt(args[1]) : 5_000_000;
+
+        Graph graph = GraphGenerator.randomGraph(n, m, 9, 1L);
+        DominatorTree tree = new DominatorTree(graph);
+        System.out.println("Dominator tree benchmark (" + n + " vertices, " + m + " edges)");
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            DominatorTree.Dominators dominators = tree.dominators(0);
+            long t1 = System.nanoTime();
+            DominatorTree.Dominators post = tree.postDominators(n - 1);
+            long t2 = System.nanoTime();
+            long hits = 0;
+            for (int i = 0; i < 1_000_000; i++) {
+                if (dominators.dominates(i % 64, (int) ((i * 2654435761L) % n))) {
+                    hits++;
+                }
+            }
+            long t3 = System.nanoTime();
+            System.out.println(String.format("  dominators %7.1f ms  post-dominators %7.1f ms  1M queries %6.1f ms"
+                    + "  (tasks reaching the sink: %d, hits %d)", (t1 - start) / 1e6, (t2 - t1) / 1e6,
+                    (t3 - t2) / 1e6, post.getDominatedCount(n - 1), hits));
+        }
+    }
+}
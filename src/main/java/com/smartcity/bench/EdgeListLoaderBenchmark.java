@@ -0,0 +1,44 @@
+package com.smartcity.bench;
+
+import com.smartcity.common.EdgeListLoader;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Writes a synthetic "u v w" edge list and reports the parallel load throughput.
+ * Usage: EdgeListLoaderBenchmark [vertices] [edges]
+ */
+public class EdgeListLoaderBenchmark {
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) throws IOException {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int m = args.length > 1 ? Integer.parseInt(args[1]) : 10_000_000;
+
+        Path file = Files.createTempFile("edges", ".txt");
+        try {
+            Random random = new Random(1L);
+            try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.US_ASCII)) {
+                out.write("# directed=true n=" + n + "\n");
+                for (int i = 0; i < m; i++) {
+                    out.write(random.nextInt(n) + " " + random.nextInt(n) + " " + (1 + random.nextInt(9)) + "\n");
+                }
+            }
+
+            System.out.println("Edge list loader benchmark (" + n + " vertices, " + m + " edges, "
+                    + Files.size(file) / (1 << 20) + " MiB)");
+            for (int round = 1; round <= ROUNDS; round++) {
+                EdgeListLoader.LoadResult result = new EdgeListLoader().load(file);
+                System.out.println(String.format("  Round %d: %.1f ms, %.3f GB/s", round,
+                        result.getMetrics().getElapsedMillis(), result.getGigabytesPerSecond()));
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
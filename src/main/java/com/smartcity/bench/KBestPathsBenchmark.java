@@ -0,0 +1,38 @@
+package com.smartcity.bench;
+
+import com.smartcity.common.Graph;
+import com.smartcity.common.GraphGenerator;
+import com.smartcity.graph.dagsp.KBestPaths;
+
+import java.util.List;
+
+/**
+ * K longest and K shortest source-to-sink paths on a large layered DAG.
+ * Usage: KBestPathsBenchmark [layers] [width] [k]
+ */
+public class KBestPathsBenchmark {
+
+    public static void main(String[] args) {
+        int layers = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int width = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        int k = args.length > 2 ? Integer.parseInt(args[2]) : 5000;
+
+        Graph dag = GraphGenerator.layeredDag(layers, width, 4, 9, 1L);
+        long start = System.nanoTime();
+        KBestPaths paths = new KBestPaths(dag);
+        double prepareMillis = (System.nanoTime() - start) / 1e6;
+
+        List<KBestPaths.RankedPath> longest = paths.longestPaths(k);
+        double longestMillis = paths.getMetrics().getElapsedMillis();
+        List<KBestPaths.RankedPath> shortest = paths.shortestPaths(k);
+        double shortestMillis = paths.getMetrics().getElapsedMillis();
+
+        System.out.println("K-best paths benchmark (" + dag.getVertices() + " vertices, "
+                + (long) (layers - 1) * width * 4 + " edges, k=" + k + ")");
+        System.out.println(String.format("  Topological order: %.1f ms", prepareMillis));
+        System.out.println(String.format("  Longest:  %.1f ms, lengths %d .. %d", longestMillis,
+                longest.get(0).getLength(), longest.get(longest.size() - 1).getLength()));
+        System.out.println(String.format("  Shortest: %.1f ms, lengths %d .. %d", shortestMillis,
+                shortest.get(0).getLength(), shortest.get(shortest.size() - 1).getLength()));
+    }
+}
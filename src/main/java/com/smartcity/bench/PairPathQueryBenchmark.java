@@ -0,0 +1,58 @@
+package com.smartcity.bench;
+
+import com.smartcity.common.Graph;
+import com.smartcity.common.GraphGenerator;
+import com.smartcity.graph.dagsp.DAGShortestPath;
+import com.smartcity.graph.dagsp.PairPathQuery;
+
+import java.util.SplittableRandom;
+
+/**
+ * Single-pair latency: full single-source DAG relaxation versus the pruned
+ * pair query, for pairs a few layers apart in a layered DAG.
+ * Usage: PairPathQueryBenchmark [layers] [width] [layer-gap] [queries]
+ */
+public class PairPathQueryBenchmark {
+
+    public static void main(String[] args) {
+        int layers = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int width = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int gap = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        int queries = args.length > 3 ? Integer.parseInt(args[3]) : 200;
+
+        Graph dag = GraphGenerator.layeredDag(layers, width, 4, 9, 1L);
+        DAGShortestPath full = new DAGShortestPath(dag);
+        PairPathQuery pair = new PairPathQuery(dag);
+        SplittableRandom random = new SplittableRandom(2);
+
+        long fullNanos = 0;
+        long pairNanos = 0;
+        long relevant = 0;
+        int mismatches = 0;
+        for (int q = 0; q < queries; q++) {
+            int layer = random.nextInt(layers - gap);
+            int s = layer * width + random.nextInt(width);
+            int t = (layer + gap) * width + random.nextInt(width);
+
+            long start = System.nanoTime();
+            long expected = full.longestPaths(s).getDistances()[t];
+            fullNanos += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            PairPathQuery.PairResult result = pair.longestPath(s, t);
+            pairNanos += System.nanoTime() - start;
+            relevant += result.getRelevantVertices();
+
+            long actual = result.isReachable() ? result.getDistance() : DAGShortestPath.UNREACHABLE_LONGEST;
+            if (actual != expected) {
+                mismatches++;
+            }
+        }
+
+        System.out.println("Pair path query benchmark (" + dag.getVertices() + " vertices, layer gap " + gap + ")");
+        System.out.println(String.format("  Full longestPaths: %.3f ms/query", fullNanos / 1e6 / queries));
+        System.out.println(String.format("  Pair query:        %.3f ms/query (%.1fx faster, %.0f relevant vertices avg)",
+                pairNanos / 1e6 / queries, (double) fullNanos / pairNanos, (double) relevant / queries));
+        System.out.println("  Mismatches: " + mismatches);
+    }
+}
@@ -0,0 +1,94 @@
+package com.smartcity.bench;
+
+import com.smartcity.common.EdgeFile;
+import com.smartcity.common.Graph;
+import com.smartcity.common.GraphGenerator;
+import com.smartcity.graph.scc.PartitionedSCC;
+import com.smartcity.graph.scc.TarjanSCC;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Compares single-JVM TarjanSCC against PartitionedSCC with 1, 2 and 4
+ * worker processes: wall time, speedup and peak memory per process.
+ * Usage: PartitionedSCCBenchmark [vertices] [edges] [worker-heap-mb]
+ */
+public class PartitionedSCCBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int m = args.length > 1 ? Integer.parseInt(args[1]) : 4_000_000;
+        int workerHeapMb = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+
+        Graph graph = GraphGenerator.randomGraph(n, m, 9, 1L);
+        Path workDir = Files.createTempDirectory("partitioned-scc");
+        Path edgeFile = workDir.resolve("graph.edges");
+        EdgeFile.write(edgeFile, graph);
+
+        // TarjanSCC recurses once per vertex on the DFS path
+        double[] single = new double[1];
+        int[] components = new int[1];
+        Thread thread = new Thread(null, () -> {
+            TarjanSCC.SCCResult result = new TarjanSCC(graph).findSCCs();
+            single[0] = result.getMetrics().getElapsedMillis();
+            components[0] = result.getComponents().size();
+        }, "tarjan", 1L << 30);
+        thread.start();
+        thread.join();
+
+        System.out.println("Partitioned SCC benchmark (" + n + " vertices, " + m + " edges, "
+                + Runtime.getRuntime().availableProcessors() + " CPUs)");
+        System.out.println(String.format("  Single JVM TarjanSCC: %.1f ms, %d components, peak heap %.1f MiB",
+                single[0], components[0], mib(peakHeapBytes())));
+
+        List<String> options = Collections.singletonList("-Xmx" + workerHeapMb + "m");
+        for (int partitions : Arrays.asList(1, 2, 4)) {
+            Path dir = Files.createDirectories(workDir.resolve("run-" + partitions));
+            PartitionedSCC.PartitionedResult result = new PartitionedSCC(partitions, dir, options).findSCCs(edgeFile);
+            double millis = result.getSCCResult().getMetrics().getElapsedMillis();
+            long maxHeap = 0;
+            long maxRss = 0;
+            for (PartitionedSCC.WorkerStats worker : result.getWorkers()) {
+                maxHeap = Math.max(maxHeap, worker.getPeakHeapBytes());
+                maxRss = Math.max(maxRss, worker.getPeakRssBytes());
+            }
+            System.out.println(String.format(
+                    "  %d workers: %.1f ms (speedup %.2fx), %d components, quotient %d vertices / %d edges,"
+                            + " worker peak heap %.1f MiB, worker peak RSS %.1f MiB",
+                    partitions, millis, single[0] / millis, result.getComponentCount(),
+                    result.getQuotientVertices(), result.getQuotientEdges(), mib(maxHeap), mib(maxRss)));
+        }
+        deleteRecursively(workDir);
+    }
+
+    private static long peakHeapBytes() {
+        long total = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                total += pool.getPeakUsage().getUsed();
+            }
+        }
+        return total;
+    }
+
+    private static double mib(long bytes) {
+        return bytes / (double) (1 << 20);
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Collections.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+}
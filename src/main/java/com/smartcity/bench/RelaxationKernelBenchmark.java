@@ -0,0 +1,115 @@
+package com.smartcity.bench;
+
+import com.smartcity.common.CsrGraph;
+import com.smartcity.common.Graph;
+import com.smartcity.common.GraphGenerator;
+import com.smartcity.graph.dagsp.DAGShortestPath;
+import com.smartcity.graph.topo.KahnTopologicalSort;
+
+import java.util.Arrays;
+
+/**
+ * DAG relaxation throughput: the previous int loop over adjacency lists and
+ * an int loop over CSR arrays, against the long edge and node kernels of
+ * DAGShortestPath (whose timings include the per-query topological order).
+ * Usage: RelaxationKernelBenchmark [layers] [width] [repetitions]
+ */
+public class RelaxationKernelBenchmark {
+
+    public static void main(String[] args) {
+        int layers = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int width = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int repetitions = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        Graph dag = GraphGenerator.layeredDag(layers, width, 4, 9, 1L);
+        for (int v = 0; v < dag.getVertices(); v++) {
+            dag.setNodeWeight(v, 1 + v % 7);
+        }
+        CsrGraph csr = CsrGraph.of(dag);
+        int[] order = KahnTopologicalSort.orderOf(csr);
+        DAGShortestPath dagsp = new DAGShortestPath(dag);
+        long checksum = 0;
+
+        double[] listInt = new double[repetitions];
+        double[] csrInt = new double[repetitions];
+        double[] edgeLong = new double[repetitions];
+        double[] nodeLong = new double[repetitions];
+        for (int r = -2; r < repetitions; r++) {
+            long start = System.nanoTime();
+            checksum += listIntLoop(dag, order)[order[order.length - 1]];
+            long t1 = System.nanoTime();
+            checksum += csrIntLoop(csr, order)[order[order.length - 1]];
+            long t2 = System.nanoTime();
+            dag.setWeightModel("edge");
+            checksum += dagsp.shortestPaths(order[0]).getDistances()[order[order.length - 1]];
+            long t3 = System.nanoTime();
+            dag.setWeightModel("node");
+            checksum += dagsp.shortestPaths(order[0]).getDistances()[order[order.length - 1]];
+            long t4 = System.nanoTime();
+            if (r >= 0) {
+                listInt[r] = (t1 - start) / 1e6;
+                csrInt[r] = (t2 - t1) / 1e6;
+                edgeLong[r] = (t3 - t2) / 1e6;
+                nodeLong[r] = (t4 - t3) / 1e6;
+            }
+        }
+
+        System.out.println("Relaxation kernel benchmark (" + dag.getVertices() + " vertices, "
+                + csr.getEdgeCount() + " edges, median of " + repetitions + ")");
+        report("Previous int loop (lists)", listInt, csr.getEdgeCount());
+        report("int loop (CSR)", csrInt, csr.getEdgeCount());
+        report("long edge kernel", edgeLong, csr.getEdgeCount());
+        report("long node kernel", nodeLong, csr.getEdgeCount());
+        System.out.println("  (checksum " + checksum + ")");
+    }
+
+    private static void report(String name, double[] millis, int edges) {
+        double[] sorted = millis.clone();
+        Arrays.sort(sorted);
+        double median = sorted[sorted.length / 2];
+        System.out.println(String.format("  %-26s %8.2f ms  %6.1f M edges/s", name, median, edges / median / 1e3));
+    }
+
+    // The relaxation loop DAGShortestPath used before 64-bit distances
+    private static int[] listIntLoop(Graph dag, int[] order) {
+        int[] dist = new int[dag.getVertices()];
+        int[] parent = new int[dag.getVertices()];
+        Arrays.fill(dist, Integer.MAX_VALUE);
+        Arrays.fill(parent, -1);
+        dist[order[0]] = 0;
+        for (int u : order) {
+            if (dist[u] != Integer.MAX_VALUE) {
+                for (Graph.Edge edge : dag.getAdjacentEdges(u)) {
+                    if (dist[u] + edge.weight < dist[edge.to]) {
+                        dist[edge.to] = dist[u] + edge.weight;
+                        parent[edge.to] = u;
+                    }
+                }
+            }
+        }
+        return dist;
+    }
+
+    private static int[] csrIntLoop(CsrGraph csr, int[] order) {
+        int[] offsets = csr.offsets();
+        int[] targets = csr.targets();
+        int[] weights = csr.weights();
+        int[] dist = new int[csr.getVertices()];
+        int[] parent = new int[csr.getVertices()];
+        Arrays.fill(dist, Integer.MAX_VALUE);
+        Arrays.fill(parent, -1);
+        dist[order[0]] = 0;
+        for (int u : order) {
+            if (dist[u] != Integer.MAX_VALUE) {
+                for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                    int v = targets[e];
+                    if (dist[u] + weights[e] < dist[v]) {
+                        dist[v] = dist[u] + weights[e];
+                        parent[v] = u;
+                    }
+                }
+            }
+        }
+        return dist;
+    }
+}
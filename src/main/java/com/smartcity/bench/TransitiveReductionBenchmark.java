@@ -0,0 +1,49 @@
+package com.smartcity.bench;
+
+import com.smartcity.common.Graph;
+import com.smartcity.common.GraphGenerator;
+import com.smartcity.graph.scc.CondensationGraph;
+import com.smartcity.graph.scc.TarjanSCC;
+import com.smartcity.graph.scc.TransitiveReduction;
+import com.smartcity.graph.topo.ComponentTopologicalSort;
+
+/**
+ * Measures edge reduction of the condensation and the speedup of later
+ * topological sorts on a dense random DAG.
+ * Usage: TransitiveReductionBenchmark [vertices] [edges]
+ */
+public class TransitiveReductionBenchmark {
+    private static final int ROUNDS = 15;
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 3000;
+        int m = args.length > 1 ? Integer.parseInt(args[1]) : 150_000;
+
+        Graph graph = GraphGenerator.randomDag(n, m, 9, 1L);
+        TarjanSCC.SCCResult scc = new TarjanSCC(graph).findSCCs();
+        CondensationGraph full = new CondensationGraph(graph, scc.getComponents());
+
+        CondensationGraph reduced = full.withTransitiveReduction();
+        TransitiveReduction.ReductionResult reduction = reduced.getReduction();
+
+        double fullMillis = bestSortMillis(full);
+        double reducedMillis = bestSortMillis(reduced);
+
+        System.out.println("Transitive reduction benchmark (" + n + " vertices, " + m + " edges)");
+        System.out.println(String.format("  Edges: %d -> %d (reduction ratio %.3f)",
+                reduction.getOriginalEdges(), reduction.getReducedEdges(), reduction.getReductionRatio()));
+        System.out.println(String.format("  Reduction time: %.3f ms", reduction.getMetrics().getElapsedMillis()));
+        System.out.println(String.format("  Component topological sort: %.3f ms -> %.3f ms (speedup %.2fx)",
+                fullMillis, reducedMillis, fullMillis / reducedMillis));
+    }
+
+    private static double bestSortMillis(CondensationGraph condensation) {
+        double best = Double.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            ComponentTopologicalSort.ComponentTopoResult result =
+                    new ComponentTopologicalSort(condensation).topologicalSort();
+            best = Math.min(best, result.getMetrics().getElapsedMillis());
+        }
+        return best;
+    }
+}
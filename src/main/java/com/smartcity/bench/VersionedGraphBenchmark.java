@@ -0,0 +1,130 @@
+package com.smartcity.bench;
+
+import com.smartcity.common.Graph;
+import com.smartcity.common.GraphGenerator;
+import com.smartcity.common.VersionedGraph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * Read/write contention benchmark: reader threads run BFS queries while one
+ * ingest thread adds edges in batches. Compares lock-free snapshots of
+ * VersionedGraph against a plain Graph guarded by a read/write lock.
+ * Usage: VersionedGraphBenchmark [vertices] [edges] [readers] [batch-size] [seconds]
+ */
+public class VersionedGraphBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int m = args.length > 1 ? Integer.parseInt(args[1]) : 500_000;
+        int readers = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        int batchSize = args.length > 3 ? Integer.parseInt(args[3]) : 64;
+        double seconds = args.length > 4 ? Double.parseDouble(args[4]) : 3.0;
+
+        Graph initial = GraphGenerator.randomGraph(n, m, 9, 1L);
+        System.out.println("Versioned graph contention benchmark (" + n + " vertices, " + m + " edges, "
+                + readers + " readers, batch " + batchSize + ", "
+                + Runtime.getRuntime().availableProcessors() + " CPUs)");
+
+        VersionedGraph versioned = VersionedGraph.of(initial);
+        run("VersionedGraph snapshots", readers, seconds,
+                seed -> {
+                    try (VersionedGraph.Snapshot snapshot = versioned.snapshot()) {
+                        return bfs(snapshot, seed % n);
+                    }
+                },
+                random -> {
+                    VersionedGraph.Batch batch = versioned.batch();
+                    for (int i = 0; i < batchSize; i++) {
+                        batch.addEdge(random.nextInt(n), random.nextInt(n), 1 + random.nextInt(9));
+                    }
+                    batch.commit();
+                });
+
+        Graph locked = GraphGenerator.randomGraph(n, m, 9, 1L);
+        ReadWriteLock lock = new ReentrantReadWriteLock();
+        run("Graph + ReadWriteLock", readers, seconds,
+                seed -> {
+                    lock.readLock().lock();
+                    try {
+                        return bfs(locked, seed % n);
+                    } finally {
+                        lock.readLock().unlock();
+                    }
+                },
+                random -> {
+                    lock.writeLock().lock();
+                    try {
+                        for (int i = 0; i < batchSize; i++) {
+                            locked.addEdge(random.nextInt(n), random.nextInt(n), 1 + random.nextInt(9));
+                        }
+                    } finally {
+                        lock.writeLock().unlock();
+                    }
+                });
+    }
+
+    private static void run(String name, int readers, double seconds, IntFunction<Integer> query,
+                            Consumer<SplittableRandom> write) throws InterruptedException {
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicLong queries = new AtomicLong();
+        AtomicLong commits = new AtomicLong();
+        AtomicLong maxLatency = new AtomicLong();
+        List<Thread> threads = new ArrayList<>();
+        for (int r = 0; r < readers; r++) {
+            int id = r;
+            threads.add(new Thread(() -> {
+                SplittableRandom random = new SplittableRandom(id);
+                while (!stop.get()) {
+                    long start = System.nanoTime();
+                    query.apply(random.nextInt(Integer.MAX_VALUE));
+                    maxLatency.accumulateAndGet(System.nanoTime() - start, Math::max);
+                    queries.incrementAndGet();
+                }
+            }));
+        }
+        threads.add(new Thread(() -> {
+            SplittableRandom random = new SplittableRandom(99);
+            while (!stop.get()) {
+                write.accept(random);
+                commits.incrementAndGet();
+            }
+        }));
+        threads.forEach(Thread::start);
+        Thread.sleep((long) (seconds * 1000));
+        stop.set(true);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        System.out.println(String.format("  %-26s %8.1f queries/s | %8.1f commits/s | max query %.1f ms",
+                name, queries.get() / seconds, commits.get() / seconds, maxLatency.get() / 1e6));
+    }
+
+    private static int bfs(Graph graph, int source) {
+        int n = graph.getVertices();
+        boolean[] seen = new boolean[n];
+        int[] queue = new int[n];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = source;
+        seen[source] = true;
+        while (head < tail) {
+            int u = queue[head++];
+            for (Graph.Edge edge : graph.getAdjacentEdges(u)) {
+                if (!seen[edge.to]) {
+                    seen[edge.to] = true;
+                    queue[tail++] = edge.to;
+                }
+            }
+        }
+        return tail;
+    }
+}
@@ -0,0 +1,116 @@
+package com.smartcity.bench;
+
+import com.smartcity.common.Graph;
+import com.smartcity.common.GraphGenerator;
+import com.smartcity.graph.dagsp.DAGShortestPath;
+import com.smartcity.graph.reorder.VertexReordering;
+import com.smartcity.graph.scc.TarjanSCC;
+
+import java.util.Random;
+
+/**
+ * TarjanSCC on a city grid and DAG longest paths on a layered DAG, with
+ * vertex ids shuffled (as if assigned upstream) and after each reordering.
+ * Reorder cost covers computing the permutation and building the graph;
+ * the break-even column is how many runs pay it back.
+ * Usage: VertexReorderingBenchmark [gridSide] [dagLayers] [dagWidth]  (run with -Xmx3g)
+ */
+public class VertexReorderingBenchmark {
+
+    public static void main(String[] args) {
+        int side = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int layers = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int width = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+
+        Graph grid = shuffled(cityGrid(side, 2L), 3L);
+        System.out.println("TarjanSCC on a " + side + "x" + side + " city grid with shuffled ids");
+        double baseline = time(() -> new TarjanSCC(grid).findSCCs());
+        report("shuffled", 0, baseline, baseline);
+        for (VertexReordering.Strategy strategy
+                : new VertexReordering.Strategy[] {VertexReordering.Strategy.RCM, VertexReordering.Strategy.DEGREE}) {
+            long start = System.nanoTime();
+            Graph reordered = VertexReordering.of(grid, strategy).apply(grid);
+            double cost = (System.nanoTime() - start) / 1e6;
+            report(strategy.name(), cost, baseline, time(() -> new TarjanSCC(reordered).findSCCs()));
+        }
+
+        Graph dag = shuffled(GraphGenerator.layeredDag(layers, width, 4, 9, 4L), 5L);
+        // The first vertex of layer 0 reaches the whole DAG
+        int source = VertexReordering.fromPermutation(permutation(dag.getVertices(), 5L)).toReordered(0);
+        System.out.println("DAGShortestPath.longestPaths on a " + layers + "x" + width + " layered DAG");
+        DAGShortestPath shuffledPaths = new DAGShortestPath(dag);
+        double dagBaseline = time(() -> shuffledPaths.longestPaths(source));
+        report("shuffled", 0, dagBaseline, dagBaseline);
+        for (VertexReordering.Strategy strategy : VertexReordering.Strategy.values()) {
+            long start = System.nanoTime();
+            VertexReordering reordering = VertexReordering.of(dag, strategy);
+            Graph reordered = reordering.apply(dag);
+            double cost = (System.nanoTime() - start) / 1e6;
+            DAGShortestPath paths = new DAGShortestPath(reordered);
+            int reorderedSource = reordering.toReordered(source);
+            report(strategy.name(), cost, dagBaseline, time(() -> paths.longestPaths(reorderedSource)));
+        }
+    }
+
+    // Directed grid: each block links to its east and south neighbours, one in five links back
+    private static Graph cityGrid(int side, long seed) {
+        Random random = new Random(seed);
+        Graph graph = new Graph(side * side, true);
+        for (int r = 0; r < side; r++) {
+            for (int c = 0; c < side; c++) {
+                int u = r * side + c;
+                if (c + 1 < side) {
+                    graph.addEdge(u, u + 1, 1 + random.nextInt(9));
+                    if (random.nextInt(5) == 0) {
+                        graph.addEdge(u + 1, u, 1 + random.nextInt(9));
+                    }
+                }
+                if (r + 1 < side) {
+                    graph.addEdge(u, u + side, 1 + random.nextInt(9));
+                    if (random.nextInt(5) == 0) {
+                        graph.addEdge(u + side, u, 1 + random.nextInt(9));
+                    }
+                }
+            }
+        }
+        return graph;
+    }
+
+    private static int[] permutation(int n, long seed) {
+        Random random = new Random(seed);
+        int[] ids = new int[n];
+        for (int i = 0; i < n; i++) {
+            ids[i] = i;
+        }
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int t = ids[i];
+            ids[i] = ids[j];
+            ids[j] = t;
+        }
+        return ids;
+    }
+
+    private static Graph shuffled(Graph graph, long seed) {
+        return VertexReordering.fromPermutation(permutation(graph.getVertices(), seed)).apply(graph);
+    }
+
+    // Best of five runs after one warm-up, in milliseconds
+    private static double time(Runnable run) {
+        run.run();
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            long start = System.nanoTime();
+            run.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best / 1e6;
+    }
+
+    private static void report(String label, double cost, double baseline, double millis) {
+        String breakEven = cost == 0 ? "-"
+                : millis < baseline ? String.format("%.1f", cost / (baseline - millis)) : "never";
+        System.out.println(String.format("  %-12s reorder %8.1f ms  run %8.1f ms  speedup %5.2fx  break-even runs %s",
+                label, cost, millis, baseline / millis, breakEven));
+    }
+}
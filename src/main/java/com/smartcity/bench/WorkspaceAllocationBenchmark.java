@@ -0,0 +1,80 @@
+package com.smartcity.bench;
+
+import com.smartcity.common.AlgorithmWorkspace;
+import com.smartcity.common.Graph;
+import com.smartcity.common.GraphGenerator;
+import com.smartcity.graph.dagsp.DAGShortestPath;
+import com.smartcity.graph.scc.TarjanSCC;
+import com.smartcity.graph.topo.KahnTopologicalSort;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Allocation rate of analyzing many small graphs (SCC, topological sort and
+ * shortest paths on each) with fresh scratch arrays per run against a
+ * thread-pooled AlgorithmWorkspace. Bytes come from the thread allocation
+ * counter of the HotSpot ThreadMXBean.
+ * Usage: WorkspaceAllocationBenchmark [graphs] [vertices] [edges]
+ */
+public class WorkspaceAllocationBenchmark {
+
+    public static void main(String[] args) {
+        int graphs = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int vertices = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        int edges = args.length > 2 ? Integer.parseInt(args[2]) : 150;
+
+        // A small pool of inputs, so generating graphs stays out of the measurement
+        Graph[] inputs = new Graph[64];
+        for (int i = 0; i < inputs.length; i++) {
+            inputs[i] = GraphGenerator.randomDag(vertices, edges, 9, i);
+        }
+
+        System.out.println("Workspace allocation benchmark (" + graphs + " graphs of " + vertices
+                + " vertices, " + edges + " edges)");
+        for (int round = 0; round < 2; round++) {
+            boolean last = round == 1;
+            run("fresh arrays", inputs, graphs, false, last);
+            run("AlgorithmWorkspace", inputs, graphs, true, last);
+        }
+    }
+
+    private static void run(String name, Graph[] inputs, int graphs, boolean pooled, boolean print) {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        long gcBefore = gcCount();
+        long bytesBefore = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        long checksum = 0;
+
+        for (int i = 0; i < graphs; i++) {
+            Graph graph = inputs[i % inputs.length];
+            AlgorithmWorkspace workspace = pooled ? AlgorithmWorkspace.forCurrentThread() : null;
+            TarjanSCC scc = pooled ? new TarjanSCC(graph, workspace) : new TarjanSCC(graph);
+            KahnTopologicalSort topo = pooled
+                    ? new KahnTopologicalSort(graph, workspace) : new KahnTopologicalSort(graph);
+            // A fresh workspace per graph measures the same flattening without buffer reuse
+            DAGShortestPath dagsp = new DAGShortestPath(graph, pooled ? workspace : new AlgorithmWorkspace());
+            checksum += scc.findSCCs().getComponents().size();
+            checksum += topo.topologicalSort().getOrder().get(0);
+            checksum += dagsp.shortestPaths(0).getDistances()[graph.getVertices() - 1] & 0xff;
+        }
+
+        long nanos = System.nanoTime() - start;
+        long bytes = threads.getThreadAllocatedBytes(thread) - bytesBefore;
+        long gcs = gcCount() - gcBefore;
+        if (print) {
+            System.out.println(String.format("  %-20s %9.0f bytes/graph  %7.2f us/graph  %4d GCs  (checksum %d)",
+                    name, (double) bytes / graphs, nanos / 1e3 / graphs, gcs, checksum));
+        }
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, bean.getCollectionCount());
+        }
+        return count;
+    }
+}
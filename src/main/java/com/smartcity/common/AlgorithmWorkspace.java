@@ -0,0 +1,105 @@
+package com.smartcity.common;
+
+import java.util.Arrays;
+
+/**
+ * Grow-only scratch buffers reused across algorithm runs.
+ *
+ * Analyzing many small graphs back to back spends most of its allocation on
+ * per-run temporaries (discovery times, in-degrees, queues, distance
+ * arrays). A workspace keeps those buffers between runs: each buffer is
+ * addressed by a small slot number and only reallocated when a run needs
+ * more room than any earlier one. After warm-up, a run allocates only its
+ * outputs.
+ *
+ * Buffer contents are not cleared; callers initialize the prefix they use.
+ * A buffer stays valid until the next request for the same slot, so an
+ * algorithm must not hold workspace buffers while it runs another algorithm
+ * on the same workspace. A workspace is not thread-safe: pass one per
+ * thread, or use {@link #forCurrentThread()}.
+ *
+ * Complexity: O(1) per buffer request after warm-up; memory is the largest
+ * request per slot
+ */
+public final class AlgorithmWorkspace {
+    private static final ThreadLocal<AlgorithmWorkspace> PER_THREAD =
+            ThreadLocal.withInitial(AlgorithmWorkspace::new);
+
+    private int[][] ints = new int[8][];
+    private long[][] longs = new long[2][];
+    private long grows;
+
+    /**
+     * Get the workspace pooled for the calling thread.
+     * @return Thread-local workspace
+     */
+    public static AlgorithmWorkspace forCurrentThread() {
+        return PER_THREAD.get();
+    }
+
+    /**
+     * Get an int buffer of at least the requested length.
+     * @param slot Buffer number, chosen by the algorithm
+     * @param length Minimum length
+     * @return Buffer with unspecified contents
+     */
+    public int[] ints(int slot, int length) {
+        if (slot >= ints.length) {
+            ints = Arrays.copyOf(ints, Math.max(slot + 1, ints.length * 2));
+        }
+        int[] buffer = ints[slot];
+        if (buffer == null || buffer.length < length) {
+            buffer = new int[grow(buffer == null ? 0 : buffer.length, length)];
+            ints[slot] = buffer;
+        }
+        return buffer;
+    }
+
+    /**
+     * Get a long buffer of at least the requested length.
+     * @param slot Buffer number, chosen by the algorithm
+     * @param length Minimum length
+     * @return Buffer with unspecified contents
+     */
+    public long[] longs(int slot, int length) {
+        if (slot >= longs.length) {
+            longs = Arrays.copyOf(longs, Math.max(slot + 1, longs.length * 2));
+        }
+        long[] buffer = longs[slot];
+        if (buffer == null || buffer.length < length) {
+            buffer = new long[grow(buffer == null ? 0 : buffer.length, length)];
+            longs[slot] = buffer;
+        }
+        return buffer;
+    }
+
+    // At least 1.5x the old capacity, so a slowly growing series reallocates O(log n) times
+    private int grow(int current, int length) {
+        grows++;
+        long target = Math.max((long) length, current + (current >> 1));
+        return (int) Math.min(target, Integer.MAX_VALUE - 8);
+    }
+
+    /**
+     * Get number of buffer allocations so far.
+     * @return Allocation count; constant once the workspace is warm
+     */
+    public long getGrowCount() {
+        return grows;
+    }
+
+    /**
+     * Get memory held by the buffers.
+     * @return Bytes of buffer payload
+     */
+    public long getFootprintBytes() {
+        long bytes = 0;
+        for (int[] buffer : ints) {
+            bytes += buffer == null ? 0 : 4L * buffer.length;
+        }
+        for (long[] buffer : longs) {
+            bytes += buffer == null ? 0 : 8L * buffer.length;
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,202 @@
+package com.smartcity.common;
+
+import java.util.Arrays;
+
+/**
+ * Dense directed graph stored as an adjacency bit matrix.
+ *
+ * Row u is a bitset of u's successors, packed into words() longs starting
+ * at u * words() of one flat array; bit v of the row is word v >>> 6, bit
+ * v & 63. Parallel edges collapse and weights are dropped, so the matrix
+ * serves structural analyses (components, orders, reachability) only.
+ *
+ * At V^2 / 8 bytes the matrix is smaller than a CSR once a graph has more
+ * than about one edge in 32 vertex pairs, and set operations on whole rows
+ * handle 64 vertices per instruction. Sparse graphs should stay in CSR.
+ *
+ * Complexity: O(V^2 / 64) words
+ */
+public final class BitMatrixGraph {
+    private final int vertices;
+    private final int words;
+    private final long[] rows;
+
+    /**
+     * Wrap an existing row array.
+     * @param vertices Number of vertices
+     * @param rows vertices * ((vertices + 63) / 64) words; bits past the last vertex must be clear
+     * @throws IllegalArgumentException if the array length does not match
+     */
+    public BitMatrixGraph(int vertices, long[] rows) {
+        int words = wordsFor(vertices);
+        if (rows.length != (long) vertices * words) {
+            throw new IllegalArgumentException("rows must have length vertices * " + words);
+        }
+        this.vertices = vertices;
+        this.words = words;
+        this.rows = rows;
+    }
+
+    /**
+     * Build the matrix of a whole graph.
+     * @param graph Directed graph
+     * @return Bit matrix with the same edges
+     * @throws IllegalArgumentException if the matrix would exceed the array size limit
+     * @complexity O(V^2 / 64 + E)
+     */
+    public static BitMatrixGraph of(Graph graph) {
+        int n = graph.getVertices();
+        int[] identity = new int[n];
+        for (int v = 0; v < n; v++) {
+            identity[v] = v;
+        }
+        return induced(graph, identity, null);
+    }
+
+    /**
+     * Build the matrix of the subgraph induced by some vertices.
+     * @param graph Whole graph; a compressed graph is decoded sequentially
+     * @param vertices Vertices of the subgraph; local id i is vertices[i]
+     * @param localIds Scratch map from global to local ids, -1 outside the subgraph; null to build one
+     * @return Bit matrix over local ids, without edges that leave the subgraph
+     * @throws IllegalArgumentException if the matrix would exceed the array size limit
+     * @complexity O(V_sub^2 / 64 + edges of the subgraph's vertices)
+     */
+    public static BitMatrixGraph induced(Graph graph, int[] vertices, int[] localIds) {
+        int n = vertices.length;
+        int words = wordsFor(n);
+        if ((long) n * words > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Bit matrix for " + n + " vertices exceeds the array size limit");
+        }
+        boolean scratch = localIds != null;
+        if (!scratch) {
+            localIds = new int[graph.getVertices()];
+            Arrays.fill(localIds, -1);
+        }
+        for (int i = 0; i < n; i++) {
+            localIds[vertices[i]] = i;
+        }
+        long[] rows = new long[n * words];
+        for (int i = 0; i < n; i++) {
+            for (Graph.Edge edge : graph.getAdjacentEdges(vertices[i])) {
+                int v = localIds[edge.to];
+                if (v >= 0) {
+                    rows[i * words + (v >>> 6)] |= 1L << v;
+                }
+            }
+        }
+        if (scratch) {
+            for (int v : vertices) {
+                localIds[v] = -1;
+            }
+        }
+        return new BitMatrixGraph(n, rows);
+    }
+
+    /**
+     * Number of longs per row.
+     * @param vertices Number of vertices
+     * @return ceil(vertices / 64)
+     */
+    public static int wordsFor(int vertices) {
+        return (vertices + 63) >>> 6;
+    }
+
+    public int getVertices() {
+        return vertices;
+    }
+
+    /**
+     * Get the number of longs per row.
+     * @return Row stride of rows()
+     */
+    public int words() {
+        return words;
+    }
+
+    /**
+     * Get the shared row array; callers must treat it as read-only.
+     * @return Rows, row u at u * words()
+     */
+    public long[] rows() {
+        return rows;
+    }
+
+    /**
+     * Check for an edge.
+     * @param u Source vertex
+     * @param v Target vertex
+     * @return True if u -> v exists
+     * @complexity O(1)
+     */
+    public boolean hasEdge(int u, int v) {
+        return (rows[u * words + (v >>> 6)] & (1L << v)) != 0;
+    }
+
+    /**
+     * Count distinct edges.
+     * @return Number of set bits
+     * @complexity O(V^2 / 64)
+     */
+    public long getEdgeCount() {
+        long count = 0;
+        for (long word : rows) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * Get the fraction of vertex pairs that are edges.
+     * @return E / V^2, 0 for an empty graph
+     * @complexity O(V^2 / 64)
+     */
+    public double getDensity() {
+        return vertices == 0 ? 0 : getEdgeCount() / ((double) vertices * vertices);
+    }
+
+    /**
+     * Build the matrix of the reversed graph, one 64 x 64 block at a time.
+     * @return Transposed matrix
+     * @complexity O(V^2 / 64 * log 64), independent of E
+     */
+    public BitMatrixGraph transpose() {
+        long[] columns = new long[rows.length];
+        long[] block = new long[64];
+        for (int bi = 0; bi < words; bi++) {
+            int rowCount = Math.min(64, vertices - (bi << 6));
+            for (int bj = 0; bj < words; bj++) {
+                boolean empty = true;
+                for (int r = 0; r < rowCount; r++) {
+                    block[r] = rows[((bi << 6) + r) * words + bj];
+                    empty &= block[r] == 0;
+                }
+                if (empty) {
+                    continue;
+                }
+                Arrays.fill(block, rowCount, 64, 0);
+                transpose64(block);
+                int columnCount = Math.min(64, vertices - (bj << 6));
+                for (int c = 0; c < columnCount; c++) {
+                    columns[((bj << 6) + c) * words + bi] = block[c];
+                }
+            }
+        }
+        return new BitMatrixGraph(vertices, columns);
+    }
+
+    // In-place transpose of a 64 x 64 bit block (bit c of word r moves to bit r of word c),
+    // swapping off-diagonal sub-blocks of halving size
+    private static void transpose64(long[] block) {
+        long mask = 0x00000000FFFFFFFFL;
+        for (int j = 32; j != 0; j >>>= 1, mask ^= mask << j) {
+            for (int k = 0; k < 64; k++) {
+                if ((k & j) == 0) {
+                    long t = ((block[k] >>> j) ^ block[k | j]) & mask;
+                    block[k] ^= t << j;
+                    block[k | j] ^= t;
+                }
+            }
+        }
+    }
+}
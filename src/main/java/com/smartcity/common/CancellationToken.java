@@ -0,0 +1,141 @@
+package com.smartcity.common;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cooperative cancellation, deadline and progress channel for one analysis
+ * request.
+ *
+ * Algorithms count the edges they scan and the vertices they finish, and
+ * hand both to {@link #checkpoint} once {@link #CHECK_INTERVAL} edges have
+ * been scanned since the last call, so the inner loops pay one counter
+ * comparison. A checkpoint adds the counts to the request totals, reports
+ * the totals to the progress listener and throws
+ * {@link CancellationException} once the token is cancelled or past its
+ * deadline. The exception extends IllegalStateException; results are only
+ * returned by runs that complete.
+ *
+ * Totals accumulate over every algorithm that shares the token, so one token
+ * can cover a whole pipeline (SCC, sort, paths). The token is thread-safe;
+ * parallel algorithms report from every worker.
+ *
+ * Complexity: O(1) per checkpoint
+ */
+public final class CancellationToken {
+    // Edge scans between checkpoints
+    public static final int CHECK_INTERVAL = 4096;
+
+    /**
+     * A token that is never cancelled and reports nowhere. It is shared by
+     * every algorithm without a token of its own, so cancel() ignores it.
+     */
+    public static final CancellationToken NONE = new CancellationToken(Long.MAX_VALUE, null);
+
+    /**
+     * Receives request totals at every checkpoint.
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+        /**
+         * @param verticesFinished Vertices finished so far by all algorithms on the token
+         * @param edgesScanned Edges scanned so far by all algorithms on the token
+         */
+        void progress(long verticesFinished, long edgesScanned);
+    }
+
+    private final long deadlineNanos;
+    private final ProgressListener listener;
+    private final AtomicLong verticesFinished = new AtomicLong();
+    private final AtomicLong edgesScanned = new AtomicLong();
+    private volatile boolean cancelled;
+
+    private CancellationToken(long deadlineNanos, ProgressListener listener) {
+        this.deadlineNanos = deadlineNanos;
+        this.listener = listener;
+    }
+
+    /**
+     * Create a token that is only cancelled by {@link #cancel()}.
+     * @return New token
+     */
+    public static CancellationToken create() {
+        return new CancellationToken(Long.MAX_VALUE, null);
+    }
+
+    /**
+     * Create a token that expires after a latency budget.
+     * @param budget Time allowed, measured from now
+     * @param unit Unit of budget
+     * @return New token
+     */
+    public static CancellationToken withDeadline(long budget, TimeUnit unit) {
+        return new CancellationToken(System.nanoTime() + unit.toNanos(budget), null);
+    }
+
+    /**
+     * Copy the deadline with a progress listener; totals start at zero.
+     * @param listener Called from the algorithm's thread at every checkpoint
+     * @return New token
+     */
+    public CancellationToken withProgress(ProgressListener listener) {
+        return new CancellationToken(deadlineNanos, listener);
+    }
+
+    /**
+     * Request cancellation; algorithms stop at their next checkpoint.
+     * Has no effect on {@link #NONE}.
+     */
+    public void cancel() {
+        if (this != NONE) {
+            cancelled = true;
+        }
+    }
+
+    /**
+     * Check whether the token is cancelled or past its deadline.
+     * @return True if algorithms on this token should stop
+     */
+    public boolean isCancelled() {
+        return cancelled || deadlineNanos != Long.MAX_VALUE && System.nanoTime() - deadlineNanos > 0;
+    }
+
+    /**
+     * Record work since the last call and stop if the request is cancelled.
+     * @param vertices Vertices finished since the last call
+     * @param edges Edges scanned since the last call
+     * @throws CancellationException if the token is cancelled or past its deadline
+     */
+    public void checkpoint(long vertices, long edges) {
+        report(vertices, edges);
+        if (isCancelled()) {
+            throw new CancellationException(cancelled ? "Analysis cancelled"
+                    : "Analysis deadline exceeded after " + edgesScanned.get() + " edge scans");
+        }
+    }
+
+    /**
+     * Record work without checking for cancellation, e.g. the remainder when an algorithm ends.
+     * @param vertices Vertices finished since the last call
+     * @param edges Edges scanned since the last call
+     */
+    public void report(long vertices, long edges) {
+        if (this == NONE || vertices == 0 && edges == 0) {
+            return;
+        }
+        long totalVertices = verticesFinished.addAndGet(vertices);
+        long totalEdges = edgesScanned.addAndGet(edges);
+        if (listener != null) {
+            listener.progress(totalVertices, totalEdges);
+        }
+    }
+
+    public long getVerticesFinished() {
+        return verticesFinished.get();
+    }
+
+    public long getEdgesScanned() {
+        return edgesScanned.get();
+    }
+}
@@ -0,0 +1,145 @@
+package com.smartcity.common;
+
+import java.util.Arrays;
+
+/**
+ * Immutable compressed bitmap over vertex ids.
+ * Only non-zero 64-bit words are stored, each with its word index, so sparse
+ * sets cost O(set words) space instead of O(V/64).
+ *
+ * Complexity: O(log W) membership test for W stored words
+ */
+public final class CompressedBitmap {
+    private static final CompressedBitmap EMPTY = new CompressedBitmap(new int[0], new long[0], 0);
+
+    private final int[] wordIndexes;
+    private final long[] words;
+    private final int cardinality;
+
+    private CompressedBitmap(int[] wordIndexes, long[] words, int cardinality) {
+        this.wordIndexes = wordIndexes;
+        this.words = words;
+        this.cardinality = cardinality;
+    }
+
+    /**
+     * Get the empty bitmap.
+     * @return Bitmap with no bits set
+     */
+    public static CompressedBitmap empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Compress a dense bitmap.
+     * @param dense Dense words; bit i is stored in word i / 64
+     * @return Compressed copy
+     */
+    public static CompressedBitmap of(long[] dense) {
+        Builder builder = new Builder();
+        for (int w = 0; w < dense.length; w++) {
+            if (dense[w] != 0) {
+                builder.appendWord(w, dense[w]);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Test membership.
+     * @param index Bit index
+     * @return true if the bit is set
+     */
+    public boolean contains(int index) {
+        int pos = Arrays.binarySearch(wordIndexes, index >>> 6);
+        return pos >= 0 && (words[pos] & (1L << index)) != 0;
+    }
+
+    /**
+     * Get number of set bits.
+     * @return Cardinality
+     */
+    public int cardinality() {
+        return cardinality;
+    }
+
+    /**
+     * Get number of stored (non-zero) words.
+     * @return Stored word count
+     */
+    public int storedWords() {
+        return words.length;
+    }
+
+    /**
+     * List set bits in increasing order.
+     * @return Array of set bit indexes
+     */
+    public int[] toArray() {
+        int[] result = new int[cardinality];
+        int pos = 0;
+        for (int i = 0; i < words.length; i++) {
+            long word = words[i];
+            int base = wordIndexes[i] << 6;
+            while (word != 0) {
+                result[pos++] = base + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Incremental builder; bits must be added in increasing order.
+     */
+    public static final class Builder {
+        private int[] wordIndexes = new int[4];
+        private long[] words = new long[4];
+        private int size;
+        private int cardinality;
+
+        /**
+         * Set a bit that is not smaller than any bit added before.
+         * @param index Bit index
+         * @return This builder
+         */
+        public Builder add(int index) {
+            int word = index >>> 6;
+            if (size > 0 && wordIndexes[size - 1] == word) {
+                long before = words[size - 1];
+                words[size - 1] |= 1L << index;
+                if (before != words[size - 1]) {
+                    cardinality++;
+                }
+            } else {
+                appendWord(word, 1L << index);
+            }
+            return this;
+        }
+
+        private void appendWord(int word, long bits) {
+            if (size > 0 && wordIndexes[size - 1] >= word) {
+                throw new IllegalArgumentException("Bits must be added in increasing order");
+            }
+            if (size == words.length) {
+                wordIndexes = Arrays.copyOf(wordIndexes, size * 2);
+                words = Arrays.copyOf(words, size * 2);
+            }
+            wordIndexes[size] = word;
+            words[size] = bits;
+            size++;
+            cardinality += Long.bitCount(bits);
+        }
+
+        /**
+         * Build the bitmap.
+         * @return Immutable bitmap
+         */
+        public CompressedBitmap build() {
+            if (size == 0) {
+                return EMPTY;
+            }
+            return new CompressedBitmap(Arrays.copyOf(wordIndexes, size), Arrays.copyOf(words, size), cardinality);
+        }
+    }
+}
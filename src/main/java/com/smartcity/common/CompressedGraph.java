@@ -0,0 +1,463 @@
+package com.smartcity.common;
+
+import java.util.*;
+
+/**
+ * Read-only compressed graph for very large inputs.
+ *
+ * Neighbor lists are sorted by target and gap-encoded as variable-length
+ * integers (7 bits per byte). The first target of a list is stored as a
+ * zig-zag delta from the source vertex, and every later target as the gap
+ * from the previous one. The byte stream is split into pages of at most
+ * 1 GiB, so it can exceed the 2 GiB array limit. Weights are stored in a
+ * separate bit-packed stream as (weight - minWeight), using the smallest
+ * bit width that holds the weight range.
+ *
+ * The class extends {@link Graph}, so TarjanSCC, the topological sorts and
+ * DAGShortestPath run on it unchanged. getAdjacentEdges returns a lazily
+ * decoded view whose iterator decodes sequentially. For allocation-free
+ * scans use {@link #cursor()}.
+ *
+ * Complexity: O(V) offsets plus O(sum of varint gap bytes + E * weightBits / 8) space
+ */
+public final class CompressedGraph extends Graph {
+    private static final int PAGE_BITS = 30;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    private final byte[][] pages;
+    private final long[] byteOffsets;
+    private final long[] edgeOffsets;
+    private final long[] weightWords;
+    private final int weightBits;
+    private final int minWeight;
+
+    private CompressedGraph(int vertices, boolean directed, byte[][] pages, long[] byteOffsets,
+                            long[] edgeOffsets, long[] weightWords, int weightBits, int minWeight) {
+        super(vertices, null, directed);
+        this.pages = pages;
+        this.byteOffsets = byteOffsets;
+        this.edgeOffsets = edgeOffsets;
+        this.weightWords = weightWords;
+        this.weightBits = weightBits;
+        this.minWeight = minWeight;
+    }
+
+    /**
+     * Compress an adjacency-list graph, reading the lists directly so no
+     * flattened copy is built next to them.
+     * @param graph Source graph
+     * @return Compressed copy with sorted neighbor lists
+     * @complexity O(V + E log d) time for maximum out-degree d
+     */
+    public static CompressedGraph of(Graph graph) {
+        CompressedGraph compressed;
+        if (graph instanceof CompressedGraph) {
+            compressed = of(CsrGraph.of(graph), graph.isDirected());
+        } else {
+            compressed = encode(graph.getVertices(), graph.isDirected(), new Rows() {
+                @Override
+                public int degree(int u) {
+                    return graph.getAdjacentEdges(u).size();
+                }
+
+                @Override
+                public int target(int u, int i) {
+                    return graph.getAdjacentEdges(u).get(i).to;
+                }
+
+                @Override
+                public int weight(int u, int i) {
+                    return graph.getAdjacentEdges(u).get(i).weight;
+                }
+            });
+        }
+        compressed.setWeightModel(graph.getWeightModel());
+        for (int v = 0; v < graph.getVertices(); v++) {
+            if (graph.getNodeWeight(v) != 0) {
+                compressed.setNodeWeight(v, graph.getNodeWeight(v));
+            }
+        }
+        return compressed;
+    }
+
+    /**
+     * Compress CSR arrays.
+     * @param csr Source CSR graph
+     * @param directed Directed flag of the result
+     * @return Compressed copy with sorted neighbor lists
+     * @complexity O(V + E log d) time for maximum out-degree d
+     */
+    public static CompressedGraph of(CsrGraph csr, boolean directed) {
+        int[] offsets = csr.offsets();
+        int[] targets = csr.targets();
+        int[] weights = csr.weights();
+        return encode(csr.getVertices(), directed, new Rows() {
+            @Override
+            public int degree(int u) {
+                return offsets[u + 1] - offsets[u];
+            }
+
+            @Override
+            public int target(int u, int i) {
+                return targets[offsets[u] + i];
+            }
+
+            @Override
+            public int weight(int u, int i) {
+                return weights[offsets[u] + i];
+            }
+        });
+    }
+
+    // Neighbor lists of the graph being compressed, read by position
+    private interface Rows {
+        int degree(int u);
+
+        int target(int u, int i);
+
+        int weight(int u, int i);
+    }
+
+    private static CompressedGraph encode(int n, boolean directed, Rows rows) {
+        int minWeight = Integer.MAX_VALUE;
+        long maxWeight = Integer.MIN_VALUE;
+        long m = 0;
+        for (int u = 0; u < n; u++) {
+            int degree = rows.degree(u);
+            for (int i = 0; i < degree; i++) {
+                minWeight = Math.min(minWeight, rows.weight(u, i));
+                maxWeight = Math.max(maxWeight, rows.weight(u, i));
+            }
+            m += degree;
+        }
+        if (m == 0) {
+            minWeight = 0;
+            maxWeight = 0;
+        }
+        long range = maxWeight - minWeight;
+        int weightBits = range == 0 ? 0 : 64 - Long.numberOfLeadingZeros(range);
+        long[] weightWords = new long[Math.toIntExact((m * weightBits + 63) >>> 6)];
+
+        ByteSink sink = new ByteSink();
+        long[] byteOffsets = new long[n + 1];
+        long[] edgeOffsets = new long[n + 1];
+        long[] order = new long[0];
+        long edgeIndex = 0;
+
+        for (int u = 0; u < n; u++) {
+            byteOffsets[u] = sink.size();
+            edgeOffsets[u] = edgeIndex;
+            int degree = rows.degree(u);
+            if (order.length < degree) {
+                order = new long[Math.max(degree, order.length * 2)];
+            }
+            // Sort (target, original position) pairs so weights follow their targets
+            for (int i = 0; i < degree; i++) {
+                order[i] = ((long) rows.target(u, i) << 32) | i;
+            }
+            Arrays.sort(order, 0, degree);
+
+            int previous = u;
+            for (int i = 0; i < degree; i++) {
+                int position = (int) order[i];
+                int target = rows.target(u, position);
+                if (i == 0) {
+                    sink.writeVarLong(zigZag((long) target - u));
+                } else {
+                    sink.writeVarLong(target - previous);
+                }
+                previous = target;
+                writeBits(weightWords, edgeIndex * weightBits, weightBits, rows.weight(u, position) - (long) minWeight);
+                edgeIndex++;
+            }
+        }
+        byteOffsets[n] = sink.size();
+        edgeOffsets[n] = edgeIndex;
+
+        return new CompressedGraph(n, directed, sink.pages(), byteOffsets, edgeOffsets,
+                weightWords, weightBits, minWeight);
+    }
+
+    /**
+     * Compressed graphs are read-only.
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void addEdge(int u, int v, int weight) {
+        throw new UnsupportedOperationException("CompressedGraph is read-only");
+    }
+
+    /**
+     * Get a lazily decoded view of the outgoing edges.
+     * Iteration is sequential and O(1) per edge; get(i) is O(i).
+     * @param vertex Source vertex
+     * @return Unmodifiable list of decoded edges, sorted by target
+     */
+    @Override
+    public List<Edge> getAdjacentEdges(int vertex) {
+        return new EdgeView(vertex);
+    }
+
+    /**
+     * Get out-degree of a vertex.
+     * @param vertex Vertex
+     * @return Number of outgoing edges
+     */
+    public int degree(int vertex) {
+        return (int) (edgeOffsets[vertex + 1] - edgeOffsets[vertex]);
+    }
+
+    /**
+     * Get number of stored edges.
+     * @return Edge count
+     */
+    public long getEdgeCount() {
+        return edgeOffsets[getVertices()];
+    }
+
+    /**
+     * Create a reusable cursor for allocation-free neighbor scans.
+     * @return New cursor, not positioned on any vertex
+     */
+    public NeighborCursor cursor() {
+        return new NeighborCursor();
+    }
+
+    /**
+     * Get size of the gap-encoded adjacency stream.
+     * @return Bytes
+     */
+    public long getAdjacencyBytes() {
+        return byteOffsets[getVertices()];
+    }
+
+    /**
+     * Get compressed size per edge, excluding the per-vertex offset tables.
+     * @return Bits per edge of the adjacency and weight streams
+     */
+    public double getBitsPerEdge() {
+        long m = getEdgeCount();
+        return m == 0 ? 0.0 : (getAdjacencyBytes() * 8.0 + (double) m * weightBits) / m;
+    }
+
+    /**
+     * Get total footprint of the compressed structure.
+     * @return Bytes of adjacency stream, weight stream and offset tables
+     */
+    public long getTotalBytes() {
+        return getAdjacencyBytes() + weightWords.length * 8L + (byteOffsets.length + edgeOffsets.length) * 8L;
+    }
+
+    /**
+     * Get bit width of the packed weight stream.
+     * @return Bits per weight
+     */
+    public int getWeightBits() {
+        return weightBits;
+    }
+
+    private byte byteAt(long position) {
+        return pages[(int) (position >>> PAGE_BITS)][(int) (position & PAGE_MASK)];
+    }
+
+    private int weightAt(long edgeIndex) {
+        return (int) (minWeight + readBits(weightWords, edgeIndex * weightBits, weightBits));
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeBits(long[] words, long bitPos, int bits, long value) {
+        if (bits == 0) {
+            return;
+        }
+        int word = (int) (bitPos >>> 6);
+        int shift = (int) (bitPos & 63);
+        words[word] |= value << shift;
+        if (shift + bits > 64) {
+            words[word + 1] |= value >>> (64 - shift);
+        }
+    }
+
+    private static long readBits(long[] words, long bitPos, int bits) {
+        if (bits == 0) {
+            return 0;
+        }
+        int word = (int) (bitPos >>> 6);
+        int shift = (int) (bitPos & 63);
+        long value = words[word] >>> shift;
+        if (shift + bits > 64) {
+            value |= words[word + 1] << (64 - shift);
+        }
+        return bits == 64 ? value : value & ((1L << bits) - 1);
+    }
+
+    /**
+     * Sequential decoder over one vertex's neighbor list.
+     * Reuse one cursor per thread to avoid allocation.
+     */
+    public final class NeighborCursor {
+        private long position;
+        private long edgeIndex;
+        private long endEdge;
+        private int source;
+        private int target;
+        private int weight;
+        private boolean first;
+
+        private NeighborCursor() {
+        }
+
+        /**
+         * Position the cursor before the first neighbor of a vertex.
+         * @param vertex Source vertex
+         * @return This cursor
+         */
+        public NeighborCursor reset(int vertex) {
+            source = vertex;
+            position = byteOffsets[vertex];
+            edgeIndex = edgeOffsets[vertex];
+            endEdge = edgeOffsets[vertex + 1];
+            first = true;
+            return this;
+        }
+
+        /**
+         * Advance to the next neighbor.
+         * @return false when the list is exhausted
+         */
+        public boolean next() {
+            if (edgeIndex >= endEdge) {
+                return false;
+            }
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = byteAt(position++);
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+
+            target = first ? (int) (source + unZigZag(value)) : (int) (target + value);
+            first = false;
+            weight = weightAt(edgeIndex++);
+            return true;
+        }
+
+        /**
+         * Get current target.
+         * @return Target vertex
+         */
+        public int target() {
+            return target;
+        }
+
+        /**
+         * Get current weight.
+         * @return Edge weight
+         */
+        public int weight() {
+            return weight;
+        }
+    }
+
+    /**
+     * Lazily decoded adjacency list of one vertex.
+     */
+    private final class EdgeView extends AbstractList<Edge> {
+        private final int vertex;
+
+        EdgeView(int vertex) {
+            this.vertex = vertex;
+        }
+
+        @Override
+        public int size() {
+            return degree(vertex);
+        }
+
+        @Override
+        public Edge get(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException("Index " + index + ", size " + size());
+            }
+            NeighborCursor cursor = new NeighborCursor().reset(vertex);
+            for (int i = 0; i <= index; i++) {
+                cursor.next();
+            }
+            return new Edge(cursor.target(), cursor.weight());
+        }
+
+        @Override
+        public Iterator<Edge> iterator() {
+            NeighborCursor cursor = new NeighborCursor().reset(vertex);
+            return new Iterator<Edge>() {
+                private int remaining = size();
+
+                @Override
+                public boolean hasNext() {
+                    return remaining > 0;
+                }
+
+                @Override
+                public Edge next() {
+                    if (remaining == 0) {
+                        throw new NoSuchElementException();
+                    }
+                    remaining--;
+                    cursor.next();
+                    return new Edge(cursor.target(), cursor.weight());
+                }
+            };
+        }
+    }
+
+    /**
+     * Growable paged byte buffer used while encoding.
+     */
+    private static final class ByteSink {
+        private final List<byte[]> pages = new ArrayList<>();
+        private byte[] current = new byte[1024];
+        private int used;
+        private long flushed;
+
+        long size() {
+            return flushed + used;
+        }
+
+        void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                writeByte((byte) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            writeByte((byte) value);
+        }
+
+        private void writeByte(byte b) {
+            if (used == current.length) {
+                if (current.length < PAGE_SIZE) {
+                    current = Arrays.copyOf(current, (int) Math.min(PAGE_SIZE, current.length * 2L));
+                } else {
+                    pages.add(current);
+                    flushed += used;
+                    current = new byte[1024];
+                    used = 0;
+                }
+            }
+            current[used++] = b;
+        }
+
+        byte[][] pages() {
+            List<byte[]> all = new ArrayList<>(pages);
+            all.add(Arrays.copyOf(current, used));
+            return all.toArray(new byte[0][]);
+        }
+    }
+}
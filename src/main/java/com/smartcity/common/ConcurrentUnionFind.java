@@ -0,0 +1,88 @@
+package com.smartcity.common;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Lock-free disjoint sets over vertices 0..n-1.
+ *
+ * Parents live in an AtomicIntegerArray. union links the root with the
+ * larger id below the root with the smaller id using one compare-and-set,
+ * retrying when another thread moved either root first; since links always
+ * point to smaller ids, no cycle can form. find compresses paths by path
+ * splitting: every visited vertex is swung to its grandparent with a CAS
+ * that is simply skipped when it loses a race, which keeps paths short
+ * without any locking. The root of a set is always its smallest vertex.
+ *
+ * Complexity: O(log n) amortized per operation (path splitting without ranks), O(n) space
+ */
+public final class ConcurrentUnionFind {
+    private final AtomicIntegerArray parent;
+
+    /**
+     * Create n singleton sets.
+     * @param n Number of elements
+     */
+    public ConcurrentUnionFind(int n) {
+        this.parent = new AtomicIntegerArray(n);
+        for (int i = 0; i < n; i++) {
+            parent.set(i, i);
+        }
+    }
+
+    /**
+     * Find the representative of an element's set.
+     * @param x Element
+     * @return Smallest element of the set at some point during the call
+     */
+    public int find(int x) {
+        while (true) {
+            int p = parent.get(x);
+            if (p == x) {
+                return x;
+            }
+            int grandparent = parent.get(p);
+            if (grandparent != p) {
+                parent.compareAndSet(x, p, grandparent);
+            }
+            x = p;
+        }
+    }
+
+    /**
+     * Merge the sets of two elements.
+     * @param a Element
+     * @param b Element
+     * @return True if this call merged two different sets
+     */
+    public boolean union(int a, int b) {
+        while (true) {
+            a = find(a);
+            b = find(b);
+            if (a == b) {
+                return false;
+            }
+            if (a < b) {
+                int t = a;
+                a = b;
+                b = t;
+            }
+            if (parent.compareAndSet(a, a, b)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Check whether two elements are in the same set; only stable once unions have stopped.
+     * @param a Element
+     * @param b Element
+     * @return True if both have the same representative
+     */
+    public boolean connected(int a, int b) {
+        return find(a) == find(b);
+    }
+
+    public int size() {
+        return parent.length();
+    }
+}
@@ -0,0 +1,236 @@
+package com.smartcity.common;
+
+/**
+ * Compressed sparse row (CSR) view of a directed graph.
+ * Outgoing edges of vertex u occupy positions offsets[u]..offsets[u+1]-1
+ * of the targets and weights arrays. That position is the edge id, so
+ * edge ids follow source vertex order and then adjacency-list order.
+ *
+ * The arrays are shared, not copied; callers must treat them as read-only.
+ *
+ * Complexity: O(V+E) space
+ */
+public final class CsrGraph {
+    private final int vertices;
+    private final int[] offsets;
+    private final int[] targets;
+    private final int[] weights;
+
+    /**
+     * Wrap existing CSR arrays.
+     * @param vertices Number of vertices
+     * @param offsets Offsets array of length vertices + 1
+     * @param targets Edge targets
+     * @param weights Edge weights, parallel to targets
+     */
+    public CsrGraph(int vertices, int[] offsets, int[] targets, int[] weights) {
+        if (offsets.length != vertices + 1) {
+            throw new IllegalArgumentException("offsets must have length vertices + 1");
+        }
+        if (targets.length < offsets[vertices] || weights.length < offsets[vertices]) {
+            throw new IllegalArgumentException("targets/weights shorter than edge count");
+        }
+        this.vertices = vertices;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+    }
+
+    /**
+     * Flatten an adjacency-list graph into CSR arrays.
+     * Nothing is cached on the graph: each call is a fresh copy that callers
+     * keep only as long as they need it. Compressed graphs decode through
+     * their cursor, but algorithms that must stay within a compressed
+     * footprint should scan the cursor instead of calling this.
+     * @param graph Source graph
+     * @return CSR copy with the same edges in the same order
+     * @complexity O(V+E) time and space
+     */
+    public static CsrGraph of(Graph graph) {
+        if (graph instanceof CompressedGraph) {
+            return of((CompressedGraph) graph);
+        }
+        int n = graph.getVertices();
+        int[] offsets = new int[n + 1];
+        for (int u = 0; u < n; u++) {
+            offsets[u + 1] = offsets[u] + graph.getAdjacentEdges(u).size();
+        }
+        int[] targets = new int[offsets[n]];
+        int[] weights = new int[offsets[n]];
+        for (int u = 0; u < n; u++) {
+            int pos = offsets[u];
+            for (Graph.Edge edge : graph.getAdjacentEdges(u)) {
+                targets[pos] = edge.to;
+                weights[pos] = edge.weight;
+                pos++;
+            }
+        }
+        return new CsrGraph(n, offsets, targets, weights);
+    }
+
+    private static CsrGraph of(CompressedGraph graph) {
+        int n = graph.getVertices();
+        int[] offsets = new int[n + 1];
+        for (int u = 0; u < n; u++) {
+            offsets[u + 1] = offsets[u] + graph.degree(u);
+        }
+        int[] targets = new int[offsets[n]];
+        int[] weights = new int[offsets[n]];
+        CompressedGraph.NeighborCursor cursor = graph.cursor();
+        for (int u = 0; u < n; u++) {
+            cursor.reset(u);
+            for (int e = offsets[u]; cursor.next(); e++) {
+                targets[e] = cursor.target();
+                weights[e] = cursor.weight();
+            }
+        }
+        return new CsrGraph(n, offsets, targets, weights);
+    }
+
+    /**
+     * Flatten the subgraph induced by some vertices, scanning only their
+     * adjacency. Compressed graphs decode through their cursor, so a small
+     * subgraph of a compressed graph never costs a full CSR.
+     * @param graph Whole graph
+     * @param vertices Vertices of the subgraph; local id i is vertices[i]
+     * @param localIds Map from global to local ids, negative outside the subgraph
+     * @return CSR over local ids in adjacency order, without edges that leave the subgraph
+     * @complexity O(V_sub + edges of the subgraph's vertices)
+     */
+    public static CsrGraph induced(Graph graph, int[] vertices, int[] localIds) {
+        int size = vertices.length;
+        CompressedGraph.NeighborCursor cursor = graph instanceof CompressedGraph
+                ? ((CompressedGraph) graph).cursor() : null;
+        int[] offsets = new int[size + 1];
+        for (int i = 0; i < size; i++) {
+            int kept = 0;
+            if (cursor != null) {
+                for (cursor.reset(vertices[i]); cursor.next(); ) {
+                    kept += localIds[cursor.target()] >= 0 ? 1 : 0;
+                }
+            } else {
+                for (Graph.Edge edge : graph.getAdjacentEdges(vertices[i])) {
+                    kept += localIds[edge.to] >= 0 ? 1 : 0;
+                }
+            }
+            offsets[i + 1] = offsets[i] + kept;
+        }
+        int[] targets = new int[offsets[size]];
+        int[] weights = new int[offsets[size]];
+        for (int i = 0; i < size; i++) {
+            int pos = offsets[i];
+            if (cursor != null) {
+                for (cursor.reset(vertices[i]); cursor.next(); ) {
+                    if (localIds[cursor.target()] >= 0) {
+                        targets[pos] = localIds[cursor.target()];
+                        weights[pos++] = cursor.weight();
+                    }
+                }
+            } else {
+                for (Graph.Edge edge : graph.getAdjacentEdges(vertices[i])) {
+                    if (localIds[edge.to] >= 0) {
+                        targets[pos] = localIds[edge.to];
+                        weights[pos++] = edge.weight;
+                    }
+                }
+            }
+        }
+        return new CsrGraph(size, offsets, targets, weights);
+    }
+
+    /**
+     * Get number of vertices.
+     * @return Vertex count
+     */
+    public int getVertices() {
+        return vertices;
+    }
+
+    /**
+     * Get number of edges.
+     * @return Edge count
+     */
+    public int getEdgeCount() {
+        return offsets[vertices];
+    }
+
+    /**
+     * Get the offsets array (length V+1).
+     * @return Shared offsets array
+     */
+    public int[] offsets() {
+        return offsets;
+    }
+
+    /**
+     * Get the edge target array indexed by edge id.
+     * @return Shared targets array
+     */
+    public int[] targets() {
+        return targets;
+    }
+
+    /**
+     * Get the edge weight array indexed by edge id.
+     * @return Shared weights array
+     */
+    public int[] weights() {
+        return weights;
+    }
+
+    /**
+     * Get out-degree of a vertex.
+     * @param u Vertex
+     * @return Number of outgoing edges
+     */
+    public int degree(int u) {
+        return offsets[u + 1] - offsets[u];
+    }
+
+    /**
+     * Find the id of the first edge u -> v.
+     * @param u Source vertex
+     * @param v Destination vertex
+     * @return Edge id, or -1 if no such edge exists
+     * @complexity O(out-degree of u)
+     */
+    public int findEdge(int u, int v) {
+        for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+            if (targets[e] == v) {
+                return e;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Build the transpose (all edges reversed), keeping weights.
+     * Within each reversed list edges appear in increasing source order.
+     * @return Reversed CSR graph
+     * @complexity O(V+E) time and space
+     */
+    public CsrGraph transpose() {
+        return transpose(1);
+    }
+
+    /**
+     * Build the transpose in parallel. Source vertices are split into
+     * contiguous ranges, so the edge order matches transpose(). Small graphs
+     * are transposed on the calling thread.
+     * @param parallelism Maximum number of worker threads
+     * @return Reversed CSR graph
+     * @complexity O(V * threads + E) work, O(V * threads + E) space
+     */
+    public CsrGraph transpose(int parallelism) {
+        // One group per thread; a small graph gets one group and no pool
+        int threads = CsrScatter.threads(getEdgeCount(), parallelism);
+        int groups = Math.max(1, Math.min(threads, vertices));
+        return CsrScatter.assemble(vertices, getEdgeCount(), groups, threads, (g, visitor) -> {
+            for (int u = CsrScatter.blockStart(vertices, g, groups); u < CsrScatter.blockStart(vertices, g + 1, groups); u++) {
+                for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                    visitor.edge(targets[e], u, weights[e]);
+                }
+            }
+        });
+    }
+}
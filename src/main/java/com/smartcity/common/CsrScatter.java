@@ -0,0 +1,111 @@
+package com.smartcity.common;
+
+/**
+ * Parallel count / prefix-sum / scatter assembly of CSR arrays.
+ *
+ * Edges are supplied in numbered groups. Each group counts its sources into
+ * a private degree array, the arrays are combined into offsets and
+ * per-group cursors, and every group then scatters through its own cursors
+ * without synchronization. Within a vertex, edges appear in group order and,
+ * inside a group, in supply order, so the result is deterministic. Below
+ * PARALLEL_THRESHOLD arcs everything runs on the calling thread.
+ *
+ * Complexity: O(V * groups + E) work, O(V * groups + E) space
+ */
+final class CsrScatter {
+    // Thread start-up only pays off for large graphs
+    static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    private CsrScatter() {
+    }
+
+    /**
+     * Receives one arc.
+     */
+    @FunctionalInterface
+    interface EdgeVisitor {
+        void edge(int u, int v, int weight);
+    }
+
+    /**
+     * Replays the arcs of one group; must produce the same arcs on every call.
+     */
+    @FunctionalInterface
+    interface GroupedEdges {
+        void forEach(int group, EdgeVisitor visitor);
+    }
+
+    /**
+     * Assemble CSR arrays from grouped arcs.
+     * @param n Number of vertices
+     * @param arcs Total number of arcs over all groups
+     * @param groups Number of groups
+     * @param parallelism Maximum number of worker threads, ignored below PARALLEL_THRESHOLD arcs
+     * @param edges Arc supplier
+     * @return CSR graph
+     */
+    static CsrGraph assemble(int n, int arcs, int groups, int parallelism, GroupedEdges edges) {
+        parallelism = threads(arcs, parallelism);
+        int[][] cursors = new int[groups][];
+        Parallel.forEach(groups, parallelism, g -> {
+            int[] counts = new int[n];
+            edges.forEach(g, (u, v, w) -> counts[u]++);
+            cursors[g] = counts;
+        });
+
+        int[] offsets = new int[n + 1];
+        int blocks = Math.max(1, Math.min(n, parallelism * 4));
+        Parallel.forEach(blocks, parallelism, b -> {
+            for (int v = blockStart(n, b, blocks); v < blockStart(n, b + 1, blocks); v++) {
+                int degree = 0;
+                for (int g = 0; g < groups; g++) {
+                    degree += cursors[g][v];
+                }
+                offsets[v + 1] = degree;
+            }
+        });
+        for (int v = 0; v < n; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+        Parallel.forEach(blocks, parallelism, b -> {
+            for (int v = blockStart(n, b, blocks); v < blockStart(n, b + 1, blocks); v++) {
+                int running = offsets[v];
+                for (int g = 0; g < groups; g++) {
+                    int count = cursors[g][v];
+                    cursors[g][v] = running;
+                    running += count;
+                }
+            }
+        });
+
+        int[] targets = new int[arcs];
+        int[] weights = new int[arcs];
+        Parallel.forEach(groups, parallelism, g -> {
+            int[] cursor = cursors[g];
+            edges.forEach(g, (u, v, w) -> {
+                int pos = cursor[u]++;
+                targets[pos] = v;
+                weights[pos] = w;
+            });
+        });
+
+        return new CsrGraph(n, offsets, targets, weights);
+    }
+
+    /**
+     * Number of threads worth starting for a pass over some arcs.
+     * @param arcs Number of arcs
+     * @param parallelism Maximum number of worker threads
+     * @return 1 below PARALLEL_THRESHOLD arcs, parallelism otherwise
+     */
+    static int threads(long arcs, int parallelism) {
+        return arcs < PARALLEL_THRESHOLD ? 1 : parallelism;
+    }
+
+    /**
+     * First index of block b when splitting [0, count) into blocks parts.
+     */
+    static int blockStart(int count, int b, int blocks) {
+        return (int) ((long) count * b / blocks);
+    }
+}
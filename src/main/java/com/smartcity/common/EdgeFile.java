@@ -0,0 +1,270 @@
+package com.smartcity.common;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary on-disk CSR edge file for graphs whose edges do not fit on the heap.
+ *
+ * Layout (big-endian):
+ * <pre>
+ * header   magic:int version:int n:int reserved:int m:long
+ * targets  int[m]   edge targets grouped by source vertex
+ * weights  int[m]   edge weights parallel to targets
+ * offsets  long[n+1] first edge index of every vertex
+ * </pre>
+ * An opened file keeps only the offsets on the heap (O(V)). Targets and
+ * weights are memory-mapped in segments of 2^28 entries and paged in by the
+ * operating system on demand.
+ */
+public final class EdgeFile implements AutoCloseable {
+    private static final int MAGIC = 0x45444745;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 24;
+    private static final int SEGMENT_BITS = 28;
+    private static final long SEGMENT_MASK = (1L << SEGMENT_BITS) - 1;
+
+    private final FileChannel channel;
+    private final int vertices;
+    private final long edges;
+    private final long[] offsets;
+    private final MappedByteBuffer[] targetSegments;
+    private final MappedByteBuffer[] weightSegments;
+
+    private EdgeFile(FileChannel channel, int vertices, long edges, long[] offsets,
+                     MappedByteBuffer[] targetSegments, MappedByteBuffer[] weightSegments) {
+        this.channel = channel;
+        this.vertices = vertices;
+        this.edges = edges;
+        this.offsets = offsets;
+        this.targetSegments = targetSegments;
+        this.weightSegments = weightSegments;
+    }
+
+    /**
+     * Write an in-memory graph to an edge file.
+     * @param path Destination file
+     * @param graph Source graph
+     * @throws IOException if writing fails
+     */
+    public static void write(Path path, Graph graph) throws IOException {
+        write(path, graph.getVertices(), (u, sink) -> {
+            for (Graph.Edge edge : graph.getAdjacentEdges(u)) {
+                sink.edge(edge.to, edge.weight);
+            }
+        });
+    }
+
+    /**
+     * Stream edges to an edge file without materializing the graph.
+     * The source is asked for the edges of vertex 0, 1, ..., n-1 in order.
+     * @param path Destination file
+     * @param n Number of vertices
+     * @param source Supplier of each vertex's outgoing edges
+     * @throws IOException if writing fails
+     */
+    public static void write(Path path, int n, AdjacencySource source) throws IOException {
+        long[] offsets = new long[n + 1];
+        Path weightsTmp = Files.createTempFile(path.toAbsolutePath().getParent(), "weights", ".tmp");
+        try {
+            long[] count = new long[1];
+            try (DataOutputStream targets = new DataOutputStream(new BufferedOutputStream(
+                         Files.newOutputStream(path), 1 << 16));
+                 DataOutputStream weights = new DataOutputStream(new BufferedOutputStream(
+                         Files.newOutputStream(weightsTmp), 1 << 16))) {
+                targets.write(new byte[HEADER_BYTES]);
+                EdgeSink sink = (v, w) -> {
+                    if (v < 0 || v >= n) {
+                        throw new IllegalArgumentException("Target " + v + " out of range");
+                    }
+                    try {
+                        targets.writeInt(v);
+                        weights.writeInt(w);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    count[0]++;
+                };
+                try {
+                    for (int u = 0; u < n; u++) {
+                        offsets[u] = count[0];
+                        source.edgesOf(u, sink);
+                    }
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+                offsets[n] = count[0];
+            }
+
+            try (OutputStream out = Files.newOutputStream(path, StandardOpenOption.APPEND);
+                 InputStream in = Files.newInputStream(weightsTmp)) {
+                in.transferTo(out);
+                DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+                for (long offset : offsets) {
+                    data.writeLong(offset);
+                }
+                data.flush();
+            }
+
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+                header.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(0).putLong(count[0]).flip();
+                channel.write(header, 0);
+            }
+        } finally {
+            Files.deleteIfExists(weightsTmp);
+        }
+    }
+
+    /**
+     * Open an edge file for reading.
+     * @param path Edge file
+     * @return Opened file; close it to release the channel
+     * @throws IOException if the file is missing or malformed
+     */
+    public static EdgeFile open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            channel.read(header, 0);
+            header.flip();
+            if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC) {
+                throw new IOException("Not an edge file: " + path);
+            }
+            if (header.getInt() != VERSION) {
+                throw new IOException("Unsupported edge file version: " + path);
+            }
+            int n = header.getInt();
+            header.getInt();
+            long m = header.getLong();
+
+            long targetsStart = HEADER_BYTES;
+            long weightsStart = targetsStart + m * 4;
+            long offsetsStart = weightsStart + m * 4;
+            if (channel.size() != offsetsStart + (n + 1L) * 8) {
+                throw new IOException("Truncated edge file: " + path);
+            }
+
+            long[] offsets = new long[n + 1];
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+            long position = offsetsStart;
+            int index = 0;
+            while (index <= n) {
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), (n + 1L - index) * 8));
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, position + buffer.position()) < 0) {
+                        throw new IOException("Truncated edge file: " + path);
+                    }
+                }
+                position += buffer.limit();
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    offsets[index++] = buffer.getLong();
+                }
+            }
+
+            return new EdgeFile(channel, n, m, offsets,
+                    mapSegments(channel, targetsStart, m), mapSegments(channel, weightsStart, m));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static MappedByteBuffer[] mapSegments(FileChannel channel, long start, long count) throws IOException {
+        int segments = (int) ((count + SEGMENT_MASK) >>> SEGMENT_BITS);
+        MappedByteBuffer[] result = new MappedByteBuffer[segments];
+        for (int s = 0; s < segments; s++) {
+            long first = (long) s << SEGMENT_BITS;
+            long length = Math.min(1L << SEGMENT_BITS, count - first);
+            result[s] = channel.map(FileChannel.MapMode.READ_ONLY, start + first * 4, length * 4);
+            result[s].order(ByteOrder.BIG_ENDIAN);
+        }
+        return result;
+    }
+
+    /**
+     * Get number of vertices.
+     * @return Vertex count
+     */
+    public int getVertices() {
+        return vertices;
+    }
+
+    /**
+     * Get number of edges.
+     * @return Edge count
+     */
+    public long getEdgeCount() {
+        return edges;
+    }
+
+    /**
+     * Get first edge index of a vertex.
+     * @param u Vertex
+     * @return Index of u's first outgoing edge
+     */
+    public long firstEdge(int u) {
+        return offsets[u];
+    }
+
+    /**
+     * Get end (exclusive) edge index of a vertex.
+     * @param u Vertex
+     * @return One past the index of u's last outgoing edge
+     */
+    public long endEdge(int u) {
+        return offsets[u + 1];
+    }
+
+    /**
+     * Read an edge target.
+     * @param edge Edge index
+     * @return Target vertex
+     */
+    public int target(long edge) {
+        return targetSegments[(int) (edge >>> SEGMENT_BITS)].getInt((int) (edge & SEGMENT_MASK) << 2);
+    }
+
+    /**
+     * Read an edge weight.
+     * @param edge Edge index
+     * @return Edge weight
+     */
+    public int weight(long edge) {
+        return weightSegments[(int) (edge >>> SEGMENT_BITS)].getInt((int) (edge & SEGMENT_MASK) << 2);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Supplies the outgoing edges of one vertex while writing.
+     */
+    @FunctionalInterface
+    public interface AdjacencySource {
+        void edgesOf(int u, EdgeSink sink);
+    }
+
+    /**
+     * Receives edges while writing.
+     */
+    @FunctionalInterface
+    public interface EdgeSink {
+        void edge(int v, int weight);
+    }
+}
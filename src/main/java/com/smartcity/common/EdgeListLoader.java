@@ -0,0 +1,406 @@
+package com.smartcity.common;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Parallel loader for plain-text edge lists.
+ *
+ * Format: one edge per line as "u v" or "u v w" (w defaults to 1), separated
+ * by spaces or tabs. Lines starting with '#' are comments. Leading comment
+ * lines may carry key=value settings that mirror the JSON fields:
+ * <pre>
+ * # directed=true n=8 source=4 weight_model=edge
+ * 0 1 3
+ * 1 2 2
+ * </pre>
+ * Without n, the vertex count is the largest id + 1. directed defaults to
+ * true, source to 0 and weight_model to "edge".
+ *
+ * The file is memory-mapped in newline-aligned pieces. Pieces are parsed in
+ * parallel with a hand-written integer parser that allocates nothing per
+ * number. The edges then go straight into a CSR build: each worker group
+ * counts degrees over its consecutive pieces, a prefix sum assigns every
+ * group its own write cursors, and the groups scatter in parallel. Edge
+ * order per vertex is the file order, so the result equals what GraphLoader
+ * builds with addEdge.
+ *
+ * Complexity: O(B + V * G + E) time for B bytes and G worker groups, O(V * G + E) space
+ */
+public class EdgeListLoader {
+    private static final long DEFAULT_PIECE_BYTES = 64L << 20;
+    private static final int HEADER_PROBE_BYTES = 64 << 10;
+
+    private final int parallelism;
+    private final long pieceBytes;
+
+    /**
+     * Create a loader using all available processors.
+     */
+    public EdgeListLoader() {
+        this(Parallel.defaultParallelism(), DEFAULT_PIECE_BYTES);
+    }
+
+    /**
+     * Create a loader.
+     * @param parallelism Number of worker threads
+     * @param pieceBytes Target size of each mapped piece (at most 1 GiB)
+     */
+    public EdgeListLoader(int parallelism, long pieceBytes) {
+        if (pieceBytes <= 0 || pieceBytes > (1L << 30)) {
+            throw new IllegalArgumentException("pieceBytes must be in (0, 1 GiB]");
+        }
+        this.parallelism = Math.max(1, parallelism);
+        this.pieceBytes = pieceBytes;
+    }
+
+    /**
+     * Load an edge list with default settings.
+     * @param filename Path of the edge list
+     * @return Same GraphData that GraphLoader produces for the equivalent JSON
+     * @throws IOException if the file cannot be read or is malformed
+     */
+    public static GraphLoader.GraphData loadFromFile(String filename) throws IOException {
+        return new EdgeListLoader().load(Paths.get(filename)).getGraphData();
+    }
+
+    /**
+     * Load an edge list.
+     * @param path Path of the edge list
+     * @return Loaded graph plus throughput statistics
+     * @throws IOException if the file cannot be read or is malformed
+     */
+    public LoadResult load(Path path) throws IOException {
+        Metrics metrics = new MetricsImpl();
+        metrics.startTiming();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            Header header = readHeader(channel);
+            long[] starts = pieceStarts(channel, header.dataStart, size);
+            int pieces = starts.length - 1;
+
+            Piece[] parsed = new Piece[pieces];
+            try {
+                Parallel.forEach(pieces, parallelism, i -> {
+                    try {
+                        long length = starts[i + 1] - starts[i];
+                        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, starts[i], length);
+                        parsed[i] = parse(buffer, (int) length, starts[i]);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            int maxId = -1;
+            long edges = 0;
+            for (Piece piece : parsed) {
+                maxId = Math.max(maxId, piece.maxId);
+                edges += piece.size;
+            }
+            int n = header.n >= 0 ? header.n : maxId + 1;
+            if (maxId >= n) {
+                throw new IOException("Vertex id " + maxId + " out of range for n=" + n);
+            }
+            long arcs = header.directed ? edges : 2 * edges;
+            if (arcs > Integer.MAX_VALUE - 8) {
+                throw new IOException("Edge list too large for int-indexed CSR: " + arcs + " arcs");
+            }
+
+            CsrGraph csr = buildCsr(parsed, n, (int) arcs, header.directed);
+            metrics.addOperations(OperationType.EDGE_SCANS, edges);
+
+            Graph graph = Graph.fromCsr(csr, header.directed);
+            graph.setWeightModel(header.weightModel);
+            metrics.stopTiming();
+
+            GraphLoader.GraphData data = new GraphLoader.GraphData(graph, header.source, header.weightModel);
+            return new LoadResult(data, csr, size, metrics);
+        }
+    }
+
+    // Group consecutive pieces, count degrees per group, prefix-sum, then scatter per group
+    private CsrGraph buildCsr(Piece[] parsed, int n, int arcs, boolean directed) {
+        int groups = Math.max(1, Math.min(parallelism, parsed.length));
+        return CsrScatter.assemble(n, arcs, groups, parallelism, (g, visitor) -> {
+            for (int p = firstPiece(g, groups, parsed.length); p < firstPiece(g + 1, groups, parsed.length); p++) {
+                Piece piece = parsed[p];
+                for (int i = 0; i < piece.size; i++) {
+                    visitor.edge(piece.us[i], piece.vs[i], piece.ws[i]);
+                    if (!directed) {
+                        visitor.edge(piece.vs[i], piece.us[i], piece.ws[i]);
+                    }
+                }
+            }
+        });
+    }
+
+    private static int firstPiece(int group, int groups, int pieces) {
+        return (int) ((long) pieces * group / groups);
+    }
+
+    // Parse one newline-aligned piece without creating strings
+    private static Piece parse(ByteBuffer buf, int len, long base) throws IOException {
+        Piece piece = new Piece(Math.max(16, len / 8));
+        int i = 0;
+        while (i < len) {
+            byte b = buf.get(i);
+            if (b == '\n' || b == '\r' || b == ' ' || b == '\t') {
+                i++;
+                continue;
+            }
+            if (b == '#') {
+                while (i < len && buf.get(i) != '\n') {
+                    i++;
+                }
+                continue;
+            }
+
+            long u = 0;
+            long v = 0;
+            long w = 1;
+            int fields = 0;
+            while (i < len) {
+                b = buf.get(i);
+                if (b == '\n') {
+                    break;
+                }
+                if (b == ' ' || b == '\t' || b == '\r') {
+                    i++;
+                    continue;
+                }
+                boolean negative = b == '-';
+                if (negative) {
+                    i++;
+                }
+                int digitsStart = i;
+                long value = 0;
+                while (i < len) {
+                    int digit = buf.get(i) - '0';
+                    if (digit < 0 || digit > 9) {
+                        break;
+                    }
+                    value = value * 10 + digit;
+                    if (value > Integer.MAX_VALUE + 1L) {
+                        throw new IOException("Number too large at byte " + (base + digitsStart));
+                    }
+                    i++;
+                }
+                if (i == digitsStart) {
+                    throw new IOException("Malformed edge list at byte " + (base + i));
+                }
+                value = negative ? -value : value;
+                if (fields == 0) {
+                    u = value;
+                } else if (fields == 1) {
+                    v = value;
+                } else if (fields == 2) {
+                    w = value;
+                } else {
+                    throw new IOException("Too many fields at byte " + (base + digitsStart));
+                }
+                fields++;
+            }
+            if (fields < 2) {
+                throw new IOException("Edge needs at least two fields near byte " + (base + i));
+            }
+            if (u < 0 || v < 0 || u > Integer.MAX_VALUE || v > Integer.MAX_VALUE || w > Integer.MAX_VALUE) {
+                throw new IOException("Value out of range near byte " + (base + i));
+            }
+            piece.add((int) u, (int) v, (int) w);
+        }
+        return piece;
+    }
+
+    // Leading comment lines may hold key=value settings
+    private static Header readHeader(FileChannel channel) throws IOException {
+        ByteBuffer probe = ByteBuffer.allocate((int) Math.min(HEADER_PROBE_BYTES, channel.size()));
+        channel.read(probe, 0);
+        probe.flip();
+        String text = StandardCharsets.UTF_8.decode(probe).toString();
+
+        Header header = new Header();
+        int pos = 0;
+        while (pos < text.length()) {
+            int end = text.indexOf('\n', pos);
+            if (end < 0) {
+                break;
+            }
+            String line = text.substring(pos, end).trim();
+            if (!line.isEmpty() && !line.startsWith("#")) {
+                break;
+            }
+            for (String token : line.replace('#', ' ').trim().split("\\s+")) {
+                int eq = token.indexOf('=');
+                if (eq <= 0) {
+                    continue;
+                }
+                String key = token.substring(0, eq);
+                String value = token.substring(eq + 1);
+                switch (key) {
+                    case "n":
+                        header.n = Integer.parseInt(value);
+                        break;
+                    case "directed":
+                        header.directed = Boolean.parseBoolean(value);
+                        break;
+                    case "source":
+                        header.source = Integer.parseInt(value);
+                        break;
+                    case "weight_model":
+                        header.weightModel = value;
+                        break;
+                    default:
+                        break;
+                }
+            }
+            pos = end + 1;
+        }
+        header.dataStart = text.substring(0, pos).getBytes(StandardCharsets.UTF_8).length;
+        return header;
+    }
+
+    // Split [dataStart, size) into pieces that each start at the beginning of a line
+    private long[] pieceStarts(FileChannel channel, long dataStart, long size) throws IOException {
+        // Keep at least a few pieces per worker so small files still parse in parallel
+        long step = Math.min(pieceBytes, Math.max(1L << 20, (size - dataStart) / (parallelism * 4L) + 1));
+        List<Long> starts = new ArrayList<>();
+        starts.add(dataStart);
+        long target = dataStart + step;
+        ByteBuffer scan = ByteBuffer.allocate(4096);
+        while (target < size) {
+            long lineStart = -1;
+            long pos = target - 1;
+            while (lineStart < 0 && pos < size) {
+                scan.clear();
+                int read = channel.read(scan, pos);
+                if (read <= 0) {
+                    break;
+                }
+                for (int i = 0; i < read; i++) {
+                    if (scan.get(i) == '\n') {
+                        lineStart = pos + i + 1;
+                        break;
+                    }
+                }
+                pos += read;
+            }
+            if (lineStart < 0 || lineStart >= size) {
+                break;
+            }
+            starts.add(lineStart);
+            target = lineStart + step;
+        }
+        starts.add(size);
+
+        long[] result = new long[starts.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = starts.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Settings from the leading comment lines.
+     */
+    private static final class Header {
+        private int n = -1;
+        private boolean directed = true;
+        private int source = 0;
+        private String weightModel = "edge";
+        private long dataStart;
+    }
+
+    /**
+     * Edges parsed from one piece, in file order.
+     */
+    private static final class Piece {
+        private int[] us;
+        private int[] vs;
+        private int[] ws;
+        private int size;
+        private int maxId = -1;
+
+        Piece(int capacity) {
+            us = new int[capacity];
+            vs = new int[capacity];
+            ws = new int[capacity];
+        }
+
+        void add(int u, int v, int w) {
+            if (size == us.length) {
+                int capacity = size + (size >> 1) + 16;
+                us = Arrays.copyOf(us, capacity);
+                vs = Arrays.copyOf(vs, capacity);
+                ws = Arrays.copyOf(ws, capacity);
+            }
+            us[size] = u;
+            vs[size] = v;
+            ws[size] = w;
+            size++;
+            maxId = Math.max(maxId, Math.max(u, v));
+        }
+    }
+
+    /**
+     * Loaded graph plus throughput statistics.
+     */
+    public static class LoadResult {
+        private final GraphLoader.GraphData graphData;
+        private final CsrGraph csr;
+        private final long bytes;
+        private final Metrics metrics;
+
+        /**
+         * Create result.
+         * @param graphData Loaded graph data
+         * @param csr CSR arrays the graph was built from
+         * @param bytes File size in bytes
+         * @param metrics Timing metrics; edge scans count parsed edges
+         */
+        public LoadResult(GraphLoader.GraphData graphData, CsrGraph csr, long bytes, Metrics metrics) {
+            this.graphData = graphData;
+            this.csr = csr;
+            this.bytes = bytes;
+            this.metrics = metrics;
+        }
+
+        public GraphLoader.GraphData getGraphData() {
+            return graphData;
+        }
+
+        public CsrGraph getCsr() {
+            return csr;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        /**
+         * Get load throughput.
+         * @return Gigabytes (1e9 bytes) per second
+         */
+        public double getGigabytesPerSecond() {
+            double seconds = metrics.getElapsedNanos() / 1e9;
+            return seconds > 0 ? bytes / 1e9 / seconds : Double.POSITIVE_INFINITY;
+        }
+
+        public Metrics getMetrics() {
+            return metrics;
+        }
+    }
+}
@@ -13,6 +13,8 @@ public class Graph {
     private final List<List<Edge>> adjList;
     private final boolean directed;
     private String weightModel;
+    // Task durations for the "node" weight model; null until the first setNodeWeight
+    private int[] nodeWeights;
 
     /**
      * Create a new graph.
@@ -29,6 +31,63 @@ public class Graph {
         this.weightModel = "edge";
     }
 
+    /**
+     * Create a graph from prebuilt adjacency lists.
+     * Subclasses with their own adjacency storage pass null and must override
+     * addEdge and getAdjacentEdges.
+     * @param vertices Number of vertices
+     * @param adjList Adjacency list per vertex, or null
+     * @param directed Whether the graph is directed
+     */
+    protected Graph(int vertices, List<List<Edge>> adjList, boolean directed) {
+        this.vertices = vertices;
+        this.directed = directed;
+        this.adjList = adjList;
+        this.weightModel = "edge";
+    }
+
+    /**
+     * Create a graph from CSR arrays without replaying addEdge.
+     * Adjacency lists are presized and keep the CSR edge order.
+     * For undirected graphs the CSR must already contain both arcs of every edge.
+     * @param csr CSR arrays
+     * @param directed Whether the graph is directed
+     * @return Graph with the same adjacency
+     * @complexity O(V+E) time and space
+     */
+    public static Graph fromCsr(CsrGraph csr, boolean directed) {
+        return fromCsr(csr, directed, Parallel.defaultParallelism());
+    }
+
+    /**
+     * Create a graph from CSR arrays, materializing adjacency lists in parallel.
+     * The graph does not keep the arrays.
+     * @param csr CSR arrays
+     * @param directed Whether the graph is directed
+     * @param parallelism Maximum number of worker threads
+     * @return Graph with the same adjacency
+     * @complexity O(V+E) work
+     */
+    public static Graph fromCsr(CsrGraph csr, boolean directed, int parallelism) {
+        int n = csr.getVertices();
+        int[] offsets = csr.offsets();
+        int[] targets = csr.targets();
+        int[] weights = csr.weights();
+        List<List<Edge>> adjList = new ArrayList<>(Collections.nCopies(n, (List<Edge>) null));
+        int threads = CsrScatter.threads(csr.getEdgeCount(), parallelism);
+        int blocks = Math.max(1, Math.min(n, threads * 4));
+        Parallel.forEach(blocks, threads, b -> {
+            for (int u = CsrScatter.blockStart(n, b, blocks); u < CsrScatter.blockStart(n, b + 1, blocks); u++) {
+                List<Edge> edges = new ArrayList<>(offsets[u + 1] - offsets[u]);
+                for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                    edges.add(new Edge(targets[e], weights[e]));
+                }
+                adjList.set(u, edges);
+            }
+        });
+        return new Graph(n, adjList, directed);
+    }
+
     /**
      * Add a weighted edge to the graph.
      * @param u Source vertex
@@ -83,19 +142,53 @@ public class Graph {
         this.weightModel = weightModel;
     }
 
+    /**
+     * Set the duration of a task, used by the "node" weight model.
+     * @param vertex Task vertex
+     * @param weight Task duration
+     */
+    public void setNodeWeight(int vertex, int weight) {
+        if (nodeWeights == null) {
+            nodeWeights = new int[vertices];
+        }
+        nodeWeights[vertex] = weight;
+    }
+
+    /**
+     * Get the duration of a task.
+     * @param vertex Task vertex
+     * @return Duration set with setNodeWeight, 0 if none was set
+     */
+    public int getNodeWeight(int vertex) {
+        return nodeWeights == null ? 0 : nodeWeights[vertex];
+    }
+
     /**
      * Get reverse graph for Kosaraju's algorithm.
+     * Counts in-degrees, then fills presized lists in one more pass; no
+     * intermediate CSR is built. Reversed lists are ordered by source vertex.
      * @return Graph with all edges reversed
      * @complexity O(V+E) time and space
      */
     public Graph getReverse() {
-        Graph reverse = new Graph(vertices, directed);
-        reverse.setWeightModel(this.weightModel);
+        int[] inDegree = new int[vertices];
+        for (int u = 0; u < vertices; u++) {
+            for (Edge edge : getAdjacentEdges(u)) {
+                inDegree[edge.to]++;
+            }
+        }
+        List<List<Edge>> reversed = new ArrayList<>(vertices);
+        for (int v = 0; v < vertices; v++) {
+            reversed.add(new ArrayList<>(inDegree[v]));
+        }
         for (int u = 0; u < vertices; u++) {
-            for (Edge edge : adjList.get(u)) {
-                reverse.addEdge(edge.to, u, edge.weight);
+            for (Edge edge : getAdjacentEdges(u)) {
+                reversed.get(edge.to).add(new Edge(u, edge.weight));
             }
         }
+        Graph reverse = new Graph(vertices, reversed, directed);
+        reverse.setWeightModel(this.weightModel);
+        reverse.nodeWeights = nodeWeights == null ? null : nodeWeights.clone();
         return reverse;
     }
 
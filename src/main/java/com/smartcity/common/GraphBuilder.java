@@ -0,0 +1,267 @@
+package com.smartcity.common;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Bulk graph builder that collects edges in primitive buffers and assembles
+ * CSR arrays in parallel.
+ *
+ * Edges are appended to fixed-size int chunks, so adding never copies
+ * earlier edges. build() splits the chunks into groups and runs a parallel
+ * degree count, a prefix sum and a scatter with per-group cursors. The
+ * result keeps insertion order unless neighbor sorting or multi-edge
+ * merging is requested; both are applied per vertex in parallel.
+ *
+ * Complexity: O(V * threads + E) build work, O(V + E) space
+ */
+public final class GraphBuilder {
+    private static final int CHUNK_BITS = 16;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+    /**
+     * How parallel edges u -> v are combined into one edge.
+     */
+    public enum MultiEdgeMerge {
+        MIN, MAX, SUM
+    }
+
+    private final int vertices;
+    private final boolean directed;
+    private final List<int[]> sources = new ArrayList<>();
+    private final List<int[]> targets = new ArrayList<>();
+    private final List<int[]> weights = new ArrayList<>();
+    private long size;
+    private int parallelism = Parallel.defaultParallelism();
+    private boolean sortNeighbors;
+    private MultiEdgeMerge merge;
+    private String weightModel = "edge";
+
+    /**
+     * Create a builder.
+     * @param vertices Number of vertices
+     * @param directed Whether edges are directed; undirected edges produce both arcs
+     */
+    public GraphBuilder(int vertices, boolean directed) {
+        if (vertices < 0) {
+            throw new IllegalArgumentException("vertices must be non-negative");
+        }
+        this.vertices = vertices;
+        this.directed = directed;
+    }
+
+    /**
+     * Set the number of worker threads used by build().
+     * @param parallelism Thread count
+     * @return This builder
+     */
+    public GraphBuilder parallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be positive");
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Sort every neighbor list by target; ties keep insertion order.
+     * @param sortNeighbors true to sort
+     * @return This builder
+     */
+    public GraphBuilder sortNeighbors(boolean sortNeighbors) {
+        this.sortNeighbors = sortNeighbors;
+        return this;
+    }
+
+    /**
+     * Combine parallel edges; implies sorted neighbor lists.
+     * @param merge Merge rule, or null to keep all parallel edges
+     * @return This builder
+     */
+    public GraphBuilder mergeMultiEdges(MultiEdgeMerge merge) {
+        this.merge = merge;
+        return this;
+    }
+
+    /**
+     * Set the weight model recorded on the built graph.
+     * @param weightModel Weight model description
+     * @return This builder
+     */
+    public GraphBuilder weightModel(String weightModel) {
+        this.weightModel = weightModel;
+        return this;
+    }
+
+    /**
+     * Append an edge.
+     * @param u Source vertex
+     * @param v Destination vertex
+     * @param weight Edge weight
+     * @return This builder
+     */
+    public GraphBuilder addEdge(int u, int v, int weight) {
+        if (u < 0 || u >= vertices || v < 0 || v >= vertices) {
+            throw new IllegalArgumentException("Edge " + u + " -> " + v + " out of range for n=" + vertices);
+        }
+        int offset = (int) (size & (CHUNK_SIZE - 1));
+        if (offset == 0) {
+            sources.add(new int[CHUNK_SIZE]);
+            targets.add(new int[CHUNK_SIZE]);
+            weights.add(new int[CHUNK_SIZE]);
+        }
+        int chunk = (int) (size >>> CHUNK_BITS);
+        sources.get(chunk)[offset] = u;
+        targets.get(chunk)[offset] = v;
+        weights.get(chunk)[offset] = weight;
+        size++;
+        return this;
+    }
+
+    /**
+     * Append edges from parallel arrays.
+     * @param us Source vertices
+     * @param vs Destination vertices
+     * @param ws Edge weights
+     * @return This builder
+     */
+    public GraphBuilder addEdges(int[] us, int[] vs, int[] ws) {
+        if (us.length != vs.length || us.length != ws.length) {
+            throw new IllegalArgumentException("Edge arrays must have equal length");
+        }
+        for (int i = 0; i < us.length; i++) {
+            addEdge(us[i], vs[i], ws[i]);
+        }
+        return this;
+    }
+
+    /**
+     * Get number of edges added so far.
+     * @return Edge count (undirected edges count once)
+     */
+    public long getEdgeCount() {
+        return size;
+    }
+
+    /**
+     * Assemble CSR arrays.
+     * @return CSR graph; undirected edges appear as two arcs
+     * @complexity O(V * threads + E) work, plus O(E log d) when sorting
+     */
+    public CsrGraph buildCsr() {
+        long arcs = directed ? size : 2 * size;
+        if (arcs > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("Too many arcs for int-indexed CSR: " + arcs);
+        }
+        int chunks = sources.size();
+        int groups = Math.max(1, Math.min(parallelism, chunks));
+        CsrGraph csr = CsrScatter.assemble(vertices, (int) arcs, groups, parallelism, (g, visitor) -> {
+            for (int c = CsrScatter.blockStart(chunks, g, groups); c < CsrScatter.blockStart(chunks, g + 1, groups); c++) {
+                int[] us = sources.get(c);
+                int[] vs = targets.get(c);
+                int[] ws = weights.get(c);
+                int count = (int) Math.min(CHUNK_SIZE, size - ((long) c << CHUNK_BITS));
+                for (int i = 0; i < count; i++) {
+                    visitor.edge(us[i], vs[i], ws[i]);
+                    if (!directed) {
+                        visitor.edge(vs[i], us[i], ws[i]);
+                    }
+                }
+            }
+        });
+        if (sortNeighbors || merge != null) {
+            csr = normalize(csr);
+        }
+        return csr;
+    }
+
+    /**
+     * Build an adjacency-list graph from the assembled CSR.
+     * The graph does not keep the arrays; use buildCsr() to keep them.
+     * @return Graph with presized adjacency lists in CSR edge order
+     * @complexity O(V * threads + E) work
+     */
+    public Graph build() {
+        Graph graph = Graph.fromCsr(buildCsr(), directed, parallelism);
+        graph.setWeightModel(weightModel);
+        return graph;
+    }
+
+    /**
+     * Sort each neighbor list by target and optionally merge parallel edges.
+     */
+    private CsrGraph normalize(CsrGraph csr) {
+        int n = csr.getVertices();
+        int[] offsets = csr.offsets();
+        int[] targets = csr.targets();
+        int[] weights = csr.weights();
+        int[] kept = new int[n];
+        int blocks = Math.max(1, Math.min(n, parallelism * 16));
+
+        Parallel.forEach(blocks, parallelism, b -> {
+            long[] keys = new long[0];
+            int[] weightCopy = new int[0];
+            for (int u = CsrScatter.blockStart(n, b, blocks); u < CsrScatter.blockStart(n, b + 1, blocks); u++) {
+                int start = offsets[u];
+                int degree = offsets[u + 1] - start;
+                if (keys.length < degree) {
+                    keys = new long[Math.max(degree, keys.length * 2)];
+                    weightCopy = new int[keys.length];
+                }
+                // Sort (target, position) keys so ties keep insertion order
+                for (int i = 0; i < degree; i++) {
+                    keys[i] = ((long) targets[start + i] << 32) | i;
+                    weightCopy[i] = weights[start + i];
+                }
+                Arrays.sort(keys, 0, degree);
+
+                int out = 0;
+                for (int i = 0; i < degree; i++) {
+                    int target = (int) (keys[i] >>> 32);
+                    int weight = weightCopy[(int) keys[i]];
+                    if (merge != null && out > 0 && targets[start + out - 1] == target) {
+                        weights[start + out - 1] = combine(weights[start + out - 1], weight);
+                    } else {
+                        targets[start + out] = target;
+                        weights[start + out] = weight;
+                        out++;
+                    }
+                }
+                kept[u] = out;
+            }
+        });
+
+        if (merge == null) {
+            return csr;
+        }
+        int[] newOffsets = new int[n + 1];
+        for (int u = 0; u < n; u++) {
+            newOffsets[u + 1] = newOffsets[u] + kept[u];
+        }
+        int[] newTargets = new int[newOffsets[n]];
+        int[] newWeights = new int[newOffsets[n]];
+        Parallel.forEach(blocks, parallelism, b -> {
+            for (int u = CsrScatter.blockStart(n, b, blocks); u < CsrScatter.blockStart(n, b + 1, blocks); u++) {
+                System.arraycopy(targets, offsets[u], newTargets, newOffsets[u], kept[u]);
+                System.arraycopy(weights, offsets[u], newWeights, newOffsets[u], kept[u]);
+            }
+        });
+        return new CsrGraph(n, newOffsets, newTargets, newWeights);
+    }
+
+    private int combine(int current, int weight) {
+        switch (merge) {
+            case MIN:
+                return Math.min(current, weight);
+            case MAX:
+                return Math.max(current, weight);
+            default:
+                try {
+                    return Math.addExact(current, weight);
+                } catch (ArithmeticException e) {
+                    throw new IllegalStateException("Merged edge weight overflows int", e);
+                }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.smartcity.common;
+
+import java.util.Random;
+
+/**
+ * Synthetic graph generator for benchmarks and scaling experiments.
+ * All generators are deterministic for a given seed.
+ */
+public final class GraphGenerator {
+
+    private GraphGenerator() {
+    }
+
+    /**
+     * Generate a random DAG. Edges go from lower to higher rank in a hidden
+     * random ranking, so vertex ids carry no topological information.
+     * @param n Number of vertices
+     * @param m Number of edges
+     * @param maxWeight Weights are drawn uniformly from 1..maxWeight
+     * @param seed Random seed
+     * @return Directed acyclic graph
+     */
+    public static Graph randomDag(int n, int m, int maxWeight, long seed) {
+        Random random = new Random(seed);
+        int[] label = shuffledIdentity(n, random);
+        Graph graph = new Graph(n, true);
+        if (n < 2) {
+            return graph;
+        }
+        for (int i = 0; i < m; i++) {
+            int a = random.nextInt(n);
+            int b = random.nextInt(n - 1);
+            if (b >= a) {
+                b++;
+            }
+            graph.addEdge(label[Math.min(a, b)], label[Math.max(a, b)], 1 + random.nextInt(maxWeight));
+        }
+        return graph;
+    }
+
+    /**
+     * Generate a random directed graph (cycles allowed, no self-loops).
+     * @param n Number of vertices
+     * @param m Number of edges
+     * @param maxWeight Weights are drawn uniformly from 1..maxWeight
+     * @param seed Random seed
+     * @return Directed graph
+     */
+    public static Graph randomGraph(int n, int m, int maxWeight, long seed) {
+        Random random = new Random(seed);
+        Graph graph = new Graph(n, true);
+        if (n < 2) {
+            return graph;
+        }
+        for (int i = 0; i < m; i++) {
+            int u = random.nextInt(n);
+            int v = random.nextInt(n - 1);
+            if (v >= u) {
+                v++;
+            }
+            graph.addEdge(u, v, 1 + random.nextInt(maxWeight));
+        }
+        return graph;
+    }
+
+    /**
+     * Generate a layered DAG with edges only between consecutive layers.
+     * Good for path-length and criticality experiments.
+     * @param layers Number of layers
+     * @param width Vertices per layer
+     * @param fanOut Edges from each vertex to the next layer
+     * @param maxWeight Weights are drawn uniformly from 1..maxWeight
+     * @param seed Random seed
+     * @return Layered DAG with layers * width vertices
+     */
+    public static Graph layeredDag(int layers, int width, int fanOut, int maxWeight, long seed) {
+        Random random = new Random(seed);
+        Graph graph = new Graph(layers * width, true);
+        for (int layer = 0; layer + 1 < layers; layer++) {
+            for (int i = 0; i < width; i++) {
+                int u = layer * width + i;
+                for (int k = 0; k < fanOut; k++) {
+                    int v = (layer + 1) * width + random.nextInt(width);
+                    graph.addEdge(u, v, 1 + random.nextInt(maxWeight));
+                }
+            }
+        }
+        return graph;
+    }
+
+    private static int[] shuffledIdentity(int n, Random random) {
+        int[] label = new int[n];
+        for (int i = 0; i < n; i++) {
+            label[i] = i;
+        }
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = label[i];
+            label[i] = label[j];
+            label[j] = tmp;
+        }
+        return label;
+    }
+}
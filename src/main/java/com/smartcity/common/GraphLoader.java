@@ -7,6 +7,8 @@ import com.google.gson.JsonElement;
 
 import java.io.FileReader;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 // Utility class for loading graphs from JSON files
 public class GraphLoader {
@@ -17,6 +19,10 @@ public class GraphLoader {
         JsonObject json = gson.fromJson(new FileReader(filename), JsonObject.class);
         
         boolean directed = json.get("directed").getAsBoolean();
+        JsonArray edges = json.getAsJsonArray("edges");
+        if (isLabeled(json, edges)) {
+            return loadLabeled(json, edges, directed);
+        }
         int n = json.get("n").getAsInt();
         Graph graph = new Graph(n, directed);
         
@@ -24,7 +30,6 @@ public class GraphLoader {
             json.get("weight_model").getAsString() : "edge";
         graph.setWeightModel(weightModel);
         
-        JsonArray edges = json.getAsJsonArray("edges");
         for (JsonElement element : edges) {
             JsonObject edge = element.getAsJsonObject();
             int u = edge.get("u").getAsInt();
@@ -32,21 +37,136 @@ public class GraphLoader {
             int w = edge.get("w").getAsInt();
             graph.addEdge(u, v, w);
         }
+        readNodeWeights(json, graph, weightModel, null);
         
         int source = json.has("source") ? json.get("source").getAsInt() : 0;
         
         return new GraphData(graph, source, weightModel);
     }
     
+    // Vertices are labeled when any endpoint or the source is a JSON string
+    private static boolean isLabeled(JsonObject json, JsonArray edges) {
+        if (json.has("source") && isString(json.get("source"))) {
+            return true;
+        }
+        for (JsonElement element : edges) {
+            JsonObject edge = element.getAsJsonObject();
+            if (isString(edge.get("u")) || isString(edge.get("v"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static boolean isString(JsonElement element) {
+        return element.isJsonPrimitive() && element.getAsJsonPrimitive().isString();
+    }
+    
+    // Remap string labels to dense ids; optional "nodes" lists isolated vertices
+    private static GraphData loadLabeled(JsonObject json, JsonArray edges, boolean directed) throws IOException {
+        List<String> labels = new ArrayList<>();
+        if (json.has("nodes")) {
+            for (JsonElement node : json.getAsJsonArray("nodes")) {
+                labels.add(node.getAsString());
+            }
+        }
+        for (JsonElement element : edges) {
+            JsonObject edge = element.getAsJsonObject();
+            labels.add(edge.get("u").getAsString());
+            labels.add(edge.get("v").getAsString());
+        }
+        LabelDictionary dictionary = LabelDictionary.of(labels);
+        
+        int n = dictionary.size();
+        if (json.has("n") && json.get("n").getAsInt() != n) {
+            throw new IOException("n=" + json.get("n").getAsInt() + " but " + n + " distinct vertex labels");
+        }
+        Graph graph = new Graph(n, directed);
+        String weightModel = json.has("weight_model") ?
+            json.get("weight_model").getAsString() : "edge";
+        graph.setWeightModel(weightModel);
+        
+        for (JsonElement element : edges) {
+            JsonObject edge = element.getAsJsonObject();
+            int u = dictionary.idOf(edge.get("u").getAsString());
+            int v = dictionary.idOf(edge.get("v").getAsString());
+            graph.addEdge(u, v, edge.get("w").getAsInt());
+        }
+        readNodeWeights(json, graph, weightModel, dictionary);
+        
+        int source = 0;
+        if (json.has("source")) {
+            String label = json.get("source").getAsString();
+            source = dictionary.idOf(label);
+            if (source < 0) {
+                throw new IOException("Unknown source vertex label: " + label);
+            }
+        }
+        
+        return new GraphData(graph, source, weightModel, dictionary);
+    }
+    
+    // Task durations: an array by id, or an object keyed by label; required by the "node" model
+    private static void readNodeWeights(JsonObject json, Graph graph, String weightModel,
+                                        LabelDictionary dictionary) throws IOException {
+        if (!json.has("node_weights")) {
+            if ("node".equalsIgnoreCase(weightModel)) {
+                throw new IOException("weight_model=node requires node_weights");
+            }
+            return;
+        }
+        JsonElement weights = json.get("node_weights");
+        if (dictionary != null && weights.isJsonObject()) {
+            for (String label : weights.getAsJsonObject().keySet()) {
+                int vertex = dictionary.idOf(label);
+                if (vertex < 0) {
+                    throw new IOException("Unknown vertex label in node_weights: " + label);
+                }
+                graph.setNodeWeight(vertex, weights.getAsJsonObject().get(label).getAsInt());
+            }
+            return;
+        }
+        if (!weights.isJsonArray() || weights.getAsJsonArray().size() != graph.getVertices()) {
+            throw new IOException("node_weights must list one weight per vertex");
+        }
+        JsonArray array = weights.getAsJsonArray();
+        for (int v = 0; v < array.size(); v++) {
+            graph.setNodeWeight(v, array.get(v).getAsInt());
+        }
+    }
+    
     public static class GraphData {
         public final Graph graph;
         public final int source;
         public final String weightModel;
+        // Null when the input used integer vertex ids
+        public final LabelDictionary labels;
         
         public GraphData(Graph graph, int source, String weightModel) {
+            this(graph, source, weightModel, null);
+        }
+        
+        public GraphData(Graph graph, int source, String weightModel, LabelDictionary labels) {
             this.graph = graph;
             this.source = source;
             this.weightModel = weightModel;
+            this.labels = labels;
+        }
+        
+        // Same source, model and labels over another graph, e.g. a compressed copy;
+        // dropping the old data lets its graph be collected
+        public GraphData withGraph(Graph graph) {
+            return new GraphData(graph, source, weightModel, labels);
+        }
+        
+        // Output name of a vertex: its label, or the id itself for unlabeled input
+        public String labelOf(int vertex) {
+            return labels == null ? Integer.toString(vertex) : labels.labelOf(vertex);
+        }
+        
+        // Output names of a component, path or order, decoded lazily
+        public List<?> labelsOf(List<Integer> vertices) {
+            return labels == null ? vertices : labels.labelsOf(vertices);
         }
     }
 }
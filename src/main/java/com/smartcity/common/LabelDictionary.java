@@ -0,0 +1,135 @@
+package com.smartcity.common;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Compact bidirectional mapping between string vertex labels and dense ids.
+ *
+ * Labels are stored as UTF-8 bytes concatenated in unsigned byte order in a
+ * single array, with an offset table marking where each label starts. A
+ * label's id is its rank in that order, so lookup by label is a binary search
+ * over the bytes and lookup by id is an offset read. No String objects are
+ * retained; labelOf decodes on demand, so results should be mapped back only
+ * when printed.
+ *
+ * Complexity: O(total label bytes + 4V) space; idOf O(L log V), labelOf O(L)
+ * for label length L
+ */
+public final class LabelDictionary {
+    private final byte[] bytes;
+    private final int[] offsets;
+
+    private LabelDictionary(byte[] bytes, int[] offsets) {
+        this.bytes = bytes;
+        this.offsets = offsets;
+    }
+
+    /**
+     * Build a dictionary from labels; duplicates are merged.
+     * @param labels Vertex labels in any order
+     * @return Dictionary whose ids are the sorted ranks of the distinct labels
+     * @complexity O(B + V log V * L) time for B total bytes
+     */
+    public static LabelDictionary of(Collection<String> labels) {
+        byte[][] encoded = new byte[labels.size()][];
+        int count = 0;
+        for (String label : labels) {
+            if (label == null) {
+                throw new IllegalArgumentException("Vertex label must not be null");
+            }
+            encoded[count++] = label.getBytes(StandardCharsets.UTF_8);
+        }
+        Arrays.sort(encoded, Arrays::compareUnsigned);
+
+        int distinct = 0;
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || !Arrays.equals(encoded[distinct - 1], encoded[i])) {
+                encoded[distinct++] = encoded[i];
+                total += encoded[i].length;
+            }
+        }
+        if (total > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Labels exceed 2 GiB");
+        }
+
+        byte[] bytes = new byte[(int) total];
+        int[] offsets = new int[distinct + 1];
+        for (int i = 0; i < distinct; i++) {
+            System.arraycopy(encoded[i], 0, bytes, offsets[i], encoded[i].length);
+            offsets[i + 1] = offsets[i] + encoded[i].length;
+        }
+        return new LabelDictionary(bytes, offsets);
+    }
+
+    /**
+     * Get number of labels.
+     * @return Number of distinct labels, equal to the vertex count
+     */
+    public int size() {
+        return offsets.length - 1;
+    }
+
+    /**
+     * Find the id of a label.
+     * @param label Vertex label
+     * @return Dense id, or -1 if the label is unknown
+     */
+    public int idOf(String label) {
+        byte[] key = label.getBytes(StandardCharsets.UTF_8);
+        int lo = 0;
+        int hi = size() - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = Arrays.compareUnsigned(bytes, offsets[mid], offsets[mid + 1], key, 0, key.length);
+            if (cmp < 0) {
+                lo = mid + 1;
+            } else if (cmp > 0) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Decode the label of an id.
+     * @param id Dense vertex id
+     * @return Label string, decoded on each call
+     */
+    public String labelOf(int id) {
+        if (id < 0 || id >= size()) {
+            throw new IndexOutOfBoundsException("Vertex id " + id + " out of range");
+        }
+        return new String(bytes, offsets[id], offsets[id + 1] - offsets[id], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Lazily map a list of ids to labels.
+     * @param ids Vertex ids, e.g. a component or a path
+     * @return Read-only view decoding each label on access
+     */
+    public List<String> labelsOf(List<Integer> ids) {
+        return new AbstractList<String>() {
+            @Override
+            public String get(int index) {
+                return labelOf(ids.get(index));
+            }
+
+            @Override
+            public int size() {
+                return ids.size();
+            }
+        };
+    }
+
+    /**
+     * Get memory used by the dictionary arrays.
+     * @return Bytes of label data plus offset table
+     */
+    public long getFootprintBytes() {
+        return bytes.length + offsets.length * 4L;
+    }
+}
@@ -1,13 +1,23 @@
 package com.smartcity.common;
 
+import java.util.Map;
+
 // Interface for tracking algorithm performance metrics
 public interface Metrics {
     void incrementOperations();
     void addOperations(long count);
     long getOperations();
+    // Typed counts also add to the total returned by getOperations()
+    void addOperations(OperationType type, long count);
+    long getOperations(OperationType type);
+    // Add another run's typed and untyped counts, e.g. one query of a multi-query analysis
+    void addAll(Metrics other);
     void startTiming();
     void stopTiming();
     long getElapsedNanos();
     double getElapsedMillis();
     void reset();
+    // Labels describing how the result was computed, e.g. the engine an EnginePlan chose
+    void setTag(String key, String value);
+    Map<String, String> getTags();
 }
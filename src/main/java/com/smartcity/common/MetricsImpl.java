@@ -1,10 +1,17 @@
 package com.smartcity.common;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 // Implementation of metrics interface for tracking performance
 public class MetricsImpl implements Metrics {
     private long operations;
+    private final long[] typed = new long[OperationType.values().length];
     private long startTime;
     private long endTime;
+    private final Map<String, String> tags = new LinkedHashMap<>();
 
     public MetricsImpl() {
         reset();
@@ -25,6 +32,25 @@ public class MetricsImpl implements Metrics {
         return operations;
     }
 
+    @Override
+    public void addOperations(OperationType type, long count) {
+        typed[type.ordinal()] += count;
+        operations += count;
+    }
+
+    @Override
+    public long getOperations(OperationType type) {
+        return typed[type.ordinal()];
+    }
+
+    @Override
+    public void addAll(Metrics other) {
+        for (OperationType type : OperationType.values()) {
+            typed[type.ordinal()] += other.getOperations(type);
+        }
+        operations += other.getOperations();
+    }
+
     @Override
     public void startTiming() {
         startTime = System.nanoTime();
@@ -48,7 +74,19 @@ public class MetricsImpl implements Metrics {
     @Override
     public void reset() {
         operations = 0;
+        Arrays.fill(typed, 0);
         startTime = 0;
         endTime = 0;
+        tags.clear();
+    }
+
+    @Override
+    public void setTag(String key, String value) {
+        tags.put(key, value);
+    }
+
+    @Override
+    public Map<String, String> getTags() {
+        return Collections.unmodifiableMap(tags);
     }
 }
@@ -0,0 +1,33 @@
+package com.smartcity.common;
+
+/**
+ * Kinds of elementary work counted by {@link Metrics}.
+ *
+ * Algorithms count each kind separately so that, for example, Tarjan's edge
+ * scans and stack pops are not summed into one number; the untyped total
+ * remains the sum of all typed counts plus any untyped additions.
+ *
+ * Complexity: O(1)
+ */
+public enum OperationType {
+    VERTEX_VISITS("vertex visits"),
+    EDGE_SCANS("edge scans"),
+    STACK_OPS("stack pushes/pops"),
+    QUEUE_OPS("queue operations"),
+    RELAXATIONS("relaxations"),
+    HASH_PROBES("hash probes");
+
+    private final String label;
+
+    OperationType(String label) {
+        this.label = label;
+    }
+
+    /**
+     * Get the name used in reports.
+     * @return Lower-case label, e.g. "edge scans"
+     */
+    public String getLabel() {
+        return label;
+    }
+}
@@ -0,0 +1,77 @@
+package com.smartcity.common;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+/**
+ * Minimal data-parallel loop used by the bulk graph builders and loaders.
+ * Task indexes are claimed dynamically by a fixed number of worker threads.
+ */
+public final class Parallel {
+
+    private Parallel() {
+    }
+
+    /**
+     * Get the default number of worker threads.
+     * @return Number of available processors
+     */
+    public static int defaultParallelism() {
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Run body(0) .. body(count - 1) on up to parallelism threads.
+     * Runs inline when only one thread would be used.
+     * @param count Number of tasks
+     * @param parallelism Maximum number of worker threads
+     * @param body Task body, called once per index
+     * @throws RuntimeException the first exception thrown by a task
+     */
+    public static void forEach(int count, int parallelism, IntConsumer body) {
+        int workers = Math.max(1, Math.min(parallelism, count));
+        if (workers == 1) {
+            for (int i = 0; i < count; i++) {
+                body.accept(i);
+            }
+            return;
+        }
+
+        AtomicInteger next = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        try {
+            List<Future<?>> futures = new ArrayList<>(workers);
+            for (int w = 0; w < workers; w++) {
+                futures.add(pool.submit(() -> {
+                    int i;
+                    while ((i = next.getAndIncrement()) < count) {
+                        body.accept(i);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Parallel task interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException("Parallel task failed", cause);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
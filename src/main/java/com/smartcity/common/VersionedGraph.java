@@ -0,0 +1,426 @@
+package com.smartcity.common;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Multi-version graph for concurrent readers and writers.
+ *
+ * Adjacency lists are grouped into blocks of 64 vertices. A version is an
+ * immutable array of block references. Writers build the next version by
+ * copying only the blocks they touch (and the touched neighbor arrays), then
+ * publish it with a single atomic reference swap; writers serialize on a
+ * lock, readers never lock. A {@link Snapshot} pins one version and is a
+ * read-only {@link Graph}, so every existing algorithm runs on a consistent
+ * view while ingest continues. Task durations for the "node" weight model
+ * are versioned the same way: a commit that changes any copies the duration
+ * array once.
+ *
+ * Versions do not reference each other. Once a version is superseded and its
+ * last snapshot is closed, nothing refers to it and the blocks it alone used
+ * are reclaimed by the garbage collector; blocks shared with newer versions
+ * stay alive. Pin counts make the set of live old versions observable.
+ *
+ * Complexity: commit O(V/64 + touched blocks * 64 + sum of touched degrees);
+ * snapshot O(1); adjacency lookup O(1)
+ */
+public class VersionedGraph {
+    private static final int BLOCK_BITS = 6;
+    private static final int BLOCK_SIZE = 1 << BLOCK_BITS;
+    private static final EdgeArrayList EMPTY = new EdgeArrayList(new Graph.Edge[0]);
+
+    private final int vertices;
+    private final boolean directed;
+    private final AtomicReference<Version> current;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final Map<Long, Version> pinned = new ConcurrentHashMap<>();
+    private volatile String weightModel = "edge";
+
+    /**
+     * Create an empty versioned graph at version 0.
+     * @param vertices Number of vertices
+     * @param directed Whether edges are directed
+     */
+    public VersionedGraph(int vertices, boolean directed) {
+        if (vertices < 0) {
+            throw new IllegalArgumentException("vertices must be non-negative");
+        }
+        this.vertices = vertices;
+        this.directed = directed;
+        Block[] blocks = new Block[(vertices + BLOCK_SIZE - 1) >>> BLOCK_BITS];
+        Block empty = new Block(new EdgeArrayList[BLOCK_SIZE]);
+        Arrays.fill(empty.lists, EMPTY);
+        Arrays.fill(blocks, empty);
+        this.current = new AtomicReference<>(new Version(0, blocks, 0, null));
+    }
+
+    /**
+     * Create a versioned graph holding a copy of an existing graph as version 0.
+     * @param graph Initial content, including weight model and task durations
+     * @return Versioned graph
+     * @complexity O(V+E)
+     */
+    public static VersionedGraph of(Graph graph) {
+        VersionedGraph versioned = new VersionedGraph(graph.getVertices(), graph.isDirected());
+        versioned.weightModel = graph.getWeightModel();
+        Block[] blocks = versioned.current.get().blocks;
+        long edges = 0;
+        for (int b = 0; b < blocks.length; b++) {
+            EdgeArrayList[] lists = new EdgeArrayList[BLOCK_SIZE];
+            for (int i = 0; i < BLOCK_SIZE; i++) {
+                int u = (b << BLOCK_BITS) + i;
+                List<Graph.Edge> adjacent = u < graph.getVertices() ? graph.getAdjacentEdges(u) : Collections.emptyList();
+                lists[i] = adjacent.isEmpty() ? EMPTY : new EdgeArrayList(adjacent.toArray(new Graph.Edge[0]));
+                edges += adjacent.size();
+            }
+            blocks[b] = new Block(lists);
+        }
+        int[] durations = null;
+        for (int v = 0; v < graph.getVertices(); v++) {
+            if (graph.getNodeWeight(v) != 0) {
+                if (durations == null) {
+                    durations = new int[graph.getVertices()];
+                }
+                durations[v] = graph.getNodeWeight(v);
+            }
+        }
+        versioned.current.set(new Version(0, blocks, edges, durations));
+        return versioned;
+    }
+
+    /**
+     * Get number of vertices.
+     * @return Vertex count
+     */
+    public int getVertices() {
+        return vertices;
+    }
+
+    /**
+     * Get the latest published version number.
+     * @return Version number, starting at 0
+     */
+    public long getVersion() {
+        return current.get().number;
+    }
+
+    /**
+     * Set the weight model reported by future snapshots.
+     * @param weightModel Weight model description
+     */
+    public void setWeightModel(String weightModel) {
+        this.weightModel = weightModel;
+    }
+
+    /**
+     * Pin the latest version for reading. Close the snapshot when done.
+     * @return Read-only graph view of the latest version
+     * @complexity O(1), lock-free
+     */
+    public Snapshot snapshot() {
+        Version version = current.get();
+        if (version.pins.getAndIncrement() == 0) {
+            pinned.put(version.number, version);
+        }
+        return new Snapshot(version);
+    }
+
+    /**
+     * Add one edge and publish a new version.
+     * Prefer {@link #batch()} for bulk ingest: every commit copies the block table.
+     * @param u Source vertex
+     * @param v Destination vertex
+     * @param weight Edge weight
+     * @return Number of the published version
+     */
+    public long addEdge(int u, int v, int weight) {
+        return batch().addEdge(u, v, weight).commit();
+    }
+
+    /**
+     * Set one task duration and publish a new version.
+     * @param vertex Task vertex
+     * @param weight Duration for the "node" weight model
+     * @return Number of the published version
+     */
+    public long setNodeWeight(int vertex, int weight) {
+        return batch().setNodeWeight(vertex, weight).commit();
+    }
+
+    /**
+     * Start a batch of edges that is published as one version.
+     * A batch belongs to one thread; different threads use separate batches.
+     * @return Empty batch
+     */
+    public Batch batch() {
+        return new Batch();
+    }
+
+    /**
+     * Get number of superseded versions still pinned by open snapshots.
+     * @return Count of old versions kept alive by readers
+     */
+    public int getPinnedOldVersions() {
+        long latest = getVersion();
+        int count = 0;
+        for (Long number : pinned.keySet()) {
+            if (number != latest) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void unpin(Version version) {
+        if (version.pins.decrementAndGet() == 0) {
+            pinned.remove(version.number, version);
+            // A concurrent snapshot() may have re-pinned between the decrement and the removal
+            if (version.pins.get() > 0) {
+                pinned.put(version.number, version);
+            }
+        }
+    }
+
+    private void checkVertex(int vertex) {
+        if (vertex < 0 || vertex >= vertices) {
+            throw new IllegalArgumentException("Vertex " + vertex + " out of range for n=" + vertices);
+        }
+    }
+
+    /**
+     * Edges and task durations changed together and published atomically.
+     */
+    public final class Batch {
+        private final Map<Integer, List<Graph.Edge>> pending = new HashMap<>();
+        private final Map<Integer, Integer> durations = new HashMap<>();
+        private int arcs;
+        private int added;
+
+        private Batch() {
+        }
+
+        /**
+         * Stage an edge.
+         * @param u Source vertex
+         * @param v Destination vertex
+         * @param weight Edge weight
+         * @return This batch
+         */
+        public Batch addEdge(int u, int v, int weight) {
+            checkVertex(u);
+            checkVertex(v);
+            pending.computeIfAbsent(u, k -> new ArrayList<>()).add(new Graph.Edge(v, weight));
+            arcs++;
+            if (!directed) {
+                pending.computeIfAbsent(v, k -> new ArrayList<>()).add(new Graph.Edge(u, weight));
+                arcs++;
+            }
+            added++;
+            return this;
+        }
+
+        /**
+         * Stage a task duration; the last one staged for a vertex wins.
+         * @param vertex Task vertex
+         * @param weight Duration for the "node" weight model
+         * @return This batch
+         */
+        public Batch setNodeWeight(int vertex, int weight) {
+            checkVertex(vertex);
+            durations.put(vertex, weight);
+            return this;
+        }
+
+        /**
+         * Get number of staged edges.
+         * @return Edge count
+         */
+        public int size() {
+            return added;
+        }
+
+        /**
+         * Publish staged edges and durations as a new version and clear the batch.
+         * An empty batch publishes nothing.
+         * @return Number of the latest version after the commit
+         */
+        public long commit() {
+            if (pending.isEmpty() && durations.isEmpty()) {
+                return getVersion();
+            }
+            writeLock.lock();
+            try {
+                Version base = current.get();
+                Block[] blocks = base.blocks.clone();
+                // Copy each touched block once, then each touched neighbor array once
+                Map<Integer, EdgeArrayList[]> copied = new HashMap<>();
+                for (Map.Entry<Integer, List<Graph.Edge>> entry : pending.entrySet()) {
+                    int u = entry.getKey();
+                    int b = u >>> BLOCK_BITS;
+                    EdgeArrayList[] lists = copied.computeIfAbsent(b, k -> blocks[k].lists.clone());
+                    int i = u & (BLOCK_SIZE - 1);
+                    Graph.Edge[] old = lists[i].edges;
+                    List<Graph.Edge> extra = entry.getValue();
+                    Graph.Edge[] merged = Arrays.copyOf(old, old.length + extra.size());
+                    for (int k = 0; k < extra.size(); k++) {
+                        merged[old.length + k] = extra.get(k);
+                    }
+                    lists[i] = new EdgeArrayList(merged);
+                }
+                for (Map.Entry<Integer, EdgeArrayList[]> entry : copied.entrySet()) {
+                    blocks[entry.getKey()] = new Block(entry.getValue());
+                }
+                int[] nodeWeights = base.nodeWeights;
+                if (!durations.isEmpty()) {
+                    nodeWeights = nodeWeights == null ? new int[vertices] : nodeWeights.clone();
+                    for (Map.Entry<Integer, Integer> entry : durations.entrySet()) {
+                        nodeWeights[entry.getKey()] = entry.getValue();
+                    }
+                }
+                Version next = new Version(base.number + 1, blocks, base.edges + arcs, nodeWeights);
+                current.set(next);
+                return next.number;
+            } finally {
+                writeLock.unlock();
+                pending.clear();
+                durations.clear();
+                arcs = 0;
+                added = 0;
+            }
+        }
+    }
+
+    /**
+     * Read-only view of one pinned version.
+     * All reads see exactly the edges published up to that version.
+     */
+    public final class Snapshot extends Graph implements AutoCloseable {
+        private final Version version;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Snapshot(Version version) {
+            super(vertices, null, directed);
+            this.version = version;
+            super.setWeightModel(weightModel);
+        }
+
+        /**
+         * Snapshots are read-only.
+         * @throws UnsupportedOperationException always
+         */
+        @Override
+        public void addEdge(int u, int v, int weight) {
+            throw new UnsupportedOperationException("Snapshot is read-only; use VersionedGraph.batch()");
+        }
+
+        /**
+         * Snapshots are read-only.
+         * @throws UnsupportedOperationException always
+         */
+        @Override
+        public void setNodeWeight(int vertex, int weight) {
+            throw new UnsupportedOperationException("Snapshot is read-only; use VersionedGraph.batch()");
+        }
+
+        /**
+         * Get a task duration as of this snapshot's version.
+         * @param vertex Task vertex
+         * @return Duration, 0 if none was set
+         */
+        @Override
+        public int getNodeWeight(int vertex) {
+            return version.nodeWeights == null ? 0 : version.nodeWeights[vertex];
+        }
+
+        /**
+         * Get outgoing edges as of this snapshot's version.
+         * @param vertex Source vertex
+         * @return Unmodifiable edge list
+         */
+        @Override
+        public List<Edge> getAdjacentEdges(int vertex) {
+            return version.blocks[vertex >>> BLOCK_BITS].lists[vertex & (BLOCK_SIZE - 1)];
+        }
+
+        /**
+         * Get the pinned version number.
+         * @return Version number
+         */
+        public long getVersion() {
+            return version.number;
+        }
+
+        /**
+         * Get number of stored arcs in this version.
+         * @return Arc count; undirected edges count twice
+         */
+        public long getEdgeCount() {
+            return version.edges;
+        }
+
+        /**
+         * Release the pin; further closes have no effect.
+         */
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                unpin(version);
+            }
+        }
+    }
+
+    /**
+     * Immutable published state.
+     */
+    private static final class Version {
+        private final long number;
+        private final Block[] blocks;
+        private final long edges;
+        // Task durations, never written after publication; null when all are 0
+        private final int[] nodeWeights;
+        private final AtomicInteger pins = new AtomicInteger();
+
+        Version(long number, Block[] blocks, long edges, int[] nodeWeights) {
+            this.number = number;
+            this.blocks = blocks;
+            this.edges = edges;
+            this.nodeWeights = nodeWeights;
+        }
+    }
+
+    /**
+     * Immutable adjacency lists of 64 consecutive vertices.
+     */
+    private static final class Block {
+        private final EdgeArrayList[] lists;
+
+        Block(EdgeArrayList[] lists) {
+            this.lists = lists;
+        }
+    }
+
+    /**
+     * Unmodifiable list over an edge array that is never written after publication.
+     */
+    private static final class EdgeArrayList extends AbstractList<Graph.Edge> implements RandomAccess {
+        private final Graph.Edge[] edges;
+
+        EdgeArrayList(Graph.Edge[] edges) {
+            this.edges = edges;
+        }
+
+        @Override
+        public Graph.Edge get(int index) {
+            return edges[index];
+        }
+
+        @Override
+        public int size() {
+            return edges.length;
+        }
+    }
+}
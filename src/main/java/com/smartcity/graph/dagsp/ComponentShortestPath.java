@@ -0,0 +1,514 @@
+package com.smartcity.graph.dagsp;
+
+import com.smartcity.common.CancellationToken;
+import com.smartcity.common.CompressedGraph;
+import com.smartcity.common.CsrGraph;
+import com.smartcity.common.Graph;
+import com.smartcity.common.Metrics;
+import com.smartcity.common.MetricsImpl;
+import com.smartcity.common.OperationType;
+import com.smartcity.common.Parallel;
+import com.smartcity.graph.scc.CondensationGraph;
+import com.smartcity.graph.scc.TarjanSCC;
+
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Task-level single-source shortest paths on a graph that may contain cycles.
+ *
+ * The graph is split into SCCs, which Tarjan's algorithm emits in reverse
+ * topological order, and the components are walked from the last one back.
+ * A trivial component (one task, no negative self-loop) is relaxed inline:
+ * its final distance is pushed over its outgoing edges. A non-trivial
+ * component that the source reaches is handed to the executor, which runs
+ * Dijkstra restricted to the component (Bellman-Ford with a queue when the
+ * component has a negative internal edge). The walk continues past running
+ * components until it meets a component one of them has an edge into; it
+ * then waits for the running components and pushes their distances. Only
+ * the walking thread pushes into later components and each running component
+ * writes only its own vertices, so no locking is needed. A
+ * {@link CompressedGraph} is read through its cursor instead of being
+ * flattened.
+ *
+ * With the "node" weight model a path costs the sum of its task durations,
+ * as in {@link DAGShortestPath}; otherwise it costs the sum of edge weights.
+ *
+ * An optional cancellation token is checked by the SCC pass and every
+ * CHECK_INTERVAL relaxations; progress counts vertices of solved components
+ * and relaxations.
+ *
+ * Complexity: O(V+E) for the SCC pass and the walk plus, per non-trivial
+ * component, O(E_c log E_c) with Dijkstra or O(V_c * E_c) with Bellman-Ford
+ */
+public class ComponentShortestPath {
+    public static final long UNREACHABLE = Long.MAX_VALUE;
+
+    private final Graph graph;
+    // Flattened edges, or null when a compressed graph is read through its cursor
+    private final CsrGraph forward;
+    private final List<List<Integer>> components;
+    private final int[] componentOf;
+    private final int[][] members;
+    private final boolean[] negative;
+    // Task durations for the node weight model, null for the edge model
+    private final int[] durations;
+    private final Metrics metrics;
+    private final CancellationToken cancellation;
+    private CondensationGraph condensation;
+
+    /**
+     * Split a graph into components for task-level path queries.
+     * @param graph Directed graph, cycles allowed
+     * @throws IllegalArgumentException if the weight model is unknown
+     */
+    public ComponentShortestPath(Graph graph) {
+        this(graph, CancellationToken.NONE);
+    }
+
+    /**
+     * Split a graph into components for cancellable task-level path queries.
+     * The graph must not change afterwards.
+     * @param graph Directed graph, cycles allowed
+     * @param cancellation Token checked here and by every query
+     * @throws IllegalArgumentException if the weight model is unknown
+     * @throws java.util.concurrent.CancellationException if the token fires during the SCC pass
+     */
+    public ComponentShortestPath(Graph graph, CancellationToken cancellation) {
+        this.graph = graph;
+        this.cancellation = cancellation;
+        this.forward = graph instanceof CompressedGraph ? null : CsrGraph.of(graph);
+        TarjanSCC tarjan = new TarjanSCC(graph);
+        tarjan.setCancellationToken(cancellation);
+        this.components = tarjan.findSCCs().getComponents();
+        int n = graph.getVertices();
+        int count = components.size();
+        this.componentOf = new int[n];
+        this.members = new int[count][];
+        for (int c = 0; c < count; c++) {
+            List<Integer> vertices = components.get(c);
+            members[c] = new int[vertices.size()];
+            for (int i = 0; i < vertices.size(); i++) {
+                members[c][i] = vertices.get(i);
+                componentOf[members[c][i]] = c;
+            }
+        }
+        if (DAGShortestPath.isNodeModel(graph.getWeightModel())) {
+            this.durations = new int[n];
+            for (int v = 0; v < n; v++) {
+                durations[v] = graph.getNodeWeight(v);
+            }
+        } else {
+            this.durations = null;
+        }
+        this.negative = new boolean[count];
+        Scan scan = new Scan();
+        for (int u = 0; u < n; u++) {
+            for (scan.reset(u); scan.next(); ) {
+                if (scan.cost() < 0 && componentOf[scan.target()] == componentOf[u]) {
+                    negative[componentOf[u]] = true;
+                }
+            }
+        }
+        this.metrics = new MetricsImpl();
+    }
+
+    /**
+     * Get the condensation of the graph, built on first use.
+     * @return Condensation graph over the components of this engine
+     */
+    public synchronized CondensationGraph getCondensation() {
+        if (condensation == null) {
+            condensation = new CondensationGraph(graph, components);
+        }
+        return condensation;
+    }
+
+    /**
+     * Shortest paths from one task, solving components on all processors.
+     * @param source Source task
+     * @return Task-level distances and parents
+     * @throws IllegalStateException if a negative cycle is reachable from the source
+     * @throws java.util.concurrent.CancellationException if the token fires
+     */
+    public TaskPathResult shortestPaths(int source) {
+        ExecutorService executor = Executors.newFixedThreadPool(Parallel.defaultParallelism());
+        try {
+            return shortestPaths(source, executor);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Shortest paths from one task.
+     * @param source Source task
+     * @param executor Executor that solves non-trivial components; not shut down
+     * @return Task-level distances and parents
+     * @throws IllegalArgumentException if the source is out of range
+     * @throws IllegalStateException if a negative cycle is reachable from the source
+     * @throws java.util.concurrent.CancellationException if the token fires
+     */
+    public TaskPathResult shortestPaths(int source, ExecutorService executor) {
+        int n = graph.getVertices();
+        if (source < 0 || source >= n) {
+            throw new IllegalArgumentException("Source " + source + " out of range for n=" + n);
+        }
+        long[] dist = new long[n];
+        int[] parent = new int[n];
+        Arrays.fill(dist, UNREACHABLE);
+        Arrays.fill(parent, -1);
+        dist[source] = durations == null ? 0 : durations[source];
+        int[] rounds = new int[n];
+        boolean[] queued = new boolean[n];
+        // A component that a running component has an edge into holds the current join round + 1
+        int[] blocked = new int[members.length];
+        int round = 0;
+        List<Integer> running = new ArrayList<>();
+        List<Future<?>> results = new ArrayList<>();
+        AtomicLong solvedRelaxations = new AtomicLong();
+        Scan scan = new Scan();
+        long relaxations = 0;
+        long checked = 0;
+        long solved = 0;
+
+        metrics.reset();
+        metrics.startTiming();
+        try {
+            for (int c = members.length - 1; c >= 0; c--) {
+                if (blocked[c] > round) {
+                    relaxations += join(running, results, dist, parent, scan);
+                    round++;
+                }
+                if (members[c].length == 1 && !negative[c]) {
+                    // A single vertex can still carry a self-loop; only a negative one matters
+                    relaxations += push(c, dist, parent, scan);
+                    solved++;
+                } else if (isSeeded(c, dist)) {
+                    block(c, blocked, round + 1, scan);
+                    int component = c;
+                    running.add(c);
+                    results.add(executor.submit(() ->
+                            solvedRelaxations.addAndGet(solve(component, dist, parent, rounds, queued))));
+                }
+                if (relaxations - checked >= CancellationToken.CHECK_INTERVAL
+                        || solved >= CancellationToken.CHECK_INTERVAL) {
+                    cancellation.checkpoint(solved, relaxations - checked);
+                    checked = relaxations;
+                    solved = 0;
+                }
+            }
+            relaxations += join(running, results, dist, parent, scan);
+        } finally {
+            for (Future<?> result : results) {
+                result.cancel(true);
+            }
+        }
+        cancellation.report(solved, relaxations - checked);
+        metrics.addOperations(OperationType.RELAXATIONS, relaxations + solvedRelaxations.get());
+        metrics.stopTiming();
+        return new TaskPathResult(dist, parent, metrics);
+    }
+
+    private boolean isSeeded(int component, long[] dist) {
+        for (int v : members[component]) {
+            if (dist[v] != UNREACHABLE) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Mark every other component that the given one has an edge into
+    private void block(int component, int[] blocked, int mark, Scan scan) {
+        for (int u : members[component]) {
+            for (scan.reset(u); scan.next(); ) {
+                if (componentOf[scan.target()] != component) {
+                    blocked[componentOf[scan.target()]] = mark;
+                }
+            }
+        }
+    }
+
+    /**
+     * Wait for the running components, then push their distances into later components.
+     * @return Number of edge relaxations of the pushes
+     */
+    private long join(List<Integer> running, List<Future<?>> results, long[] dist, int[] parent, Scan scan) {
+        long relaxations = 0;
+        for (int i = 0; i < running.size(); i++) {
+            try {
+                results.get(i).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Interrupted while waiting for component " + running.get(i));
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new IllegalStateException(e.getCause());
+            }
+            relaxations += push(running.get(i), dist, parent, scan);
+        }
+        running.clear();
+        results.clear();
+        return relaxations;
+    }
+
+    /**
+     * Relax the edges leaving a finished component.
+     * @return Number of edge relaxations
+     */
+    private long push(int component, long[] dist, int[] parent, Scan scan) {
+        long relaxations = 0;
+        for (int u : members[component]) {
+            if (dist[u] == UNREACHABLE) {
+                continue;
+            }
+            for (scan.reset(u); scan.next(); ) {
+                int v = scan.target();
+                if (componentOf[v] != component) {
+                    relaxations++;
+                    if (dist[u] + scan.cost() < dist[v]) {
+                        dist[v] = dist[u] + scan.cost();
+                        parent[v] = u;
+                    }
+                }
+            }
+        }
+        return relaxations;
+    }
+
+    /**
+     * Solve one non-trivial component whose entering edges have all been pushed.
+     * Components write only their own entries of the shared arrays.
+     * @return Number of edge relaxations
+     */
+    private long solve(int component, long[] dist, int[] parent, int[] rounds, boolean[] queued) {
+        Scan scan = new Scan();
+        long relaxations = 0;
+        long checked = 0;
+
+        if (!negative[component]) {
+            // Dijkstra with a lazy binary heap of (distance, vertex)
+            MinHeap heap = new MinHeap();
+            for (int v : members[component]) {
+                if (dist[v] != UNREACHABLE) {
+                    heap.push(dist[v], v);
+                }
+            }
+            while (heap.size > 0) {
+                long d = heap.topKey();
+                int u = heap.pop();
+                if (d != dist[u]) {
+                    continue;
+                }
+                for (scan.reset(u); scan.next(); ) {
+                    int v = scan.target();
+                    if (componentOf[v] == component) {
+                        relaxations++;
+                        if (d + scan.cost() < dist[v]) {
+                            dist[v] = d + scan.cost();
+                            parent[v] = u;
+                            heap.push(dist[v], v);
+                        }
+                    }
+                }
+                checked = poll(relaxations, checked);
+            }
+            return done(component, relaxations, checked);
+        }
+
+        // Queue-based Bellman-Ford; a vertex dequeued |C| times means a negative cycle
+        int size = members[component].length;
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int v : members[component]) {
+            if (dist[v] != UNREACHABLE) {
+                queue.add(v);
+                queued[v] = true;
+            }
+        }
+        while (!queue.isEmpty()) {
+            int u = queue.poll();
+            queued[u] = false;
+            if (++rounds[u] > size) {
+                throw new IllegalStateException("Negative cycle in component " + component
+                        + " through task " + u);
+            }
+            for (scan.reset(u); scan.next(); ) {
+                int v = scan.target();
+                if (componentOf[v] == component) {
+                    relaxations++;
+                    if (dist[u] + scan.cost() < dist[v]) {
+                        dist[v] = dist[u] + scan.cost();
+                        parent[v] = u;
+                        if (!queued[v]) {
+                            queued[v] = true;
+                            queue.add(v);
+                        }
+                    }
+                }
+            }
+            checked = poll(relaxations, checked);
+        }
+        return done(component, relaxations, checked);
+    }
+
+    // Checkpoint once CHECK_INTERVAL relaxations are unreported; returns the reported mark
+    private long poll(long relaxations, long checked) {
+        if (relaxations - checked >= CancellationToken.CHECK_INTERVAL) {
+            cancellation.checkpoint(0, relaxations - checked);
+            return relaxations;
+        }
+        return checked;
+    }
+
+    private long done(int component, long relaxations, long checked) {
+        cancellation.report(members[component].length, relaxations - checked);
+        return relaxations;
+    }
+
+    /**
+     * Out-edges of one vertex at a time, from the CSR or through the compressed
+     * graph's cursor. Each thread uses its own scan.
+     */
+    private final class Scan {
+        private final CompressedGraph.NeighborCursor cursor =
+                forward == null ? ((CompressedGraph) graph).cursor() : null;
+        private int edge;
+        private int end;
+
+        void reset(int u) {
+            if (cursor != null) {
+                cursor.reset(u);
+            } else {
+                edge = forward.offsets()[u] - 1;
+                end = forward.offsets()[u + 1];
+            }
+        }
+
+        boolean next() {
+            return cursor != null ? cursor.next() : ++edge < end;
+        }
+
+        int target() {
+            return cursor != null ? cursor.target() : forward.targets()[edge];
+        }
+
+        // Edge weight, or the target's duration under the node model
+        int cost() {
+            if (durations != null) {
+                return durations[target()];
+            }
+            return cursor != null ? cursor.weight() : forward.weights()[edge];
+        }
+    }
+
+    /**
+     * Binary min-heap of (long key, int value) with duplicates allowed.
+     */
+    private static final class MinHeap {
+        private long[] keys = new long[16];
+        private int[] values = new int[16];
+        private int size;
+
+        void push(long key, int value) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            int i = size++;
+            while (i > 0 && keys[(i - 1) >>> 1] > key) {
+                int up = (i - 1) >>> 1;
+                keys[i] = keys[up];
+                values[i] = values[up];
+                i = up;
+            }
+            keys[i] = key;
+            values[i] = value;
+        }
+
+        long topKey() {
+            return keys[0];
+        }
+
+        int pop() {
+            int top = values[0];
+            long key = keys[--size];
+            int value = values[size];
+            int i = 0;
+            while (2 * i + 1 < size) {
+                int child = 2 * i + 1;
+                if (child + 1 < size && keys[child + 1] < keys[child]) {
+                    child++;
+                }
+                if (keys[child] >= key) {
+                    break;
+                }
+                keys[i] = keys[child];
+                values[i] = values[child];
+                i = child;
+            }
+            keys[i] = key;
+            values[i] = value;
+            return top;
+        }
+    }
+
+    /**
+     * Task-level shortest path distances and parents.
+     */
+    public static class TaskPathResult {
+        private final long[] dist;
+        private final int[] parent;
+        private final Metrics metrics;
+
+        TaskPathResult(long[] dist, int[] parent, Metrics metrics) {
+            this.dist = dist;
+            this.parent = parent;
+            this.metrics = metrics;
+        }
+
+        /**
+         * Get distances to every task.
+         * @return Distances, UNREACHABLE where no path exists
+         */
+        public long[] getDistances() {
+            return dist;
+        }
+
+        public boolean isReachable(int task) {
+            return dist[task] != UNREACHABLE;
+        }
+
+        /**
+         * Reconstruct the task path to a destination.
+         * @param task Destination task
+         * @return Tasks from the source to the destination, empty if unreachable
+         */
+        public List<Integer> reconstructPath(int task) {
+            List<Integer> path = new ArrayList<>();
+            if (!isReachable(task)) {
+                return path;
+            }
+            for (int v = task; v != -1; v = parent[v]) {
+                path.add(v);
+            }
+            Collections.reverse(path);
+            return path;
+        }
+
+        /**
+         * Get performance metrics.
+         * @return Metrics; operations count edge relaxations
+         */
+        public Metrics getMetrics() {
+            return metrics;
+        }
+    }
+}
@@ -1,87 +1,67 @@
 package com.smartcity.graph.dagsp;
 
+import com.smartcity.common.AlgorithmWorkspace;
+import com.smartcity.common.CancellationToken;
+import com.smartcity.common.CompressedGraph;
+import com.smartcity.common.CsrGraph;
 import com.smartcity.common.Graph;
 import com.smartcity.common.Metrics;
 import com.smartcity.common.MetricsImpl;
+import com.smartcity.common.OperationType;
+import com.smartcity.graph.topo.KahnTopologicalSort;
 
 import java.util.*;
 
 // Shortest and longest path algorithms for DAGs
+//
+// Distances are 64-bit, so sums of int weights cannot overflow. The graph's weight model picks
+// one of two relaxation kernels per query: "edge" adds the edge weight, "node" adds the duration
+// of the task being entered (the source counts its own duration). Longest paths run the same
+// kernels on negated lengths, so neither inner loop branches on the model or the direction.
+// Graphs whose edges all point to higher ids are relaxed in id order, a sequential array sweep.
+// The instance flattens its graph to CSR at the first query and keeps that copy (and the order)
+// for later queries, so create a new instance after changing the graph. Compressed graphs are
+// never flattened: their queries decode neighbors through a cursor and only the order is kept.
 public class DAGShortestPath {
+    // Distances of vertices the source cannot reach
+    public static final long UNREACHABLE_SHORTEST = Long.MAX_VALUE;
+    public static final long UNREACHABLE_LONGEST = Long.MIN_VALUE;
+    
+    private static final long NOT_REACHED = Long.MAX_VALUE;
+    
     private final Graph graph;
     private final Metrics metrics;
+    private final AlgorithmWorkspace workspace;
+    private CancellationToken cancellation = CancellationToken.NONE;
+    // Flattened at the first query (never for compressed graphs), with its topological order
+    private CsrGraph csr;
+    private int[] order;
     
     public DAGShortestPath(Graph graph) {
+        this(graph, null);
+    }
+    
+    // With a workspace, each query flattens the graph and orders it in reused buffers instead of
+    // keeping a CSR per instance; meant for many small graphs queried once or twice each
+    public DAGShortestPath(Graph graph, AlgorithmWorkspace workspace) {
         this.graph = graph;
         this.metrics = new MetricsImpl();
+        this.workspace = workspace;
+    }
+    
+    // Stop queries at the next checkpoint once the token is cancelled; progress counts vertices in order
+    public void setCancellationToken(CancellationToken cancellation) {
+        this.cancellation = cancellation;
     }
     
     // Compute shortest paths from source using topological order
     public PathResult shortestPaths(int source) {
-        int n = graph.getVertices();
-        int[] dist = new int[n];
-        int[] parent = new int[n];
-        Arrays.fill(dist, Integer.MAX_VALUE);
-        Arrays.fill(parent, -1);
-        dist[source] = 0;
-        
-        metrics.reset();
-        metrics.startTiming();
-        
-        List<Integer> topoOrder = topologicalSort();
-        
-        for (int u : topoOrder) {
-            if (dist[u] != Integer.MAX_VALUE) {
-                for (Graph.Edge edge : graph.getAdjacentEdges(u)) {
-                    int v = edge.to;
-                    int w = edge.weight;
-                    metrics.incrementOperations();
-                    
-                    if (dist[u] + w < dist[v]) {
-                        dist[v] = dist[u] + w;
-                        parent[v] = u;
-                    }
-                }
-            }
-        }
-        
-        metrics.stopTiming();
-        
-        return new PathResult(dist, parent, metrics, false);
+        return paths(source, false);
     }
     
     // Compute longest paths from source by negating weights
     public PathResult longestPaths(int source) {
-        int n = graph.getVertices();
-        int[] dist = new int[n];
-        int[] parent = new int[n];
-        Arrays.fill(dist, Integer.MIN_VALUE);
-        Arrays.fill(parent, -1);
-        dist[source] = 0;
-        
-        metrics.reset();
-        metrics.startTiming();
-        
-        List<Integer> topoOrder = topologicalSort();
-        
-        for (int u : topoOrder) {
-            if (dist[u] != Integer.MIN_VALUE) {
-                for (Graph.Edge edge : graph.getAdjacentEdges(u)) {
-                    int v = edge.to;
-                    int w = edge.weight;
-                    metrics.incrementOperations();
-                    
-                    if (dist[u] + w > dist[v]) {
-                        dist[v] = dist[u] + w;
-                        parent[v] = u;
-                    }
-                }
-            }
-        }
-        
-        metrics.stopTiming();
-        
-        return new PathResult(dist, parent, metrics, true);
+        return paths(source, true);
     }
     
     // Find critical path (longest path in the entire DAG)
@@ -89,15 +69,21 @@ public class DAGShortestPath {
         int n = graph.getVertices();
         int bestSource = -1;
         int bestDest = -1;
-        int maxLength = Integer.MIN_VALUE;
+        long maxLength = Long.MIN_VALUE;
         PathResult bestResult = null;
+        // Each query resets the per-query metrics, so the totals are summed here
+        Metrics total = new MetricsImpl();
+        total.startTiming();
         
         for (int source = 0; source < n; source++) {
+            // Small graphs never fill a checkpoint interval within one query
+            cancellation.checkpoint(0, 0);
             PathResult result = longestPaths(source);
-            int[] dist = result.getDistances();
+            total.addAll(result.getMetrics());
+            long[] dist = result.getDistances();
             
             for (int dest = 0; dest < n; dest++) {
-                if (dist[dest] != Integer.MIN_VALUE && dist[dest] > maxLength) {
+                if (dist[dest] != UNREACHABLE_LONGEST && dist[dest] > maxLength) {
                     maxLength = dist[dest];
                     bestSource = source;
                     bestDest = dest;
@@ -111,58 +97,290 @@ public class DAGShortestPath {
             path = bestResult.reconstructPath(bestDest);
         }
         
-        return new CriticalPathResult(path, maxLength, bestSource, bestDest);
+        total.stopTiming();
+        return new CriticalPathResult(path, maxLength, bestSource, bestDest, total);
     }
     
-    // Topological sort using DFS for path computation
-    private List<Integer> topologicalSort() {
+    // Relax in topological order with the kernel of the graph's weight model
+    private PathResult paths(int source, boolean longest) {
         int n = graph.getVertices();
-        boolean[] visited = new boolean[n];
-        Stack<Integer> stack = new Stack<>();
+        boolean nodeModel = isNodeModel(graph.getWeightModel());
+        long[] dist = new long[n];
+        int[] parent = new int[n];
+        Arrays.fill(dist, NOT_REACHED);
+        Arrays.fill(parent, -1);
+        long sign = longest ? -1 : 1;
+        
+        metrics.reset();
+        metrics.startTiming();
+        
+        CompressedGraph compressed = workspace == null && graph instanceof CompressedGraph
+                ? (CompressedGraph) graph : null;
+        int[] offsets = null;
+        int[] targets = null;
+        int[] weights = null;
+        int[] topo;
+        int ordered;
+        if (compressed != null) {
+            if (order == null) {
+                order = KahnTopologicalSort.orderOf(compressed);
+            }
+            topo = order;
+            ordered = order.length;
+        } else if (workspace == null) {
+            if (csr == null) {
+                csr = CsrGraph.of(graph);
+                order = sweepOrder(csr);
+            }
+            offsets = csr.offsets();
+            targets = csr.targets();
+            weights = csr.weights();
+            topo = order;
+            ordered = order.length;
+        } else {
+            offsets = workspace.ints(0, n + 1);
+            offsets[0] = 0;
+            for (int u = 0; u < n; u++) {
+                offsets[u + 1] = offsets[u] + graph.getAdjacentEdges(u).size();
+            }
+            targets = workspace.ints(1, offsets[n]);
+            weights = workspace.ints(2, offsets[n]);
+            for (int u = 0; u < n; u++) {
+                int e = offsets[u];
+                for (Graph.Edge edge : graph.getAdjacentEdges(u)) {
+                    targets[e] = edge.to;
+                    weights[e++] = edge.weight;
+                }
+            }
+            topo = workspace.ints(4, n);
+            ordered = KahnTopologicalSort.orderInto(n, offsets, targets, workspace.ints(3, n), topo);
+        }
+        if (ordered != n) {
+            throw new IllegalArgumentException("DAG shortest paths require an acyclic graph");
+        }
+        
+        long scanned;
+        int[] durations = null;
+        if (nodeModel) {
+            durations = workspace == null ? new int[n] : workspace.ints(5, n);
+            for (int v = 0; v < n; v++) {
+                durations[v] = graph.getNodeWeight(v);
+            }
+            dist[source] = sign * durations[source];
+        } else {
+            dist[source] = 0;
+        }
+        if (compressed != null && nodeModel) {
+            scanned = relaxCursorNodes(topo, n, compressed.cursor(), durations, sign, dist, parent, cancellation);
+        } else if (compressed != null) {
+            scanned = relaxCursorEdges(topo, n, compressed.cursor(), sign, dist, parent, cancellation);
+        } else if (nodeModel) {
+            scanned = relaxNodes(topo, n, offsets, targets, durations, sign, dist, parent, cancellation);
+        } else {
+            scanned = relaxEdges(topo, n, offsets, targets, weights, sign, dist, parent, cancellation);
+        }
+        // The sweep visits every vertex of the order, reached or not
+        metrics.addOperations(OperationType.VERTEX_VISITS, n);
+        metrics.addOperations(OperationType.RELAXATIONS, scanned);
         
+        // Back from negated lengths; unreachable keeps the direction's sentinel
         for (int v = 0; v < n; v++) {
-            if (!visited[v]) {
-                topoDFS(v, visited, stack);
+            if (dist[v] == NOT_REACHED) {
+                dist[v] = longest ? UNREACHABLE_LONGEST : UNREACHABLE_SHORTEST;
+            } else {
+                dist[v] *= sign;
             }
         }
         
-        List<Integer> order = new ArrayList<>();
-        while (!stack.isEmpty()) {
-            order.add(stack.pop());
+        metrics.stopTiming();
+        
+        return new PathResult(dist, parent, metrics, longest);
+    }
+    
+    // Graphs numbered in topological order (e.g. by VertexReordering) are swept in plain id order
+    private static int[] sweepOrder(CsrGraph csr) {
+        int n = csr.getVertices();
+        int[] offsets = csr.offsets();
+        int[] targets = csr.targets();
+        for (int u = 0; u < n; u++) {
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                if (targets[e] <= u) {
+                    return KahnTopologicalSort.orderOf(csr);
+                }
+            }
+        }
+        int[] identity = new int[n];
+        for (int v = 0; v < n; v++) {
+            identity[v] = v;
         }
-        return order;
+        return identity;
     }
     
-    // DFS for topological sorting
-    private void topoDFS(int u, boolean[] visited, Stack<Integer> stack) {
-        visited[u] = true;
-        
-        for (Graph.Edge edge : graph.getAdjacentEdges(u)) {
-            if (!visited[edge.to]) {
-                topoDFS(edge.to, visited, stack);
+    // Shared with ComponentShortestPath; unknown models are rejected
+    static boolean isNodeModel(String weightModel) {
+        if ("node".equalsIgnoreCase(weightModel)) {
+            return true;
+        }
+        if (weightModel == null || "edge".equalsIgnoreCase(weightModel)) {
+            return false;
+        }
+        throw new IllegalArgumentException("Unknown weight model: " + weightModel);
+    }
+    
+    // Edge model kernel: u -> v costs the edge weight; returns edges scanned
+    private static long relaxEdges(int[] order, int n, int[] offsets, int[] targets, int[] weights, long sign,
+                                   long[] dist, int[] parent, CancellationToken cancellation) {
+        long scanned = 0;
+        long pending = 0;
+        int reported = 0;
+        for (int i = 0; i < n; i++) {
+            int u = order[i];
+            long du = dist[u];
+            if (du == NOT_REACHED) {
+                continue;
+            }
+            int end = offsets[u + 1];
+            scanned += end - offsets[u];
+            pending += end - offsets[u];
+            if (pending >= CancellationToken.CHECK_INTERVAL) {
+                cancellation.checkpoint(i - reported, pending);
+                reported = i;
+                pending = 0;
+            }
+            for (int e = offsets[u]; e < end; e++) {
+                int v = targets[e];
+                long candidate = du + sign * weights[e];
+                if (candidate < dist[v]) {
+                    dist[v] = candidate;
+                    parent[v] = u;
+                }
             }
         }
-        
-        stack.push(u);
+        cancellation.report(n - reported, pending);
+        return scanned;
+    }
+    
+    // Node model kernel: u -> v costs the duration of v; returns edges scanned
+    private static long relaxNodes(int[] order, int n, int[] offsets, int[] targets, int[] durations, long sign,
+                                   long[] dist, int[] parent, CancellationToken cancellation) {
+        long scanned = 0;
+        long pending = 0;
+        int reported = 0;
+        for (int i = 0; i < n; i++) {
+            int u = order[i];
+            long du = dist[u];
+            if (du == NOT_REACHED) {
+                continue;
+            }
+            int end = offsets[u + 1];
+            scanned += end - offsets[u];
+            pending += end - offsets[u];
+            if (pending >= CancellationToken.CHECK_INTERVAL) {
+                cancellation.checkpoint(i - reported, pending);
+                reported = i;
+                pending = 0;
+            }
+            for (int e = offsets[u]; e < end; e++) {
+                int v = targets[e];
+                long candidate = du + sign * durations[v];
+                if (candidate < dist[v]) {
+                    dist[v] = candidate;
+                    parent[v] = u;
+                }
+            }
+        }
+        cancellation.report(n - reported, pending);
+        return scanned;
+    }
+    
+    // Compressed edge model kernel: u -> v costs the edge weight; returns edges scanned
+    private static long relaxCursorEdges(int[] order, int n, CompressedGraph.NeighborCursor cursor, long sign,
+                                         long[] dist, int[] parent, CancellationToken cancellation) {
+        long scanned = 0;
+        long pending = 0;
+        int reported = 0;
+        for (int i = 0; i < n; i++) {
+            int u = order[i];
+            long du = dist[u];
+            if (du == NOT_REACHED) {
+                continue;
+            }
+            cursor.reset(u);
+            while (cursor.next()) {
+                int v = cursor.target();
+                long candidate = du + sign * cursor.weight();
+                if (candidate < dist[v]) {
+                    dist[v] = candidate;
+                    parent[v] = u;
+                }
+                scanned++;
+                pending++;
+            }
+            if (pending >= CancellationToken.CHECK_INTERVAL) {
+                cancellation.checkpoint(i + 1 - reported, pending);
+                reported = i + 1;
+                pending = 0;
+            }
+        }
+        cancellation.report(n - reported, pending);
+        return scanned;
+    }
+    
+    // Compressed node model kernel: u -> v costs the duration of v; returns edges scanned
+    private static long relaxCursorNodes(int[] order, int n, CompressedGraph.NeighborCursor cursor, int[] durations,
+                                         long sign, long[] dist, int[] parent, CancellationToken cancellation) {
+        long scanned = 0;
+        long pending = 0;
+        int reported = 0;
+        for (int i = 0; i < n; i++) {
+            int u = order[i];
+            long du = dist[u];
+            if (du == NOT_REACHED) {
+                continue;
+            }
+            cursor.reset(u);
+            while (cursor.next()) {
+                int v = cursor.target();
+                long candidate = du + sign * durations[v];
+                if (candidate < dist[v]) {
+                    dist[v] = candidate;
+                    parent[v] = u;
+                }
+                scanned++;
+                pending++;
+            }
+            if (pending >= CancellationToken.CHECK_INTERVAL) {
+                cancellation.checkpoint(i + 1 - reported, pending);
+                reported = i + 1;
+                pending = 0;
+            }
+        }
+        cancellation.report(n - reported, pending);
+        return scanned;
     }
     
     public static class PathResult {
-        private final int[] distances;
+        private final long[] distances;
         private final int[] parents;
         private final Metrics metrics;
         private final boolean isLongest;
         
-        public PathResult(int[] distances, int[] parents, Metrics metrics, boolean isLongest) {
+        public PathResult(long[] distances, int[] parents, Metrics metrics, boolean isLongest) {
             this.distances = distances;
             this.parents = parents;
             this.metrics = metrics;
             this.isLongest = isLongest;
         }
         
-        public int[] getDistances() {
+        // Distances per vertex; UNREACHABLE_SHORTEST or UNREACHABLE_LONGEST where there is no path
+        public long[] getDistances() {
             return distances;
         }
         
+        public boolean isReachable(int vertex) {
+            return distances[vertex] != (isLongest ? UNREACHABLE_LONGEST : UNREACHABLE_SHORTEST);
+        }
+        
         public int[] getParents() {
             return parents;
         }
@@ -192,22 +410,29 @@ public class DAGShortestPath {
     
     public static class CriticalPathResult {
         private final List<Integer> path;
-        private final int length;
+        private final long length;
         private final int source;
         private final int destination;
+        private final Metrics metrics;
+        
+        public CriticalPathResult(List<Integer> path, long length, int source, int destination) {
+            this(path, length, source, destination, new MetricsImpl());
+        }
         
-        public CriticalPathResult(List<Integer> path, int length, int source, int destination) {
+        // Metrics summed over every query the search ran
+        public CriticalPathResult(List<Integer> path, long length, int source, int destination, Metrics metrics) {
             this.path = path;
             this.length = length;
             this.source = source;
             this.destination = destination;
+            this.metrics = metrics;
         }
         
         public List<Integer> getPath() {
             return path;
         }
         
-        public int getLength() {
+        public long getLength() {
             return length;
         }
         
@@ -218,5 +443,9 @@ public class DAGShortestPath {
         public int getDestination() {
             return destination;
         }
+        
+        public Metrics getMetrics() {
+            return metrics;
+        }
     }
 }
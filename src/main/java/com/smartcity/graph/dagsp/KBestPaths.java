@@ -0,0 +1,580 @@
+package com.smartcity.graph.dagsp;
+
+import com.smartcity.common.CancellationToken;
+import com.smartcity.common.CsrGraph;
+import com.smartcity.common.Graph;
+import com.smartcity.common.Metrics;
+import com.smartcity.common.MetricsImpl;
+import com.smartcity.common.OperationType;
+import com.smartcity.graph.topo.KahnTopologicalSort;
+
+import java.util.*;
+
+/**
+ * K longest / K shortest path enumeration on a DAG (Eppstein-style).
+ *
+ * One pass in reverse topological order computes the exact best completion
+ * h(v) from every vertex and the edge achieving it. Every other edge u -> v
+ * is a sidetrack with slack h(u) - (w + h(v)) >= 0; a path is identified by
+ * the sidetracks it takes, and its length is the optimum minus their total
+ * slack. Sidetracks of a vertex are sorted by slack, and for every vertex a
+ * persistent leftist heap collects the vertices along its greedy completion,
+ * sharing structure with the heap of its best successor. Paths are then
+ * popped from a priority queue in order; each pop pushes at most four
+ * candidates, so the queue holds O(K) entries.
+ *
+ * Paths are distinct edge sequences, so parallel edges with equal weights
+ * produce repeated vertex sequences.
+ *
+ * With the "node" weight model a path costs the sum of its task durations,
+ * source included, as in DAGShortestPath: every edge costs the duration of
+ * its target and the virtual root edge the duration of the start vertex.
+ *
+ * An optional cancellation token is checked every CHECK_INTERVAL edge scans
+ * of the preprocessing and every CHECK_INTERVAL output path vertices.
+ *
+ * Complexity: O(V log V + E log d) preprocessing per query mode,
+ * O(K log K + total output path length) enumeration; O(V log V + E + K) space
+ */
+public class KBestPaths {
+    private static final long NONE = Long.MIN_VALUE;
+
+    private final CsrGraph csr;
+    private final int[] order;
+    // Cost of each CSR edge: its weight, or its target's duration under the node model
+    private final int[] costs;
+    // Task durations for the node weight model, null for the edge model
+    private final int[] durations;
+    private final Metrics metrics;
+    private CancellationToken cancellation = CancellationToken.NONE;
+
+    /**
+     * Prepare path enumeration for a DAG.
+     * @param dag Directed acyclic graph
+     * @throws IllegalArgumentException if the graph contains a cycle or has an unknown weight model
+     */
+    public KBestPaths(Graph dag) {
+        this.csr = CsrGraph.of(dag);
+        this.order = KahnTopologicalSort.orderOf(csr);
+        int n = csr.getVertices();
+        if (order.length != n) {
+            throw new IllegalArgumentException("K-best path enumeration requires a DAG");
+        }
+        if (DAGShortestPath.isNodeModel(dag.getWeightModel())) {
+            this.durations = new int[n];
+            for (int v = 0; v < n; v++) {
+                durations[v] = dag.getNodeWeight(v);
+            }
+            int[] targets = csr.targets();
+            this.costs = new int[targets.length];
+            for (int e = 0; e < targets.length; e++) {
+                costs[e] = durations[targets[e]];
+            }
+        } else {
+            this.durations = null;
+            this.costs = csr.weights();
+        }
+        this.metrics = new MetricsImpl();
+    }
+
+    /**
+     * Stop enumerations at the next checkpoint once the token is cancelled.
+     * @param cancellation Token receiving progress; edges count edge scans and output path vertices
+     */
+    public void setCancellationToken(CancellationToken cancellation) {
+        this.cancellation = cancellation;
+    }
+
+    /**
+     * K longest paths from any source (in-degree 0) to any sink (out-degree 0).
+     * @param k Maximum number of paths
+     * @return Paths in non-increasing length order
+     */
+    public List<RankedPath> longestPaths(int k) {
+        return enumerate(-1, -1, k, true);
+    }
+
+    /**
+     * K shortest paths from any source (in-degree 0) to any sink (out-degree 0).
+     * @param k Maximum number of paths
+     * @return Paths in non-decreasing length order
+     */
+    public List<RankedPath> shortestPaths(int k) {
+        return enumerate(-1, -1, k, false);
+    }
+
+    /**
+     * K longest paths between one pair of vertices.
+     * @param source Start vertex
+     * @param target End vertex
+     * @param k Maximum number of paths
+     * @return Paths in non-increasing length order; empty if target is unreachable
+     */
+    public List<RankedPath> longestPaths(int source, int target, int k) {
+        checkVertex(source);
+        checkVertex(target);
+        return enumerate(source, target, k, true);
+    }
+
+    /**
+     * K shortest paths between one pair of vertices.
+     * @param source Start vertex
+     * @param target End vertex
+     * @param k Maximum number of paths
+     * @return Paths in non-decreasing length order; empty if target is unreachable
+     */
+    public List<RankedPath> shortestPaths(int source, int target, int k) {
+        checkVertex(source);
+        checkVertex(target);
+        return enumerate(source, target, k, false);
+    }
+
+    /**
+     * Get metrics of the last enumeration.
+     * @return Metrics; operations count edge scans, heap insertions and queue pushes
+     */
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    private void checkVertex(int vertex) {
+        if (vertex < 0 || vertex >= csr.getVertices()) {
+            throw new IllegalArgumentException("Vertex " + vertex + " out of range");
+        }
+    }
+
+    /**
+     * Shared driver. Lengths are maximized on score = c (longest) or -c (shortest),
+     * where c is the edge cost. A virtual root (id n) has one edge to every
+     * start vertex, costing zero, or the start's duration under the node model.
+     */
+    private List<RankedPath> enumerate(int source, int target, int k, boolean longest) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k must be non-negative");
+        }
+        metrics.reset();
+        metrics.startTiming();
+        Enumeration enumeration = new Enumeration(source, target, longest);
+        List<RankedPath> paths = enumeration.run(k);
+        enumeration.finish();
+        metrics.stopTiming();
+        return paths;
+    }
+
+    /**
+     * Per-query state: completions, sidetracks, heaps and the candidate queue.
+     */
+    private final class Enumeration {
+        private final int n = csr.getVertices();
+        private final int root = n;
+        private final int[] offsets = csr.offsets();
+        private final int[] targets = csr.targets();
+        private final int target;
+        private final boolean longest;
+
+        private final long[] h = new long[n + 1];
+        private final int[] best = new int[n + 1];
+        private int[] starts;
+        private int bestStart = -1;
+
+        private int[] sideOffsets;
+        private int[] sideTarget;
+        private long[] sideSlack;
+
+        // Persistent leftist heap keyed by the smallest sidetrack slack of nodeVertex
+        private int[] nodeVertex = new int[16];
+        private int[] nodeLeft = new int[16];
+        private int[] nodeRight = new int[16];
+        private int[] nodeRank = new int[16];
+        private int nodes;
+        private final int[] heapOf = new int[n + 1];
+
+        // Sidetracks chosen so far, as a persistent list growing toward the path end
+        private int[] chainParent = new int[16];
+        private int[] chainVertex = new int[16];
+        private int[] chainSide = new int[16];
+        private int chains;
+
+        // Edge scans and output path vertices, and the part already reported to the token
+        private long scanned;
+        private long checked;
+
+        Enumeration(int source, int target, boolean longest) {
+            this.target = target;
+            this.longest = longest;
+            computeCompletions(source);
+            if (bestStart >= 0) {
+                collectSidetracks();
+                buildHeaps();
+            }
+        }
+
+        // Checkpoint once CHECK_INTERVAL scans are unreported
+        private void poll(long scans) {
+            scanned += scans;
+            if (scanned - checked >= CancellationToken.CHECK_INTERVAL) {
+                cancellation.checkpoint(0, scanned - checked);
+                checked = scanned;
+            }
+        }
+
+        void finish() {
+            cancellation.report(n, scanned - checked);
+        }
+
+        private boolean isTerminal(int u) {
+            return target < 0 ? offsets[u + 1] == offsets[u] : u == target;
+        }
+
+        private long score(int e) {
+            return longest ? costs[e] : -(long) costs[e];
+        }
+
+        // Score of the root edge to start vertex s
+        private long startScore(int s) {
+            if (durations == null) {
+                return 0;
+            }
+            return longest ? durations[s] : -(long) durations[s];
+        }
+
+        private void computeCompletions(int source) {
+            Arrays.fill(h, NONE);
+            Arrays.fill(best, -1);
+            for (int i = n - 1; i >= 0; i--) {
+                int u = order[i];
+                if (isTerminal(u)) {
+                    h[u] = 0;
+                    continue;
+                }
+                for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                    int v = targets[e];
+                    metrics.addOperations(OperationType.RELAXATIONS, 1);
+                    if (h[v] != NONE && (h[u] == NONE || score(e) + h[v] > h[u])) {
+                        h[u] = score(e) + h[v];
+                        best[u] = e;
+                    }
+                }
+                poll(offsets[u + 1] - offsets[u]);
+            }
+
+            if (source >= 0) {
+                starts = h[source] == NONE ? new int[0] : new int[] {source};
+            } else {
+                boolean[] hasPredecessor = new boolean[n];
+                for (int e = 0; e < csr.getEdgeCount(); e++) {
+                    hasPredecessor[targets[e]] = true;
+                }
+                int count = 0;
+                starts = new int[n];
+                for (int v = 0; v < n; v++) {
+                    if (!hasPredecessor[v] && h[v] != NONE) {
+                        starts[count++] = v;
+                    }
+                }
+                starts = Arrays.copyOf(starts, count);
+            }
+            for (int s : starts) {
+                if (bestStart < 0 || startScore(s) + h[s] > h[root]) {
+                    bestStart = s;
+                    h[root] = startScore(s) + h[s];
+                }
+            }
+        }
+
+        private void collectSidetracks() {
+            sideOffsets = new int[n + 2];
+            for (int u = 0; u < n; u++) {
+                if (h[u] == NONE || isTerminal(u)) {
+                    continue;
+                }
+                for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                    if (e != best[u] && h[targets[e]] != NONE) {
+                        sideOffsets[u + 1]++;
+                    }
+                }
+                poll(offsets[u + 1] - offsets[u]);
+            }
+            sideOffsets[root + 1] = starts.length - 1;
+            for (int u = 0; u <= root; u++) {
+                sideOffsets[u + 1] += sideOffsets[u];
+            }
+
+            sideTarget = new int[sideOffsets[root + 1]];
+            sideSlack = new long[sideTarget.length];
+            for (int u = 0; u < n; u++) {
+                if (h[u] == NONE || isTerminal(u)) {
+                    continue;
+                }
+                int pos = sideOffsets[u];
+                for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                    int v = targets[e];
+                    if (e != best[u] && h[v] != NONE) {
+                        sideTarget[pos] = v;
+                        sideSlack[pos] = h[u] - (score(e) + h[v]);
+                        pos++;
+                    }
+                }
+                sortBySlack(sideOffsets[u], sideOffsets[u + 1]);
+                poll(offsets[u + 1] - offsets[u]);
+            }
+            int pos = sideOffsets[root];
+            for (int s : starts) {
+                if (s != bestStart) {
+                    sideTarget[pos] = s;
+                    sideSlack[pos] = h[root] - (startScore(s) + h[s]);
+                    pos++;
+                }
+            }
+            sortBySlack(sideOffsets[root], sideOffsets[root + 1]);
+        }
+
+        private void buildHeaps() {
+            Arrays.fill(heapOf, -1);
+            for (int i = n - 1; i >= 0; i--) {
+                int u = order[i];
+                if (h[u] != NONE && !isTerminal(u)) {
+                    heapOf[u] = withVertex(heapOf[targets[best[u]]], u);
+                }
+            }
+            heapOf[root] = withVertex(heapOf[bestStart], root);
+        }
+
+        private int withVertex(int heap, int u) {
+            if (sideOffsets[u] == sideOffsets[u + 1]) {
+                return heap;
+            }
+            metrics.addOperations(OperationType.QUEUE_OPS, 1);
+            return merge(heap, newNode(u, -1, -1, 1));
+        }
+
+        private long key(int node) {
+            return sideSlack[sideOffsets[nodeVertex[node]]];
+        }
+
+        private int merge(int a, int b) {
+            if (a < 0) {
+                return b;
+            }
+            if (b < 0) {
+                return a;
+            }
+            if (key(b) < key(a)) {
+                int tmp = a;
+                a = b;
+                b = tmp;
+            }
+            // Copy a's root so heaps of other vertices that share it stay intact
+            int left = nodeLeft[a];
+            int right = merge(nodeRight[a], b);
+            if (left < 0 || nodeRank[left] < nodeRank[right]) {
+                int tmp = left;
+                left = right;
+                right = tmp;
+            }
+            return newNode(nodeVertex[a], left, right, right < 0 ? 1 : nodeRank[right] + 1);
+        }
+
+        private int newNode(int vertex, int left, int right, int rank) {
+            if (nodes == nodeVertex.length) {
+                int capacity = nodes * 2;
+                nodeVertex = Arrays.copyOf(nodeVertex, capacity);
+                nodeLeft = Arrays.copyOf(nodeLeft, capacity);
+                nodeRight = Arrays.copyOf(nodeRight, capacity);
+                nodeRank = Arrays.copyOf(nodeRank, capacity);
+            }
+            nodeVertex[nodes] = vertex;
+            nodeLeft[nodes] = left;
+            nodeRight[nodes] = right;
+            nodeRank[nodes] = rank;
+            return nodes++;
+        }
+
+        private int newChain(int parent, int vertex, int side) {
+            if (chains == chainParent.length) {
+                int capacity = chains * 2;
+                chainParent = Arrays.copyOf(chainParent, capacity);
+                chainVertex = Arrays.copyOf(chainVertex, capacity);
+                chainSide = Arrays.copyOf(chainSide, capacity);
+            }
+            chainParent[chains] = parent;
+            chainVertex[chains] = vertex;
+            chainSide[chains] = side;
+            return chains++;
+        }
+
+        List<RankedPath> run(int k) {
+            List<RankedPath> paths = new ArrayList<>(Math.min(k, 1 << 16));
+            if (k == 0 || bestStart < 0) {
+                return paths;
+            }
+            paths.add(reconstruct(-1, h[root]));
+
+            PriorityQueue<Candidate> queue = new PriorityQueue<>();
+            long sequence = 0;
+            if (heapOf[root] >= 0) {
+                queue.add(new Candidate(h[root] - key(heapOf[root]), heapOf[root], 0, -1, sequence++));
+            }
+            while (paths.size() < k && !queue.isEmpty()) {
+                Candidate c = queue.poll();
+                int x = nodeVertex[c.node];
+                int side = sideOffsets[x] + c.index;
+                int chain = newChain(c.chain, x, side);
+                paths.add(reconstruct(chain, c.value));
+
+                // Same deviation vertex, next sidetrack in slack order
+                if (side + 1 < sideOffsets[x + 1]) {
+                    queue.add(new Candidate(c.value + sideSlack[side] - sideSlack[side + 1],
+                            c.node, c.index + 1, c.chain, sequence++));
+                }
+                // Deviate at another vertex of the same greedy completion instead
+                if (c.index == 0) {
+                    for (int child : new int[] {nodeLeft[c.node], nodeRight[c.node]}) {
+                        if (child >= 0) {
+                            queue.add(new Candidate(c.value + sideSlack[side] - key(child),
+                                    child, 0, c.chain, sequence++));
+                        }
+                    }
+                }
+                // Keep this sidetrack and deviate again further along the path
+                int next = heapOf[sideTarget[side]];
+                if (next >= 0) {
+                    queue.add(new Candidate(c.value - key(next), next, 0, chain, sequence++));
+                }
+            }
+            metrics.addOperations(OperationType.QUEUE_OPS, sequence);
+            return paths;
+        }
+
+        private RankedPath reconstruct(int chain, long value) {
+            int count = 0;
+            for (int c = chain; c >= 0; c = chainParent[c]) {
+                count++;
+            }
+            int[] taken = new int[count];
+            for (int c = chain, i = count - 1; c >= 0; c = chainParent[c], i--) {
+                taken[i] = c;
+            }
+
+            List<Integer> vertices = new ArrayList<>();
+            int u = root;
+            int i = 0;
+            while (true) {
+                int v;
+                if (i < count && chainVertex[taken[i]] == u) {
+                    v = sideTarget[chainSide[taken[i++]]];
+                } else if (u == root) {
+                    v = bestStart;
+                } else if (isTerminal(u)) {
+                    break;
+                } else {
+                    v = targets[best[u]];
+                }
+                vertices.add(v);
+                u = v;
+            }
+            poll(vertices.size());
+            return new RankedPath(vertices, longest ? value : -value);
+        }
+
+        /**
+         * Sort sidetracks [from, to) by slack, keeping targets aligned.
+         */
+        private void sortBySlack(int from, int to) {
+            if (to - from <= 16) {
+                for (int i = from + 1; i < to; i++) {
+                    long slack = sideSlack[i];
+                    int t = sideTarget[i];
+                    int j = i - 1;
+                    while (j >= from && sideSlack[j] > slack) {
+                        sideSlack[j + 1] = sideSlack[j];
+                        sideTarget[j + 1] = sideTarget[j];
+                        j--;
+                    }
+                    sideSlack[j + 1] = slack;
+                    sideTarget[j + 1] = t;
+                }
+                return;
+            }
+            long pivot = sideSlack[(from + to) >>> 1];
+            int i = from;
+            int j = to - 1;
+            while (i <= j) {
+                while (sideSlack[i] < pivot) {
+                    i++;
+                }
+                while (sideSlack[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    long slack = sideSlack[i];
+                    sideSlack[i] = sideSlack[j];
+                    sideSlack[j] = slack;
+                    int t = sideTarget[i];
+                    sideTarget[i] = sideTarget[j];
+                    sideTarget[j] = t;
+                    i++;
+                    j--;
+                }
+            }
+            sortBySlack(from, j + 1);
+            sortBySlack(i, to);
+        }
+    }
+
+    /**
+     * Queue entry: the path that replaces or extends a parent's sidetracks.
+     */
+    private static final class Candidate implements Comparable<Candidate> {
+        private final long value;
+        private final int node;
+        private final int index;
+        private final int chain;
+        private final long sequence;
+
+        Candidate(long value, int node, int index, int chain, long sequence) {
+            this.value = value;
+            this.node = node;
+            this.index = index;
+            this.chain = chain;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Candidate other) {
+            if (value != other.value) {
+                return value > other.value ? -1 : 1;
+            }
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+
+    /**
+     * One enumerated path.
+     */
+    public static class RankedPath {
+        private final List<Integer> vertices;
+        private final long length;
+
+        RankedPath(List<Integer> vertices, long length) {
+            this.vertices = Collections.unmodifiableList(vertices);
+            this.length = length;
+        }
+
+        /**
+         * Get vertices of the path.
+         * @return Vertices from start to end
+         */
+        public List<Integer> getVertices() {
+            return vertices;
+        }
+
+        /**
+         * Get path length.
+         * @return Sum of edge weights, or of task durations under the node model
+         */
+        public long getLength() {
+            return length;
+        }
+    }
+}
@@ -0,0 +1,391 @@
+package com.smartcity.graph.dagsp;
+
+import com.smartcity.common.CancellationToken;
+import com.smartcity.common.CsrGraph;
+import com.smartcity.common.Graph;
+import com.smartcity.common.Metrics;
+import com.smartcity.common.MetricsImpl;
+import com.smartcity.common.OperationType;
+import com.smartcity.graph.topo.KahnTopologicalSort;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Monte Carlo schedule risk analysis on a task DAG.
+ * Edge weights are treated as duration estimates; every sample draws a
+ * duration per edge from a {@link DurationModel} and runs one earliest-finish
+ * (longest path) pass over a cached topological order. Graphs using the
+ * "node" weight model are rejected, since their task durations are not
+ * edge weights.
+ *
+ * Samples are split into fixed-size blocks. Each block gets its own
+ * SplittableRandom split from the seed in block order, so results depend only
+ * on the seed and not on the number of threads. Worker threads keep their own
+ * finish-time and predecessor buffers plus criticality counters, which are
+ * merged after all blocks are done. An optional cancellation token is
+ * checked between samples once CHECK_INTERVAL edges have been relaxed.
+ *
+ * Complexity: O(S * (V+E)) time for S samples, O(P * (V+E) + S) space for P workers
+ */
+public class MonteCarloScheduleRisk {
+    private static final int BLOCK_SIZE = 256;
+
+    private final CsrGraph csr;
+    private final int[] topoOrder;
+    private final int[] edgeSource;
+    private final DurationModel model;
+    private CancellationToken cancellation = CancellationToken.NONE;
+
+    /**
+     * Create a risk analyzer. The CSR layout and topological order are computed once.
+     * @param graph Task DAG; edge weights are the nominal durations
+     * @param model Duration model used to sample each edge
+     * @throws IllegalArgumentException if the graph contains a cycle or does not use the edge weight model
+     */
+    public MonteCarloScheduleRisk(Graph graph, DurationModel model) {
+        // Durations are sampled per edge; node-model task durations would be ignored
+        if (DAGShortestPath.isNodeModel(graph.getWeightModel())) {
+            throw new IllegalArgumentException("Schedule risk analysis requires the edge weight model");
+        }
+        this.csr = CsrGraph.of(graph);
+        this.topoOrder = KahnTopologicalSort.orderOf(csr);
+        this.model = model;
+        if (topoOrder.length != csr.getVertices()) {
+            throw new IllegalArgumentException("Schedule risk analysis requires a DAG");
+        }
+        this.edgeSource = new int[csr.getEdgeCount()];
+        int[] offsets = csr.offsets();
+        for (int u = 0; u < csr.getVertices(); u++) {
+            Arrays.fill(edgeSource, offsets[u], offsets[u + 1], u);
+        }
+    }
+
+    /**
+     * Stop simulations at the next checkpoint once the token is cancelled.
+     * @param cancellation Token shared by all workers; checked between samples every CHECK_INTERVAL edge relaxations
+     */
+    public void setCancellationToken(CancellationToken cancellation) {
+        this.cancellation = cancellation;
+    }
+
+    /**
+     * Run the simulation using all available processors.
+     * @param samples Number of samples
+     * @param seed Root seed
+     * @return Distribution and criticality result
+     * @throws java.util.concurrent.CancellationException if the cancellation token fires
+     */
+    public RiskResult simulate(int samples, long seed) {
+        return simulate(samples, seed, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Run the simulation.
+     * @param samples Number of samples
+     * @param seed Root seed
+     * @param parallelism Number of worker threads
+     * @return Distribution and criticality result
+     * @throws java.util.concurrent.CancellationException if the cancellation token fires
+     */
+    public RiskResult simulate(int samples, long seed, int parallelism) {
+        if (samples <= 0) {
+            throw new IllegalArgumentException("samples must be positive");
+        }
+        int blocks = (samples + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        SplittableRandom root = new SplittableRandom(seed);
+        SplittableRandom[] blockRandoms = new SplittableRandom[blocks];
+        for (int b = 0; b < blocks; b++) {
+            blockRandoms[b] = root.split();
+        }
+
+        double[] completion = new double[samples];
+        int workers = Math.max(1, Math.min(parallelism, blocks));
+        Worker[] state = new Worker[workers];
+        AtomicInteger nextBlock = new AtomicInteger();
+
+        Metrics metrics = new MetricsImpl();
+        metrics.startTiming();
+
+        if (workers == 1) {
+            state[0] = new Worker();
+            state[0].drain(nextBlock, blocks, blockRandoms, completion);
+        } else {
+            ExecutorService pool = Executors.newFixedThreadPool(workers);
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int i = 0; i < workers; i++) {
+                    Worker worker = new Worker();
+                    state[i] = worker;
+                    futures.add(pool.submit(() -> worker.drain(nextBlock, blocks, blockRandoms, completion)));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Simulation interrupted", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof CancellationException) {
+                    throw (CancellationException) e.getCause();
+                }
+                throw new IllegalStateException("Simulation failed", e.getCause());
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+
+        metrics.stopTiming();
+        metrics.addOperations(OperationType.RELAXATIONS, (long) samples * csr.getEdgeCount());
+
+        long[] vertexHits = new long[csr.getVertices()];
+        long[] edgeHits = new long[csr.getEdgeCount()];
+        for (Worker worker : state) {
+            for (int v = 0; v < vertexHits.length; v++) {
+                vertexHits[v] += worker.vertexHits[v];
+            }
+            for (int e = 0; e < edgeHits.length; e++) {
+                edgeHits[e] += worker.edgeHits[e];
+            }
+        }
+
+        Arrays.sort(completion);
+        return new RiskResult(completion, vertexHits, edgeHits, csr, metrics);
+    }
+
+    /**
+     * Per-thread buffers and counters.
+     */
+    private final class Worker {
+        private final double[] finish = new double[csr.getVertices()];
+        private final int[] predEdge = new int[csr.getVertices()];
+        private final int[] vertexHits = new int[csr.getVertices()];
+        private final int[] edgeHits = new int[csr.getEdgeCount()];
+
+        void drain(AtomicInteger nextBlock, int blocks, SplittableRandom[] randoms, double[] completion) {
+            int block;
+            long finished = 0;
+            long pending = 0;
+            while ((block = nextBlock.getAndIncrement()) < blocks) {
+                SplittableRandom rng = randoms[block];
+                int from = block * BLOCK_SIZE;
+                int to = Math.min(completion.length, from + BLOCK_SIZE);
+                for (int s = from; s < to; s++) {
+                    completion[s] = sampleOnce(rng);
+                    // One pass finishes every vertex and relaxes every edge
+                    finished += finish.length;
+                    pending += edgeHits.length;
+                    if (pending >= CancellationToken.CHECK_INTERVAL) {
+                        cancellation.checkpoint(finished, pending);
+                        finished = 0;
+                        pending = 0;
+                    }
+                }
+            }
+            cancellation.report(finished, pending);
+        }
+
+        // One forward pass: every task may start at time 0 once its predecessors finish
+        private double sampleOnce(SplittableRandom rng) {
+            int[] offsets = csr.offsets();
+            int[] targets = csr.targets();
+            int[] weights = csr.weights();
+            if (finish.length == 0) {
+                return 0.0;
+            }
+            Arrays.fill(finish, 0.0);
+            Arrays.fill(predEdge, -1);
+
+            for (int u : topoOrder) {
+                double fu = finish[u];
+                for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                    int v = targets[e];
+                    double candidate = fu + model.sample(e, weights[e], rng);
+                    if (candidate > finish[v]) {
+                        finish[v] = candidate;
+                        predEdge[v] = e;
+                    }
+                }
+            }
+
+            int end = 0;
+            for (int v = 1; v < finish.length; v++) {
+                if (finish[v] > finish[end]) {
+                    end = v;
+                }
+            }
+
+            // Walk the critical chain back to its start
+            int v = end;
+            vertexHits[v]++;
+            while (predEdge[v] != -1) {
+                int e = predEdge[v];
+                edgeHits[e]++;
+                v = edgeSource[e];
+                vertexHits[v]++;
+            }
+            return finish[end];
+        }
+    }
+
+    /**
+     * Samples a duration for one edge.
+     */
+    @FunctionalInterface
+    public interface DurationModel {
+        /**
+         * Draw a duration.
+         * @param edgeId Edge id in CSR order (source vertex, then adjacency order)
+         * @param nominal Nominal weight from the graph
+         * @param rng Random source owned by the calling thread
+         * @return Sampled duration
+         */
+        double sample(int edgeId, int nominal, SplittableRandom rng);
+
+        /**
+         * Always return the nominal weight.
+         * @return Deterministic model
+         */
+        static DurationModel deterministic() {
+            return (edgeId, nominal, rng) -> nominal;
+        }
+
+        /**
+         * Uniform distribution between nominal * low and nominal * high.
+         * @param low Lower factor
+         * @param high Upper factor
+         * @return Uniform model
+         */
+        static DurationModel uniform(double low, double high) {
+            return (edgeId, nominal, rng) -> nominal * (low + (high - low) * rng.nextDouble());
+        }
+
+        /**
+         * Triangular distribution with minimum nominal * low, mode nominal
+         * and maximum nominal * high.
+         * @param low Lower factor (at most 1)
+         * @param high Upper factor (at least 1)
+         * @return Triangular model
+         */
+        static DurationModel triangular(double low, double high) {
+            return (edgeId, nominal, rng) ->
+                    triangularSample(nominal * low, nominal, nominal * high, rng.nextDouble());
+        }
+
+        /**
+         * Triangular distribution with explicit per-edge parameters.
+         * @param min Minimum per edge id
+         * @param mode Mode per edge id
+         * @param max Maximum per edge id
+         * @return Per-edge model
+         */
+        static DurationModel triangular(double[] min, double[] mode, double[] max) {
+            return (edgeId, nominal, rng) ->
+                    triangularSample(min[edgeId], mode[edgeId], max[edgeId], rng.nextDouble());
+        }
+    }
+
+    // Inverse CDF of the triangular distribution
+    static double triangularSample(double min, double mode, double max, double u) {
+        double range = max - min;
+        if (range <= 0) {
+            return mode;
+        }
+        double split = (mode - min) / range;
+        if (u < split) {
+            return min + Math.sqrt(u * range * (mode - min));
+        }
+        return max - Math.sqrt((1 - u) * range * (max - mode));
+    }
+
+    /**
+     * Completion-time distribution and criticality indices.
+     */
+    public static class RiskResult {
+        private final double[] sortedCompletion;
+        private final long[] vertexHits;
+        private final long[] edgeHits;
+        private final CsrGraph csr;
+        private final Metrics metrics;
+
+        RiskResult(double[] sortedCompletion, long[] vertexHits, long[] edgeHits,
+                   CsrGraph csr, Metrics metrics) {
+            this.sortedCompletion = sortedCompletion;
+            this.vertexHits = vertexHits;
+            this.edgeHits = edgeHits;
+            this.csr = csr;
+            this.metrics = metrics;
+        }
+
+        /**
+         * Get number of samples.
+         * @return Sample count
+         */
+        public int getSamples() {
+            return sortedCompletion.length;
+        }
+
+        /**
+         * Get a completion-time percentile (nearest rank).
+         * @param p Percentile in [0, 100]
+         * @return Project completion time
+         */
+        public double percentile(double p) {
+            if (p < 0 || p > 100) {
+                throw new IllegalArgumentException("percentile must be in [0, 100]");
+            }
+            int rank = (int) Math.ceil(p / 100.0 * sortedCompletion.length);
+            return sortedCompletion[Math.max(0, rank - 1)];
+        }
+
+        /**
+         * Get mean completion time.
+         * @return Mean over all samples
+         */
+        public double getMean() {
+            double sum = 0;
+            for (double c : sortedCompletion) {
+                sum += c;
+            }
+            return sum / sortedCompletion.length;
+        }
+
+        /**
+         * Probability that a task lies on the critical path.
+         * @param vertex Task id
+         * @return Criticality index in [0, 1]
+         */
+        public double getCriticality(int vertex) {
+            return (double) vertexHits[vertex] / sortedCompletion.length;
+        }
+
+        /**
+         * Probability that the dependency u -> v lies on the critical path.
+         * @param u Source task
+         * @param v Destination task
+         * @return Criticality index in [0, 1], or 0 if the edge does not exist
+         */
+        public double getEdgeCriticality(int u, int v) {
+            int e = csr.findEdge(u, v);
+            return e < 0 ? 0.0 : (double) edgeHits[e] / sortedCompletion.length;
+        }
+
+        /**
+         * Get sampling throughput.
+         * @return Samples per second
+         */
+        public double getSamplesPerSecond() {
+            double seconds = metrics.getElapsedNanos() / 1e9;
+            return seconds > 0 ? sortedCompletion.length / seconds : Double.POSITIVE_INFINITY;
+        }
+
+        /**
+         * Get performance metrics; relaxations count edges relaxed over all samples.
+         * @return Metrics object
+         */
+        public Metrics getMetrics() {
+            return metrics;
+        }
+    }
+}
@@ -0,0 +1,346 @@
+package com.smartcity.graph.dagsp;
+
+import com.smartcity.common.CancellationToken;
+import com.smartcity.common.CsrGraph;
+import com.smartcity.common.Graph;
+import com.smartcity.common.Metrics;
+import com.smartcity.common.MetricsImpl;
+import com.smartcity.common.OperationType;
+import com.smartcity.graph.topo.KahnTopologicalSort;
+
+import java.util.*;
+
+/**
+ * Goal-directed single-pair shortest and longest path queries on a DAG.
+ *
+ * The forward and reverse CSR arrays and a topological rank for every vertex
+ * are computed once. A query for (s, t) then touches only the relevant
+ * subgraph, in three steps:
+ * - a forward search from s restricted to the rank window rank(s)..rank(t)
+ * - a backward search from t over the reverse edges, restricted to vertices
+ *   the forward search reached
+ * - relaxation in rank order of the vertices marked by both searches, which
+ *   lie on some s-t path
+ * Visited marks are epoch stamps, so no array is cleared between queries,
+ * and a query stopped by its cancellation token leaves nothing to undo.
+ *
+ * With the "node" weight model a path costs the sum of its task durations,
+ * source included, as in DAGShortestPath.
+ *
+ * A query instance holds per-query scratch state and is not thread-safe;
+ * use one instance per thread.
+ *
+ * Complexity: O(V+E) preprocessing; O(R + E_R + R log R) per query, where
+ * R is the number of vertices in the rank window that are reachable from s
+ * (forward) and E_R the edges they scan
+ */
+public class PairPathQuery {
+    public static final long UNREACHABLE = Long.MIN_VALUE;
+
+    private final CsrGraph forward;
+    private final CsrGraph backward;
+    // Task durations for the node weight model, null for the edge model
+    private final int[] durations;
+    private final int[] order;
+    private final int[] rank;
+    private final int[] forwardStamp;
+    private final int[] backwardStamp;
+    private final long[] dist;
+    private final int[] parent;
+    private final int[] stack;
+    private final Metrics metrics;
+    private int epoch;
+    private CancellationToken cancellation = CancellationToken.NONE;
+    // Operations of the current query already reported to the cancellation token
+    private long checked;
+
+    /**
+     * Preprocess a DAG for pair queries.
+     * @param dag Directed acyclic graph
+     * @throws IllegalArgumentException if the graph contains a cycle or has an unknown weight model
+     */
+    public PairPathQuery(Graph dag) {
+        this.forward = CsrGraph.of(dag);
+        this.order = KahnTopologicalSort.orderOf(forward);
+        int n = forward.getVertices();
+        if (order.length != n) {
+            throw new IllegalArgumentException("Pair queries require a DAG");
+        }
+        if (DAGShortestPath.isNodeModel(dag.getWeightModel())) {
+            this.durations = new int[n];
+            for (int v = 0; v < n; v++) {
+                durations[v] = dag.getNodeWeight(v);
+            }
+        } else {
+            this.durations = null;
+        }
+        this.backward = forward.transpose();
+        this.rank = new int[n];
+        for (int i = 0; i < n; i++) {
+            rank[order[i]] = i;
+        }
+        this.forwardStamp = new int[n];
+        this.backwardStamp = new int[n];
+        this.dist = new long[n];
+        this.parent = new int[n];
+        this.stack = new int[n];
+        this.metrics = new MetricsImpl();
+    }
+
+    /**
+     * Stop queries at the next checkpoint once the token is cancelled.
+     * @param cancellation Token receiving progress every CHECK_INTERVAL edge scans
+     */
+    public void setCancellationToken(CancellationToken cancellation) {
+        this.cancellation = cancellation;
+    }
+
+    /**
+     * Shortest path between one pair of vertices.
+     * @param source Start vertex
+     * @param target End vertex
+     * @return Distance and path, or an unreachable result
+     * @throws java.util.concurrent.CancellationException if the cancellation token fires
+     */
+    public PairResult shortestPath(int source, int target) {
+        return query(source, target, false);
+    }
+
+    /**
+     * Longest path between one pair of vertices.
+     * @param source Start vertex
+     * @param target End vertex
+     * @return Length and path, or an unreachable result
+     * @throws java.util.concurrent.CancellationException if the cancellation token fires
+     */
+    public PairResult longestPath(int source, int target) {
+        return query(source, target, true);
+    }
+
+    private PairResult query(int source, int target, boolean longest) {
+        int n = forward.getVertices();
+        if (source < 0 || source >= n || target < 0 || target >= n) {
+            throw new IllegalArgumentException("Vertex out of range for n=" + n);
+        }
+        metrics.reset();
+        metrics.startTiming();
+        checked = 0;
+        nextEpoch();
+
+        int lowRank = rank[source];
+        int highRank = rank[target];
+        if (lowRank > highRank) {
+            finish(0);
+            return new PairResult(source, target, UNREACHABLE, Collections.emptyList(), 0, metrics);
+        }
+
+        // Forward: vertices reachable from source whose rank does not pass the target's
+        int[] offsets = forward.offsets();
+        int[] targets = forward.targets();
+        int top = 0;
+        stack[top++] = source;
+        forwardStamp[source] = epoch;
+        while (top > 0) {
+            int u = stack[--top];
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                int v = targets[e];
+                metrics.addOperations(OperationType.EDGE_SCANS, 1);
+                if (forwardStamp[v] != epoch && rank[v] <= highRank) {
+                    forwardStamp[v] = epoch;
+                    stack[top++] = v;
+                }
+            }
+            poll();
+        }
+        if (forwardStamp[target] != epoch) {
+            finish(0);
+            return new PairResult(source, target, UNREACHABLE, Collections.emptyList(), 0, metrics);
+        }
+
+        // Backward: of those, the ones that can reach the target
+        int[] revOffsets = backward.offsets();
+        int[] revTargets = backward.targets();
+        int relevant = 0;
+        top = 0;
+        stack[top++] = target;
+        backwardStamp[target] = epoch;
+        int[] ranks = new int[16];
+        while (top > 0) {
+            int v = stack[--top];
+            if (relevant == ranks.length) {
+                ranks = Arrays.copyOf(ranks, relevant * 2);
+            }
+            ranks[relevant++] = rank[v];
+            for (int e = revOffsets[v]; e < revOffsets[v + 1]; e++) {
+                int u = revTargets[e];
+                metrics.addOperations(OperationType.EDGE_SCANS, 1);
+                if (backwardStamp[u] != epoch && forwardStamp[u] == epoch) {
+                    backwardStamp[u] = epoch;
+                    stack[top++] = u;
+                }
+            }
+            poll();
+        }
+
+        // Relax only edges between relevant vertices, in topological order
+        Arrays.sort(ranks, 0, relevant);
+        for (int i = 0; i < relevant; i++) {
+            int u = order[ranks[i]];
+            dist[u] = longest ? Long.MIN_VALUE : Long.MAX_VALUE;
+            parent[u] = -1;
+        }
+        if (durations == null) {
+            dist[source] = 0;
+            relaxEdges(ranks, relevant, longest);
+        } else {
+            dist[source] = durations[source];
+            relaxNodes(ranks, relevant, longest);
+        }
+
+        List<Integer> path = new ArrayList<>();
+        for (int v = target; v != -1; v = parent[v]) {
+            path.add(v);
+        }
+        Collections.reverse(path);
+        finish(relevant);
+        return new PairResult(source, target, dist[target], path, relevant, metrics);
+    }
+
+    // Edge model: u -> v costs the edge weight
+    private void relaxEdges(int[] ranks, int relevant, boolean longest) {
+        int[] offsets = forward.offsets();
+        int[] targets = forward.targets();
+        int[] weights = forward.weights();
+        for (int i = 0; i < relevant; i++) {
+            int u = order[ranks[i]];
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                int v = targets[e];
+                if (backwardStamp[v] != epoch) {
+                    continue;
+                }
+                metrics.addOperations(OperationType.RELAXATIONS, 1);
+                long candidate = dist[u] + weights[e];
+                if (longest ? candidate > dist[v] : candidate < dist[v]) {
+                    dist[v] = candidate;
+                    parent[v] = u;
+                }
+            }
+            poll();
+        }
+    }
+
+    // Node model: u -> v costs the duration of v
+    private void relaxNodes(int[] ranks, int relevant, boolean longest) {
+        int[] offsets = forward.offsets();
+        int[] targets = forward.targets();
+        for (int i = 0; i < relevant; i++) {
+            int u = order[ranks[i]];
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                int v = targets[e];
+                if (backwardStamp[v] != epoch) {
+                    continue;
+                }
+                metrics.addOperations(OperationType.RELAXATIONS, 1);
+                long candidate = dist[u] + durations[v];
+                if (longest ? candidate > dist[v] : candidate < dist[v]) {
+                    dist[v] = candidate;
+                    parent[v] = u;
+                }
+            }
+            poll();
+        }
+    }
+
+    // Checkpoint once CHECK_INTERVAL operations are unreported
+    private void poll() {
+        if (metrics.getOperations() - checked >= CancellationToken.CHECK_INTERVAL) {
+            cancellation.checkpoint(0, metrics.getOperations() - checked);
+            checked = metrics.getOperations();
+        }
+    }
+
+    private void finish(long vertices) {
+        cancellation.report(vertices, metrics.getOperations() - checked);
+        metrics.stopTiming();
+    }
+
+    private void nextEpoch() {
+        if (++epoch == Integer.MAX_VALUE) {
+            Arrays.fill(forwardStamp, 0);
+            Arrays.fill(backwardStamp, 0);
+            epoch = 1;
+        }
+    }
+
+    /**
+     * Answer to one pair query.
+     */
+    public static class PairResult {
+        private final int source;
+        private final int target;
+        private final long distance;
+        private final List<Integer> path;
+        private final int relevantVertices;
+        private final long operations;
+        private final double elapsedMillis;
+
+        PairResult(int source, int target, long distance, List<Integer> path, int relevantVertices,
+                   Metrics metrics) {
+            this.source = source;
+            this.target = target;
+            this.distance = distance;
+            this.path = Collections.unmodifiableList(path);
+            this.relevantVertices = relevantVertices;
+            this.operations = metrics.getOperations();
+            this.elapsedMillis = metrics.getElapsedMillis();
+        }
+
+        public int getSource() {
+            return source;
+        }
+
+        public int getTarget() {
+            return target;
+        }
+
+        public boolean isReachable() {
+            return distance != UNREACHABLE;
+        }
+
+        /**
+         * Get path length.
+         * @return Sum of edge weights (task durations under the node model), or UNREACHABLE
+         */
+        public long getDistance() {
+            return distance;
+        }
+
+        /**
+         * Get vertices of the path.
+         * @return Path from source to target, empty when unreachable
+         */
+        public List<Integer> getPath() {
+            return path;
+        }
+
+        /**
+         * Get size of the pruned subgraph.
+         * @return Vertices that lie on some source-target path
+         */
+        public int getRelevantVertices() {
+            return relevantVertices;
+        }
+
+        /**
+         * Get work done by the query.
+         * @return Edge scans over both searches and the relaxation
+         */
+        public long getOperations() {
+            return operations;
+        }
+
+        public double getElapsedMillis() {
+            return elapsedMillis;
+        }
+    }
+}
@@ -0,0 +1,342 @@
+package com.smartcity.graph.dagsp;
+
+import com.smartcity.common.CancellationToken;
+import com.smartcity.common.CsrGraph;
+import com.smartcity.common.Graph;
+import com.smartcity.common.Metrics;
+import com.smartcity.common.MetricsImpl;
+import com.smartcity.common.OperationType;
+import com.smartcity.graph.topo.KahnTopologicalSort;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * What-if evaluation of many weight scenarios against one fixed DAG topology.
+ * The CSR layout and topological order are computed once. Each scenario is a
+ * sparse {@link Overlay} of weight deltas on individual edges, so graphs
+ * using the "node" weight model are rejected.
+ *
+ * Scenarios are processed in batches by worker threads. Each worker owns one
+ * weight buffer: it applies a scenario's deltas, runs the passes, and reverts
+ * the deltas. So a scenario costs O(V+E) time, and only the distance array it
+ * returns is allocated. An optional cancellation token is checked between
+ * scenarios once CHECK_INTERVAL edges have been relaxed.
+ *
+ * Complexity: O(S * (V+E)) time for S scenarios, O(P * (V+E)) working space for P workers
+ */
+public class ScenarioEvaluator {
+    private static final int BATCH_SIZE = 16;
+
+    private final CsrGraph csr;
+    private final int[] topoOrder;
+    private CancellationToken cancellation = CancellationToken.NONE;
+
+    /**
+     * Fix the topology of a DAG for scenario evaluation.
+     * @param dag Base graph; its edge weights are the baseline durations
+     * @throws IllegalArgumentException if the graph contains a cycle or does not use the edge weight model
+     */
+    public ScenarioEvaluator(Graph dag) {
+        // Overlays change edge weights; node-model task durations would be ignored
+        if (DAGShortestPath.isNodeModel(dag.getWeightModel())) {
+            throw new IllegalArgumentException("Scenario evaluation requires the edge weight model");
+        }
+        this.csr = CsrGraph.of(dag);
+        this.topoOrder = KahnTopologicalSort.orderOf(csr);
+        if (topoOrder.length != csr.getVertices()) {
+            throw new IllegalArgumentException("Scenario evaluation requires a DAG");
+        }
+    }
+
+    /**
+     * Stop evaluations at the next checkpoint once the token is cancelled.
+     * @param cancellation Token shared by all workers; checked between scenarios every CHECK_INTERVAL edge relaxations
+     */
+    public void setCancellationToken(CancellationToken cancellation) {
+        this.cancellation = cancellation;
+    }
+
+    /**
+     * Start a new empty overlay bound to this topology.
+     * @param name Scenario name used in results
+     * @return Overlay with no deltas
+     */
+    public Overlay overlay(String name) {
+        return new Overlay(name);
+    }
+
+    /**
+     * Evaluate all scenarios using all available processors.
+     * @param scenarios Overlays to evaluate
+     * @param source Source vertex for shortest distances
+     * @return One result per scenario, in input order
+     * @throws java.util.concurrent.CancellationException if the cancellation token fires
+     */
+    public List<ScenarioResult> evaluate(List<Overlay> scenarios, int source) {
+        return evaluate(scenarios, source, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Evaluate all scenarios.
+     * @param scenarios Overlays to evaluate
+     * @param source Source vertex for shortest distances
+     * @param parallelism Number of worker threads
+     * @return One result per scenario, in input order
+     * @throws java.util.concurrent.CancellationException if the cancellation token fires
+     */
+    public List<ScenarioResult> evaluate(List<Overlay> scenarios, int source, int parallelism) {
+        ScenarioResult[] results = new ScenarioResult[scenarios.size()];
+        int batches = (scenarios.size() + BATCH_SIZE - 1) / BATCH_SIZE;
+        int workers = Math.max(1, Math.min(parallelism, batches));
+        AtomicInteger nextBatch = new AtomicInteger();
+
+        if (workers == 1) {
+            new Worker().drain(nextBatch, batches, scenarios, source, results);
+        } else {
+            ExecutorService pool = Executors.newFixedThreadPool(workers);
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int i = 0; i < workers; i++) {
+                    Worker worker = new Worker();
+                    futures.add(pool.submit(() -> worker.drain(nextBatch, batches, scenarios, source, results)));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Scenario evaluation interrupted", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof CancellationException) {
+                    throw (CancellationException) e.getCause();
+                }
+                throw new IllegalStateException("Scenario evaluation failed", e.getCause());
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Per-thread weight and finish-time buffers.
+     */
+    private final class Worker {
+        private final long[] weights = new long[csr.getEdgeCount()];
+        private final long[] finish = new long[csr.getVertices()];
+
+        Worker() {
+            int[] base = csr.weights();
+            for (int e = 0; e < weights.length; e++) {
+                weights[e] = base[e];
+            }
+        }
+
+        void drain(AtomicInteger nextBatch, int batches, List<Overlay> scenarios,
+                   int source, ScenarioResult[] results) {
+            int batch;
+            long finished = 0;
+            long pending = 0;
+            while ((batch = nextBatch.getAndIncrement()) < batches) {
+                int from = batch * BATCH_SIZE;
+                int to = Math.min(scenarios.size(), from + BATCH_SIZE);
+                for (int s = from; s < to; s++) {
+                    results[s] = evaluateOne(scenarios.get(s), source);
+                    // Two passes, each finishing every vertex and relaxing every edge
+                    finished += 2L * finish.length;
+                    pending += 2L * weights.length;
+                    if (pending >= CancellationToken.CHECK_INTERVAL) {
+                        cancellation.checkpoint(finished, pending);
+                        finished = 0;
+                        pending = 0;
+                    }
+                }
+            }
+            cancellation.report(finished, pending);
+        }
+
+        private ScenarioResult evaluateOne(Overlay overlay, int source) {
+            Metrics metrics = new MetricsImpl();
+            metrics.startTiming();
+
+            for (int i = 0; i < overlay.size; i++) {
+                weights[overlay.edgeIds[i]] += overlay.deltas[i];
+            }
+            try {
+                long critical = criticalPathLength();
+                long[] dist = shortestDistances(source);
+                // One relaxation per edge for the critical path and one for the distances
+                metrics.addOperations(OperationType.RELAXATIONS, 2L * csr.getEdgeCount());
+                metrics.stopTiming();
+                return new ScenarioResult(overlay.name, critical, dist, metrics);
+            } finally {
+                for (int i = 0; i < overlay.size; i++) {
+                    weights[overlay.edgeIds[i]] -= overlay.deltas[i];
+                }
+            }
+        }
+
+        // Longest path over the whole DAG: every task may start at time 0
+        private long criticalPathLength() {
+            int[] offsets = csr.offsets();
+            int[] targets = csr.targets();
+            Arrays.fill(finish, 0L);
+            long best = 0;
+            for (int u : topoOrder) {
+                long fu = finish[u];
+                if (fu > best) {
+                    best = fu;
+                }
+                for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                    int v = targets[e];
+                    long candidate = fu + weights[e];
+                    if (candidate > finish[v]) {
+                        finish[v] = candidate;
+                    }
+                }
+            }
+            return best;
+        }
+
+        private long[] shortestDistances(int source) {
+            int[] offsets = csr.offsets();
+            int[] targets = csr.targets();
+            long[] dist = new long[csr.getVertices()];
+            Arrays.fill(dist, ScenarioResult.UNREACHABLE);
+            dist[source] = 0;
+            for (int u : topoOrder) {
+                long du = dist[u];
+                if (du == ScenarioResult.UNREACHABLE) {
+                    continue;
+                }
+                for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                    int v = targets[e];
+                    long candidate = du + weights[e];
+                    if (candidate < dist[v]) {
+                        dist[v] = candidate;
+                    }
+                }
+            }
+            return dist;
+        }
+    }
+
+    /**
+     * Sparse set of weight deltas applied on top of the base weights.
+     */
+    public final class Overlay {
+        private final String name;
+        private int[] edgeIds = new int[4];
+        private long[] deltas = new long[4];
+        private int size;
+
+        private Overlay(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Add a delta to every edge u -> v.
+         * @param u Source vertex
+         * @param v Destination vertex
+         * @param delta Amount added to the edge weight
+         * @return This overlay
+         * @throws IllegalArgumentException if no edge u -> v exists
+         */
+        public Overlay addDelta(int u, int v, long delta) {
+            int[] offsets = csr.offsets();
+            int[] targets = csr.targets();
+            boolean found = false;
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                if (targets[e] == v) {
+                    addEdgeDelta(e, delta);
+                    found = true;
+                }
+            }
+            if (!found) {
+                throw new IllegalArgumentException("No edge " + u + " -> " + v);
+            }
+            return this;
+        }
+
+        /**
+         * Add a delta to one edge by CSR edge id.
+         * @param edgeId Edge id (source vertex order, then adjacency order)
+         * @param delta Amount added to the edge weight
+         * @return This overlay
+         */
+        public Overlay addEdgeDelta(int edgeId, long delta) {
+            if (edgeId < 0 || edgeId >= csr.getEdgeCount()) {
+                throw new IllegalArgumentException("Invalid edge id " + edgeId);
+            }
+            if (size == edgeIds.length) {
+                edgeIds = Arrays.copyOf(edgeIds, size * 2);
+                deltas = Arrays.copyOf(deltas, size * 2);
+            }
+            edgeIds[size] = edgeId;
+            deltas[size] = delta;
+            size++;
+            return this;
+        }
+
+        /**
+         * Get scenario name.
+         * @return Name
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Get number of edge deltas.
+         * @return Delta count
+         */
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * Outcome of one scenario.
+     */
+    public static class ScenarioResult {
+        /** Distance value of vertices not reachable from the source. */
+        public static final long UNREACHABLE = Long.MAX_VALUE;
+
+        private final String name;
+        private final long criticalPathLength;
+        private final long[] distances;
+        private final Metrics metrics;
+
+        /**
+         * Create result.
+         * @param name Scenario name
+         * @param criticalPathLength Longest path length in the DAG
+         * @param distances Shortest distances from the source
+         * @param metrics Performance metrics
+         */
+        public ScenarioResult(String name, long criticalPathLength, long[] distances, Metrics metrics) {
+            this.name = name;
+            this.criticalPathLength = criticalPathLength;
+            this.distances = distances;
+            this.metrics = metrics;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getCriticalPathLength() {
+            return criticalPathLength;
+        }
+
+        public long[] getDistances() {
+            return distances;
+        }
+
+        public Metrics getMetrics() {
+            return metrics;
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package com.smartcity.graph.dense;
+
+import com.smartcity.common.BitMatrixGraph;
+import com.smartcity.common.CancellationToken;
+import com.smartcity.common.Graph;
+import com.smartcity.common.Metrics;
+import com.smartcity.common.MetricsImpl;
+import com.smartcity.common.OperationType;
+import com.smartcity.graph.scc.TarjanSCC;
+
+import java.util.*;
+
+/**
+ * SCC search that runs {@link BitParallelSCC} on dense districts and
+ * {@link TarjanSCC} on the rest.
+ *
+ * Density is measured on dense cores rather than on whole weak components,
+ * so a district joined to a sparse suburb by a few roads is still found. A
+ * peel removes, until none is left, every vertex with fewer than
+ * k = ceil(densityThreshold * minDenseVertices) out-edges or fewer than k
+ * in-edges from the remaining vertices; it follows out-edges only, so no
+ * reverse graph is built. The survivors are split into weak components
+ * with a union-find, and a core with at least
+ * minDenseVertices vertices and E_c / V_c^2 at or above the density
+ * threshold is converted to a bit matrix and decomposed bit-parallel.
+ *
+ * Cores are not closed under edges, so their SCCs may still join cycles
+ * through peeled vertices. Each core SCC is contracted to one vertex and
+ * Tarjan runs on the contracted graph; contracting strongly connected sets
+ * keeps the SCC structure, so expanding its components gives the exact
+ * partition in reverse topological order, members ascending. Graphs with
+ * fewer than minDenseVertices vertices go straight to Tarjan.
+ *
+ * Complexity: O(V+E) for the peel, contraction and Tarjan, O(V_c^3 / 64)
+ * worst case per dense core (about O(V_c^2 / 64) on near-cliques)
+ */
+public class HybridSCC {
+    public static final double DEFAULT_DENSITY_THRESHOLD = 1.0 / 16;
+    public static final int DEFAULT_MIN_DENSE_VERTICES = 64;
+    public static final String DENSE_COMPONENTS_TAG = "hybrid.dense.components";
+    public static final String DENSE_VERTICES_TAG = "hybrid.dense.vertices";
+
+    private final Graph graph;
+    private final double densityThreshold;
+    private final int minDenseVertices;
+    private final Metrics metrics;
+    private CancellationToken cancellation = CancellationToken.NONE;
+
+    /**
+     * Create a hybrid search with the default thresholds.
+     * @param graph Directed graph
+     */
+    public HybridSCC(Graph graph) {
+        this(graph, DEFAULT_DENSITY_THRESHOLD, DEFAULT_MIN_DENSE_VERTICES);
+    }
+
+    /**
+     * Create a hybrid search.
+     * @param graph Directed graph
+     * @param densityThreshold Minimum E_c / V_c^2 for the bit-matrix engine
+     * @param minDenseVertices Smaller cores, and graphs, always use Tarjan
+     * @throws IllegalArgumentException if the threshold is not positive
+     */
+    public HybridSCC(Graph graph, double densityThreshold, int minDenseVertices) {
+        if (!(densityThreshold > 0)) {
+            throw new IllegalArgumentException("densityThreshold must be positive");
+        }
+        this.graph = graph;
+        this.densityThreshold = densityThreshold;
+        this.minDenseVertices = minDenseVertices;
+        this.metrics = new MetricsImpl();
+    }
+
+    /**
+     * Stop every part at its next checkpoint once the token is cancelled.
+     * @param cancellation Token shared by both engines
+     */
+    public void setCancellationToken(CancellationToken cancellation) {
+        this.cancellation = cancellation;
+    }
+
+    /**
+     * Find all strongly connected components.
+     * @return Components in reverse topological order, members ascending;
+     *         metrics are tagged with the number of dense cores and their vertices
+     * @throws java.util.concurrent.CancellationException if the cancellation token fires
+     * @complexity O(V+E) plus the bit-parallel cost of the dense cores
+     */
+    public TarjanSCC.SCCResult findSCCs() {
+        int n = graph.getVertices();
+        metrics.reset();
+        metrics.startTiming();
+
+        // A graph smaller than one dense core cannot hold one
+        boolean[] closed = new boolean[n];
+        List<int[]> cores = n < minDenseVertices ? Collections.<int[]>emptyList() : denseCores(closed);
+        int denseVertices = 0;
+        for (int[] core : cores) {
+            denseVertices += core.length;
+        }
+
+        List<List<Integer>> components = new ArrayList<>();
+        if (cores.isEmpty()) {
+            TarjanSCC tarjan = new TarjanSCC(graph);
+            tarjan.setCancellationToken(cancellation);
+            TarjanSCC.SCCResult result = tarjan.findSCCs();
+            components.addAll(result.getComponents());
+            metrics.addAll(result.getMetrics());
+        } else {
+            // Every SCC of a core becomes one quotient vertex, every other vertex its own
+            int[] quotientOf = new int[n];
+            Arrays.fill(quotientOf, -1);
+            int[] localIds = new int[n];
+            Arrays.fill(localIds, -1);
+            int quotientVertices = 0;
+            for (int[] core : cores) {
+                BitParallelSCC engine = new BitParallelSCC(BitMatrixGraph.induced(graph, core, localIds));
+                engine.setCancellationToken(cancellation);
+                TarjanSCC.SCCResult result = engine.findSCCs();
+                // A strongly connected core only contributes the edges that leave it
+                boolean single = result.getComponents().size() == 1;
+                for (List<Integer> part : result.getComponents()) {
+                    for (int v : part) {
+                        quotientOf[core[v]] = quotientVertices;
+                        closed[core[v]] &= single;
+                    }
+                    quotientVertices++;
+                }
+                metrics.addAll(result.getMetrics());
+            }
+            for (int v = 0; v < n; v++) {
+                if (quotientOf[v] < 0) {
+                    quotientOf[v] = quotientVertices++;
+                    closed[v] = false;
+                }
+            }
+
+            // Counting sort of vertices by quotient vertex keeps members ascending
+            int[] memberStart = new int[quotientVertices + 1];
+            for (int v = 0; v < n; v++) {
+                memberStart[quotientOf[v] + 1]++;
+            }
+            for (int q = 0; q < quotientVertices; q++) {
+                memberStart[q + 1] += memberStart[q];
+            }
+            int[] members = new int[n];
+            int[] fill = Arrays.copyOf(memberStart, quotientVertices);
+            for (int v = 0; v < n; v++) {
+                members[fill[quotientOf[v]]++] = v;
+            }
+
+            TarjanSCC tarjan = new TarjanSCC(quotient(quotientOf, quotientVertices, closed));
+            tarjan.setCancellationToken(cancellation);
+            TarjanSCC.SCCResult result = tarjan.findSCCs();
+            for (List<Integer> part : result.getComponents()) {
+                List<Integer> component = new ArrayList<>();
+                for (int q : part) {
+                    for (int i = memberStart[q]; i < memberStart[q + 1]; i++) {
+                        component.add(members[i]);
+                    }
+                }
+                if (part.size() > 1) {
+                    Collections.sort(component);
+                }
+                components.add(component);
+            }
+            metrics.addAll(result.getMetrics());
+        }
+
+        metrics.setTag(DENSE_COMPONENTS_TAG, Integer.toString(cores.size()));
+        metrics.setTag(DENSE_VERTICES_TAG, Integer.toString(denseVertices));
+        metrics.stopTiming();
+        return new TarjanSCC.SCCResult(components, metrics);
+    }
+
+    /**
+     * Peel vertices of low degree and keep the dense weak components of the rest.
+     * @param closed Set for every surviving vertex whose edges all stay among the survivors
+     * @return Ascending vertices of each dense core
+     * @complexity O(V+E) time, O(V) space
+     */
+    private List<int[]> denseCores(boolean[] closed) {
+        int n = graph.getVertices();
+        int minDegree = Math.max(1, (int) Math.ceil(densityThreshold * minDenseVertices));
+
+        // Peeling along out-edges only needs in-degrees, so no reverse graph is built
+        int[] in = new int[n];
+        long scans = 0;
+        for (int u = 0; u < n; u++) {
+            List<Graph.Edge> edges = graph.getAdjacentEdges(u);
+            for (Graph.Edge edge : edges) {
+                in[edge.to]++;
+            }
+            scans += edges.size();
+        }
+        boolean[] peeled = new boolean[n];
+        int[] queue = new int[n];
+        int tail = 0;
+        for (int v = 0; v < n; v++) {
+            if (in[v] < minDegree || graph.getAdjacentEdges(v).size() < minDegree) {
+                peeled[v] = true;
+                queue[tail++] = v;
+            }
+        }
+        for (int head = 0; head < tail; head++) {
+            List<Graph.Edge> edges = graph.getAdjacentEdges(queue[head]);
+            for (Graph.Edge edge : edges) {
+                int w = edge.to;
+                if (!peeled[w] && --in[w] < minDegree) {
+                    peeled[w] = true;
+                    queue[tail++] = w;
+                }
+            }
+            scans += edges.size();
+        }
+
+        // Union-find over edges between survivors; rows inside one core mostly skip the union
+        int[] parent = new int[n];
+        int[] coreEdges = new int[n];
+        for (int v = 0; v < n; v++) {
+            parent[v] = v;
+        }
+        for (int u = 0; u < n; u++) {
+            if (peeled[u]) {
+                continue;
+            }
+            List<Graph.Edge> edges = graph.getAdjacentEdges(u);
+            int root = find(parent, u);
+            for (Graph.Edge edge : edges) {
+                int v = edge.to;
+                if (!peeled[v]) {
+                    coreEdges[u]++;
+                    if (parent[v] != root) {
+                        int other = find(parent, v);
+                        if (other != root) {
+                            parent[other] = root;
+                        }
+                    }
+                }
+            }
+            closed[u] = coreEdges[u] == edges.size();
+            scans += edges.size();
+        }
+        int[] size = new int[n];
+        long[] edges = new long[n];
+        for (int v = 0; v < n; v++) {
+            if (!peeled[v]) {
+                int root = find(parent, v);
+                size[root]++;
+                edges[root] += coreEdges[v];
+            }
+        }
+
+        // Members of each dense core, ascending
+        int[] coreOf = new int[n];
+        List<int[]> cores = new ArrayList<>();
+        for (int v = 0; v < n; v++) {
+            if (!peeled[v] && parent[v] == v && size[v] >= minDenseVertices
+                    && edges[v] >= densityThreshold * size[v] * (double) size[v]) {
+                coreOf[v] = cores.size();
+                cores.add(new int[size[v]]);
+            } else {
+                coreOf[v] = -1;
+            }
+        }
+        int[] filled = new int[cores.size()];
+        for (int v = 0; v < n; v++) {
+            int c = peeled[v] ? -1 : coreOf[parent[v]];
+            if (c >= 0) {
+                cores.get(c)[filled[c]++] = v;
+            }
+        }
+        metrics.addOperations(OperationType.EDGE_SCANS, scans);
+        cancellation.checkpoint(0, scans);
+        return cores;
+    }
+
+    // Root of v's set, halving the path on the way
+    private static int find(int[] parent, int v) {
+        while (parent[v] != v) {
+            parent[v] = parent[parent[v]];
+            v = parent[v];
+        }
+        return v;
+    }
+
+    /**
+     * Contract the graph onto its quotient vertices, dropping edges inside one.
+     * @param quotientOf Quotient vertex of every vertex
+     * @param quotientVertices Number of quotient vertices
+     * @param closed Vertices whose edges all stay inside their quotient vertex; their rows are skipped
+     * @return Directed quotient graph over the arcs; parallel edges are kept
+     * @complexity O(V + edges of rows not skipped)
+     */
+    private Graph quotient(int[] quotientOf, int quotientVertices, boolean[] closed) {
+        Graph quotient = new Graph(quotientVertices, true);
+        long scans = 0;
+        for (int u = 0; u < graph.getVertices(); u++) {
+            if (closed[u]) {
+                continue;
+            }
+            int q = quotientOf[u];
+            List<Graph.Edge> edges = graph.getAdjacentEdges(u);
+            for (Graph.Edge edge : edges) {
+                if (quotientOf[edge.to] != q) {
+                    quotient.addEdge(q, quotientOf[edge.to], edge.weight);
+                }
+            }
+            scans += edges.size();
+        }
+        metrics.addOperations(OperationType.EDGE_SCANS, scans);
+        cancellation.checkpoint(0, scans);
+        return quotient;
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+}
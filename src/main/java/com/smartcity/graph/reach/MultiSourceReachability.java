@@ -0,0 +1,341 @@
+package com.smartcity.graph.reach;
+
+import com.smartcity.common.CancellationToken;
+import com.smartcity.common.CompressedBitmap;
+import com.smartcity.common.CsrGraph;
+import com.smartcity.common.Graph;
+import com.smartcity.common.Metrics;
+import com.smartcity.common.MetricsImpl;
+import com.smartcity.common.OperationType;
+import com.smartcity.graph.scc.CondensationGraph;
+import com.smartcity.graph.topo.KahnTopologicalSort;
+
+import java.util.*;
+
+/**
+ * Bit-parallel reachability from many sources at once.
+ * Every vertex carries one bit per source, packed into W = ceil(N/64) longs.
+ * Each edge scan moves the bits of all N sources at once, so one traversal
+ * does the work of N separate traversals while scanning each edge at most
+ * once per BFS level (on a DAG condensation, exactly once).
+ *
+ * On a general graph this is a multi-source BFS: the frontier holds the bits
+ * that arrived at each vertex in the previous level. On the condensation DAG
+ * a single sweep in topological order is enough.
+ *
+ * An optional cancellation token is checked every CHECK_INTERVAL edge scans;
+ * each scan moves all W words of a vertex.
+ *
+ * Complexity: O(L * (V+E) * W) time for L BFS levels on a general graph,
+ * O((V+E) * W) on a DAG, O(V * W) space
+ */
+public class MultiSourceReachability {
+    private final Metrics metrics;
+    private CancellationToken cancellation = CancellationToken.NONE;
+    // Edge scans of the current call already reported to the cancellation token
+    private long checked;
+
+    public MultiSourceReachability() {
+        this.metrics = new MetricsImpl();
+    }
+
+    /**
+     * Stop computations at the next checkpoint once the token is cancelled.
+     * @param cancellation Token receiving progress every CHECK_INTERVAL edge scans
+     */
+    public void setCancellationToken(CancellationToken cancellation) {
+        this.cancellation = cancellation;
+    }
+
+    /**
+     * Compute the vertices reachable from each source (including the source itself).
+     * @param graph Directed graph, cycles allowed
+     * @param sources Source vertices; duplicates are allowed
+     * @return Reachable set per source, in the order given
+     * @throws IllegalArgumentException if V * ceil(sources / 64) words exceed the array size limit
+     * @throws java.util.concurrent.CancellationException if the cancellation token fires
+     */
+    public ReachabilityResult reachFrom(Graph graph, int[] sources) {
+        int n = graph.getVertices();
+        int words = wordsFor(sources.length);
+        int size = laneWords(n, words);
+        CsrGraph csr = CsrGraph.of(graph);
+        int[] offsets = csr.offsets();
+        int[] targets = csr.targets();
+
+        metrics.reset();
+        metrics.startTiming();
+        checked = 0;
+
+        long[] seen = new long[size];
+        long[] visit = new long[size];
+        long[] next = new long[size];
+        int[] frontier = new int[n];
+        int[] nextFrontier = new int[n];
+        boolean[] inNext = new boolean[n];
+        int frontierSize = 0;
+
+        for (int i = 0; i < sources.length; i++) {
+            int s = sources[i];
+            long bit = 1L << i;
+            seen[s * words + (i >>> 6)] |= bit;
+            visit[s * words + (i >>> 6)] |= bit;
+            if (!inNext[s]) {
+                inNext[s] = true;
+                frontier[frontierSize++] = s;
+            }
+        }
+        for (int f = 0; f < frontierSize; f++) {
+            inNext[frontier[f]] = false;
+        }
+
+        long edgeScans = 0;
+        while (frontierSize > 0) {
+            int nextSize = 0;
+            for (int f = 0; f < frontierSize; f++) {
+                int u = frontier[f];
+                int ub = u * words;
+                for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                    int v = targets[e];
+                    int vb = v * words;
+                    edgeScans++;
+                    boolean changed = false;
+                    for (int w = 0; w < words; w++) {
+                        long fresh = visit[ub + w] & ~seen[vb + w];
+                        if (fresh != 0) {
+                            seen[vb + w] |= fresh;
+                            next[vb + w] |= fresh;
+                            changed = true;
+                        }
+                    }
+                    if (changed && !inNext[v]) {
+                        inNext[v] = true;
+                        nextFrontier[nextSize++] = v;
+                    }
+                }
+                Arrays.fill(visit, ub, ub + words, 0L);
+                poll(edgeScans);
+            }
+
+            for (int f = 0; f < nextSize; f++) {
+                inNext[nextFrontier[f]] = false;
+            }
+            long[] swapWords = visit;
+            visit = next;
+            next = swapWords;
+            int[] swapFrontier = frontier;
+            frontier = nextFrontier;
+            nextFrontier = swapFrontier;
+            frontierSize = nextSize;
+        }
+
+        cancellation.report(n, edgeScans - checked);
+        metrics.addOperations(OperationType.EDGE_SCANS, edgeScans);
+        CompressedBitmap[] reach = extract(seen, n, words, sources.length);
+        metrics.stopTiming();
+
+        return new ReachabilityResult(reach, edgeScans, metrics);
+    }
+
+    /**
+     * Compute reachable components from each source component of a condensation.
+     * @param condensationGraph Condensation DAG
+     * @param sourceComponents Source component ids
+     * @return Reachable component set per source
+     * @throws IllegalArgumentException if components * ceil(sources / 64) words exceed the array size limit
+     * @throws java.util.concurrent.CancellationException if the cancellation token fires
+     */
+    public ReachabilityResult reachFromComponents(CondensationGraph condensationGraph, int[] sourceComponents) {
+        CsrGraph csr = CsrGraph.of(condensationGraph.getCondensationGraph());
+        int n = csr.getVertices();
+        int words = wordsFor(sourceComponents.length);
+        int size = laneWords(n, words);
+
+        metrics.reset();
+        metrics.startTiming();
+        checked = 0;
+
+        long[] reach = new long[size];
+        for (int i = 0; i < sourceComponents.length; i++) {
+            reach[sourceComponents[i] * words + (i >>> 6)] |= 1L << i;
+        }
+        long edgeScans = sweep(csr, reach, words);
+
+        cancellation.report(n, edgeScans - checked);
+        metrics.addOperations(OperationType.EDGE_SCANS, edgeScans);
+        CompressedBitmap[] result = extract(reach, n, words, sourceComponents.length);
+        metrics.stopTiming();
+
+        return new ReachabilityResult(result, edgeScans, metrics);
+    }
+
+    /**
+     * Compute reachable tasks from each source task using the condensation.
+     * Component bits are propagated over the DAG, then expanded to member tasks.
+     * @param condensationGraph Condensation of the task graph
+     * @param sourceTasks Source task ids in the original graph
+     * @return Reachable task set per source
+     * @throws IllegalArgumentException if tasks * ceil(sources / 64) words exceed the array size limit
+     * @throws java.util.concurrent.CancellationException if the cancellation token fires
+     */
+    public ReachabilityResult reachFromTasks(CondensationGraph condensationGraph, int[] sourceTasks) {
+        CsrGraph csr = CsrGraph.of(condensationGraph.getCondensationGraph());
+        int n = csr.getVertices();
+        int words = wordsFor(sourceTasks.length);
+        int tasks = 0;
+        for (List<Integer> component : condensationGraph.getComponents()) {
+            for (int v : component) {
+                tasks = Math.max(tasks, v + 1);
+            }
+        }
+        int size = laneWords(n, words);
+        int taskSize = laneWords(tasks, words);
+
+        metrics.reset();
+        metrics.startTiming();
+        checked = 0;
+
+        long[] reach = new long[size];
+        for (int i = 0; i < sourceTasks.length; i++) {
+            int c = condensationGraph.getComponentId(sourceTasks[i]);
+            reach[c * words + (i >>> 6)] |= 1L << i;
+        }
+        long edgeScans = sweep(csr, reach, words);
+
+        long[] taskReach = new long[taskSize];
+        for (int c = 0; c < n; c++) {
+            for (int v : condensationGraph.getComponents().get(c)) {
+                System.arraycopy(reach, c * words, taskReach, v * words, words);
+            }
+        }
+
+        cancellation.report(n, edgeScans - checked);
+        metrics.addOperations(OperationType.EDGE_SCANS, edgeScans);
+        CompressedBitmap[] result = extract(taskReach, tasks, words, sourceTasks.length);
+        metrics.stopTiming();
+
+        return new ReachabilityResult(result, edgeScans, metrics);
+    }
+
+    // One pass in topological order: reach[v] |= reach[u] for every edge u -> v
+    private long sweep(CsrGraph csr, long[] reach, int words) {
+        int[] order = KahnTopologicalSort.orderOf(csr);
+        if (order.length != csr.getVertices()) {
+            throw new IllegalArgumentException("Condensation graph must be a DAG");
+        }
+        int[] offsets = csr.offsets();
+        int[] targets = csr.targets();
+        long edgeScans = 0;
+        for (int u : order) {
+            int ub = u * words;
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                int vb = targets[e] * words;
+                edgeScans++;
+                for (int w = 0; w < words; w++) {
+                    reach[vb + w] |= reach[ub + w];
+                }
+            }
+            poll(edgeScans);
+        }
+        return edgeScans;
+    }
+
+    // Checkpoint once CHECK_INTERVAL edge scans are unreported
+    private void poll(long edgeScans) {
+        if (edgeScans - checked >= CancellationToken.CHECK_INTERVAL) {
+            cancellation.checkpoint(0, edgeScans - checked);
+            checked = edgeScans;
+        }
+    }
+
+    // Transpose vertex-major lanes into one compressed bitmap per source
+    private static CompressedBitmap[] extract(long[] lanes, int n, int words, int sources) {
+        CompressedBitmap.Builder[] builders = new CompressedBitmap.Builder[sources];
+        for (int i = 0; i < sources; i++) {
+            builders[i] = new CompressedBitmap.Builder();
+        }
+        for (int v = 0; v < n; v++) {
+            int vb = v * words;
+            for (int w = 0; w < words; w++) {
+                long bits = lanes[vb + w];
+                while (bits != 0) {
+                    int i = (w << 6) + Long.numberOfTrailingZeros(bits);
+                    builders[i].add(v);
+                    bits &= bits - 1;
+                }
+            }
+        }
+        CompressedBitmap[] result = new CompressedBitmap[sources];
+        for (int i = 0; i < sources; i++) {
+            result[i] = builders[i].build();
+        }
+        return result;
+    }
+
+    private static int wordsFor(int sources) {
+        return Math.max(1, (sources + 63) >>> 6);
+    }
+
+    // Length of a lane array, checked before vertices * words can overflow
+    private static int laneWords(int vertices, int words) {
+        if ((long) vertices * words > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Reachability lanes for " + vertices + " vertices and "
+                    + words + " words per vertex exceed the array size limit");
+        }
+        return vertices * words;
+    }
+
+    /**
+     * Reachable sets per source plus traversal statistics.
+     */
+    public static class ReachabilityResult {
+        private final CompressedBitmap[] reachable;
+        private final long edgeScans;
+        private final Metrics metrics;
+
+        /**
+         * Create result.
+         * @param reachable Reachable set per source
+         * @param edgeScans Number of edge scans performed
+         * @param metrics Performance metrics
+         */
+        public ReachabilityResult(CompressedBitmap[] reachable, long edgeScans, Metrics metrics) {
+            this.reachable = reachable;
+            this.edgeScans = edgeScans;
+            this.metrics = metrics;
+        }
+
+        /**
+         * Get the reachable set of one source.
+         * @param sourceIndex Index into the sources array
+         * @return Compressed bitmap of reachable vertices
+         */
+        public CompressedBitmap getReachable(int sourceIndex) {
+            return reachable[sourceIndex];
+        }
+
+        /**
+         * Get number of sources.
+         * @return Source count
+         */
+        public int getSourceCount() {
+            return reachable.length;
+        }
+
+        /**
+         * Get total edge scans across all sources.
+         * @return Edge scan count
+         */
+        public long getEdgeScans() {
+            return edgeScans;
+        }
+
+        /**
+         * Get performance metrics.
+         * @return Metrics object
+         */
+        public Metrics getMetrics() {
+            return metrics;
+        }
+    }
+}
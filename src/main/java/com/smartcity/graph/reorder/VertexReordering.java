@@ -0,0 +1,370 @@
+package com.smartcity.graph.reorder;
+
+import com.smartcity.common.CancellationToken;
+import com.smartcity.common.CsrGraph;
+import com.smartcity.common.Graph;
+import com.smartcity.common.Metrics;
+import com.smartcity.common.MetricsImpl;
+import com.smartcity.common.OperationType;
+import com.smartcity.graph.topo.KahnTopologicalSort;
+
+import java.util.*;
+
+/**
+ * Relabeling of vertex ids for cache locality.
+ *
+ * Upstream ids carry no locality, so neighbours of a vertex are scattered
+ * over the heap and over every per-vertex array. A reordering computes a
+ * permutation, {@link #apply} builds the relabeled graph once, and the
+ * map methods translate results back to the original ids:
+ * <ul>
+ *   <li>RCM: reverse Cuthill-McKee, a BFS over the undirected neighbourhood
+ *       from a minimum-degree vertex that visits neighbours by increasing
+ *       degree; neighbours end up with close ids (small bandwidth).</li>
+ *   <li>DEGREE: vertices by decreasing total degree, so the hubs that most
+ *       edges point at share a few cache lines.</li>
+ *   <li>TOPOLOGICAL: Kahn order of a DAG. Every edge then goes from a lower
+ *       to a higher id, and DAGShortestPath relaxes in plain id order, a
+ *       sequential sweep over its arrays.</li>
+ * </ul>
+ * An optional cancellation token is checked every CHECK_INTERVAL edge scans
+ * of the RCM search, and between the phases (CSR build, ordering) of every
+ * strategy.
+ *
+ * Complexity: O(V+E) for DEGREE and TOPOLOGICAL, O(V + E log d) for RCM
+ * where d is the maximum degree; O(V) space for the maps
+ */
+public final class VertexReordering {
+    /**
+     * How the new ids are chosen.
+     */
+    public enum Strategy {
+        RCM,
+        DEGREE,
+        TOPOLOGICAL
+    }
+
+    private final int[] newIds;
+    private final int[] oldIds;
+    private final Metrics metrics;
+
+    private VertexReordering(int[] newIds, Metrics metrics) {
+        int n = newIds.length;
+        this.newIds = newIds;
+        this.oldIds = new int[n];
+        Arrays.fill(oldIds, -1);
+        for (int v = 0; v < n; v++) {
+            int id = newIds[v];
+            if (id < 0 || id >= n || oldIds[id] != -1) {
+                throw new IllegalArgumentException("Not a permutation: new id " + id + " for vertex " + v);
+            }
+            oldIds[id] = v;
+        }
+        this.metrics = metrics;
+    }
+
+    /**
+     * Wrap an explicit permutation.
+     * @param newIds New id of every original vertex
+     * @return Reordering
+     * @throws IllegalArgumentException if newIds is not a permutation of 0..n-1
+     */
+    public static VertexReordering fromPermutation(int[] newIds) {
+        return new VertexReordering(newIds.clone(), new MetricsImpl());
+    }
+
+    /**
+     * Compute a reordering of a graph.
+     * @param graph Graph to relabel
+     * @param strategy Ordering to compute
+     * @return Reordering; its metrics time the computation
+     * @throws IllegalArgumentException if TOPOLOGICAL is asked for a cyclic graph
+     * @complexity O(V+E), O(V + E log d) for RCM
+     */
+    public static VertexReordering of(Graph graph, Strategy strategy) {
+        return of(graph, strategy, CancellationToken.NONE);
+    }
+
+    /**
+     * Compute a reordering of a graph, stopping at the next checkpoint once the token is cancelled.
+     * @param graph Graph to relabel
+     * @param strategy Ordering to compute
+     * @param cancellation Token receiving progress; RCM reports every CHECK_INTERVAL edge scans
+     * @return Reordering; its metrics time the computation
+     * @throws IllegalArgumentException if TOPOLOGICAL is asked for a cyclic graph
+     * @throws java.util.concurrent.CancellationException if the cancellation token fires
+     * @complexity O(V+E), O(V + E log d) for RCM
+     */
+    public static VertexReordering of(Graph graph, Strategy strategy, CancellationToken cancellation) {
+        Metrics metrics = new MetricsImpl();
+        metrics.startTiming();
+        CsrGraph csr = CsrGraph.of(graph);
+        cancellation.checkpoint(0, 0);
+        int[] order;
+        switch (strategy) {
+            case RCM:
+                order = reverseCuthillMcKee(csr, metrics, cancellation);
+                break;
+            case DEGREE:
+                order = byDegree(csr, metrics);
+                break;
+            case TOPOLOGICAL:
+                order = topological(csr, metrics);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown strategy: " + strategy);
+        }
+        if (strategy != Strategy.RCM) {
+            cancellation.checkpoint(order.length, csr.getEdgeCount());
+        }
+        int[] newIds = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            newIds[order[i]] = i;
+        }
+        metrics.stopTiming();
+        metrics.setTag("reordering", strategy.name());
+        return new VertexReordering(newIds, metrics);
+    }
+
+    private static int[] reverseCuthillMcKee(CsrGraph csr, Metrics metrics, CancellationToken cancellation) {
+        int n = csr.getVertices();
+        int[] offsets = csr.offsets();
+        int[] targets = csr.targets();
+        CsrGraph reverse = csr.transpose();
+        int[] revOffsets = reverse.offsets();
+        int[] revTargets = reverse.targets();
+        int[] degree = new int[n];
+        for (int v = 0; v < n; v++) {
+            degree[v] = offsets[v + 1] - offsets[v] + revOffsets[v + 1] - revOffsets[v];
+        }
+
+        // Start every component at its minimum-degree vertex: try vertices by increasing degree
+        int[] starts = sortByDegree(degree, false);
+        int[] order = new int[n];
+        boolean[] visited = new boolean[n];
+        long[] keys = new long[16];
+        int head = 0;
+        int tail = 0;
+        int finished = 0;
+        long pending = 0;
+        for (int start : starts) {
+            if (visited[start]) {
+                continue;
+            }
+            visited[start] = true;
+            order[tail++] = start;
+            while (head < tail) {
+                int u = order[head++];
+                int count = 0;
+                for (int pass = 0; pass < 2; pass++) {
+                    int[] off = pass == 0 ? offsets : revOffsets;
+                    int[] tgt = pass == 0 ? targets : revTargets;
+                    for (int e = off[u]; e < off[u + 1]; e++) {
+                        int v = tgt[e];
+                        if (!visited[v]) {
+                            visited[v] = true;
+                            if (count == keys.length) {
+                                keys = Arrays.copyOf(keys, count * 2);
+                            }
+                            keys[count++] = (long) degree[v] << 32 | v;
+                        }
+                    }
+                }
+                Arrays.sort(keys, 0, count);
+                for (int i = 0; i < count; i++) {
+                    order[tail++] = (int) keys[i];
+                }
+                metrics.addOperations(OperationType.QUEUE_OPS, count + 1);
+                metrics.addOperations(OperationType.EDGE_SCANS, degree[u]);
+                finished++;
+                pending += degree[u];
+                if (pending >= CancellationToken.CHECK_INTERVAL) {
+                    cancellation.checkpoint(finished, pending);
+                    finished = 0;
+                    pending = 0;
+                }
+            }
+        }
+        cancellation.report(finished, pending);
+        for (int i = 0, j = n - 1; i < j; i++, j--) {
+            int t = order[i];
+            order[i] = order[j];
+            order[j] = t;
+        }
+        return order;
+    }
+
+    private static int[] byDegree(CsrGraph csr, Metrics metrics) {
+        int n = csr.getVertices();
+        int[] offsets = csr.offsets();
+        int[] targets = csr.targets();
+        int[] degree = new int[n];
+        for (int v = 0; v < n; v++) {
+            degree[v] += offsets[v + 1] - offsets[v];
+        }
+        for (int e = 0; e < offsets[n]; e++) {
+            degree[targets[e]]++;
+        }
+        metrics.addOperations(OperationType.EDGE_SCANS, offsets[n]);
+        metrics.addOperations(OperationType.VERTEX_VISITS, n);
+        return sortByDegree(degree, true);
+    }
+
+    // Counting sort of vertex ids by degree; ties keep increasing ids
+    private static int[] sortByDegree(int[] degree, boolean descending) {
+        int n = degree.length;
+        int max = 0;
+        for (int d : degree) {
+            max = Math.max(max, d);
+        }
+        int[] start = new int[max + 2];
+        for (int d : degree) {
+            start[(descending ? max - d : d) + 1]++;
+        }
+        for (int d = 0; d <= max; d++) {
+            start[d + 1] += start[d];
+        }
+        int[] sorted = new int[n];
+        for (int v = 0; v < n; v++) {
+            sorted[start[descending ? max - degree[v] : degree[v]]++] = v;
+        }
+        return sorted;
+    }
+
+    private static int[] topological(CsrGraph csr, Metrics metrics) {
+        int n = csr.getVertices();
+        int[] order = new int[n];
+        int count = KahnTopologicalSort.orderInto(n, csr.offsets(), csr.targets(), new int[n], order);
+        if (count != n) {
+            throw new IllegalArgumentException("Topological reordering requires an acyclic graph");
+        }
+        metrics.addOperations(OperationType.QUEUE_OPS, n);
+        metrics.addOperations(OperationType.EDGE_SCANS, csr.getEdgeCount());
+        return order;
+    }
+
+    /**
+     * Build the relabeled graph. Adjacency lists keep their edge order; the
+     * weight model and node weights are carried over.
+     * @param graph Graph this reordering was computed for
+     * @return Graph where original vertex v is toReordered(v)
+     * @throws IllegalArgumentException if the vertex count differs
+     * @complexity O(V+E) time and space
+     */
+    public Graph apply(Graph graph) {
+        int n = newIds.length;
+        if (graph.getVertices() != n) {
+            throw new IllegalArgumentException("Reordering is for n=" + n + ", graph has n=" + graph.getVertices());
+        }
+        CsrGraph csr = CsrGraph.of(graph);
+        int[] offsets = csr.offsets();
+        int[] targets = csr.targets();
+        int[] weights = csr.weights();
+        int[] newOffsets = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            int v = oldIds[i];
+            newOffsets[i + 1] = newOffsets[i] + offsets[v + 1] - offsets[v];
+        }
+        int[] newTargets = new int[offsets[n]];
+        int[] newWeights = new int[offsets[n]];
+        for (int i = 0; i < n; i++) {
+            int v = oldIds[i];
+            for (int e = offsets[v], f = newOffsets[i]; e < offsets[v + 1]; e++, f++) {
+                newTargets[f] = newIds[targets[e]];
+                newWeights[f] = weights[e];
+            }
+        }
+        Graph reordered = Graph.fromCsr(new CsrGraph(n, newOffsets, newTargets, newWeights), graph.isDirected());
+        reordered.setWeightModel(graph.getWeightModel());
+        for (int i = 0; i < n; i++) {
+            if (graph.getNodeWeight(oldIds[i]) != 0) {
+                reordered.setNodeWeight(i, graph.getNodeWeight(oldIds[i]));
+            }
+        }
+        return reordered;
+    }
+
+    public int size() {
+        return newIds.length;
+    }
+
+    /**
+     * Translate an original vertex id.
+     * @param vertex Original id
+     * @return Id in the reordered graph
+     */
+    public int toReordered(int vertex) {
+        return newIds[vertex];
+    }
+
+    /**
+     * Translate a reordered vertex id back.
+     * @param vertex Id in the reordered graph
+     * @return Original id
+     */
+    public int toOriginal(int vertex) {
+        return oldIds[vertex];
+    }
+
+    /**
+     * Translate vertex ids back, keeping their order (paths, topological orders).
+     * @param vertices Ids in the reordered graph
+     * @return Original ids
+     */
+    public List<Integer> toOriginal(List<Integer> vertices) {
+        List<Integer> mapped = new ArrayList<>(vertices.size());
+        for (int v : vertices) {
+            mapped.add(oldIds[v]);
+        }
+        return mapped;
+    }
+
+    /**
+     * Translate vertex sets back, e.g. SCCs.
+     * @param components Components over reordered ids
+     * @return Components over original ids, each sorted ascending, in the same order
+     */
+    public List<List<Integer>> componentsToOriginal(List<List<Integer>> components) {
+        List<List<Integer>> mapped = new ArrayList<>(components.size());
+        for (List<Integer> component : components) {
+            List<Integer> original = toOriginal(component);
+            Collections.sort(original);
+            mapped.add(original);
+        }
+        return mapped;
+    }
+
+    /**
+     * Re-index per-vertex values, e.g. distances.
+     * @param values Values indexed by reordered id
+     * @return Values indexed by original id
+     */
+    public long[] valuesToOriginal(long[] values) {
+        long[] mapped = new long[values.length];
+        for (int i = 0; i < values.length; i++) {
+            mapped[oldIds[i]] = values[i];
+        }
+        return mapped;
+    }
+
+    /**
+     * Re-index a parent array and translate the parents.
+     * @param parents Parents indexed by reordered id, -1 for none
+     * @return Parents indexed by original id, -1 kept
+     */
+    public int[] parentsToOriginal(int[] parents) {
+        int[] mapped = new int[parents.length];
+        for (int i = 0; i < parents.length; i++) {
+            mapped[oldIds[i]] = parents[i] < 0 ? parents[i] : oldIds[parents[i]];
+        }
+        return mapped;
+    }
+
+    /**
+     * Get performance metrics of computing the permutation.
+     * @return Metrics tagged with the strategy
+     */
+    public Metrics getMetrics() {
+        return metrics;
+    }
+}
@@ -15,6 +15,8 @@ public class CondensationGraph {
     private final List<List<Integer>> components;
     private final Map<Integer, Integer> vertexToComponent;
     private final Graph condensation;
+    // Statistics of the reduction stage; null for an unreduced condensation
+    private final TransitiveReduction.ReductionResult reduction;
     
     /**
      * Build condensation graph from SCCs.
@@ -35,6 +37,39 @@ public class CondensationGraph {
         
         // Build the condensation graph
         this.condensation = buildCondensation();
+        this.reduction = null;
+    }
+    
+    /**
+     * Create a condensation that reuses another one's component mapping.
+     * @param source Condensation providing graph, components and mapping
+     * @param reduction Reduction of the source's DAG, providing the replacement DAG
+     */
+    private CondensationGraph(CondensationGraph source, TransitiveReduction.ReductionResult reduction) {
+        this.graph = source.graph;
+        this.components = source.components;
+        this.vertexToComponent = source.vertexToComponent;
+        this.condensation = reduction.getReducedGraph();
+        this.reduction = reduction;
+    }
+    
+    /**
+     * Optional reduction stage: drop cross-component edges implied by longer paths.
+     * Reachability between components is preserved; weighted path lengths may change.
+     * @return Condensation with the same components and a transitively reduced DAG;
+     *         getReduction() reports the removed edges
+     * @complexity O(C + E_c * C / 64) time for C components and E_c condensation edges
+     */
+    public CondensationGraph withTransitiveReduction() {
+        return new CondensationGraph(this, new TransitiveReduction().reduce(condensation));
+    }
+    
+    /**
+     * Get the statistics of the reduction stage.
+     * @return Edge counts, ratio and metrics of the reduction; null if this condensation was not reduced
+     */
+    public TransitiveReduction.ReductionResult getReduction() {
+        return reduction;
     }
     
     /**
@@ -0,0 +1,425 @@
+package com.smartcity.graph.scc;
+
+import com.smartcity.common.CancellationToken;
+import com.smartcity.common.CompressedGraph;
+import com.smartcity.common.CsrGraph;
+import com.smartcity.common.Graph;
+import com.smartcity.common.Metrics;
+import com.smartcity.common.MetricsImpl;
+import com.smartcity.common.OperationType;
+
+import java.util.*;
+
+/**
+ * Explains why a dependency graph is not a DAG and suggests how to fix it.
+ *
+ * Cycles live inside strongly connected components, so the graph is split
+ * with Tarjan's algorithm first. For every cyclic component (more than one
+ * vertex, or a self-loop) a BFS restricted to the component finds a shortest
+ * cycle through its smallest vertex, which serves as a witness.
+ *
+ * The feedback arc set comes from the Eades-Lin-Smyth heuristic applied to
+ * the edges inside cyclic components: repeatedly move sinks to the back of
+ * the order, sources to the front, and otherwise the vertex with the largest
+ * out-degree minus in-degree to the front. Vertices are kept in buckets by
+ * that difference, so each step is O(1) amortized. Edges pointing backwards
+ * in the final order, plus self-loops, form the feedback arc set; dropping
+ * them leaves a DAG. Edges between components never lie on a cycle and are
+ * never suggested, so only the cyclic components are flattened into a CSR;
+ * the rest of the graph, compressed or not, is only scanned for self-loops.
+ *
+ * Complexity: O(V+E) time, O(V) plus the size of the cyclic components space
+ */
+public class CycleDiagnosis {
+    private final Graph graph;
+    private final Metrics metrics;
+    private CancellationToken cancellation = CancellationToken.NONE;
+    // Operations already reported to the cancellation token
+    private long checked;
+
+    /**
+     * Create a diagnosis for a directed graph.
+     * @param graph Directed graph to analyze
+     */
+    public CycleDiagnosis(Graph graph) {
+        this.graph = graph;
+        this.metrics = new MetricsImpl();
+    }
+
+    /**
+     * Stop diagnose at the next checkpoint once the token is cancelled.
+     * @param cancellation Token receiving progress every CHECK_INTERVAL edge scans
+     */
+    public void setCancellationToken(CancellationToken cancellation) {
+        this.cancellation = cancellation;
+    }
+
+    /**
+     * Find witness cycles and a feedback arc set.
+     * @return Report; acyclic graphs yield an empty report
+     * @throws java.util.concurrent.CancellationException if the cancellation token fires
+     * @complexity O(V+E) time and space
+     */
+    public CycleReport diagnose() {
+        metrics.reset();
+        metrics.startTiming();
+        checked = 0;
+
+        TarjanSCC tarjan = new TarjanSCC(graph);
+        tarjan.setCancellationToken(cancellation);
+        TarjanSCC.SCCResult sccResult = tarjan.findSCCs();
+        int n = graph.getVertices();
+
+        // Component ids, and which components can contain a cycle
+        List<List<Integer>> components = sccResult.getComponents();
+        int[] componentOf = new int[n];
+        boolean[] cyclic = new boolean[components.size()];
+        int cyclicVertices = 0;
+        CompressedGraph.NeighborCursor cursor = graph instanceof CompressedGraph
+                ? ((CompressedGraph) graph).cursor() : null;
+        for (int c = 0; c < components.size(); c++) {
+            for (int v : components.get(c)) {
+                componentOf[v] = c;
+            }
+            cyclic[c] = components.get(c).size() > 1 || hasSelfLoop(components.get(c).get(0), cursor);
+            cyclicVertices += cyclic[c] ? components.get(c).size() : 0;
+        }
+
+        // Flatten only the cyclic components, in increasing vertex order; other edges never lie on a cycle
+        int[] vertices = new int[cyclicVertices];
+        int[] localIds = new int[n];
+        for (int v = 0, i = 0; v < n; v++) {
+            if (cyclic[componentOf[v]]) {
+                localIds[v] = i;
+                vertices[i++] = v;
+            } else {
+                localIds[v] = -1;
+            }
+        }
+        CsrGraph csr = CsrGraph.induced(graph, vertices, localIds);
+        int[] localComponentOf = new int[cyclicVertices];
+        for (int i = 0; i < cyclicVertices; i++) {
+            localComponentOf[i] = componentOf[vertices[i]];
+        }
+
+        List<List<Integer>> cyclicComponents = new ArrayList<>();
+        List<List<Integer>> witnesses = new ArrayList<>();
+        int[] parent = new int[cyclicVertices];
+        int[] queue = new int[cyclicVertices];
+        boolean[] visited = new boolean[cyclicVertices];
+        for (int c = 0; c < components.size(); c++) {
+            if (cyclic[c]) {
+                cyclicComponents.add(components.get(c));
+                witnesses.add(shortestCycle(csr, vertices, localIds[components.get(c).get(0)], localComponentOf,
+                        parent, queue, visited));
+            }
+        }
+
+        List<FeedbackArc> feedbackArcs = cyclicComponents.isEmpty()
+                ? new ArrayList<>()
+                : feedbackArcs(csr, vertices, localComponentOf);
+        cancellation.report(0, metrics.getOperations() - checked);
+
+        metrics.stopTiming();
+        return new CycleReport(cyclicComponents, witnesses, feedbackArcs, metrics);
+    }
+
+    // A single-vertex component is cyclic only through a self-loop
+    private boolean hasSelfLoop(int u, CompressedGraph.NeighborCursor cursor) {
+        if (cursor != null) {
+            for (cursor.reset(u); cursor.next(); ) {
+                if (cursor.target() == u) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        for (Graph.Edge edge : graph.getAdjacentEdges(u)) {
+            if (edge.to == u) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * BFS inside one component from root until an edge leads back to root.
+     * Works on local ids of the cyclic subgraph and returns global ids.
+     * Each vertex belongs to one component, so visited marks never need clearing.
+     */
+    private List<Integer> shortestCycle(CsrGraph csr, int[] vertices, int root, int[] componentOf, int[] parent,
+                                        int[] queue, boolean[] visited) {
+        int[] offsets = csr.offsets();
+        int[] targets = csr.targets();
+        int component = componentOf[root];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = root;
+        visited[root] = true;
+        parent[root] = -1;
+
+        while (head < tail) {
+            int u = queue[head++];
+            poll();
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                int v = targets[e];
+                metrics.addOperations(OperationType.EDGE_SCANS, 1);
+                if (v == root) {
+                    List<Integer> cycle = new ArrayList<>();
+                    for (int x = u; x != -1; x = parent[x]) {
+                        cycle.add(vertices[x]);
+                    }
+                    Collections.reverse(cycle);
+                    return cycle;
+                }
+                if (!visited[v] && componentOf[v] == component) {
+                    visited[v] = true;
+                    parent[v] = u;
+                    queue[tail++] = v;
+                }
+            }
+        }
+        throw new IllegalStateException("Component of vertex " + vertices[root] + " has no cycle through it");
+    }
+
+    /**
+     * Eades-Lin-Smyth ordering of the vertices of cyclic components.
+     * Works on local ids of the cyclic subgraph and returns arcs in global ids.
+     */
+    private List<FeedbackArc> feedbackArcs(CsrGraph csr, int[] vertices, int[] componentOf) {
+        int n = csr.getVertices();
+        int[] offsets = csr.offsets();
+        int[] targets = csr.targets();
+        int[] weights = csr.weights();
+        CsrGraph reverse = csr.transpose();
+        int[] revOffsets = reverse.offsets();
+        int[] revTargets = reverse.targets();
+
+        // Degrees over edges inside cyclic components, self-loops excluded
+        boolean[] alive = new boolean[n];
+        int[] out = new int[n];
+        int[] in = new int[n];
+        int remaining = 0;
+        int maxOut = 0;
+        int maxIn = 0;
+        for (int u = 0; u < n; u++) {
+            alive[u] = true;
+            remaining++;
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                int v = targets[e];
+                if (v != u && componentOf[v] == componentOf[u]) {
+                    out[u]++;
+                    in[v]++;
+                }
+            }
+        }
+        for (int u = 0; u < n; u++) {
+            maxOut = Math.max(maxOut, out[u]);
+            maxIn = Math.max(maxIn, in[u]);
+        }
+
+        // Buckets of alive vertices by out - in, as doubly linked lists
+        int shift = maxIn;
+        int[] bucketHead = new int[maxIn + maxOut + 1];
+        Arrays.fill(bucketHead, -1);
+        int[] next = new int[n];
+        int[] prev = new int[n];
+        int[] bucketOf = new int[n];
+        int[] sinks = new int[n];
+        int[] sources = new int[n];
+        int sinkCount = 0;
+        int sourceCount = 0;
+        int maxBucket = 0;
+        for (int u = 0; u < n; u++) {
+            if (alive[u]) {
+                link(u, out[u] - in[u] + shift, bucketHead, next, prev, bucketOf);
+                maxBucket = Math.max(maxBucket, bucketOf[u]);
+                if (out[u] == 0) {
+                    sinks[sinkCount++] = u;
+                } else if (in[u] == 0) {
+                    sources[sourceCount++] = u;
+                }
+            }
+        }
+
+        // Fill the order from both ends: sources and max-delta picks at the front, sinks at the back
+        int[] position = new int[n];
+        int front = 0;
+        int back = remaining - 1;
+        while (remaining > 0) {
+            int u;
+            if (sinkCount > 0) {
+                u = sinks[--sinkCount];
+                if (!alive[u]) {
+                    continue;
+                }
+                position[u] = back--;
+            } else if (sourceCount > 0) {
+                u = sources[--sourceCount];
+                if (!alive[u]) {
+                    continue;
+                }
+                position[u] = front++;
+            } else {
+                while (bucketHead[maxBucket] == -1) {
+                    maxBucket--;
+                }
+                u = bucketHead[maxBucket];
+                position[u] = front++;
+            }
+
+            alive[u] = false;
+            remaining--;
+            poll();
+            unlink(u, bucketHead, next, prev, bucketOf);
+            metrics.addOperations(OperationType.VERTEX_VISITS, 1);
+
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                int v = targets[e];
+                if (alive[v] && v != u && componentOf[v] == componentOf[u]) {
+                    metrics.addOperations(OperationType.EDGE_SCANS, 1);
+                    unlink(v, bucketHead, next, prev, bucketOf);
+                    in[v]--;
+                    link(v, out[v] - in[v] + shift, bucketHead, next, prev, bucketOf);
+                    maxBucket = Math.max(maxBucket, bucketOf[v]);
+                    if (in[v] == 0 && out[v] > 0) {
+                        sources[sourceCount++] = v;
+                    }
+                }
+            }
+            for (int e = revOffsets[u]; e < revOffsets[u + 1]; e++) {
+                int w = revTargets[e];
+                if (alive[w] && w != u && componentOf[w] == componentOf[u]) {
+                    metrics.addOperations(OperationType.EDGE_SCANS, 1);
+                    unlink(w, bucketHead, next, prev, bucketOf);
+                    out[w]--;
+                    link(w, out[w] - in[w] + shift, bucketHead, next, prev, bucketOf);
+                    if (out[w] == 0) {
+                        sinks[sinkCount++] = w;
+                    }
+                }
+            }
+        }
+
+        List<FeedbackArc> arcs = new ArrayList<>();
+        for (int u = 0; u < n; u++) {
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                int v = targets[e];
+                if (componentOf[v] == componentOf[u] && position[v] <= position[u]) {
+                    arcs.add(new FeedbackArc(vertices[u], vertices[v], weights[e]));
+                }
+            }
+        }
+        return arcs;
+    }
+
+    // Checkpoint once CHECK_INTERVAL edge scans are unreported
+    private void poll() {
+        if (metrics.getOperations() - checked >= CancellationToken.CHECK_INTERVAL) {
+            cancellation.checkpoint(0, metrics.getOperations() - checked);
+            checked = metrics.getOperations();
+        }
+    }
+
+    private static void link(int u, int bucket, int[] bucketHead, int[] next, int[] prev, int[] bucketOf) {
+        bucketOf[u] = bucket;
+        prev[u] = -1;
+        next[u] = bucketHead[bucket];
+        if (next[u] != -1) {
+            prev[next[u]] = u;
+        }
+        bucketHead[bucket] = u;
+    }
+
+    private static void unlink(int u, int[] bucketHead, int[] next, int[] prev, int[] bucketOf) {
+        if (prev[u] != -1) {
+            next[prev[u]] = next[u];
+        } else {
+            bucketHead[bucketOf[u]] = next[u];
+        }
+        if (next[u] != -1) {
+            prev[next[u]] = prev[u];
+        }
+    }
+
+    /**
+     * A dependency suggested for removal.
+     */
+    public static class FeedbackArc {
+        public final int from;
+        public final int to;
+        public final int weight;
+
+        /**
+         * Create a feedback arc.
+         * @param from Source vertex
+         * @param to Destination vertex
+         * @param weight Edge weight
+         */
+        public FeedbackArc(int from, int to, int weight) {
+            this.from = from;
+            this.to = to;
+            this.weight = weight;
+        }
+
+        @Override
+        public String toString() {
+            return from + "->" + to;
+        }
+    }
+
+    /**
+     * Result of cycle diagnosis.
+     */
+    public static class CycleReport {
+        private final List<List<Integer>> cyclicComponents;
+        private final List<List<Integer>> witnessCycles;
+        private final List<FeedbackArc> feedbackArcs;
+        private final Metrics metrics;
+
+        CycleReport(List<List<Integer>> cyclicComponents, List<List<Integer>> witnessCycles,
+                    List<FeedbackArc> feedbackArcs, Metrics metrics) {
+            this.cyclicComponents = cyclicComponents;
+            this.witnessCycles = witnessCycles;
+            this.feedbackArcs = feedbackArcs;
+            this.metrics = metrics;
+        }
+
+        public boolean isAcyclic() {
+            return cyclicComponents.isEmpty();
+        }
+
+        /**
+         * Get components that contain at least one cycle.
+         * @return Components with more than one vertex or a self-loop
+         */
+        public List<List<Integer>> getCyclicComponents() {
+            return cyclicComponents;
+        }
+
+        /**
+         * Get one shortest cycle through the smallest vertex of each cyclic component.
+         * @return Cycles aligned with getCyclicComponents(); the closing edge
+         *         runs from the last vertex back to the first
+         */
+        public List<List<Integer>> getWitnessCycles() {
+            return witnessCycles;
+        }
+
+        /**
+         * Get edges whose removal makes the graph acyclic.
+         * @return Heuristic feedback arc set, grouped by source vertex
+         */
+        public List<FeedbackArc> getFeedbackArcs() {
+            return feedbackArcs;
+        }
+
+        /**
+         * Get performance metrics.
+         * @return Metrics; operations count edge scans after the SCC pass, time includes it
+         */
+        public Metrics getMetrics() {
+            return metrics;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.smartcity.graph.scc;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing set of long keys used to deduplicate condensation edges.
+ * Keys go through the murmur3 fmix64 finalizer before masking, so every
+ * key bit reaches every slot bit at any table size.
+ */
+final class LongHashSet {
+    private static final long EMPTY = -1L;
+    private long[] keys = newTable(1 << 10);
+    private int size;
+
+    private static long[] newTable(int capacity) {
+        long[] table = new long[capacity];
+        Arrays.fill(table, EMPTY);
+        return table;
+    }
+
+    /**
+     * Add a key.
+     * @param key Key; -1 is reserved
+     * @return true if the key was not present
+     */
+    boolean add(long key) {
+        if ((size + 1L) * 2 > keys.length) {
+            long[] old = keys;
+            keys = newTable(old.length * 2);
+            for (long k : old) {
+                if (k != EMPTY) {
+                    insert(k);
+                }
+            }
+        }
+        if (insert(key)) {
+            size++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Get number of keys.
+     * @return Size
+     */
+    int size() {
+        return size;
+    }
+
+    private boolean insert(long key) {
+        int mask = keys.length - 1;
+        int slot = (int) mix(key) & mask;
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        return true;
+    }
+
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xFF51AFD7ED558CCDL;
+        key ^= key >>> 33;
+        key *= 0xC4CEB9FE1A85EC53L;
+        return key ^ (key >>> 33);
+    }
+}
@@ -0,0 +1,498 @@
+package com.smartcity.graph.scc;
+
+import com.smartcity.common.CancellationToken;
+import com.smartcity.common.EdgeFile;
+import com.smartcity.common.Graph;
+import com.smartcity.common.Metrics;
+import com.smartcity.common.MetricsImpl;
+import com.smartcity.common.OperationType;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Partitioned SCC detection across worker processes on one machine.
+ *
+ * The vertex set is split into contiguous ranges, one per
+ * {@link SCCPartitionWorker} process. All processes share the same
+ * {@link EdgeFile} and report back through files in a work directory.
+ * Each worker finds the SCCs of its induced subgraph; every local SCC lies
+ * inside exactly one global SCC, and a global SCC is a union of local SCCs
+ * joined through boundary edges. The coordinator therefore builds the
+ * quotient graph (one vertex per local SCC, with the workers' deduplicated
+ * local condensation and boundary edges), runs {@link SemiExternalSCC} on
+ * it and maps the result back to original vertices.
+ *
+ * Component ids follow Tarjan order on the quotient graph, so they differ
+ * from {@link TarjanSCC}; the vertex partition is identical. Condensation
+ * edges keep the first weight seen for a component pair.
+ *
+ * An optional cancellation token is polled while the workers run (a
+ * cancelled run destroys them), and is passed on to the quotient pass.
+ *
+ * Complexity: O(V+E) total work; coordinator memory O(V) plus the largest
+ * single worker output
+ */
+public class PartitionedSCC {
+    private static final String EDGE_FILE = "graph.edges";
+    private static final String QUOTIENT_FILE = "quotient.edges";
+    private static final long WORKER_POLL_MILLIS = 50;
+
+    private final int partitions;
+    private final Path workDir;
+    private final List<String> workerJvmOptions;
+    private CancellationToken cancellation = CancellationToken.NONE;
+
+    /**
+     * Create a coordinator with default worker JVM options.
+     * @param partitions Number of worker processes
+     * @param workDir Directory for shared files
+     */
+    public PartitionedSCC(int partitions, Path workDir) {
+        this(partitions, workDir, Collections.emptyList());
+    }
+
+    /**
+     * Create a coordinator.
+     * @param partitions Number of worker processes
+     * @param workDir Directory for shared files
+     * @param workerJvmOptions Extra JVM options for every worker, e.g. -Xmx64m
+     */
+    public PartitionedSCC(int partitions, Path workDir, List<String> workerJvmOptions) {
+        if (partitions < 1) {
+            throw new IllegalArgumentException("partitions must be positive");
+        }
+        this.partitions = partitions;
+        this.workDir = workDir;
+        this.workerJvmOptions = new ArrayList<>(workerJvmOptions);
+    }
+
+    /**
+     * Stop findSCCs at the next checkpoint once the token is cancelled.
+     * @param cancellation Token polled while workers run and used by the quotient pass
+     */
+    public void setCancellationToken(CancellationToken cancellation) {
+        this.cancellation = cancellation;
+    }
+
+    /**
+     * Write an in-memory graph to the work directory and partition it.
+     * @param graph Directed graph
+     * @return Global components, condensation and per-worker statistics
+     * @throws IOException if a worker fails or shared files cannot be accessed
+     * @throws java.util.concurrent.CancellationException if the cancellation token fires
+     */
+    public PartitionedResult findSCCs(Graph graph) throws IOException {
+        Files.createDirectories(workDir);
+        Path edgeFile = workDir.resolve(EDGE_FILE);
+        EdgeFile.write(edgeFile, graph);
+        return findSCCs(edgeFile);
+    }
+
+    /**
+     * Partition a graph stored as an edge file.
+     * @param edgeFile Shared edge file readable by all workers
+     * @return Global components, condensation and per-worker statistics
+     * @throws IOException if a worker fails or shared files cannot be accessed
+     * @throws java.util.concurrent.CancellationException if the cancellation token fires
+     * @complexity O(V+E) total work split across the workers
+     */
+    public PartitionedResult findSCCs(Path edgeFile) throws IOException {
+        Metrics metrics = new MetricsImpl();
+        metrics.reset();
+        metrics.startTiming();
+        Files.createDirectories(workDir);
+
+        int n;
+        try (EdgeFile edges = EdgeFile.open(edgeFile)) {
+            n = edges.getVertices();
+        }
+        int[] lo = new int[partitions + 1];
+        for (int p = 0; p <= partitions; p++) {
+            lo[p] = (int) ((long) n * p / partitions);
+        }
+
+        runWorkers(edgeFile.toAbsolutePath(), lo);
+
+        // Quotient vertex base[p] + c stands for local component c of partition p
+        int[][] localComponent = new int[partitions][];
+        int[] base = new int[partitions + 1];
+        List<WorkerStats> stats = new ArrayList<>(partitions);
+        for (int p = 0; p < partitions; p++) {
+            Path dir = partitionDir(p);
+            localComponent[p] = readComponents(dir.resolve(SCCPartitionWorker.COMPONENTS_FILE), lo[p + 1] - lo[p]);
+            WorkerStats workerStats = WorkerStats.read(p, lo[p], lo[p + 1], dir.resolve(SCCPartitionWorker.STATS_FILE));
+            stats.add(workerStats);
+            base[p + 1] = base[p] + workerStats.getLocalComponents();
+        }
+
+        Path quotientFile = workDir.resolve(QUOTIENT_FILE);
+        long[] quotientEdges = new long[1];
+        EdgeFile.write(quotientFile, base[partitions], new QuotientSource(lo, base, localComponent, quotientEdges));
+        metrics.addOperations(OperationType.EDGE_SCANS, quotientEdges[0]);
+
+        SemiExternalSCC.SemiExternalResult quotient;
+        try (EdgeFile file = EdgeFile.open(quotientFile)) {
+            SemiExternalSCC quotientScc = new SemiExternalSCC(file);
+            quotientScc.setCancellationToken(cancellation);
+            quotient = quotientScc.findSCCs();
+        }
+
+        int components = quotient.getComponentCount();
+        int[] componentOf = new int[n];
+        List<List<Integer>> sccs = new ArrayList<>(components);
+        for (int c = 0; c < components; c++) {
+            sccs.add(new ArrayList<>());
+        }
+        for (int p = 0; p < partitions; p++) {
+            for (int v = lo[p]; v < lo[p + 1]; v++) {
+                int c = quotient.getComponent(base[p] + localComponent[p][v - lo[p]]);
+                componentOf[v] = c;
+                sccs.get(c).add(v);
+            }
+            metrics.addOperations(OperationType.VERTEX_VISITS, lo[p + 1] - lo[p]);
+            cancellation.checkpoint(lo[p + 1] - lo[p], 0);
+        }
+
+        metrics.stopTiming();
+
+        return new PartitionedResult(new TarjanSCC.SCCResult(sccs, metrics), componentOf,
+                quotient.getCondensation(), stats, base[partitions], quotientEdges[0]);
+    }
+
+    private Path partitionDir(int p) {
+        return workDir.resolve("part-" + p);
+    }
+
+    /**
+     * Launch one worker per partition and wait for all of them,
+     * polling the cancellation token while they run.
+     */
+    private void runWorkers(Path edgeFile, int[] lo) throws IOException {
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        String classPath = workerClassPath();
+        List<Process> processes = new ArrayList<>(partitions);
+        try {
+            for (int p = 0; p < partitions; p++) {
+                Path dir = partitionDir(p);
+                Files.createDirectories(dir);
+                List<String> command = new ArrayList<>();
+                command.add(java);
+                command.addAll(workerJvmOptions);
+                command.add("-cp");
+                command.add(classPath);
+                command.add(SCCPartitionWorker.class.getName());
+                command.add(edgeFile.toString());
+                command.add(Integer.toString(lo[p]));
+                command.add(Integer.toString(lo[p + 1]));
+                command.add(dir.toAbsolutePath().toString());
+                processes.add(new ProcessBuilder(command)
+                        .redirectErrorStream(true)
+                        .redirectOutput(dir.resolve("worker.log").toFile())
+                        .start());
+            }
+            for (int p = 0; p < partitions; p++) {
+                while (!processes.get(p).waitFor(WORKER_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                    cancellation.checkpoint(0, 0);
+                }
+                int exit = processes.get(p).exitValue();
+                if (exit != 0) {
+                    String log = new String(Files.readAllBytes(partitionDir(p).resolve("worker.log")),
+                            StandardCharsets.UTF_8);
+                    throw new IOException("Worker " + p + " exited with code " + exit + ": " + log.trim());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for workers", e);
+        } finally {
+            for (Process process : processes) {
+                process.destroy();
+            }
+        }
+    }
+
+    private static String workerClassPath() throws IOException {
+        try {
+            return Paths.get(SCCPartitionWorker.class.getProtectionDomain()
+                    .getCodeSource().getLocation().toURI()).toString();
+        } catch (URISyntaxException | RuntimeException e) {
+            return System.getProperty("java.class.path");
+        }
+    }
+
+    private static int[] readComponents(Path path, int expected) throws IOException {
+        try (DataInputStream in = openData(path)) {
+            int count = in.readInt();
+            if (count != expected) {
+                throw new IOException("Partition file " + path + " has " + count + " vertices, expected " + expected);
+            }
+            int[] components = new int[count];
+            for (int i = 0; i < count; i++) {
+                components[i] = in.readInt();
+            }
+            return components;
+        }
+    }
+
+    private static DataInputStream openData(Path path) throws IOException {
+        return new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16));
+    }
+
+    /**
+     * Streams quotient edges partition by partition, grouped by source.
+     * Only one partition's edges are held in memory at a time.
+     */
+    private final class QuotientSource implements EdgeFile.AdjacencySource {
+        private final int[] lo;
+        private final int[] base;
+        private final int[][] localComponent;
+        private final long[] edgeCount;
+        private int loaded = -1;
+        private int[] offsets;
+        private int[] targets;
+        private int[] weights;
+
+        QuotientSource(int[] lo, int[] base, int[][] localComponent, long[] edgeCount) {
+            this.lo = lo;
+            this.base = base;
+            this.localComponent = localComponent;
+            this.edgeCount = edgeCount;
+        }
+
+        @Override
+        public void edgesOf(int u, EdgeFile.EdgeSink sink) {
+            int p = loaded;
+            while (p < 0 || u >= base[p + 1]) {
+                p++;
+            }
+            if (p != loaded) {
+                try {
+                    load(p);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            int c = u - base[p];
+            for (int i = offsets[c]; i < offsets[c + 1]; i++) {
+                sink.edge(targets[i], weights[i]);
+            }
+            edgeCount[0] += offsets[c + 1] - offsets[c];
+        }
+
+        /**
+         * Read a partition's local and boundary edges and bucket them by source.
+         */
+        private void load(int p) throws IOException {
+            Path dir = partitionDir(p);
+            Path local = dir.resolve(SCCPartitionWorker.LOCAL_EDGES_FILE);
+            Path boundary = dir.resolve(SCCPartitionWorker.BOUNDARY_EDGES_FILE);
+            int localCount = (int) (Files.size(local) / 12);
+            int total = localCount + (int) (Files.size(boundary) / 12);
+            int components = base[p + 1] - base[p];
+
+            int[] from = new int[total];
+            int[] to = new int[total];
+            int[] weight = new int[total];
+            try (DataInputStream in = openData(local)) {
+                for (int i = 0; i < localCount; i++) {
+                    from[i] = in.readInt();
+                    to[i] = base[p] + in.readInt();
+                    weight[i] = in.readInt();
+                }
+            }
+            try (DataInputStream in = openData(boundary)) {
+                for (int i = localCount; i < total; i++) {
+                    from[i] = in.readInt();
+                    int v = in.readInt();
+                    int q = partitionOf(v);
+                    to[i] = base[q] + localComponent[q][v - lo[q]];
+                    weight[i] = in.readInt();
+                }
+            }
+
+            offsets = new int[components + 1];
+            for (int i = 0; i < total; i++) {
+                offsets[from[i] + 1]++;
+            }
+            for (int c = 0; c < components; c++) {
+                offsets[c + 1] += offsets[c];
+            }
+            int[] next = Arrays.copyOf(offsets, components);
+            targets = new int[total];
+            weights = new int[total];
+            for (int i = 0; i < total; i++) {
+                int slot = next[from[i]]++;
+                targets[slot] = to[i];
+                weights[slot] = weight[i];
+            }
+            loaded = p;
+        }
+
+        private int partitionOf(int v) {
+            int index = Arrays.binarySearch(lo, 0, partitions, v);
+            if (index < 0) {
+                return -index - 2;
+            }
+            // Skip empty partitions that share the same start
+            while (index + 1 < partitions && lo[index + 1] == v) {
+                index++;
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Statistics reported by one worker process.
+     */
+    public static class WorkerStats {
+        private final int partition;
+        private final int firstVertex;
+        private final int endVertex;
+        private final int localComponents;
+        private final long localEdges;
+        private final long boundaryEdges;
+        private final long elapsedNanos;
+        private final long peakHeapBytes;
+        private final long peakRssBytes;
+
+        WorkerStats(int partition, int firstVertex, int endVertex, int localComponents, long localEdges,
+                    long boundaryEdges, long elapsedNanos, long peakHeapBytes, long peakRssBytes) {
+            this.partition = partition;
+            this.firstVertex = firstVertex;
+            this.endVertex = endVertex;
+            this.localComponents = localComponents;
+            this.localEdges = localEdges;
+            this.boundaryEdges = boundaryEdges;
+            this.elapsedNanos = elapsedNanos;
+            this.peakHeapBytes = peakHeapBytes;
+            this.peakRssBytes = peakRssBytes;
+        }
+
+        static WorkerStats read(int partition, int firstVertex, int endVertex, Path path) throws IOException {
+            Properties properties = new Properties();
+            try (InputStream in = Files.newInputStream(path)) {
+                properties.load(in);
+            }
+            try {
+                return new WorkerStats(partition, firstVertex, endVertex,
+                        Integer.parseInt(properties.getProperty("components")),
+                        Long.parseLong(properties.getProperty("localEdges")),
+                        Long.parseLong(properties.getProperty("boundaryEdges")),
+                        Long.parseLong(properties.getProperty("elapsedNanos")),
+                        Long.parseLong(properties.getProperty("peakHeapBytes")),
+                        Long.parseLong(properties.getProperty("peakRssBytes")));
+            } catch (NumberFormatException e) {
+                throw new IOException("Malformed worker statistics: " + path, e);
+            }
+        }
+
+        public int getPartition() {
+            return partition;
+        }
+
+        public int getFirstVertex() {
+            return firstVertex;
+        }
+
+        public int getEndVertex() {
+            return endVertex;
+        }
+
+        public int getLocalComponents() {
+            return localComponents;
+        }
+
+        public long getLocalEdges() {
+            return localEdges;
+        }
+
+        public long getBoundaryEdges() {
+            return boundaryEdges;
+        }
+
+        public double getElapsedMillis() {
+            return elapsedNanos / 1_000_000.0;
+        }
+
+        public long getPeakHeapBytes() {
+            return peakHeapBytes;
+        }
+
+        /**
+         * Get peak resident set size of the worker process.
+         * @return Bytes, or -1 where procfs is unavailable
+         */
+        public long getPeakRssBytes() {
+            return peakRssBytes;
+        }
+    }
+
+    /**
+     * Result of partitioned SCC detection.
+     */
+    public static class PartitionedResult {
+        private final TarjanSCC.SCCResult sccResult;
+        private final int[] componentOf;
+        private final Graph condensation;
+        private final List<WorkerStats> workers;
+        private final int quotientVertices;
+        private final long quotientEdges;
+
+        PartitionedResult(TarjanSCC.SCCResult sccResult, int[] componentOf, Graph condensation,
+                          List<WorkerStats> workers, int quotientVertices, long quotientEdges) {
+            this.sccResult = sccResult;
+            this.componentOf = componentOf;
+            this.condensation = condensation;
+            this.workers = Collections.unmodifiableList(workers);
+            this.quotientVertices = quotientVertices;
+            this.quotientEdges = quotientEdges;
+        }
+
+        /**
+         * Get global components; metrics time the whole run including workers.
+         * @return SCC result
+         */
+        public TarjanSCC.SCCResult getSCCResult() {
+            return sccResult;
+        }
+
+        public int getComponentCount() {
+            return condensation.getVertices();
+        }
+
+        public int getComponent(int vertex) {
+            return componentOf[vertex];
+        }
+
+        public Graph getCondensation() {
+            return condensation;
+        }
+
+        public List<WorkerStats> getWorkers() {
+            return workers;
+        }
+
+        /**
+         * Get size of the merged boundary structure.
+         * @return Number of local components across all workers
+         */
+        public int getQuotientVertices() {
+            return quotientVertices;
+        }
+
+        public long getQuotientEdges() {
+            return quotientEdges;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.smartcity.graph.scc;
+
+import com.smartcity.common.CancellationToken;
+import com.smartcity.common.EdgeFile;
+import com.smartcity.common.Metrics;
+import com.smartcity.common.MetricsImpl;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Worker process of {@link PartitionedSCC}.
+ *
+ * Owns the vertex range [lo, hi) of a shared {@link EdgeFile}, computes the
+ * SCCs of the induced subgraph and writes three files to its output
+ * directory:
+ * <pre>
+ * components.bin  int count, then the local component id of every owned vertex
+ * local.bin       (int cu, int cv, int w) edges between different local components
+ * boundary.bin    (int cu, int v, int w) edges to vertices v outside the range
+ * stats.properties  counts, elapsed time and peak memory of this process
+ * </pre>
+ * Edge records are deduplicated per (cu, cv) and (cu, v), keeping the first weight.
+ *
+ * Usage: SCCPartitionWorker &lt;edge-file&gt; &lt;lo&gt; &lt;hi&gt; &lt;out-dir&gt;
+ */
+public final class SCCPartitionWorker {
+    static final String COMPONENTS_FILE = "components.bin";
+    static final String LOCAL_EDGES_FILE = "local.bin";
+    static final String BOUNDARY_EDGES_FILE = "boundary.bin";
+    static final String STATS_FILE = "stats.properties";
+
+    private SCCPartitionWorker() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 4) {
+            System.err.println("Usage: SCCPartitionWorker <edge-file> <lo> <hi> <out-dir>");
+            System.exit(2);
+        }
+        run(Paths.get(args[0]), Integer.parseInt(args[1]), Integer.parseInt(args[2]), Paths.get(args[3]));
+    }
+
+    /**
+     * Process one partition.
+     * @param edgeFile Shared edge file
+     * @param lo First owned vertex
+     * @param hi End (exclusive) of owned vertices
+     * @param outDir Directory receiving the partition files
+     * @throws IOException if reading or writing fails
+     * @complexity O(hi - lo + edges of the range) time, O(hi - lo + output edges) space
+     */
+    static void run(Path edgeFile, int lo, int hi, Path outDir) throws IOException {
+        long start = System.nanoTime();
+        Files.createDirectories(outDir);
+        Metrics metrics = new MetricsImpl();
+        long localEdges = 0;
+        long boundaryEdges = 0;
+        int components;
+
+        try (EdgeFile edges = EdgeFile.open(edgeFile)) {
+            if (lo < 0 || hi > edges.getVertices() || lo > hi) {
+                throw new IllegalArgumentException("Invalid range [" + lo + ", " + hi + ")");
+            }
+            int[] componentOf = new int[hi - lo];
+            components = SemiExternalSCC.findSCCs(edges, lo, hi, componentOf, metrics, CancellationToken.NONE);
+
+            try (DataOutputStream out = open(outDir.resolve(COMPONENTS_FILE))) {
+                out.writeInt(componentOf.length);
+                for (int c : componentOf) {
+                    out.writeInt(c);
+                }
+            }
+
+            LongHashSet seenLocal = new LongHashSet();
+            LongHashSet seenBoundary = new LongHashSet();
+            try (DataOutputStream local = open(outDir.resolve(LOCAL_EDGES_FILE));
+                 DataOutputStream boundary = open(outDir.resolve(BOUNDARY_EDGES_FILE))) {
+                for (int u = lo; u < hi; u++) {
+                    int cu = componentOf[u - lo];
+                    for (long e = edges.firstEdge(u), end = edges.endEdge(u); e < end; e++) {
+                        int v = edges.target(e);
+                        if (v >= lo && v < hi) {
+                            int cv = componentOf[v - lo];
+                            if (cu != cv && seenLocal.add(((long) cu << 32) | cv)) {
+                                writeEdge(local, cu, cv, edges.weight(e));
+                                localEdges++;
+                            }
+                        } else if (seenBoundary.add(((long) cu << 32) | v)) {
+                            writeEdge(boundary, cu, v, edges.weight(e));
+                            boundaryEdges++;
+                        }
+                    }
+                }
+            }
+        }
+
+        Properties stats = new Properties();
+        stats.setProperty("components", Integer.toString(components));
+        stats.setProperty("localEdges", Long.toString(localEdges));
+        stats.setProperty("boundaryEdges", Long.toString(boundaryEdges));
+        stats.setProperty("elapsedNanos", Long.toString(System.nanoTime() - start));
+        stats.setProperty("peakHeapBytes", Long.toString(peakHeapBytes()));
+        stats.setProperty("peakRssBytes", Long.toString(peakRssBytes()));
+        try (OutputStream out = Files.newOutputStream(outDir.resolve(STATS_FILE))) {
+            stats.store(out, "SCC partition [" + lo + ", " + hi + ")");
+        }
+    }
+
+    private static DataOutputStream open(Path path) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16));
+    }
+
+    private static void writeEdge(DataOutputStream out, int from, int to, int weight) throws IOException {
+        out.writeInt(from);
+        out.writeInt(to);
+        out.writeInt(weight);
+    }
+
+    /**
+     * Sum of peak usage over all heap memory pools.
+     * @return Bytes
+     */
+    static long peakHeapBytes() {
+        long total = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                total += pool.getPeakUsage().getUsed();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Peak resident set size of this process from /proc/self/status.
+     * @return Bytes, or -1 where procfs is unavailable
+     */
+    static long peakRssBytes() {
+        try {
+            List<String> lines = Files.readAllLines(Paths.get("/proc/self/status"), StandardCharsets.US_ASCII);
+            for (String line : lines) {
+                if (line.startsWith("VmHWM:")) {
+                    String[] parts = line.substring(6).trim().split("\\s+");
+                    return Long.parseLong(parts[0]) * 1024;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // Not on Linux
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,288 @@
+package com.smartcity.graph.scc;
+
+import com.smartcity.common.CancellationToken;
+import com.smartcity.common.EdgeFile;
+import com.smartcity.common.Graph;
+import com.smartcity.common.Metrics;
+import com.smartcity.common.MetricsImpl;
+import com.smartcity.common.OperationType;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * Semi-external Tarjan SCC for graphs whose edges do not fit on the heap.
+ *
+ * Edges are streamed from a memory-mapped {@link EdgeFile}; the heap holds
+ * only per-vertex int arrays (discovery time, low-link, component id, the
+ * Tarjan stack and the DFS call stack) plus one edge cursor per active DFS
+ * frame. The DFS is iterative, so deep graphs need no -Xss tuning.
+ *
+ * Components are reported in the same order as {@link TarjanSCC} (reverse
+ * topological order of the condensation) with sorted members. The
+ * condensation keeps the weight of the first edge seen between two
+ * components, as TarjanSCC.buildCondensationGraph does.
+ *
+ * An optional cancellation token is checked every CHECK_INTERVAL edges
+ * streamed, by the DFS and by the condensation pass alike.
+ *
+ * Complexity: O(V+E) time, O(V) heap plus O(E_c) for the condensation
+ */
+public class SemiExternalSCC {
+    private final EdgeFile edges;
+    private final Metrics metrics;
+    private CancellationToken cancellation = CancellationToken.NONE;
+
+    /**
+     * Create semi-external SCC finder.
+     * @param edges Opened edge file
+     */
+    public SemiExternalSCC(EdgeFile edges) {
+        this.edges = edges;
+        this.metrics = new MetricsImpl();
+    }
+
+    /**
+     * Stop findSCCs at the next checkpoint once the token is cancelled.
+     * @param cancellation Token receiving progress every CHECK_INTERVAL edges streamed
+     */
+    public void setCancellationToken(CancellationToken cancellation) {
+        this.cancellation = cancellation;
+    }
+
+    /**
+     * Find all strongly connected components and the condensation DAG.
+     * @return Result with components, per-vertex component ids and condensation
+     * @throws java.util.concurrent.CancellationException if the cancellation token fires
+     * @complexity O(V+E) time, O(V) heap space besides the condensation
+     */
+    public SemiExternalResult findSCCs() {
+        int n = edges.getVertices();
+        int[] componentOf = new int[n];
+
+        metrics.reset();
+        metrics.startTiming();
+
+        int components = findSCCs(edges, 0, n, componentOf, metrics, cancellation);
+
+        List<List<Integer>> sccs = new ArrayList<>(components);
+        for (int c = 0; c < components; c++) {
+            sccs.add(new ArrayList<>());
+        }
+        for (int v = 0; v < n; v++) {
+            sccs.get(componentOf[v]).add(v);
+        }
+
+        Graph condensation = buildCondensation(componentOf, components);
+
+        metrics.stopTiming();
+
+        return new SemiExternalResult(new TarjanSCC.SCCResult(sccs, metrics), componentOf, condensation);
+    }
+
+    /**
+     * Iterative Tarjan over the subgraph induced by a vertex range.
+     * Edges leaving [lo, hi) are ignored.
+     * @param edges Edge file
+     * @param lo First vertex of the range
+     * @param hi End (exclusive) of the range
+     * @param componentOf Output: component id of vertex lo + i at index i
+     * @param metrics Metrics receiving operation counts
+     * @param cancellation Token receiving progress every CHECK_INTERVAL edges streamed
+     * @return Number of components, numbered in Tarjan completion order
+     * @throws java.util.concurrent.CancellationException if the cancellation token fires
+     * @complexity O(hi - lo + edges of the range) time, O(hi - lo) space
+     */
+    static int findSCCs(EdgeFile edges, int lo, int hi, int[] componentOf, Metrics metrics,
+                        CancellationToken cancellation) {
+        int size = hi - lo;
+        int[] disc = new int[size];
+        int[] low = new int[size];
+        int[] stack = new int[size];
+        int[] callStack = new int[size];
+        long[] cursor = new long[size];
+        Arrays.fill(disc, -1);
+        Arrays.fill(componentOf, 0, size, -1);
+
+        int time = 0;
+        int components = 0;
+        int top = 0;
+        // Edges streamed since the last checkpoint, and vertices assigned since then
+        int scanned = 0;
+        int finished = 0;
+        for (int root = 0; root < size; root++) {
+            if (disc[root] != -1) {
+                continue;
+            }
+            int depth = 0;
+            disc[root] = low[root] = time++;
+            stack[top++] = root;
+            callStack[depth] = root;
+            cursor[depth++] = edges.firstEdge(lo + root);
+            metrics.addOperations(OperationType.VERTEX_VISITS, 1);
+            metrics.addOperations(OperationType.STACK_OPS, 1);
+
+            while (depth > 0) {
+                int u = callStack[depth - 1];
+                long e = cursor[depth - 1];
+                if (e < edges.endEdge(lo + u)) {
+                    cursor[depth - 1] = e + 1;
+                    int v = edges.target(e) - lo;
+                    metrics.addOperations(OperationType.EDGE_SCANS, 1);
+                    if (++scanned == CancellationToken.CHECK_INTERVAL) {
+                        cancellation.checkpoint(finished, scanned);
+                        finished = 0;
+                        scanned = 0;
+                    }
+                    if (v < 0 || v >= size) {
+                        continue;
+                    }
+                    if (disc[v] == -1) {
+                        disc[v] = low[v] = time++;
+                        stack[top++] = v;
+                        callStack[depth] = v;
+                        cursor[depth++] = edges.firstEdge(lo + v);
+                        metrics.addOperations(OperationType.VERTEX_VISITS, 1);
+                        metrics.addOperations(OperationType.STACK_OPS, 1);
+                    } else if (componentOf[v] == -1) {
+                        // Visited but unassigned means v is still on the Tarjan stack
+                        low[u] = Math.min(low[u], disc[v]);
+                    }
+                    continue;
+                }
+
+                depth--;
+                if (low[u] == disc[u]) {
+                    int v;
+                    do {
+                        v = stack[--top];
+                        componentOf[v] = components;
+                        metrics.addOperations(OperationType.STACK_OPS, 1);
+                        finished++;
+                    } while (v != u);
+                    components++;
+                }
+                if (depth > 0) {
+                    int parent = callStack[depth - 1];
+                    low[parent] = Math.min(low[parent], low[u]);
+                }
+            }
+        }
+        cancellation.report(finished, scanned);
+        return components;
+    }
+
+    /**
+     * Stream the edge file once and keep one edge per component pair.
+     * @param componentOf Component id of every vertex
+     * @param components Number of components
+     * @return Condensation DAG
+     */
+    private Graph buildCondensation(int[] componentOf, int components) {
+        Graph condensation = new Graph(components, true);
+        LongHashSet added = new LongHashSet();
+        long scanned = 0;
+        for (int u = 0; u < edges.getVertices(); u++) {
+            int cu = componentOf[u];
+            if (scanned >= CancellationToken.CHECK_INTERVAL) {
+                cancellation.checkpoint(0, scanned);
+                scanned = 0;
+            }
+            scanned += edges.endEdge(u) - edges.firstEdge(u);
+            for (long e = edges.firstEdge(u), end = edges.endEdge(u); e < end; e++) {
+                int cv = componentOf[edges.target(e)];
+                if (cu != cv) {
+                    metrics.addOperations(OperationType.HASH_PROBES, 1);
+                    if (added.add(((long) cu << 32) | cv)) {
+                        condensation.addEdge(cu, cv, edges.weight(e));
+                    }
+                }
+            }
+        }
+        cancellation.report(0, scanned);
+        return condensation;
+    }
+
+    /**
+     * Command-line entry point: SemiExternalSCC &lt;edge-file&gt;.
+     * Prints the component count, the largest component and the condensation size.
+     * @param args Edge file path
+     * @throws IOException if the edge file cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: SemiExternalSCC <edge-file>");
+            System.exit(2);
+        }
+        Path path = Paths.get(args[0]);
+        try (EdgeFile file = EdgeFile.open(path)) {
+            SemiExternalResult result = new SemiExternalSCC(file).findSCCs();
+            int largest = 0;
+            for (int size : result.getSCCResult().getSizes()) {
+                largest = Math.max(largest, size);
+            }
+            long condensationEdges = 0;
+            Graph condensation = result.getCondensation();
+            for (int c = 0; c < condensation.getVertices(); c++) {
+                condensationEdges += condensation.getAdjacentEdges(c).size();
+            }
+            System.out.println("vertices=" + file.getVertices()
+                    + " edges=" + file.getEdgeCount()
+                    + " components=" + result.getComponentCount()
+                    + " largest=" + largest
+                    + " condensationEdges=" + condensationEdges
+                    + " timeMs=" + String.format(Locale.ROOT, "%.1f",
+                            result.getSCCResult().getMetrics().getElapsedMillis()));
+        }
+    }
+
+    /**
+     * Result of semi-external SCC detection.
+     */
+    public static class SemiExternalResult {
+        private final TarjanSCC.SCCResult sccResult;
+        private final int[] componentOf;
+        private final Graph condensation;
+
+        SemiExternalResult(TarjanSCC.SCCResult sccResult, int[] componentOf, Graph condensation) {
+            this.sccResult = sccResult;
+            this.componentOf = componentOf;
+            this.condensation = condensation;
+        }
+
+        /**
+         * Get components in the same form as TarjanSCC.
+         * @return SCC result with components and metrics
+         */
+        public TarjanSCC.SCCResult getSCCResult() {
+            return sccResult;
+        }
+
+        /**
+         * Get number of components.
+         * @return Component count
+         */
+        public int getComponentCount() {
+            return condensation.getVertices();
+        }
+
+        /**
+         * Get component id of a vertex.
+         * @param vertex Original vertex
+         * @return Index into getSCCResult().getComponents()
+         */
+        public int getComponent(int vertex) {
+            return componentOf[vertex];
+        }
+
+        /**
+         * Get condensation DAG.
+         * @return Graph with one vertex per component
+         */
+        public Graph getCondensation() {
+            return condensation;
+        }
+    }
+}
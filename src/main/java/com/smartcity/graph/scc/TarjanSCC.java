@@ -1,8 +1,11 @@
 package com.smartcity.graph.scc;
 
+import com.smartcity.common.AlgorithmWorkspace;
+import com.smartcity.common.CancellationToken;
 import com.smartcity.common.Graph;
 import com.smartcity.common.Metrics;
 import com.smartcity.common.MetricsImpl;
+import com.smartcity.common.OperationType;
 
 import java.util.*;
 
@@ -12,47 +15,84 @@ import java.util.*;
  * 
  * Algorithm maintains discovery times and low-link values to detect
  * when a vertex is the root of an SCC. Uses a stack to track the
- * current path and identify complete components.
+ * current path and identify complete components. The DFS keeps its own
+ * call stack, so deep graphs do not overflow the thread stack. Each frame
+ * holds an iterator over its vertex's edges, so lazily decoded lists (such
+ * as a CompressedGraph's) are read sequentially, never by index.
  * 
  * Complexity: O(V+E) time, O(V) space
  */
 public class TarjanSCC {
     private final Graph graph;
     private final Metrics metrics;
+    private final AlgorithmWorkspace workspace;
+    private CancellationToken cancellation = CancellationToken.NONE;
     
     private int time;
     private int[] disc;
     private int[] low;
-    private boolean[] onStack;
-    private Stack<Integer> stack;
+    private int[] onStack;
+    private int[] stack;
+    private int stackSize;
+    private int[] callStack;
+    private Iterator<Graph.Edge>[] frames;
     private List<List<Integer>> sccs;
+    // Work since the last cancellation checkpoint
+    private int finished;
+    private int scanned;
     
     /**
      * Create SCC finder for a graph.
      * @param graph Directed graph to analyze
      */
     public TarjanSCC(Graph graph) {
+        this(graph, new AlgorithmWorkspace());
+    }
+    
+    /**
+     * Create SCC finder that keeps its scratch arrays in a shared workspace.
+     * @param graph Directed graph to analyze
+     * @param workspace Reusable buffers, e.g. AlgorithmWorkspace.forCurrentThread()
+     */
+    public TarjanSCC(Graph graph, AlgorithmWorkspace workspace) {
         this.graph = graph;
         this.metrics = new MetricsImpl();
+        this.workspace = workspace;
+    }
+    
+    /**
+     * Stop findSCCs at the next checkpoint once the token is cancelled.
+     * @param cancellation Token receiving progress every CHECK_INTERVAL edge scans
+     */
+    public void setCancellationToken(CancellationToken cancellation) {
+        this.cancellation = cancellation;
     }
     
     /**
      * Find all strongly connected components.
      * @return SCCResult containing components and metrics
+     * @throws java.util.concurrent.CancellationException if the cancellation token fires
      * @complexity O(V+E) time, O(V) space
      */
+    @SuppressWarnings("unchecked")
     public SCCResult findSCCs() {
         int n = graph.getVertices();
-        disc = new int[n];
-        low = new int[n];
-        onStack = new boolean[n];
-        stack = new Stack<>();
+        disc = workspace.ints(0, n);
+        low = workspace.ints(1, n);
+        onStack = workspace.ints(2, n);
+        stack = workspace.ints(3, n);
+        stackSize = 0;
+        callStack = workspace.ints(4, n);
+        frames = new Iterator[n];
         sccs = new ArrayList<>();
         
-        Arrays.fill(disc, -1);
-        Arrays.fill(low, -1);
+        Arrays.fill(disc, 0, n, -1);
+        Arrays.fill(low, 0, n, -1);
+        Arrays.fill(onStack, 0, n, 0);
         
         time = 0;
+        finished = 0;
+        scanned = 0;
         
         metrics.reset();
         metrics.startTiming();
@@ -62,6 +102,8 @@ public class TarjanSCC {
                 tarjanDFS(v);
             }
         }
+        cancellation.report(finished, scanned);
+        frames = null;
         
         metrics.stopTiming();
         
@@ -71,41 +113,65 @@ public class TarjanSCC {
     /**
      * DFS traversal for Tarjan's algorithm.
      * Updates discovery time, low-link value, and identifies SCCs.
-     * @param u Current vertex
+     * @param root Vertex starting the traversal
      */
-    private void tarjanDFS(int u) {
-        disc[u] = low[u] = time++;
-        stack.push(u);
-        onStack[u] = true;
-        metrics.incrementOperations();
+    private void tarjanDFS(int root) {
+        int depth = 0;
+        enter(root, depth++);
         
-        for (Graph.Edge edge : graph.getAdjacentEdges(u)) {
-            int v = edge.to;
-            metrics.incrementOperations();
+        while (depth > 0) {
+            int u = callStack[depth - 1];
+            Iterator<Graph.Edge> edges = frames[depth - 1];
             
-            if (disc[v] == -1) {
-                tarjanDFS(v);
-                low[u] = Math.min(low[u], low[v]);
-            } else if (onStack[v]) {
-                low[u] = Math.min(low[u], disc[v]);
+            if (edges.hasNext()) {
+                int v = edges.next().to;
+                metrics.addOperations(OperationType.EDGE_SCANS, 1);
+                if (++scanned == CancellationToken.CHECK_INTERVAL) {
+                    cancellation.checkpoint(finished, scanned);
+                    finished = 0;
+                    scanned = 0;
+                }
+                
+                if (disc[v] == -1) {
+                    enter(v, depth++);
+                } else if (onStack[v] != 0) {
+                    low[u] = Math.min(low[u], disc[v]);
+                }
+                continue;
             }
-        }
-        
-        if (low[u] == disc[u]) {
-            List<Integer> scc = new ArrayList<>();
-            int v;
-            do {
-                v = stack.pop();
-                onStack[v] = false;
-                scc.add(v);
-                metrics.incrementOperations();
-            } while (v != u);
             
-            Collections.sort(scc);
-            sccs.add(scc);
+            frames[--depth] = null;
+            finished++;
+            if (low[u] == disc[u]) {
+                List<Integer> scc = new ArrayList<>();
+                int v;
+                do {
+                    v = stack[--stackSize];
+                    onStack[v] = 0;
+                    scc.add(v);
+                    metrics.addOperations(OperationType.STACK_OPS, 1);
+                } while (v != u);
+                
+                Collections.sort(scc);
+                sccs.add(scc);
+            }
+            if (depth > 0) {
+                int parent = callStack[depth - 1];
+                low[parent] = Math.min(low[parent], low[u]);
+            }
         }
     }
     
+    private void enter(int u, int depth) {
+        callStack[depth] = u;
+        frames[depth] = graph.getAdjacentEdges(u).iterator();
+        disc[u] = low[u] = time++;
+        stack[stackSize++] = u;
+        onStack[u] = 1;
+        metrics.addOperations(OperationType.VERTEX_VISITS, 1);
+        metrics.addOperations(OperationType.STACK_OPS, 1);
+    }
+    
     /**
      * Build condensation graph from SCCs.
      * Creates a DAG where each node is an SCC.
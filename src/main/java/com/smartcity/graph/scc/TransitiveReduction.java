@@ -0,0 +1,258 @@
+package com.smartcity.graph.scc;
+
+import com.smartcity.common.CancellationToken;
+import com.smartcity.common.CsrGraph;
+import com.smartcity.common.Graph;
+import com.smartcity.common.Metrics;
+import com.smartcity.common.MetricsImpl;
+import com.smartcity.common.OperationType;
+import com.smartcity.graph.topo.KahnTopologicalSort;
+
+import java.util.*;
+
+/**
+ * Transitive reduction of a DAG.
+ * Removes every edge u -> v for which another path from u to v exists.
+ * Reachability is unchanged, but weighted path lengths may change, so the
+ * reduced graph is meant for ordering and reachability queries.
+ *
+ * Vertices are numbered by topological position. Descendant sets are then
+ * computed as bit rows in one reverse-topological sweep. Each vertex visits
+ * its successors in increasing position: a successor is redundant if an
+ * earlier successor already reaches it. To bound memory, target positions
+ * are processed in column chunks of up to chunkWords * 64 vertices. Only
+ * vertices before the end of the chunk keep a row. The chunk is narrowed
+ * until V rows of it fit the memory budget (an eighth of the maximum heap
+ * by default) and a single array; it never drops below one word.
+ *
+ * An optional cancellation token is checked every CHECK_INTERVAL edge scans;
+ * progress counts edge scans of all chunks.
+ *
+ * Complexity: O(V + E * V / 64) time, O(V * chunk words) space, at most
+ * max(budget, 8V) bytes for the rows
+ */
+public class TransitiveReduction {
+    private static final int DEFAULT_CHUNK_WORDS = 1024;
+    private static final int DEFAULT_HEAP_FRACTION = 8;
+    private static final int MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+
+    private final int chunkWords;
+    private final long memoryBudget;
+    private final Metrics metrics;
+    private CancellationToken cancellation = CancellationToken.NONE;
+    // Edge scans already reported to the cancellation token
+    private long checked;
+
+    /**
+     * Create a reducer with the default chunk size (up to 65536 target columns per sweep).
+     */
+    public TransitiveReduction() {
+        this(DEFAULT_CHUNK_WORDS);
+    }
+
+    /**
+     * Create a reducer with the default memory budget.
+     * @param chunkWords Maximum number of 64-bit words of target columns per sweep
+     */
+    public TransitiveReduction(int chunkWords) {
+        this(chunkWords, Runtime.getRuntime().maxMemory() / DEFAULT_HEAP_FRACTION);
+    }
+
+    /**
+     * Create a reducer.
+     * @param chunkWords Maximum number of 64-bit words of target columns per sweep
+     * @param memoryBudget Bytes the bit rows of one sweep may take
+     * @throws IllegalArgumentException if either value is not positive
+     */
+    public TransitiveReduction(int chunkWords, long memoryBudget) {
+        if (chunkWords <= 0) {
+            throw new IllegalArgumentException("chunkWords must be positive");
+        }
+        if (memoryBudget <= 0) {
+            throw new IllegalArgumentException("memoryBudget must be positive");
+        }
+        this.chunkWords = chunkWords;
+        this.memoryBudget = memoryBudget;
+        this.metrics = new MetricsImpl();
+    }
+
+    /**
+     * Stop reductions at the next checkpoint once the token is cancelled.
+     * @param cancellation Token receiving progress every CHECK_INTERVAL edge scans
+     */
+    public void setCancellationToken(CancellationToken cancellation) {
+        this.cancellation = cancellation;
+    }
+
+    /**
+     * Choose the column chunk width for a graph.
+     * @param vertices Number of vertices, each keeping one row
+     * @return Words per row, between 1 and chunkWords
+     */
+    int chunkWordsFor(int vertices) {
+        long rows = Math.max(1, vertices);
+        long words = Math.min(chunkWords, Math.min(memoryBudget / (8 * rows), MAX_ARRAY_LENGTH / rows));
+        return (int) Math.max(1, words);
+    }
+
+    /**
+     * Compute the transitive reduction.
+     * @param dag Directed acyclic graph
+     * @return Reduced graph and reduction statistics
+     * @throws IllegalArgumentException if the graph has a cycle
+     * @throws java.util.concurrent.CancellationException if the cancellation token fires
+     */
+    public ReductionResult reduce(Graph dag) {
+        CsrGraph csr = CsrGraph.of(dag);
+        int n = csr.getVertices();
+        int m = csr.getEdgeCount();
+        int[] offsets = csr.offsets();
+        int[] targets = csr.targets();
+
+        metrics.reset();
+        metrics.startTiming();
+        checked = 0;
+
+        int[] order = KahnTopologicalSort.orderOf(csr);
+        if (order.length != n) {
+            throw new IllegalArgumentException("Transitive reduction requires a DAG");
+        }
+        int[] pos = new int[n];
+        for (int i = 0; i < n; i++) {
+            pos[order[i]] = i;
+        }
+
+        // Successor edges of each vertex sorted by the target's topological position
+        long[] keys = new long[m];
+        for (int e = 0; e < m; e++) {
+            keys[e] = ((long) pos[targets[e]] << 32) | e;
+        }
+        int[] sortedEdges = new int[m];
+        for (int u = 0; u < n; u++) {
+            Arrays.sort(keys, offsets[u], offsets[u + 1]);
+        }
+        for (int i = 0; i < m; i++) {
+            sortedEdges[i] = (int) keys[i];
+        }
+
+        boolean[] redundant = new boolean[m];
+        long chunkBits = chunkWordsFor(n) * 64L;
+        for (int lo = 0; lo < n; lo = (int) Math.min(n, lo + chunkBits)) {
+            int hi = (int) Math.min(n, lo + chunkBits);
+            int words = (hi - lo + 63) >>> 6;
+            long[] rows = new long[Math.toIntExact((long) hi * words)];
+
+            for (int p = hi - 1; p >= 0; p--) {
+                int u = order[p];
+                int rowU = p * words;
+                for (int i = offsets[u]; i < offsets[u + 1]; i++) {
+                    int e = sortedEdges[i];
+                    int q = pos[targets[e]];
+                    if (q >= hi) {
+                        break;
+                    }
+                    metrics.addOperations(OperationType.EDGE_SCANS, 1);
+                    if (q >= lo) {
+                        int bit = q - lo;
+                        long mask = 1L << bit;
+                        if ((rows[rowU + (bit >>> 6)] & mask) != 0) {
+                            redundant[e] = true;
+                            continue;
+                        }
+                        rows[rowU + (bit >>> 6)] |= mask;
+                    }
+                    int rowV = q * words;
+                    for (int w = 0; w < words; w++) {
+                        rows[rowU + w] |= rows[rowV + w];
+                    }
+                }
+                poll();
+            }
+        }
+        cancellation.report(n, metrics.getOperations() - checked);
+
+        Graph reduced = new Graph(n, true);
+        reduced.setWeightModel(dag.getWeightModel());
+        for (int v = 0; v < n; v++) {
+            if (dag.getNodeWeight(v) != 0) {
+                reduced.setNodeWeight(v, dag.getNodeWeight(v));
+            }
+        }
+        int kept = 0;
+        for (int u = 0; u < n; u++) {
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                if (!redundant[e]) {
+                    reduced.addEdge(u, targets[e], csr.weights()[e]);
+                    kept++;
+                }
+            }
+        }
+
+        metrics.stopTiming();
+        return new ReductionResult(reduced, m, kept, metrics);
+    }
+
+    // Checkpoint once CHECK_INTERVAL edge scans are unreported
+    private void poll() {
+        if (metrics.getOperations() - checked >= CancellationToken.CHECK_INTERVAL) {
+            cancellation.checkpoint(0, metrics.getOperations() - checked);
+            checked = metrics.getOperations();
+        }
+    }
+
+    /**
+     * Reduced graph plus edge statistics.
+     */
+    public static class ReductionResult {
+        private final Graph reduced;
+        private final int originalEdges;
+        private final int reducedEdges;
+        private final Metrics metrics;
+
+        /**
+         * Create result.
+         * @param reduced Reduced graph
+         * @param originalEdges Edge count before reduction
+         * @param reducedEdges Edge count after reduction
+         * @param metrics Performance metrics
+         */
+        public ReductionResult(Graph reduced, int originalEdges, int reducedEdges, Metrics metrics) {
+            this.reduced = reduced;
+            this.originalEdges = originalEdges;
+            this.reducedEdges = reducedEdges;
+            this.metrics = metrics;
+        }
+
+        /**
+         * Get reduced graph.
+         * @return DAG with the same reachability and no redundant edges
+         */
+        public Graph getReducedGraph() {
+            return reduced;
+        }
+
+        public int getOriginalEdges() {
+            return originalEdges;
+        }
+
+        public int getReducedEdges() {
+            return reducedEdges;
+        }
+
+        /**
+         * Get fraction of edges removed.
+         * @return Value in [0, 1]; 0 when the graph had no edges
+         */
+        public double getReductionRatio() {
+            return originalEdges == 0 ? 0.0 : 1.0 - (double) reducedEdges / originalEdges;
+        }
+
+        /**
+         * Get performance metrics.
+         * @return Metrics object; operations count successor scans
+         */
+        public Metrics getMetrics() {
+            return metrics;
+        }
+    }
+}
@@ -1,8 +1,10 @@
 package com.smartcity.graph.topo;
 
+import com.smartcity.common.CancellationToken;
 import com.smartcity.common.Graph;
 import com.smartcity.common.Metrics;
 import com.smartcity.common.MetricsImpl;
+import com.smartcity.common.OperationType;
 import com.smartcity.graph.scc.CondensationGraph;
 
 import java.util.*;
@@ -14,6 +16,7 @@ import java.util.*;
 public class ComponentTopologicalSort {
     private final CondensationGraph condensationGraph;
     private final Metrics metrics;
+    private CancellationToken cancellation = CancellationToken.NONE;
     
     /**
      * Create topological sorter for condensation graph.
@@ -24,9 +27,18 @@ public class ComponentTopologicalSort {
         this.metrics = new MetricsImpl();
     }
     
+    /**
+     * Stop the sort at the next checkpoint once the token is cancelled.
+     * @param cancellation Token receiving progress every CHECK_INTERVAL edge scans; vertices count output components
+     */
+    public void setCancellationToken(CancellationToken cancellation) {
+        this.cancellation = cancellation;
+    }
+    
     /**
      * Compute topological order using Kahn's algorithm.
      * @return Result with component order and task order
+     * @throws java.util.concurrent.CancellationException if the cancellation token fires
      */
     public ComponentTopoResult topologicalSort() {
         Graph graph = condensationGraph.getCondensationGraph();
@@ -37,10 +49,18 @@ public class ComponentTopologicalSort {
         metrics.startTiming();
         
         // Calculate in-degrees
+        int finished = 0;
+        int scanned = 0;
         for (int u = 0; u < n; u++) {
-            for (Graph.Edge edge : graph.getAdjacentEdges(u)) {
+            List<Graph.Edge> edges = graph.getAdjacentEdges(u);
+            for (Graph.Edge edge : edges) {
                 inDegree[edge.to]++;
-                metrics.incrementOperations();
+                metrics.addOperations(OperationType.EDGE_SCANS, 1);
+            }
+            scanned += edges.size();
+            if (scanned >= CancellationToken.CHECK_INTERVAL) {
+                cancellation.checkpoint(0, scanned);
+                scanned = 0;
             }
         }
         
@@ -49,7 +69,7 @@ public class ComponentTopologicalSort {
         for (int v = 0; v < n; v++) {
             if (inDegree[v] == 0) {
                 queue.offer(v);
-                metrics.incrementOperations();
+                metrics.addOperations(OperationType.QUEUE_OPS, 1);
             }
         }
         
@@ -59,18 +79,28 @@ public class ComponentTopologicalSort {
         while (!queue.isEmpty()) {
             int u = queue.poll();
             componentOrder.add(u);
-            metrics.incrementOperations();
+            metrics.addOperations(OperationType.QUEUE_OPS, 1);
             
-            for (Graph.Edge edge : graph.getAdjacentEdges(u)) {
+            List<Graph.Edge> edges = graph.getAdjacentEdges(u);
+            for (Graph.Edge edge : edges) {
                 int v = edge.to;
                 inDegree[v]--;
-                metrics.incrementOperations();
+                metrics.addOperations(OperationType.EDGE_SCANS, 1);
                 
                 if (inDegree[v] == 0) {
                     queue.offer(v);
+                    metrics.addOperations(OperationType.QUEUE_OPS, 1);
                 }
             }
+            finished++;
+            scanned += edges.size();
+            if (scanned >= CancellationToken.CHECK_INTERVAL) {
+                cancellation.checkpoint(finished, scanned);
+                finished = 0;
+                scanned = 0;
+            }
         }
+        cancellation.report(finished, scanned);
         
         // Derive task ordering from component order
         List<Integer> taskOrder = new ArrayList<>();
@@ -1,8 +1,10 @@
 package com.smartcity.graph.topo;
 
+import com.smartcity.common.CancellationToken;
 import com.smartcity.common.Graph;
 import com.smartcity.common.Metrics;
 import com.smartcity.common.MetricsImpl;
+import com.smartcity.common.OperationType;
 
 import java.util.*;
 
@@ -10,12 +12,21 @@ import java.util.*;
 public class DFSTopologicalSort {
     private final Graph graph;
     private final Metrics metrics;
+    private CancellationToken cancellation = CancellationToken.NONE;
+    // Work since the last cancellation checkpoint
+    private int finished;
+    private int scanned;
     
     public DFSTopologicalSort(Graph graph) {
         this.graph = graph;
         this.metrics = new MetricsImpl();
     }
     
+    // Stop the sort at the next checkpoint once the token is cancelled
+    public void setCancellationToken(CancellationToken cancellation) {
+        this.cancellation = cancellation;
+    }
+    
     // Compute topological order using DFS
     public KahnTopologicalSort.TopoResult topologicalSort() {
         int n = graph.getVertices();
@@ -24,12 +35,15 @@ public class DFSTopologicalSort {
         
         metrics.reset();
         metrics.startTiming();
+        finished = 0;
+        scanned = 0;
         
         for (int v = 0; v < n; v++) {
             if (!visited[v]) {
                 dfs(v, visited, stack);
             }
         }
+        cancellation.report(finished, scanned);
         
         metrics.stopTiming();
         
@@ -46,16 +60,23 @@ public class DFSTopologicalSort {
     // DFS traversal
     private void dfs(int u, boolean[] visited, Stack<Integer> stack) {
         visited[u] = true;
-        metrics.incrementOperations();
+        metrics.addOperations(OperationType.VERTEX_VISITS, 1);
         
         for (Graph.Edge edge : graph.getAdjacentEdges(u)) {
             int v = edge.to;
-            metrics.incrementOperations();
+            metrics.addOperations(OperationType.EDGE_SCANS, 1);
+            if (++scanned == CancellationToken.CHECK_INTERVAL) {
+                cancellation.checkpoint(finished, scanned);
+                finished = 0;
+                scanned = 0;
+            }
             if (!visited[v]) {
                 dfs(v, visited, stack);
             }
         }
         
+        finished++;
         stack.push(u);
+        metrics.addOperations(OperationType.STACK_OPS, 1);
     }
 }
@@ -1,8 +1,14 @@
 package com.smartcity.graph.topo;
 
+import com.smartcity.common.AlgorithmWorkspace;
+import com.smartcity.common.CancellationToken;
+import com.smartcity.common.CompressedGraph;
+import com.smartcity.common.CsrGraph;
 import com.smartcity.common.Graph;
 import com.smartcity.common.Metrics;
 import com.smartcity.common.MetricsImpl;
+import com.smartcity.common.OperationType;
+import com.smartcity.graph.scc.CycleDiagnosis;
 
 import java.util.*;
 
@@ -10,52 +16,86 @@ import java.util.*;
 public class KahnTopologicalSort {
     private final Graph graph;
     private final Metrics metrics;
+    private final AlgorithmWorkspace workspace;
+    private CancellationToken cancellation = CancellationToken.NONE;
     
     public KahnTopologicalSort(Graph graph) {
+        this(graph, new AlgorithmWorkspace());
+    }
+    
+    // Keep the in-degree array and queue in a shared workspace, e.g. AlgorithmWorkspace.forCurrentThread()
+    public KahnTopologicalSort(Graph graph, AlgorithmWorkspace workspace) {
         this.graph = graph;
         this.metrics = new MetricsImpl();
+        this.workspace = workspace;
+    }
+    
+    // Stop the sort at the next checkpoint once the token is cancelled; progress counts output vertices
+    public void setCancellationToken(CancellationToken cancellation) {
+        this.cancellation = cancellation;
     }
     
     // Compute topological order using Kahn's algorithm
     public TopoResult topologicalSort() {
         int n = graph.getVertices();
-        int[] inDegree = new int[n];
+        int[] inDegree = workspace.ints(0, n);
+        int[] queue = workspace.ints(1, n);
+        Arrays.fill(inDegree, 0, n, 0);
         
         metrics.reset();
         metrics.startTiming();
         
+        int finished = 0;
+        int scanned = 0;
         for (int u = 0; u < n; u++) {
-            for (Graph.Edge edge : graph.getAdjacentEdges(u)) {
+            List<Graph.Edge> edges = graph.getAdjacentEdges(u);
+            for (Graph.Edge edge : edges) {
                 inDegree[edge.to]++;
-                metrics.incrementOperations();
+                metrics.addOperations(OperationType.EDGE_SCANS, 1);
+            }
+            scanned += edges.size();
+            if (scanned >= CancellationToken.CHECK_INTERVAL) {
+                cancellation.checkpoint(0, scanned);
+                scanned = 0;
             }
         }
         
-        Queue<Integer> queue = new LinkedList<>();
+        int head = 0;
+        int tail = 0;
         for (int v = 0; v < n; v++) {
             if (inDegree[v] == 0) {
-                queue.offer(v);
-                metrics.incrementOperations();
+                queue[tail++] = v;
+                metrics.addOperations(OperationType.QUEUE_OPS, 1);
             }
         }
         
-        List<Integer> order = new ArrayList<>();
+        List<Integer> order = new ArrayList<>(n);
         
-        while (!queue.isEmpty()) {
-            int u = queue.poll();
+        while (head < tail) {
+            int u = queue[head++];
             order.add(u);
-            metrics.incrementOperations();
+            metrics.addOperations(OperationType.QUEUE_OPS, 1);
             
-            for (Graph.Edge edge : graph.getAdjacentEdges(u)) {
+            List<Graph.Edge> edges = graph.getAdjacentEdges(u);
+            for (Graph.Edge edge : edges) {
                 int v = edge.to;
                 inDegree[v]--;
-                metrics.incrementOperations();
+                metrics.addOperations(OperationType.EDGE_SCANS, 1);
                 
                 if (inDegree[v] == 0) {
-                    queue.offer(v);
+                    queue[tail++] = v;
+                    metrics.addOperations(OperationType.QUEUE_OPS, 1);
                 }
             }
+            finished++;
+            scanned += edges.size();
+            if (scanned >= CancellationToken.CHECK_INTERVAL) {
+                cancellation.checkpoint(finished, scanned);
+                finished = 0;
+                scanned = 0;
+            }
         }
+        cancellation.report(finished, scanned);
         
         metrics.stopTiming();
         
@@ -64,6 +104,77 @@ public class KahnTopologicalSort {
         return new TopoResult(order, isDAG, metrics);
     }
     
+    // Explain a failed sort: witness cycles and a feedback arc set that would make it succeed
+    public CycleDiagnosis.CycleReport diagnoseCycles() {
+        return new CycleDiagnosis(graph).diagnose();
+    }
+    
+    // Kahn's algorithm over CSR arrays; the result is shorter than V when the graph has a cycle
+    public static int[] orderOf(CsrGraph csr) {
+        int n = csr.getVertices();
+        int[] order = new int[n];
+        int count = orderInto(n, csr.offsets(), csr.targets(), new int[n], order);
+        return count == n ? order : Arrays.copyOf(order, count);
+    }
+    
+    // Kahn's algorithm over a compressed graph's cursor, without decompressing it
+    public static int[] orderOf(CompressedGraph graph) {
+        int n = graph.getVertices();
+        int[] inDegree = new int[n];
+        int[] order = new int[n];
+        CompressedGraph.NeighborCursor cursor = graph.cursor();
+        for (int u = 0; u < n; u++) {
+            cursor.reset(u);
+            while (cursor.next()) {
+                inDegree[cursor.target()]++;
+            }
+        }
+        
+        int tail = 0;
+        for (int v = 0; v < n; v++) {
+            if (inDegree[v] == 0) {
+                order[tail++] = v;
+            }
+        }
+        
+        for (int head = 0; head < tail; head++) {
+            cursor.reset(order[head]);
+            while (cursor.next()) {
+                if (--inDegree[cursor.target()] == 0) {
+                    order[tail++] = cursor.target();
+                }
+            }
+        }
+        return tail == n ? order : Arrays.copyOf(order, tail);
+    }
+    
+    // Kahn's algorithm into caller-owned buffers of length >= n; returns the number of ordered vertices
+    public static int orderInto(int n, int[] offsets, int[] targets, int[] inDegree, int[] order) {
+        Arrays.fill(inDegree, 0, n, 0);
+        for (int e = 0; e < offsets[n]; e++) {
+            inDegree[targets[e]]++;
+        }
+        
+        int tail = 0;
+        for (int v = 0; v < n; v++) {
+            if (inDegree[v] == 0) {
+                order[tail++] = v;
+            }
+        }
+        
+        for (int head = 0; head < tail; head++) {
+            int u = order[head];
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                int v = targets[e];
+                if (--inDegree[v] == 0) {
+                    order[tail++] = v;
+                }
+            }
+        }
+        
+        return tail;
+    }
+    
     public static class TopoResult {
         private final List<Integer> order;
         private final boolean isDAG;
@@ -0,0 +1,335 @@
+package com.smartcity.graph.topo;
+
+import com.smartcity.common.CsrGraph;
+import com.smartcity.common.Graph;
+import com.smartcity.common.Metrics;
+import com.smartcity.common.MetricsImpl;
+import com.smartcity.common.OperationType;
+import com.smartcity.graph.scc.CondensationGraph;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Dependency-aware executor that runs one callback per task of a DAG.
+ * A task is submitted as soon as all of its predecessors have finished.
+ * Readiness is tracked with lock-free atomic in-degree counters: the thread
+ * that finishes the last predecessor of a task is the one that submits it.
+ *
+ * Any ExecutorService can be used, including a virtual-thread-per-task
+ * executor on Java 21+ (Executors.newVirtualThreadPerTaskExecutor()).
+ * The executor is not shut down by this class.
+ *
+ * Complexity: O(V+E) scheduling work plus the cost of the callbacks
+ */
+public class ParallelTaskExecutor {
+    private final ExecutorService executor;
+
+    /**
+     * Create a task executor.
+     * @param executor Executor that runs the callbacks
+     */
+    public ParallelTaskExecutor(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Run one callback per vertex of a DAG in dependency order.
+     * @param dag Task graph; edge u -> v means v depends on u
+     * @param task Callback invoked with the vertex id
+     * @return Per-task timing and throughput report
+     * @throws IllegalArgumentException if the graph has a cycle
+     * @throws IllegalStateException if a callback fails; no further tasks are released
+     */
+    public ExecutionReport execute(Graph dag, TaskCallback task) {
+        int n = dag.getVertices();
+        int[][] members = new int[n][];
+        for (int v = 0; v < n; v++) {
+            members[v] = new int[] {v};
+        }
+        return run(CsrGraph.of(dag), members, n, task);
+    }
+
+    /**
+     * Run one callback per original task, scheduling whole components of a
+     * condensation graph. Tasks inside a component run sequentially in
+     * vertex id order on the thread that picked up the component.
+     * @param condensationGraph Condensation of the task graph
+     * @param task Callback invoked with the original vertex id
+     * @return Per-task timing and throughput report
+     * @throws IllegalStateException if a callback fails; no further components are released
+     */
+    public ExecutionReport execute(CondensationGraph condensationGraph, TaskCallback task) {
+        int components = condensationGraph.getComponentCount();
+        int[][] members = new int[components][];
+        int tasks = 0;
+        for (int c = 0; c < components; c++) {
+            List<Integer> vertices = condensationGraph.getVerticesInComponent(c);
+            members[c] = new int[vertices.size()];
+            for (int i = 0; i < vertices.size(); i++) {
+                members[c][i] = vertices.get(i);
+                tasks = Math.max(tasks, members[c][i] + 1);
+            }
+        }
+        return run(CsrGraph.of(condensationGraph.getCondensationGraph()), members, tasks, task);
+    }
+
+    // Schedule units of work (vertices or components) over CSR dependencies
+    private ExecutionReport run(CsrGraph csr, int[][] members, int tasks, TaskCallback task) {
+        int n = csr.getVertices();
+        if (KahnTopologicalSort.orderOf(csr).length != n) {
+            throw new IllegalArgumentException("Task graph contains a cycle");
+        }
+
+        AtomicIntegerArray remaining = new AtomicIntegerArray(n);
+        int[] targets = csr.targets();
+        for (int e = 0; e < csr.getEdgeCount(); e++) {
+            remaining.incrementAndGet(targets[e]);
+        }
+
+        Run state = new Run(csr, members, tasks, task, remaining);
+        state.metrics.startTiming();
+        state.origin = System.nanoTime();
+
+        state.outstanding.incrementAndGet();
+        for (int u = 0; u < n; u++) {
+            if (remaining.get(u) == 0) {
+                state.submit(u);
+            }
+        }
+        state.finishOne();
+
+        try {
+            state.done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for tasks", e);
+        }
+        state.metrics.stopTiming();
+
+        Failure failure = state.failure.get();
+        if (failure != null) {
+            throw new IllegalStateException("Task " + failure.vertex + " failed", failure.cause);
+        }
+        return new ExecutionReport(state.startNanos, state.endNanos, state.executed.get(), state.metrics);
+    }
+
+    /**
+     * Shared state of one execution.
+     */
+    private final class Run {
+        private final CsrGraph csr;
+        private final int[][] members;
+        private final TaskCallback task;
+        private final AtomicIntegerArray remaining;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final AtomicInteger executed = new AtomicInteger();
+        private final AtomicInteger releases = new AtomicInteger();
+        private final AtomicReference<Failure> failure = new AtomicReference<>();
+        private final CountDownLatch done = new CountDownLatch(1);
+        private final long[] startNanos;
+        private final long[] endNanos;
+        private final Metrics metrics = new MetricsImpl();
+        private long origin;
+
+        Run(CsrGraph csr, int[][] members, int tasks, TaskCallback task, AtomicIntegerArray remaining) {
+            this.csr = csr;
+            this.members = members;
+            this.task = task;
+            this.remaining = remaining;
+            this.startNanos = new long[tasks];
+            this.endNanos = new long[tasks];
+            Arrays.fill(startNanos, -1);
+            Arrays.fill(endNanos, -1);
+        }
+
+        void submit(int unit) {
+            outstanding.incrementAndGet();
+            try {
+                executor.execute(() -> runUnit(unit));
+            } catch (RejectedExecutionException e) {
+                failure.compareAndSet(null, new Failure(members[unit].length > 0 ? members[unit][0] : unit, e));
+                finishOne();
+            }
+        }
+
+        void runUnit(int unit) {
+            try {
+                for (int vertex : members[unit]) {
+                    if (failure.get() != null) {
+                        return;
+                    }
+                    startNanos[vertex] = System.nanoTime() - origin;
+                    try {
+                        task.run(vertex);
+                    } catch (Throwable t) {
+                        failure.compareAndSet(null, new Failure(vertex, t));
+                        return;
+                    } finally {
+                        endNanos[vertex] = System.nanoTime() - origin;
+                    }
+                    executed.incrementAndGet();
+                }
+
+                int[] offsets = csr.offsets();
+                int[] targets = csr.targets();
+                for (int e = offsets[unit]; e < offsets[unit + 1]; e++) {
+                    int v = targets[e];
+                    releases.incrementAndGet();
+                    if (remaining.decrementAndGet(v) == 0 && failure.get() == null) {
+                        submit(v);
+                    }
+                }
+            } finally {
+                finishOne();
+            }
+        }
+
+        void finishOne() {
+            if (outstanding.decrementAndGet() == 0) {
+                metrics.addOperations(OperationType.EDGE_SCANS, releases.get());
+                done.countDown();
+            }
+        }
+    }
+
+    /**
+     * First failure observed during a run.
+     */
+    private static final class Failure {
+        private final int vertex;
+        private final Throwable cause;
+
+        Failure(int vertex, Throwable cause) {
+            this.vertex = vertex;
+            this.cause = cause;
+        }
+    }
+
+    /**
+     * Work performed for one task.
+     */
+    @FunctionalInterface
+    public interface TaskCallback {
+        /**
+         * Run the task.
+         * @param vertex Task (vertex) id
+         * @throws Exception if the task fails
+         */
+        void run(int vertex) throws Exception;
+    }
+
+    /**
+     * Per-task timing and throughput of one execution.
+     */
+    public static class ExecutionReport {
+        private final long[] startNanos;
+        private final long[] endNanos;
+        private final int tasksExecuted;
+        private final Metrics metrics;
+
+        /**
+         * Create report.
+         * @param startNanos Start time per task relative to the run start, -1 if not run
+         * @param endNanos End time per task relative to the run start, -1 if not run
+         * @param tasksExecuted Number of tasks that completed
+         * @param metrics Timing metrics; edge scans count dependency releases
+         */
+        public ExecutionReport(long[] startNanos, long[] endNanos, int tasksExecuted, Metrics metrics) {
+            this.startNanos = startNanos;
+            this.endNanos = endNanos;
+            this.tasksExecuted = tasksExecuted;
+            this.metrics = metrics;
+        }
+
+        /**
+         * Get task start offset.
+         * @param vertex Task id
+         * @return Nanoseconds since the run started, or -1 if the task did not run
+         */
+        public long getStartNanos(int vertex) {
+            return startNanos[vertex];
+        }
+
+        /**
+         * Get task end offset.
+         * @param vertex Task id
+         * @return Nanoseconds since the run started, or -1 if the task did not run
+         */
+        public long getEndNanos(int vertex) {
+            return endNanos[vertex];
+        }
+
+        /**
+         * Get task duration.
+         * @param vertex Task id
+         * @return Duration in nanoseconds, or -1 if the task did not run
+         */
+        public long getDurationNanos(int vertex) {
+            return startNanos[vertex] < 0 ? -1 : endNanos[vertex] - startNanos[vertex];
+        }
+
+        /**
+         * Get number of completed tasks.
+         * @return Task count
+         */
+        public int getTasksExecuted() {
+            return tasksExecuted;
+        }
+
+        /**
+         * Get total time spent inside task callbacks.
+         * @return Sum of task durations in nanoseconds
+         */
+        public long getBusyNanos() {
+            long busy = 0;
+            for (int v = 0; v < startNanos.length; v++) {
+                if (startNanos[v] >= 0) {
+                    busy += endNanos[v] - startNanos[v];
+                }
+            }
+            return busy;
+        }
+
+        /**
+         * Get throughput over the whole run.
+         * @return Tasks per second of wall-clock time
+         */
+        public double getTasksPerSecond() {
+            double seconds = metrics.getElapsedNanos() / 1e9;
+            return seconds > 0 ? tasksExecuted / seconds : Double.POSITIVE_INFINITY;
+        }
+
+        /**
+         * Get average number of tasks running at the same time.
+         * @return Busy time divided by wall-clock time
+         */
+        public double getEffectiveParallelism() {
+            long wall = metrics.getElapsedNanos();
+            return wall > 0 ? (double) getBusyNanos() / wall : 0.0;
+        }
+
+        /**
+         * Format the throughput report.
+         * @return One-line summary of task count, times and throughput
+         */
+        public String summarize() {
+            return String.format("Tasks: %d | Wall: %.3f ms | Busy: %.3f ms | Throughput: %.1f tasks/s | Parallelism: %.2f",
+                    tasksExecuted, metrics.getElapsedMillis(), getBusyNanos() / 1_000_000.0,
+                    getTasksPerSecond(), getEffectiveParallelism());
+        }
+
+        /**
+         * Get performance metrics.
+         * @return Metrics object
+         */
+        public Metrics getMetrics() {
+            return metrics;
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package com.smartcity.graph.wcc;
+
+import com.smartcity.common.AlgorithmWorkspace;
+import com.smartcity.common.CancellationToken;
+import com.smartcity.common.Graph;
+import com.smartcity.common.Metrics;
+import com.smartcity.common.MetricsImpl;
+import com.smartcity.common.Parallel;
+import com.smartcity.graph.dagsp.ComponentShortestPath;
+import com.smartcity.graph.dagsp.DAGShortestPath;
+import com.smartcity.graph.scc.CondensationGraph;
+import com.smartcity.graph.scc.TarjanSCC;
+import com.smartcity.graph.topo.ComponentTopologicalSort;
+
+import java.util.*;
+
+/**
+ * The SCC, topological sort and critical path pipeline, run on every weakly
+ * connected shard in parallel.
+ *
+ * Each shard goes through TarjanSCC, the condensation, the component-level
+ * topological sort and DAGShortestPath's critical path on its own; the shard
+ * holding the source task also gets task-level shortest paths. Results are
+ * merged back into global ids: SCCs of shard s are numbered after those of
+ * shards 0..s-1 (keeping reverse topological order, since no edge crosses
+ * shards), task orders are concatenated, and the critical path is the
+ * longest over all shards. Tasks outside the source's shard are unreachable.
+ *
+ * Complexity: O(V+E) for sharding plus the per-shard pipeline costs, spread
+ * over the worker threads
+ */
+public class ShardedPipeline {
+    public static final String SHARDS_TAG = "wcc.shards";
+
+    private final Graph graph;
+    private final int parallelism;
+    private final int minShardVertices;
+    private CancellationToken cancellation = CancellationToken.NONE;
+
+    /**
+     * Create a pipeline using all processors.
+     * @param graph Directed or undirected graph
+     */
+    public ShardedPipeline(Graph graph) {
+        this(graph, Parallel.defaultParallelism());
+    }
+
+    /**
+     * Create a pipeline with about four shards per worker.
+     * @param graph Directed or undirected graph
+     * @param parallelism Maximum number of worker threads
+     */
+    public ShardedPipeline(Graph graph, int parallelism) {
+        this(graph, parallelism, Math.max(1, graph.getVertices() / (parallelism * 4)));
+    }
+
+    /**
+     * Create a pipeline.
+     * @param graph Directed or undirected graph
+     * @param parallelism Maximum number of worker threads
+     * @param minShardVertices Small components are packed into shards of at least this many vertices
+     */
+    public ShardedPipeline(Graph graph, int parallelism, int minShardVertices) {
+        this.graph = graph;
+        this.parallelism = parallelism;
+        this.minShardVertices = minShardVertices;
+    }
+
+    /**
+     * Stop every shard at its next checkpoint once the token is cancelled.
+     * @param cancellation Token shared by all shards
+     */
+    public void setCancellationToken(CancellationToken cancellation) {
+        this.cancellation = cancellation;
+    }
+
+    /**
+     * Run the pipeline on every shard.
+     * @param source Source task for task-level shortest paths
+     * @return Merged results in global ids
+     * @throws IllegalArgumentException if the source is out of range
+     * @throws java.util.concurrent.CancellationException if the token fires
+     * @complexity O(V+E) plus the per-shard pipeline costs
+     */
+    public ShardedResult run(int source) {
+        int n = graph.getVertices();
+        if (source < 0 || source >= n) {
+            throw new IllegalArgumentException("Source " + source + " out of range for n=" + n);
+        }
+        Metrics metrics = new MetricsImpl();
+        metrics.startTiming();
+
+        WeaklyConnectedComponents wcc = new WeaklyConnectedComponents(graph, parallelism);
+        wcc.setCancellationToken(cancellation);
+        WeaklyConnectedComponents.WccResult components = wcc.findComponents();
+        List<WeaklyConnectedComponents.Shard> shards = wcc.shards(components, minShardVertices);
+        ShardRun[] runs = new ShardRun[shards.size()];
+        Parallel.forEach(shards.size(), parallelism, s -> {
+            WeaklyConnectedComponents.Shard shard = shards.get(s);
+            runs[s] = runShard(shard, shard.localId(source));
+        });
+
+        // Merge into global ids
+        List<List<Integer>> sccs = new ArrayList<>();
+        List<Integer> taskOrder = new ArrayList<>(n);
+        int[] componentOf = new int[n];
+        boolean dag = true;
+        DAGShortestPath.CriticalPathResult critical = null;
+        long[] distances = new long[n];
+        Arrays.fill(distances, ComponentShortestPath.UNREACHABLE);
+        int sourceShard = -1;
+        metrics.addAll(components.getMetrics());
+        for (int s = 0; s < runs.length; s++) {
+            int[] globalIds = shards.get(s).getGlobalIds();
+            int base = sccs.size();
+            for (List<Integer> component : runs[s].condensation.getComponents()) {
+                List<Integer> global = new ArrayList<>(component.size());
+                for (int v : component) {
+                    global.add(globalIds[v]);
+                    componentOf[globalIds[v]] = sccs.size();
+                }
+                sccs.add(global);
+            }
+            for (int v : runs[s].topo.getTaskOrder()) {
+                taskOrder.add(globalIds[v]);
+            }
+            dag &= runs[s].topo.isDAG();
+            DAGShortestPath.CriticalPathResult path = runs[s].criticalPath;
+            if (path != null && path.getSource() != -1
+                    && (critical == null || path.getLength() > critical.getLength())) {
+                List<Integer> global = new ArrayList<>(path.getPath().size());
+                for (int c : path.getPath()) {
+                    global.add(base + c);
+                }
+                critical = new DAGShortestPath.CriticalPathResult(global, path.getLength(),
+                        base + path.getSource(), base + path.getDestination());
+            }
+            if (runs[s].taskPaths != null) {
+                sourceShard = s;
+                long[] local = runs[s].taskPaths.getDistances();
+                for (int i = 0; i < local.length; i++) {
+                    distances[globalIds[i]] = local[i];
+                }
+            }
+            metrics.addAll(runs[s].sccMetrics);
+            metrics.addAll(runs[s].topo.getMetrics());
+        }
+
+        metrics.setTag(SHARDS_TAG, Integer.toString(runs.length));
+        metrics.stopTiming();
+        if (critical == null) {
+            critical = new DAGShortestPath.CriticalPathResult(new ArrayList<>(), Long.MIN_VALUE, -1, -1);
+        }
+        return new ShardedResult(components, shards, sccs, componentOf, taskOrder, dag, critical,
+                distances, runs[sourceShard].taskPaths, shards.get(sourceShard).getGlobalIds(), metrics);
+    }
+
+    private ShardRun runShard(WeaklyConnectedComponents.Shard shard, int localSource) {
+        Graph local = shard.getGraph();
+        TarjanSCC tarjan = new TarjanSCC(local, AlgorithmWorkspace.forCurrentThread());
+        tarjan.setCancellationToken(cancellation);
+        TarjanSCC.SCCResult sccResult = tarjan.findSCCs();
+        ShardRun run = new ShardRun();
+        run.sccMetrics = sccResult.getMetrics();
+        run.condensation = new CondensationGraph(local, sccResult.getComponents());
+        ComponentTopologicalSort topo = new ComponentTopologicalSort(run.condensation);
+        topo.setCancellationToken(cancellation);
+        run.topo = topo.topologicalSort();
+        if (run.topo.isDAG()) {
+            DAGShortestPath dagsp = new DAGShortestPath(run.condensation.getCondensationGraph());
+            dagsp.setCancellationToken(cancellation);
+            run.criticalPath = dagsp.findCriticalPath();
+        }
+        if (localSource >= 0) {
+            run.taskPaths = new ComponentShortestPath(local, cancellation).shortestPaths(localSource);
+        }
+        return run;
+    }
+
+    // Per-shard results in local ids
+    private static final class ShardRun {
+        Metrics sccMetrics;
+        CondensationGraph condensation;
+        ComponentTopologicalSort.ComponentTopoResult topo;
+        DAGShortestPath.CriticalPathResult criticalPath;
+        ComponentShortestPath.TaskPathResult taskPaths;
+    }
+
+    /**
+     * Pipeline results merged into global ids.
+     */
+    public static class ShardedResult {
+        private final WeaklyConnectedComponents.WccResult weakComponents;
+        private final List<WeaklyConnectedComponents.Shard> shards;
+        private final List<List<Integer>> components;
+        private final int[] componentOf;
+        private final List<Integer> taskOrder;
+        private final boolean dag;
+        private final DAGShortestPath.CriticalPathResult criticalPath;
+        private final long[] distances;
+        private final ComponentShortestPath.TaskPathResult sourcePaths;
+        private final int[] sourceGlobalIds;
+        private final Metrics metrics;
+
+        ShardedResult(WeaklyConnectedComponents.WccResult weakComponents,
+                      List<WeaklyConnectedComponents.Shard> shards, List<List<Integer>> components,
+                      int[] componentOf, List<Integer> taskOrder, boolean dag,
+                      DAGShortestPath.CriticalPathResult criticalPath, long[] distances,
+                      ComponentShortestPath.TaskPathResult sourcePaths, int[] sourceGlobalIds, Metrics metrics) {
+            this.weakComponents = weakComponents;
+            this.shards = shards;
+            this.components = components;
+            this.componentOf = componentOf;
+            this.taskOrder = taskOrder;
+            this.dag = dag;
+            this.criticalPath = criticalPath;
+            this.distances = distances;
+            this.sourcePaths = sourcePaths;
+            this.sourceGlobalIds = sourceGlobalIds;
+            this.metrics = metrics;
+        }
+
+        public WeaklyConnectedComponents.WccResult getWeakComponents() {
+            return weakComponents;
+        }
+
+        public int getShardCount() {
+            return shards.size();
+        }
+
+        /**
+         * Get the strongly connected components.
+         * @return Components in reverse topological order, global vertex ids
+         */
+        public List<List<Integer>> getComponents() {
+            return components;
+        }
+
+        /**
+         * Get the strongly connected component of a task.
+         * @param task Global task id
+         * @return Index into getComponents()
+         */
+        public int getComponentId(int task) {
+            return componentOf[task];
+        }
+
+        /**
+         * Get a task order that respects every edge between components.
+         * @return Global task ids, shard by shard
+         */
+        public List<Integer> getTaskOrder() {
+            return taskOrder;
+        }
+
+        public boolean isDAG() {
+            return dag;
+        }
+
+        /**
+         * Get the longest path of all shard condensations.
+         * @return Path over global component ids; length Long.MIN_VALUE when no shard has one
+         */
+        public DAGShortestPath.CriticalPathResult getCriticalPath() {
+            return criticalPath;
+        }
+
+        /**
+         * Get task-level distances from the source.
+         * @return Distances, ComponentShortestPath.UNREACHABLE outside the source's shard or where no path exists
+         */
+        public long[] getDistances() {
+            return distances;
+        }
+
+        /**
+         * Reconstruct the task path from the source.
+         * @param task Global destination task
+         * @return Global task ids from the source to the destination, empty if unreachable
+         */
+        public List<Integer> reconstructPath(int task) {
+            List<Integer> path = new ArrayList<>();
+            int local = Arrays.binarySearch(sourceGlobalIds, task);
+            if (local < 0) {
+                return path;
+            }
+            for (int v : sourcePaths.reconstructPath(local)) {
+                path.add(sourceGlobalIds[v]);
+            }
+            return path;
+        }
+
+        /**
+         * Get performance metrics.
+         * @return Metrics; operations sum WCC edge scans, SCC and sort operations; tagged with the shard count
+         */
+        public Metrics getMetrics() {
+            return metrics;
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package com.smartcity.graph.wcc;
+
+import com.smartcity.common.CancellationToken;
+import com.smartcity.common.CompressedGraph;
+import com.smartcity.common.ConcurrentUnionFind;
+import com.smartcity.common.CsrGraph;
+import com.smartcity.common.Graph;
+import com.smartcity.common.Metrics;
+import com.smartcity.common.MetricsImpl;
+import com.smartcity.common.OperationType;
+import com.smartcity.common.Parallel;
+
+import java.util.*;
+
+/**
+ * Weakly connected components, and sharding a graph along them.
+ *
+ * Edges are split into contiguous source-vertex blocks that worker threads
+ * feed into a {@link ConcurrentUnionFind}; edge direction is ignored, so the
+ * same pass yields connected components of undirected graphs (where each
+ * edge is stored twice and only one copy is used). Components are numbered
+ * by their smallest vertex.
+ *
+ * No edge joins two components, so any analysis can run on each component
+ * separately. {@link #shards} packs consecutive components into shards of at
+ * least a minimum size, so a city of many tiny districts does not turn into
+ * millions of tiny jobs, and builds each shard's subgraph with local ids in
+ * increasing global order (adjacency order is kept). Shards of a
+ * {@link CompressedGraph} are compressed too, so a memory-bound plan stays
+ * within its footprint.
+ *
+ * Complexity: O((V+E) log V) work for the union-find, O(V+E) for sharding
+ */
+public class WeaklyConnectedComponents {
+    private final Graph graph;
+    private final int parallelism;
+    private final Metrics metrics;
+    private CancellationToken cancellation = CancellationToken.NONE;
+
+    /**
+     * Create a component finder using all processors.
+     * @param graph Directed or undirected graph
+     */
+    public WeaklyConnectedComponents(Graph graph) {
+        this(graph, Parallel.defaultParallelism());
+    }
+
+    /**
+     * Create a component finder.
+     * @param graph Directed or undirected graph
+     * @param parallelism Maximum number of worker threads
+     */
+    public WeaklyConnectedComponents(Graph graph, int parallelism) {
+        this.graph = graph;
+        this.parallelism = parallelism;
+        this.metrics = new MetricsImpl();
+    }
+
+    /**
+     * Stop the union-find pass at the next checkpoint once the token is cancelled.
+     * @param cancellation Token receiving progress from every worker every CHECK_INTERVAL edge scans and per block
+     */
+    public void setCancellationToken(CancellationToken cancellation) {
+        this.cancellation = cancellation;
+    }
+
+    /**
+     * Label every vertex with its weakly connected component.
+     * @return Component ids ordered by smallest vertex
+     * @complexity O((V+E) log V) work, O(V) space
+     * @throws java.util.concurrent.CancellationException if the cancellation token fires
+     */
+    public WccResult findComponents() {
+        int n = graph.getVertices();
+        boolean directed = graph.isDirected();
+        metrics.reset();
+        metrics.startTiming();
+
+        ConcurrentUnionFind sets = new ConcurrentUnionFind(n);
+        int blocks = Math.max(1, Math.min(n, parallelism * 4));
+        long[] scans = new long[blocks];
+        Parallel.forEach(blocks, parallelism, b -> {
+            long scanned = 0;
+            long pending = 0;
+            int finished = 0;
+            for (int u = blockStart(n, b, blocks); u < blockStart(n, b + 1, blocks); u++) {
+                List<Graph.Edge> edges = graph.getAdjacentEdges(u);
+                // A stale root only costs a redundant union, so dense rows mostly skip union's second find
+                int root = sets.find(u);
+                // Iterate rather than index: a compressed graph's view decodes sequentially
+                for (Graph.Edge edge : edges) {
+                    int v = edge.to;
+                    // Undirected graphs hold both arcs; one is enough
+                    if ((directed || u <= v) && sets.find(v) != root) {
+                        sets.union(u, v);
+                        root = sets.find(u);
+                    }
+                }
+                scanned += edges.size();
+                pending += edges.size();
+                finished++;
+                if (pending >= CancellationToken.CHECK_INTERVAL) {
+                    cancellation.checkpoint(finished, pending);
+                    finished = 0;
+                    pending = 0;
+                }
+            }
+            // Blocks are few and large, so each one ends with a check too
+            cancellation.checkpoint(finished, pending);
+            scans[b] = scanned;
+        });
+
+        // Roots are the smallest vertex of their set, so ascending roots number components by smallest vertex
+        int[] componentOf = new int[n];
+        Parallel.forEach(blocks, parallelism, b -> {
+            for (int v = blockStart(n, b, blocks); v < blockStart(n, b + 1, blocks); v++) {
+                componentOf[v] = sets.find(v);
+            }
+        });
+        int count = 0;
+        for (int v = 0; v < n; v++) {
+            componentOf[v] = componentOf[v] == v ? count++ : componentOf[componentOf[v]];
+        }
+        int[] sizes = new int[count];
+        for (int v = 0; v < n; v++) {
+            sizes[componentOf[v]]++;
+        }
+
+        for (long scanned : scans) {
+            metrics.addOperations(OperationType.EDGE_SCANS, scanned);
+        }
+        metrics.stopTiming();
+        return new WccResult(componentOf, sizes, metrics);
+    }
+
+    /**
+     * Split the graph into independent subgraphs of whole components.
+     * @param result Components of this graph
+     * @param minShardVertices Consecutive components are packed until a shard has this many vertices
+     * @return Shards in component order, compressed for a compressed graph; weight model and node weights are copied
+     * @complexity O(V+E) work, split across shards
+     */
+    public List<Shard> shards(WccResult result, int minShardVertices) {
+        int n = graph.getVertices();
+        int[] componentOf = result.getComponentOf();
+        int[] sizes = result.getSizes();
+
+        int[] shardOfComponent = new int[sizes.length];
+        int shardCount = 0;
+        int filled = 0;
+        for (int c = 0; c < sizes.length; c++) {
+            shardOfComponent[c] = shardCount;
+            filled += sizes[c];
+            if (filled >= minShardVertices || c == sizes.length - 1) {
+                shardCount++;
+                filled = 0;
+            }
+        }
+
+        // Counting sort of vertices by shard keeps them ascending inside each shard
+        int[] start = new int[shardCount + 1];
+        for (int v = 0; v < n; v++) {
+            start[shardOfComponent[componentOf[v]] + 1]++;
+        }
+        for (int s = 0; s < shardCount; s++) {
+            start[s + 1] += start[s];
+        }
+        int[] byShard = new int[n];
+        int[] local = new int[n];
+        int[] fill = Arrays.copyOf(start, shardCount);
+        for (int v = 0; v < n; v++) {
+            int s = shardOfComponent[componentOf[v]];
+            local[v] = fill[s] - start[s];
+            byShard[fill[s]++] = v;
+        }
+
+        Shard[] shards = new Shard[shardCount];
+        Parallel.forEach(shardCount, parallelism, s -> {
+            int[] globalIds = Arrays.copyOfRange(byShard, start[s], start[s + 1]);
+            int size = globalIds.length;
+            // No edge leaves a shard, so the local ids of other shards are never looked up
+            CsrGraph csr = CsrGraph.induced(graph, globalIds, local);
+            Graph subgraph = graph instanceof CompressedGraph
+                    ? CompressedGraph.of(csr, graph.isDirected())
+                    : Graph.fromCsr(csr, graph.isDirected(), 1);
+            subgraph.setWeightModel(graph.getWeightModel());
+            for (int i = 0; i < size; i++) {
+                if (graph.getNodeWeight(globalIds[i]) != 0) {
+                    subgraph.setNodeWeight(i, graph.getNodeWeight(globalIds[i]));
+                }
+            }
+            shards[s] = new Shard(subgraph, globalIds);
+        });
+        return Arrays.asList(shards);
+    }
+
+    private static int blockStart(int count, int b, int blocks) {
+        return (int) ((long) count * b / blocks);
+    }
+
+    /**
+     * Component label per vertex.
+     */
+    public static class WccResult {
+        private final int[] componentOf;
+        private final int[] sizes;
+        private final Metrics metrics;
+
+        WccResult(int[] componentOf, int[] sizes, Metrics metrics) {
+            this.componentOf = componentOf;
+            this.sizes = sizes;
+            this.metrics = metrics;
+        }
+
+        /**
+         * Get the component of every vertex.
+         * @return Component ids, numbered in order of each component's smallest vertex
+         */
+        public int[] getComponentOf() {
+            return componentOf;
+        }
+
+        public int getComponentCount() {
+            return sizes.length;
+        }
+
+        /**
+         * Get vertex counts per component.
+         * @return Size of each component
+         */
+        public int[] getSizes() {
+            return sizes;
+        }
+
+        /**
+         * Get performance metrics.
+         * @return Metrics; operations count edge scans
+         */
+        public Metrics getMetrics() {
+            return metrics;
+        }
+    }
+
+    /**
+     * Independent subgraph made of whole weakly connected components.
+     */
+    public static class Shard {
+        private final Graph graph;
+        private final int[] globalIds;
+
+        Shard(Graph graph, int[] globalIds) {
+            this.graph = graph;
+            this.globalIds = globalIds;
+        }
+
+        /**
+         * Get the subgraph.
+         * @return Graph over local ids 0..size-1
+         */
+        public Graph getGraph() {
+            return graph;
+        }
+
+        /**
+         * Get the global id of every local vertex.
+         * @return Ascending global ids, indexed by local id
+         */
+        public int[] getGlobalIds() {
+            return globalIds;
+        }
+
+        /**
+         * Find the local id of a global vertex.
+         * @param vertex Global vertex
+         * @return Local id, or -1 if the vertex is in another shard
+         * @complexity O(log V_shard)
+         */
+        public int localId(int vertex) {
+            int i = Arrays.binarySearch(globalIds, vertex);
+            return i >= 0 ? i : -1;
+        }
+    }
+}
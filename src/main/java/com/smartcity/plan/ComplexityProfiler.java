@@ -0,0 +1,310 @@
+package com.smartcity.plan;
+
+import com.smartcity.common.CsrGraph;
+import com.smartcity.common.Graph;
+import com.smartcity.common.GraphGenerator;
+import com.smartcity.common.Metrics;
+import com.smartcity.common.OperationType;
+import com.smartcity.graph.dagsp.ComponentShortestPath;
+import com.smartcity.graph.dagsp.DAGShortestPath;
+import com.smartcity.graph.scc.CondensationGraph;
+import com.smartcity.graph.scc.TarjanSCC;
+import com.smartcity.graph.topo.ComponentTopologicalSort;
+import com.smartcity.graph.topo.KahnTopologicalSort;
+
+import java.util.*;
+import java.util.function.IntFunction;
+
+/**
+ * Empirical growth exponents of graph algorithms.
+ *
+ * A workload runs on generated graphs whose vertex counts form a geometric
+ * series; for each size the profiler records V+E, the best of a few wall
+ * times and the operation counts of the returned metrics. The exponent k of
+ * cost ~ (V+E)^k is the least-squares slope of log cost against log(V+E),
+ * fitted for time, the operation total and every operation type.
+ *
+ * Operation counts do not depend on the JIT or on other processes, so a
+ * workload is flagged superlinear from its operation exponent when it counts
+ * operations and from its time exponent otherwise. A linear algorithm fits
+ * about 1.0; the threshold leaves room for the log factors of heaps and
+ * union-find.
+ *
+ * Usage: java -cp target/classes com.smartcity.plan.ComplexityProfiler [minVertices] [steps]
+ *
+ * Complexity: sum of the workload costs over all sizes, times the repetitions
+ */
+public class ComplexityProfiler {
+    public static final double SUPERLINEAR_EXPONENT = 1.3;
+
+    private static final int DEFAULT_REPETITIONS = 3;
+
+    /**
+     * Algorithm under test.
+     */
+    @FunctionalInterface
+    public interface Workload {
+        /**
+         * @param graph Generated input
+         * @return Metrics of the run; operations may be zero if the algorithm does not count
+         */
+        Metrics run(Graph graph);
+    }
+
+    private final IntFunction<Graph> generator;
+    private final int[] vertexCounts;
+    private final int repetitions;
+
+    /**
+     * Create a profiler over a geometric series of sizes.
+     * @param generator Graph with the given number of vertices
+     * @param minVertices Smallest vertex count
+     * @param steps Number of sizes, at least 2
+     * @param ratio Growth factor between sizes, greater than 1
+     * @throws IllegalArgumentException if the series cannot be fitted
+     */
+    public ComplexityProfiler(IntFunction<Graph> generator, int minVertices, int steps, double ratio) {
+        this(generator, minVertices, steps, ratio, DEFAULT_REPETITIONS);
+    }
+
+    /**
+     * Create a profiler over a geometric series of sizes.
+     * @param generator Graph with the given number of vertices
+     * @param minVertices Smallest vertex count
+     * @param steps Number of sizes, at least 2
+     * @param ratio Growth factor between sizes, greater than 1
+     * @param repetitions Runs per size; the fastest is kept
+     * @throws IllegalArgumentException if the series cannot be fitted
+     */
+    public ComplexityProfiler(IntFunction<Graph> generator, int minVertices, int steps, double ratio,
+                              int repetitions) {
+        if (minVertices < 1 || steps < 2 || ratio <= 1 || repetitions < 1) {
+            throw new IllegalArgumentException("Need minVertices >= 1, steps >= 2, ratio > 1 and repetitions >= 1");
+        }
+        this.generator = generator;
+        this.vertexCounts = new int[steps];
+        for (int i = 0; i < steps; i++) {
+            vertexCounts[i] = (int) Math.round(minVertices * Math.pow(ratio, i));
+        }
+        this.repetitions = repetitions;
+    }
+
+    /**
+     * Create a profiler over random DAGs with three edges per vertex.
+     * @param minVertices Smallest vertex count
+     * @param steps Number of sizes; each doubles the previous one
+     * @return Profiler
+     */
+    public static ComplexityProfiler randomDags(int minVertices, int steps) {
+        return new ComplexityProfiler(n -> GraphGenerator.randomDag(n, 3 * n, 9, n), minVertices, steps, 2);
+    }
+
+    /**
+     * Run a workload on every size and fit its exponents.
+     * @param name Label for reports
+     * @param workload Algorithm under test
+     * @return Measurements and fitted exponents
+     * @complexity Sum of the workload costs, times the repetitions
+     */
+    public Profile profile(String name, Workload workload) {
+        int steps = vertexCounts.length;
+        long[] sizes = new long[steps];
+        long[] nanos = new long[steps];
+        long[] totals = new long[steps];
+        long[][] typed = new long[OperationType.values().length][steps];
+
+        // Warm up the JIT on the smallest graph
+        workload.run(generator.apply(vertexCounts[0]));
+        for (int i = 0; i < steps; i++) {
+            Graph graph = generator.apply(vertexCounts[i]);
+            long edges = 0;
+            for (int u = 0; u < graph.getVertices(); u++) {
+                edges += graph.getAdjacentEdges(u).size();
+            }
+            sizes[i] = graph.getVertices() + edges;
+            nanos[i] = Long.MAX_VALUE;
+            for (int r = 0; r < repetitions; r++) {
+                long start = System.nanoTime();
+                Metrics metrics = workload.run(graph);
+                nanos[i] = Math.min(nanos[i], System.nanoTime() - start);
+                totals[i] = metrics.getOperations();
+                for (OperationType type : OperationType.values()) {
+                    typed[type.ordinal()][i] = metrics.getOperations(type);
+                }
+            }
+        }
+
+        double[] exponents = new double[typed.length];
+        for (OperationType type : OperationType.values()) {
+            exponents[type.ordinal()] = fit(sizes, typed[type.ordinal()]);
+        }
+        return new Profile(name, sizes, nanos, totals, fit(sizes, nanos), fit(sizes, totals), exponents);
+    }
+
+    /**
+     * Least-squares slope of log cost against log size.
+     * @param sizes Input sizes
+     * @param costs Costs per size
+     * @return Exponent, NaN if any cost is zero
+     */
+    static double fit(long[] sizes, long[] costs) {
+        int n = sizes.length;
+        double sumX = 0;
+        double sumY = 0;
+        for (int i = 0; i < n; i++) {
+            if (costs[i] <= 0) {
+                return Double.NaN;
+            }
+            sumX += Math.log(sizes[i]);
+            sumY += Math.log(costs[i]);
+        }
+        double meanX = sumX / n;
+        double meanY = sumY / n;
+        double covariance = 0;
+        double variance = 0;
+        for (int i = 0; i < n; i++) {
+            double dx = Math.log(sizes[i]) - meanX;
+            covariance += dx * (Math.log(costs[i]) - meanY);
+            variance += dx * dx;
+        }
+        return covariance / variance;
+    }
+
+    /**
+     * Measurements and fitted exponents of one workload.
+     */
+    public static class Profile {
+        private final String name;
+        private final long[] sizes;
+        private final long[] nanos;
+        private final long[] operations;
+        private final double timeExponent;
+        private final double operationExponent;
+        private final double[] typedExponents;
+
+        Profile(String name, long[] sizes, long[] nanos, long[] operations, double timeExponent,
+                double operationExponent, double[] typedExponents) {
+            this.name = name;
+            this.sizes = sizes;
+            this.nanos = nanos;
+            this.operations = operations;
+            this.timeExponent = timeExponent;
+            this.operationExponent = operationExponent;
+            this.typedExponents = typedExponents;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Get the measured input sizes.
+         * @return V+E per step
+         */
+        public long[] getSizes() {
+            return sizes;
+        }
+
+        /**
+         * Get the fastest run per step.
+         * @return Nanoseconds per step
+         */
+        public long[] getNanos() {
+            return nanos;
+        }
+
+        /**
+         * Get the operation totals per step.
+         * @return Operations per step
+         */
+        public long[] getOperations() {
+            return operations;
+        }
+
+        public double getTimeExponent() {
+            return timeExponent;
+        }
+
+        /**
+         * Get the exponent of the operation total.
+         * @return Exponent, NaN if the workload does not count operations
+         */
+        public double getOperationExponent() {
+            return operationExponent;
+        }
+
+        /**
+         * Get the exponent of one operation type.
+         * @param type Operation type
+         * @return Exponent, NaN if the type was not counted at every size
+         */
+        public double getExponent(OperationType type) {
+            return typedExponents[type.ordinal()];
+        }
+
+        /**
+         * Check whether cost grows faster than the input.
+         * @return True if the operation exponent (time exponent without operations) exceeds SUPERLINEAR_EXPONENT
+         */
+        public boolean isSuperlinear() {
+            double exponent = Double.isNaN(operationExponent) ? timeExponent : operationExponent;
+            return exponent > SUPERLINEAR_EXPONENT;
+        }
+
+        /**
+         * One report line: name, exponents and the superlinear flag.
+         * @return Summary
+         */
+        @Override
+        public String toString() {
+            StringBuilder line = new StringBuilder(String.format(Locale.ROOT,
+                    "%-32s ops^%.2f time^%.2f", name, operationExponent, timeExponent));
+            for (OperationType type : OperationType.values()) {
+                if (!Double.isNaN(typedExponents[type.ordinal()])) {
+                    line.append(String.format(Locale.ROOT, " %s^%.2f", type.getLabel(), typedExponents[type.ordinal()]));
+                }
+            }
+            if (isSuperlinear()) {
+                line.append("  SUPERLINEAR");
+            }
+            return line.toString();
+        }
+    }
+
+    // A source that reaches most of a random DAG: the first vertex in topological order
+    private static int firstTask(Graph graph) {
+        return KahnTopologicalSort.orderOf(CsrGraph.of(graph))[0];
+    }
+
+    /**
+     * Profile the Main pipeline on random DAGs and flag superlinear stages.
+     * @param args Optional smallest vertex count (default 250) and number of doubling steps (default 5)
+     */
+    public static void main(String[] args) {
+        int minVertices = args.length > 0 ? Integer.parseInt(args[0]) : 250;
+        int steps = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        ComplexityProfiler profiler = randomDags(minVertices, steps);
+
+        Map<String, Workload> workloads = new LinkedHashMap<>();
+        workloads.put("TarjanSCC", graph -> new TarjanSCC(graph).findSCCs().getMetrics());
+        workloads.put("KahnTopologicalSort", graph -> new KahnTopologicalSort(graph).topologicalSort().getMetrics());
+        workloads.put("ComponentTopologicalSort", graph -> new ComponentTopologicalSort(
+                new CondensationGraph(graph, new TarjanSCC(graph).findSCCs().getComponents()))
+                .topologicalSort().getMetrics());
+        workloads.put("DAGShortestPath.longestPaths",
+                graph -> new DAGShortestPath(graph).longestPaths(firstTask(graph)).getMetrics());
+        workloads.put("DAGShortestPath.findCriticalPath", graph -> new DAGShortestPath(graph).findCriticalPath().getMetrics());
+        workloads.put("ComponentShortestPath",
+                graph -> new ComponentShortestPath(graph).shortestPaths(firstTask(graph)).getMetrics());
+
+        boolean header = true;
+        for (Map.Entry<String, Workload> entry : workloads.entrySet()) {
+            Profile profile = profiler.profile(entry.getKey(), entry.getValue());
+            if (header) {
+                System.out.println("Growth exponents over V+E = " + Arrays.toString(profile.getSizes()));
+                header = false;
+            }
+            System.out.println(profile);
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.smartcity.plan;
+
+import com.smartcity.common.CsrGraph;
+import com.smartcity.common.Graph;
+import com.smartcity.common.GraphGenerator;
+import com.smartcity.common.Parallel;
+import com.smartcity.graph.scc.TarjanSCC;
+import com.smartcity.graph.topo.DFSTopologicalSort;
+import com.smartcity.graph.topo.KahnTopologicalSort;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Machine-specific cost coefficients for the {@link EnginePlanner}.
+ *
+ * Each engine cost is in nanoseconds per element, where an element is one
+ * vertex or one edge of the input it runs on. Coefficients come from
+ * {@link #calibrate()}, a micro-benchmark of the candidate engines on small
+ * generated graphs, or from a properties file written by {@link #save(Path)}.
+ * Parallelism is only used above a minimum edge count, and calibration turns
+ * it off when splitting a transpose across threads is not faster.
+ *
+ * Complexity: calibration takes O(1) time (fixed graph sizes), about a second
+ */
+public final class CostProfile {
+    private static final String PARALLEL_KEY = "parallel.min.edges";
+    private static final long DEFAULT_PARALLEL_MIN_EDGES = 1 << 16;
+    private static final int CALIBRATION_VERTICES = 20_000;
+    private static final int CALIBRATION_DFS_VERTICES = 2_000;
+    private static final int CALIBRATION_REPETITIONS = 5;
+
+    /**
+     * Engines with a calibrated cost per element.
+     */
+    public enum Cost {
+        TARJAN("tarjan"),
+        CORE_SUBGRAPH("core.subgraph"),
+        KAHN_LISTS("kahn.lists"),
+        KAHN_CSR("kahn.csr"),
+        CSR_BUILD("csr.build"),
+        DFS("dfs");
+
+        private final String key;
+
+        Cost(String key) {
+            this.key = key;
+        }
+
+        public String getKey() {
+            return key;
+        }
+    }
+
+    private final Map<Cost, Double> nanosPerElement;
+    private final long parallelMinEdges;
+
+    private CostProfile(Map<Cost, Double> nanosPerElement, long parallelMinEdges) {
+        this.nanosPerElement = new EnumMap<>(nanosPerElement);
+        this.parallelMinEdges = parallelMinEdges;
+    }
+
+    /**
+     * Get coefficients from a calibration run on the development machine.
+     * @return Default profile
+     */
+    public static CostProfile defaults() {
+        Map<Cost, Double> costs = new EnumMap<>(Cost.class);
+        costs.put(Cost.TARJAN, 200.0);
+        costs.put(Cost.CORE_SUBGRAPH, 80.0);
+        costs.put(Cost.KAHN_LISTS, 75.0);
+        costs.put(Cost.KAHN_CSR, 13.0);
+        costs.put(Cost.CSR_BUILD, 50.0);
+        costs.put(Cost.DFS, 75.0);
+        return new CostProfile(costs, DEFAULT_PARALLEL_MIN_EDGES);
+    }
+
+    /**
+     * Measure every engine on generated graphs in this JVM.
+     * @return Calibrated profile
+     * @complexity O(1): fixed sizes of 20k vertices and 80k edges
+     */
+    public static CostProfile calibrate() {
+        Map<Cost, Double> costs = new EnumMap<>(Cost.class);
+        int n = CALIBRATION_VERTICES;
+        double elements = n + 4.0 * n;
+        Graph cyclic = GraphGenerator.randomGraph(n, 4 * n, 9, 11L);
+        GraphStatistics cyclicStats = GraphStatistics.of(cyclic);
+        Graph small = GraphGenerator.randomDag(CALIBRATION_DFS_VERTICES, 4 * CALIBRATION_DFS_VERTICES, 9, 13L);
+        double smallElements = 5.0 * CALIBRATION_DFS_VERTICES;
+
+        costs.put(Cost.TARJAN, median(() -> new TarjanSCC(cyclic).findSCCs()) / elements);
+        costs.put(Cost.CORE_SUBGRAPH, median(() -> EnginePlan.coreSubgraph(cyclic, cyclicStats, 1))
+                / Math.max(1, cyclicStats.getCoreVertices() + cyclicStats.getCoreEdges()));
+        // Fresh graphs, so every flattening starts from adjacency lists not yet in cache
+        Graph[] dags = new Graph[CALIBRATION_REPETITIONS + 2];
+        for (int i = 0; i < dags.length; i++) {
+            dags[i] = GraphGenerator.randomDag(n, 4 * n, 9, 17L + i);
+        }
+        int[] next = {0};
+        costs.put(Cost.CSR_BUILD, median(() -> CsrGraph.of(dags[next[0]++])) / elements);
+        costs.put(Cost.KAHN_LISTS, median(() -> new KahnTopologicalSort(dags[0]).topologicalSort()) / elements);
+        costs.put(Cost.KAHN_CSR, median(() -> KahnTopologicalSort.orderOf(CsrGraph.of(dags[0]))) / elements);
+        costs.put(Cost.DFS, median(() -> new DFSTopologicalSort(small).topologicalSort()) / smallElements);
+
+        // Parallel transposes pay thread start-up; keep them only if they win at this size
+        int threads = Parallel.defaultParallelism();
+        CsrGraph csr = CsrGraph.of(cyclic);
+        long parallelMinEdges = Long.MAX_VALUE;
+        if (threads > 1 && median(() -> csr.transpose(threads)) < median(() -> csr.transpose(1))) {
+            parallelMinEdges = DEFAULT_PARALLEL_MIN_EDGES;
+        }
+        return new CostProfile(costs, parallelMinEdges);
+    }
+
+    // Median wall time in nanoseconds, after two warm-up runs
+    private static double median(Runnable run) {
+        long[] nanos = new long[CALIBRATION_REPETITIONS];
+        for (int r = -2; r < nanos.length; r++) {
+            long start = System.nanoTime();
+            run.run();
+            if (r >= 0) {
+                nanos[r] = System.nanoTime() - start;
+            }
+        }
+        Arrays.sort(nanos);
+        return Math.max(1, nanos[nanos.length / 2]);
+    }
+
+    /**
+     * Read a profile written by save.
+     * @param path Properties file
+     * @return Profile
+     * @throws IOException if the file cannot be read or lacks a coefficient
+     */
+    public static CostProfile load(Path path) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        Map<Cost, Double> costs = new EnumMap<>(Cost.class);
+        try {
+            for (Cost cost : Cost.values()) {
+                String value = properties.getProperty(cost.getKey());
+                if (value == null) {
+                    throw new IOException(path + ": missing cost " + cost.getKey());
+                }
+                costs.put(cost, Double.parseDouble(value));
+            }
+            String parallel = properties.getProperty(PARALLEL_KEY);
+            return new CostProfile(costs, parallel == null ? DEFAULT_PARALLEL_MIN_EDGES : Long.parseLong(parallel));
+        } catch (NumberFormatException e) {
+            throw new IOException(path + ": malformed number", e);
+        }
+    }
+
+    /**
+     * Write the profile as a properties file.
+     * @param path Destination file
+     * @throws IOException if the file cannot be written
+     */
+    public void save(Path path) throws IOException {
+        Properties properties = new Properties();
+        for (Cost cost : Cost.values()) {
+            properties.setProperty(cost.getKey(), Double.toString(nanosPerElement.get(cost)));
+        }
+        properties.setProperty(PARALLEL_KEY, Long.toString(parallelMinEdges));
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            properties.store(writer, "EnginePlanner cost profile, nanoseconds per vertex or edge");
+        }
+    }
+
+    /**
+     * Get the cost of an engine.
+     * @param cost Engine
+     * @return Nanoseconds per vertex or edge
+     */
+    public double get(Cost cost) {
+        return nanosPerElement.get(cost);
+    }
+
+    /**
+     * Copy the profile with one coefficient replaced.
+     * @param cost Engine
+     * @param nanos Nanoseconds per vertex or edge
+     * @return New profile
+     */
+    public CostProfile with(Cost cost, double nanos) {
+        Map<Cost, Double> costs = new EnumMap<>(nanosPerElement);
+        costs.put(cost, nanos);
+        return new CostProfile(costs, parallelMinEdges);
+    }
+
+    /**
+     * Get the smallest edge count worth running on several threads.
+     * @return Edge threshold; Long.MAX_VALUE disables parallelism
+     */
+    public long getParallelMinEdges() {
+        return parallelMinEdges;
+    }
+
+    /**
+     * Copy the profile with another parallelism threshold.
+     * @param edges Smallest edge count worth running on several threads
+     * @return New profile
+     */
+    public CostProfile withParallelMinEdges(long edges) {
+        return new CostProfile(nanosPerElement, edges);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        for (Cost cost : Cost.values()) {
+            text.append(cost.getKey()).append('=').append(String.format("%.1f", get(cost))).append("ns ");
+        }
+        return text.append(PARALLEL_KEY).append('=').append(parallelMinEdges).toString();
+    }
+}
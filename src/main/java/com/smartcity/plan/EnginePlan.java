@@ -0,0 +1,242 @@
+package com.smartcity.plan;
+
+import com.smartcity.common.CompressedGraph;
+import com.smartcity.common.CsrGraph;
+import com.smartcity.common.Graph;
+import com.smartcity.common.Metrics;
+import com.smartcity.common.MetricsImpl;
+import com.smartcity.common.OperationType;
+import com.smartcity.graph.scc.TarjanSCC;
+import com.smartcity.graph.topo.DFSTopologicalSort;
+import com.smartcity.graph.topo.KahnTopologicalSort;
+
+import java.util.*;
+
+/**
+ * Engines chosen by the {@link EnginePlanner} for one graph, and the means to
+ * run them. Every result carries the choice as metrics tags.
+ *
+ * The trim-based SCC engines reuse the trimming done for the statistics:
+ * TRIM reports every vertex as its own component without any search, and
+ * TRIM_TARJAN runs Tarjan only on the core. Both return the same vertex
+ * partition as {@link TarjanSCC}, in a reverse topological order of the
+ * condensation that may differ from Tarjan's.
+ *
+ * A plan belongs to the graph it was made for; running it on a graph that has
+ * changed since gives undefined results.
+ *
+ * Complexity: O(V+E) per run, O(V_core+E_core) search for the trim engines
+ */
+public final class EnginePlan {
+    public static final String SCC_TAG = "engine.scc";
+    public static final String TOPO_TAG = "engine.topo";
+    public static final String REPRESENTATION_TAG = "engine.representation";
+    public static final String PARALLELISM_TAG = "engine.parallelism";
+
+    public enum SccEngine { TARJAN, TRIM, TRIM_TARJAN }
+
+    public enum TopoVariant { KAHN_LISTS, KAHN_CSR, DFS }
+
+    public enum Representation { ADJACENCY_LISTS, CSR, COMPRESSED }
+
+    private final GraphStatistics statistics;
+    private final SccEngine sccEngine;
+    private final TopoVariant topoVariant;
+    private final Representation representation;
+    private final int parallelism;
+
+    EnginePlan(GraphStatistics statistics, SccEngine sccEngine, TopoVariant topoVariant,
+               Representation representation, int parallelism) {
+        this.statistics = statistics;
+        this.sccEngine = sccEngine;
+        this.topoVariant = topoVariant;
+        this.representation = representation;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Convert a graph to the planned representation. CSR plans keep the
+     * lists: the CSR sort flattens them per run and drops the copy after.
+     * Callers of a COMPRESSED plan should drop their reference to the
+     * original, since the later stages read the compressed copy in place.
+     * @param graph Graph the plan was made for
+     * @return A compressed copy for COMPRESSED, the graph itself otherwise
+     * @complexity O(V+E) for COMPRESSED, O(1) otherwise
+     */
+    public Graph prepare(Graph graph) {
+        checkGraph(graph);
+        if (representation == Representation.COMPRESSED && !(graph instanceof CompressedGraph)) {
+            return CompressedGraph.of(graph);
+        }
+        return graph;
+    }
+
+    /**
+     * Find strongly connected components with the planned engine.
+     * @param graph Graph the plan was made for
+     * @return Components in reverse topological order of the condensation, tagged metrics
+     * @complexity O(V+E) time
+     */
+    public TarjanSCC.SCCResult findSCCs(Graph graph) {
+        checkGraph(graph);
+        if (sccEngine == SccEngine.TARJAN) {
+            TarjanSCC.SCCResult result = new TarjanSCC(graph).findSCCs();
+            record(result.getMetrics());
+            return result;
+        }
+
+        Metrics metrics = new MetricsImpl();
+        metrics.startTiming();
+        List<List<Integer>> components = new ArrayList<>();
+        for (int v : statistics.backOrder()) {
+            components.add(singleton(v));
+        }
+        if (sccEngine == SccEngine.TRIM_TARJAN) {
+            boolean[] core = statistics.coreMask();
+            int[] global = new int[statistics.getCoreVertices()];
+            for (int v = 0, k = 0; v < core.length; v++) {
+                if (core[v]) {
+                    global[k++] = v;
+                }
+            }
+            TarjanSCC.SCCResult coreResult = new TarjanSCC(coreSubgraph(graph, statistics, parallelism)).findSCCs();
+            // Local ids increase with global ids, so members stay sorted
+            for (List<Integer> local : coreResult.getComponents()) {
+                List<Integer> component = new ArrayList<>(local.size());
+                for (int v : local) {
+                    component.add(global[v]);
+                }
+                components.add(component);
+            }
+            metrics.addAll(coreResult.getMetrics());
+        }
+        int[] front = statistics.frontOrder();
+        for (int i = front.length - 1; i >= 0; i--) {
+            components.add(singleton(front[i]));
+        }
+        metrics.addOperations(OperationType.VERTEX_VISITS, front.length + statistics.backOrder().length);
+        metrics.stopTiming();
+        record(metrics);
+        return new TarjanSCC.SCCResult(components, metrics);
+    }
+
+    private static List<Integer> singleton(int v) {
+        List<Integer> component = new ArrayList<>(1);
+        component.add(v);
+        return component;
+    }
+
+    /**
+     * Induced subgraph of the trimmed core, vertices renumbered in increasing order.
+     * @param graph Graph the statistics describe
+     * @param statistics Trim result
+     * @param parallelism Threads for materializing adjacency lists
+     * @return Core subgraph with V_core vertices
+     * @complexity O(V + E_core) time and space
+     */
+    static Graph coreSubgraph(Graph graph, GraphStatistics statistics, int parallelism) {
+        boolean[] core = statistics.coreMask();
+        int n = graph.getVertices();
+        int[] local = new int[n];
+        int k = 0;
+        for (int v = 0; v < n; v++) {
+            local[v] = core[v] ? k++ : -1;
+        }
+        int[] offsets = new int[k + 1];
+        int[] targets = new int[Math.toIntExact(statistics.getCoreEdges())];
+        int[] weights = new int[targets.length];
+        int e = 0;
+        for (int u = 0; u < n; u++) {
+            if (local[u] < 0) {
+                continue;
+            }
+            for (Graph.Edge edge : graph.getAdjacentEdges(u)) {
+                if (local[edge.to] >= 0) {
+                    targets[e] = local[edge.to];
+                    weights[e++] = edge.weight;
+                }
+            }
+            offsets[local[u] + 1] = e;
+        }
+        return Graph.fromCsr(new CsrGraph(k, offsets, targets, weights), true, parallelism);
+    }
+
+    /**
+     * Topologically sort with the planned variant.
+     * @param graph Graph the plan was made for
+     * @return Order, shorter than V with isDAG false when the graph has a cycle; tagged metrics
+     * @complexity O(V+E) time
+     */
+    public KahnTopologicalSort.TopoResult topologicalSort(Graph graph) {
+        checkGraph(graph);
+        KahnTopologicalSort.TopoResult result;
+        switch (topoVariant) {
+            case KAHN_CSR:
+                Metrics metrics = new MetricsImpl();
+                metrics.startTiming();
+                CsrGraph csr = CsrGraph.of(graph);
+                int[] order = KahnTopologicalSort.orderOf(csr);
+                List<Integer> list = new ArrayList<>(order.length);
+                for (int v : order) {
+                    list.add(v);
+                }
+                metrics.addOperations(OperationType.QUEUE_OPS, csr.getVertices());
+                metrics.addOperations(OperationType.EDGE_SCANS, csr.getEdgeCount());
+                metrics.stopTiming();
+                result = new KahnTopologicalSort.TopoResult(list, order.length == csr.getVertices(), metrics);
+                break;
+            case DFS:
+                result = new DFSTopologicalSort(graph).topologicalSort();
+                break;
+            default:
+                result = new KahnTopologicalSort(graph).topologicalSort();
+                break;
+        }
+        record(result.getMetrics());
+        return result;
+    }
+
+    /**
+     * Tag metrics with the planned engines.
+     * @param metrics Metrics of a run on this plan's graph
+     */
+    public void record(Metrics metrics) {
+        metrics.setTag(SCC_TAG, sccEngine.name());
+        metrics.setTag(TOPO_TAG, topoVariant.name());
+        metrics.setTag(REPRESENTATION_TAG, representation.name());
+        metrics.setTag(PARALLELISM_TAG, Integer.toString(parallelism));
+    }
+
+    private void checkGraph(Graph graph) {
+        if (graph.getVertices() != statistics.getVertices()) {
+            throw new IllegalArgumentException("Plan was made for " + statistics.getVertices()
+                    + " vertices, got " + graph.getVertices());
+        }
+    }
+
+    public GraphStatistics getStatistics() {
+        return statistics;
+    }
+
+    public SccEngine getSccEngine() {
+        return sccEngine;
+    }
+
+    public TopoVariant getTopoVariant() {
+        return topoVariant;
+    }
+
+    public Representation getRepresentation() {
+        return representation;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    @Override
+    public String toString() {
+        return "scc=" + sccEngine + " topo=" + topoVariant + " representation=" + representation
+                + " parallelism=" + parallelism;
+    }
+}
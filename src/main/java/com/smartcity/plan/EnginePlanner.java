@@ -0,0 +1,132 @@
+package com.smartcity.plan;
+
+import com.smartcity.common.CompressedGraph;
+import com.smartcity.common.Graph;
+import com.smartcity.common.GraphLoader;
+import com.smartcity.common.Parallel;
+import com.smartcity.plan.CostProfile.Cost;
+import com.smartcity.plan.EnginePlan.Representation;
+import com.smartcity.plan.EnginePlan.SccEngine;
+import com.smartcity.plan.EnginePlan.TopoVariant;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * Chooses engines per graph from load-time statistics and a cost profile.
+ *
+ * Predicted cost of an engine is its calibrated nanoseconds per element times
+ * the vertices plus edges it touches:
+ * - SCC: TRIM when trimming removed every vertex; otherwise TARJAN on the
+ *   whole graph or TRIM_TARJAN on the core, whichever is cheaper. A high DAG
+ *   fraction favors the trim engine, a dense strongly connected graph Tarjan.
+ * - Topological sort: Kahn over adjacency lists, or over CSR arrays including
+ *   the cost of flattening; recursive DFS only for small graphs the trim
+ *   proved acyclic, since DFSTopologicalSort neither detects cycles nor
+ *   survives deep recursion.
+ * - Representation: compressed when the adjacency lists would take more than
+ *   half of the maximum heap, CSR when the chosen sort runs on it, lists
+ *   otherwise.
+ * - Parallelism: all processors from the profile's minimum edge count on.
+ *   Degree skew is reported but does not change the choice: none of the
+ *   engines here split work by vertex degree.
+ *
+ * Complexity: O(V+E) per plan for the statistics, O(1) for the choice
+ */
+public class EnginePlanner {
+    // System property naming a CostProfile file to load instead of calibrating
+    public static final String PROFILE_PROPERTY = "smartcity.planner.profile";
+    // Largest graph DFSTopologicalSort is allowed on; its recursion depth is up to V
+    static final int DFS_MAX_VERTICES = 2_000;
+    // Heap per edge in adjacency lists: an Edge object plus its list slot
+    private static final long LIST_BYTES_PER_EDGE = 32;
+
+    private final CostProfile profile;
+    private final long maxHeapBytes;
+
+    /**
+     * Create a planner for this JVM's heap.
+     * @param profile Cost coefficients
+     */
+    public EnginePlanner(CostProfile profile) {
+        this(profile, Runtime.getRuntime().maxMemory());
+    }
+
+    /**
+     * Create a planner for a given heap size.
+     * @param profile Cost coefficients
+     * @param maxHeapBytes Heap available to graphs
+     */
+    public EnginePlanner(CostProfile profile, long maxHeapBytes) {
+        this.profile = profile;
+        this.maxHeapBytes = maxHeapBytes;
+    }
+
+    /**
+     * Create a planner from the profile file named by the smartcity.planner.profile
+     * system property, or calibrate one when the property is not set.
+     * @return Planner
+     * @throws IOException if the named profile cannot be read
+     */
+    public static EnginePlanner atStartup() throws IOException {
+        String path = System.getProperty(PROFILE_PROPERTY);
+        return new EnginePlanner(path == null ? CostProfile.calibrate() : CostProfile.load(Paths.get(path)));
+    }
+
+    public CostProfile getProfile() {
+        return profile;
+    }
+
+    /**
+     * Plan engines for a loaded graph.
+     * @param data Loaded graph
+     * @return Plan for data.graph
+     * @complexity O(V+E) time and space
+     */
+    public EnginePlan plan(GraphLoader.GraphData data) {
+        return plan(data.graph);
+    }
+
+    /**
+     * Plan engines for a graph.
+     * @param graph Graph
+     * @return Plan for this graph
+     * @complexity O(V+E) time and space
+     */
+    public EnginePlan plan(Graph graph) {
+        GraphStatistics statistics = GraphStatistics.of(graph);
+        double elements = statistics.getVertices() + (double) statistics.getEdges();
+        double coreElements = statistics.getCoreVertices() + (double) statistics.getCoreEdges();
+
+        SccEngine scc = SccEngine.TRIM;
+        if (!statistics.isAcyclic()) {
+            double tarjan = profile.get(Cost.TARJAN) * elements;
+            double trimTarjan = (profile.get(Cost.CORE_SUBGRAPH) + profile.get(Cost.TARJAN)) * coreElements;
+            scc = trimTarjan < tarjan ? SccEngine.TRIM_TARJAN : SccEngine.TARJAN;
+        }
+
+        boolean compressed = graph instanceof CompressedGraph
+                || statistics.getEdges() * LIST_BYTES_PER_EDGE > maxHeapBytes / 2;
+
+        // A compressed graph is only walked through its lazy lists; flattening it would undo the saving
+        TopoVariant topo = TopoVariant.KAHN_LISTS;
+        double best = profile.get(Cost.KAHN_LISTS) * elements;
+        if (!compressed) {
+            double csr = (profile.get(Cost.KAHN_CSR) + profile.get(Cost.CSR_BUILD)) * elements;
+            if (csr < best) {
+                topo = TopoVariant.KAHN_CSR;
+                best = csr;
+            }
+            if (statistics.isAcyclic() && statistics.getVertices() <= DFS_MAX_VERTICES
+                    && profile.get(Cost.DFS) * elements < best) {
+                topo = TopoVariant.DFS;
+            }
+        }
+
+        Representation representation = compressed ? Representation.COMPRESSED
+                : topo == TopoVariant.KAHN_CSR ? Representation.CSR : Representation.ADJACENCY_LISTS;
+        int parallelism = statistics.getEdges() >= profile.getParallelMinEdges() ? Parallel.defaultParallelism() : 1;
+
+        return new EnginePlan(statistics, scc, topo, representation, parallelism);
+    }
+}
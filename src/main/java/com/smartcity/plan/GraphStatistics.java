@@ -0,0 +1,219 @@
+package com.smartcity.plan;
+
+import com.smartcity.common.Graph;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Cheap load-time statistics used to pick engines for a graph.
+ *
+ * Besides vertex and edge counts and degree extremes, the graph is trimmed:
+ * vertices with no remaining predecessors are peeled from the front and
+ * vertices with no remaining successors from the back, until neither exists.
+ * Peeled vertices cannot lie on a cycle, so each is its own SCC; what is left
+ * (the core) contains every cyclic component plus vertices trapped between
+ * them. The peeled share is reported as the DAG fraction, a lower bound on the
+ * share of acyclic vertices that is exact for DAGs (their core is empty).
+ *
+ * Front vertices in peeling order, then the core, then back vertices in
+ * reverse peeling order is a topological order of the condensation: no edge
+ * leaves the core towards a front vertex or enters it from a back vertex.
+ *
+ * Complexity: O(V+E) time, O(V+E) temporary space for predecessor arrays
+ */
+public final class GraphStatistics {
+    private final int vertices;
+    private final long edges;
+    private final int maxOutDegree;
+    private final int maxInDegree;
+    private final int[] front;
+    private final int[] back;
+    private final boolean[] core;
+    private final int coreVertices;
+    private final long coreEdges;
+
+    private GraphStatistics(int vertices, long edges, int maxOutDegree, int maxInDegree, int[] front, int[] back,
+                            boolean[] core, int coreVertices, long coreEdges) {
+        this.vertices = vertices;
+        this.edges = edges;
+        this.maxOutDegree = maxOutDegree;
+        this.maxInDegree = maxInDegree;
+        this.front = front;
+        this.back = back;
+        this.core = core;
+        this.coreVertices = coreVertices;
+        this.coreEdges = coreEdges;
+    }
+
+    /**
+     * Collect statistics of a directed graph.
+     * @param graph Graph as loaded; it is not flattened or cached
+     * @return Statistics and the trim result
+     * @complexity O(V+E) time and space
+     */
+    public static GraphStatistics of(Graph graph) {
+        int n = graph.getVertices();
+        int[] out = new int[n];
+        int[] in = new int[n];
+        long m = 0;
+        for (int u = 0; u < n; u++) {
+            List<Graph.Edge> edges = graph.getAdjacentEdges(u);
+            out[u] = edges.size();
+            m += out[u];
+            for (Graph.Edge edge : edges) {
+                in[edge.to]++;
+            }
+        }
+        int maxOut = 0;
+        int maxIn = 0;
+        for (int v = 0; v < n; v++) {
+            maxOut = Math.max(maxOut, out[v]);
+            maxIn = Math.max(maxIn, in[v]);
+        }
+
+        // Predecessor arrays for peeling from the back
+        int[] predOffsets = new int[n + 1];
+        for (int v = 0; v < n; v++) {
+            predOffsets[v + 1] = predOffsets[v] + in[v];
+        }
+        int[] preds = new int[predOffsets[n]];
+        int[] fill = new int[n];
+        for (int u = 0; u < n; u++) {
+            for (Graph.Edge edge : graph.getAdjacentEdges(u)) {
+                int v = edge.to;
+                preds[predOffsets[v] + fill[v]++] = u;
+            }
+        }
+
+        // A vertex is marked peeled when queued; degrees count edges to unpeeled or queued vertices
+        boolean[] peeled = new boolean[n];
+        int[] front = new int[n];
+        int[] back = new int[n];
+        int frontCount = 0;
+        int backCount = 0;
+        for (int v = 0; v < n; v++) {
+            if (in[v] == 0) {
+                peeled[v] = true;
+                front[frontCount++] = v;
+            } else if (out[v] == 0) {
+                peeled[v] = true;
+                back[backCount++] = v;
+            }
+        }
+        int frontHead = 0;
+        int backHead = 0;
+        while (frontHead < frontCount || backHead < backCount) {
+            if (frontHead < frontCount) {
+                for (Graph.Edge edge : graph.getAdjacentEdges(front[frontHead++])) {
+                    int v = edge.to;
+                    if (!peeled[v] && --in[v] == 0) {
+                        peeled[v] = true;
+                        front[frontCount++] = v;
+                    }
+                }
+            } else {
+                int v = back[backHead++];
+                for (int e = predOffsets[v]; e < predOffsets[v + 1]; e++) {
+                    int u = preds[e];
+                    if (!peeled[u] && --out[u] == 0) {
+                        peeled[u] = true;
+                        back[backCount++] = u;
+                    }
+                }
+            }
+        }
+
+        boolean[] core = new boolean[n];
+        int coreVertices = 0;
+        long coreEdges = 0;
+        for (int u = 0; u < n; u++) {
+            if (!peeled[u]) {
+                core[u] = true;
+                coreVertices++;
+            }
+        }
+        for (int u = 0; u < n; u++) {
+            if (core[u]) {
+                for (Graph.Edge edge : graph.getAdjacentEdges(u)) {
+                    if (core[edge.to]) {
+                        coreEdges++;
+                    }
+                }
+            }
+        }
+
+        return new GraphStatistics(n, m, maxOut, maxIn, Arrays.copyOf(front, frontCount),
+                Arrays.copyOf(back, backCount), core, coreVertices, coreEdges);
+    }
+
+    public int getVertices() {
+        return vertices;
+    }
+
+    public long getEdges() {
+        return edges;
+    }
+
+    public int getMaxOutDegree() {
+        return maxOutDegree;
+    }
+
+    public int getMaxInDegree() {
+        return maxInDegree;
+    }
+
+    /**
+     * Get the largest degree relative to the mean degree.
+     * @return max(out, in) degree divided by E/V; 0 for graphs without edges
+     */
+    public double getDegreeSkew() {
+        return edges == 0 ? 0 : Math.max(maxOutDegree, maxInDegree) * (double) vertices / edges;
+    }
+
+    /**
+     * Get the share of vertices removed by trimming.
+     * @return Lower bound on the share of vertices outside cycles; 1 for DAGs and empty graphs
+     */
+    public double getDagFraction() {
+        return vertices == 0 ? 1 : (vertices - coreVertices) / (double) vertices;
+    }
+
+    public boolean isAcyclic() {
+        return coreVertices == 0;
+    }
+
+    public int getCoreVertices() {
+        return coreVertices;
+    }
+
+    public long getCoreEdges() {
+        return coreEdges;
+    }
+
+    /**
+     * Get vertices peeled from the front, in peeling order.
+     * @return Vertices whose predecessors all appear earlier in the array
+     */
+    int[] frontOrder() {
+        return front;
+    }
+
+    /**
+     * Get vertices peeled from the back, in peeling order.
+     * @return Vertices whose successors all appear earlier in the array
+     */
+    int[] backOrder() {
+        return back;
+    }
+
+    boolean[] coreMask() {
+        return core;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("V=%d E=%d skew=%.1f dagFraction=%.3f core=%d vertices, %d edges", vertices, edges, getDegreeSkew(),
+                getDagFraction(), coreVertices, coreEdges);
+    }
+}
@@ -0,0 +1,76 @@
+package com.smartcity.common;
+
+import com.smartcity.graph.dagsp.DAGShortestPath;
+import com.smartcity.graph.scc.TarjanSCC;
+import com.smartcity.graph.topo.KahnTopologicalSort;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class AlgorithmWorkspaceTest {
+
+    // Buffers are reused until a larger request, then grow by at least half
+    @Test
+    public void testGrowOnly() {
+        AlgorithmWorkspace workspace = new AlgorithmWorkspace();
+        int[] first = workspace.ints(0, 100);
+        assertSame(first, workspace.ints(0, 50));
+        assertSame(first, workspace.ints(0, 100));
+        int[] grown = workspace.ints(0, 101);
+        assertNotSame(first, grown);
+        assertTrue(grown.length >= 150);
+        assertEquals(2, workspace.getGrowCount());
+
+        long[] longs = workspace.longs(9, 10);
+        assertSame(longs, workspace.longs(9, 3));
+        assertEquals(4L * grown.length + 8L * longs.length, workspace.getFootprintBytes());
+    }
+
+    // Stale contents from a larger graph do not leak into a smaller one
+    @Test
+    public void testSameResultsAsFreshBuffers() {
+        AlgorithmWorkspace workspace = new AlgorithmWorkspace();
+        for (int seed = 0; seed < 20; seed++) {
+            int n = 40 - seed;
+            Graph cyclic = GraphGenerator.randomGraph(n, 3 * n, 9, seed);
+            assertEquals(new TarjanSCC(cyclic).findSCCs().getComponents(),
+                    new TarjanSCC(cyclic, workspace).findSCCs().getComponents());
+            assertEquals(new KahnTopologicalSort(cyclic).topologicalSort().getOrder(),
+                    new KahnTopologicalSort(cyclic, workspace).topologicalSort().getOrder());
+
+            Graph dag = GraphGenerator.randomDag(n, 3 * n, 9, seed);
+            assertArrayEquals(new DAGShortestPath(dag).longestPaths(0).getDistances(),
+                    new DAGShortestPath(dag, workspace).longestPaths(0).getDistances());
+            assertArrayEquals(new DAGShortestPath(dag).shortestPaths(0).getParents(),
+                    new DAGShortestPath(dag, workspace).shortestPaths(0).getParents());
+        }
+    }
+
+    // Once warm, analyzing graphs no larger than before allocates no new buffers
+    @Test
+    public void testNoGrowthAfterWarmUp() {
+        AlgorithmWorkspace workspace = new AlgorithmWorkspace();
+        Graph largest = GraphGenerator.randomDag(80, 320, 9, 1L);
+        new TarjanSCC(largest, workspace).findSCCs();
+        new KahnTopologicalSort(largest, workspace).topologicalSort();
+        new DAGShortestPath(largest, workspace).shortestPaths(0);
+        long grows = workspace.getGrowCount();
+
+        for (int seed = 2; seed < 50; seed++) {
+            Graph dag = GraphGenerator.randomDag(16 + seed, 4 * (16 + seed), 9, seed);
+            new TarjanSCC(dag, workspace).findSCCs();
+            new KahnTopologicalSort(dag, workspace).topologicalSort();
+            new DAGShortestPath(dag, workspace).shortestPaths(0);
+        }
+        assertEquals(grows, workspace.getGrowCount());
+    }
+
+    // A cyclic graph is still rejected when ordering in workspace buffers
+    @Test(expected = IllegalArgumentException.class)
+    public void testCyclicGraphRejected() {
+        Graph graph = new Graph(3, true);
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(1, 2, 1);
+        graph.addEdge(2, 0, 1);
+        new DAGShortestPath(graph, new AlgorithmWorkspace()).shortestPaths(0);
+    }
+}
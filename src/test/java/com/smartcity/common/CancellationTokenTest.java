@@ -0,0 +1,213 @@
+package com.smartcity.common;
+
+import com.smartcity.graph.dagsp.ComponentShortestPath;
+import com.smartcity.graph.dagsp.DAGShortestPath;
+import com.smartcity.graph.dagsp.KBestPaths;
+import com.smartcity.graph.dagsp.MonteCarloScheduleRisk;
+import com.smartcity.graph.dagsp.PairPathQuery;
+import com.smartcity.graph.dagsp.ScenarioEvaluator;
+import com.smartcity.graph.reach.MultiSourceReachability;
+import com.smartcity.graph.reorder.VertexReordering;
+import com.smartcity.graph.scc.CondensationGraph;
+import com.smartcity.graph.scc.CycleDiagnosis;
+import com.smartcity.graph.scc.PartitionedSCC;
+import com.smartcity.graph.scc.SemiExternalSCC;
+import com.smartcity.graph.scc.TarjanSCC;
+import com.smartcity.graph.scc.TransitiveReduction;
+import com.smartcity.graph.topo.ComponentTopologicalSort;
+import com.smartcity.graph.topo.KahnTopologicalSort;
+import com.smartcity.graph.wcc.WeaklyConnectedComponents;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+public class CancellationTokenTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // Run an engine on a cancelled token and expect it to stop
+    private void assertCancels(Runnable run) {
+        try {
+            run.run();
+            fail("Expected CancellationException");
+        } catch (CancellationException expected) {
+        }
+    }
+
+    // Progress totals are exact once a run completes, and grow monotonically
+    @Test
+    public void testProgressTotals() {
+        Graph graph = GraphGenerator.randomGraph(5000, 20000, 9, 1L);
+        List<long[]> reports = new ArrayList<>();
+        CancellationToken token = CancellationToken.create()
+                .withProgress((vertices, edges) -> reports.add(new long[] {vertices, edges}));
+        TarjanSCC tarjan = new TarjanSCC(graph);
+        tarjan.setCancellationToken(token);
+        tarjan.findSCCs();
+
+        assertEquals(5000, token.getVerticesFinished());
+        assertEquals(20000, token.getEdgesScanned());
+        assertTrue(reports.size() >= 20000 / CancellationToken.CHECK_INTERVAL);
+        for (int i = 1; i < reports.size(); i++) {
+            assertTrue(reports.get(i)[0] >= reports.get(i - 1)[0]);
+            assertTrue(reports.get(i)[1] > reports.get(i - 1)[1]);
+        }
+        assertArrayEquals(new long[] {5000, 20000}, reports.get(reports.size() - 1));
+
+        // Totals accumulate over algorithms sharing the token
+        Graph dag = GraphGenerator.randomDag(5000, 20000, 9, 1L);
+        CancellationToken pipeline = CancellationToken.create();
+        KahnTopologicalSort kahn = new KahnTopologicalSort(dag);
+        kahn.setCancellationToken(pipeline);
+        List<Integer> order = kahn.topologicalSort().getOrder();
+        DAGShortestPath dagsp = new DAGShortestPath(dag);
+        dagsp.setCancellationToken(pipeline);
+        dagsp.shortestPaths(order.get(0));
+        assertEquals(10000, pipeline.getVerticesFinished());
+        assertTrue(pipeline.getEdgesScanned() >= 40000);
+    }
+
+    // A cancelled token stops every algorithm at its first checkpoint
+    @Test
+    public void testCancelled() {
+        Graph graph = GraphGenerator.randomGraph(5000, 20000, 9, 2L);
+        CancellationToken token = CancellationToken.create();
+        token.cancel();
+
+        TarjanSCC tarjan = new TarjanSCC(graph);
+        tarjan.setCancellationToken(token);
+        try {
+            tarjan.findSCCs();
+            fail("Expected CancellationException");
+        } catch (CancellationException e) {
+            assertEquals(CancellationToken.CHECK_INTERVAL, token.getEdgesScanned());
+        }
+
+        CycleDiagnosis diagnosis = new CycleDiagnosis(graph);
+        diagnosis.setCancellationToken(token);
+        try {
+            diagnosis.diagnose();
+            fail("Expected CancellationException");
+        } catch (CancellationException expected) {
+        }
+
+        try {
+            new ComponentShortestPath(graph, token);
+            fail("Expected CancellationException");
+        } catch (CancellationException expected) {
+        }
+    }
+
+    // Critical path search checks between sources, so even small graphs honor a deadline
+    @Test(expected = CancellationException.class)
+    public void testDeadline() throws InterruptedException {
+        CancellationToken token = CancellationToken.withDeadline(1, TimeUnit.MILLISECONDS);
+        Thread.sleep(5);
+        assertTrue(token.isCancelled());
+        DAGShortestPath dagsp = new DAGShortestPath(GraphGenerator.randomDag(100, 300, 9, 3L));
+        dagsp.setCancellationToken(token);
+        dagsp.findCriticalPath();
+    }
+
+    // Path, reachability, reduction, sort, sharding, reordering, simulation and external SCC engines stop too
+    @Test
+    public void testCancelledEngines() throws IOException {
+        // Every vertex reaches the next eight, so any query from 0 to the end scans every edge
+        Graph dag = new Graph(1000, true);
+        for (int u = 0; u < 1000; u++) {
+            for (int v = u + 1; v <= Math.min(999, u + 8); v++) {
+                dag.addEdge(u, v, 1 + (u + v) % 5);
+            }
+        }
+        CancellationToken token = CancellationToken.create();
+        token.cancel();
+
+        KBestPaths kBest = new KBestPaths(dag);
+        kBest.setCancellationToken(token);
+        assertCancels(() -> kBest.longestPaths(3));
+        PairPathQuery pair = new PairPathQuery(dag);
+        pair.setCancellationToken(token);
+        assertCancels(() -> pair.shortestPath(0, 999));
+        MultiSourceReachability reach = new MultiSourceReachability();
+        reach.setCancellationToken(token);
+        assertCancels(() -> reach.reachFrom(dag, new int[] {0, 1}));
+        TransitiveReduction reduction = new TransitiveReduction();
+        reduction.setCancellationToken(token);
+        assertCancels(() -> reduction.reduce(dag));
+        ComponentTopologicalSort componentTopo = new ComponentTopologicalSort(
+                new CondensationGraph(dag, new TarjanSCC(dag).findSCCs().getComponents()));
+        componentTopo.setCancellationToken(token);
+        assertCancels(componentTopo::topologicalSort);
+        WeaklyConnectedComponents wcc = new WeaklyConnectedComponents(dag, 2);
+        wcc.setCancellationToken(token);
+        assertCancels(wcc::findComponents);
+        assertCancels(() -> VertexReordering.of(dag, VertexReordering.Strategy.RCM, token));
+        assertCancels(() -> VertexReordering.of(dag, VertexReordering.Strategy.DEGREE, token));
+        MonteCarloScheduleRisk risk = new MonteCarloScheduleRisk(dag,
+                MonteCarloScheduleRisk.DurationModel.deterministic());
+        risk.setCancellationToken(token);
+        assertCancels(() -> risk.simulate(10, 1L, 2));
+        ScenarioEvaluator evaluator = new ScenarioEvaluator(dag);
+        evaluator.setCancellationToken(token);
+        assertCancels(() -> evaluator.evaluate(Collections.singletonList(evaluator.overlay("base")), 0, 1));
+
+        Path edges = folder.getRoot().toPath().resolve("cancel.edges");
+        EdgeFile.write(edges, GraphGenerator.randomGraph(5000, 20000, 9, 6L));
+        try (EdgeFile file = EdgeFile.open(edges)) {
+            SemiExternalSCC external = new SemiExternalSCC(file);
+            external.setCancellationToken(token);
+            assertCancels(external::findSCCs);
+        }
+        PartitionedSCC partitioned = new PartitionedSCC(2, folder.newFolder("partitions").toPath());
+        partitioned.setCancellationToken(token);
+        try {
+            partitioned.findSCCs(edges);
+            fail("Expected CancellationException");
+        } catch (CancellationException expected) {
+        }
+    }
+
+    // Cancellation from another thread stops a running critical path search
+    @Test
+    public void testCancelFromAnotherThread() throws InterruptedException {
+        Graph dag = GraphGenerator.randomDag(3000, 12000, 9, 4L);
+        CancellationToken token = CancellationToken.create();
+        DAGShortestPath dagsp = new DAGShortestPath(dag);
+        dagsp.setCancellationToken(token);
+        Thread canceller = new Thread(() -> {
+            while (token.getVerticesFinished() < 3000) {
+                Thread.yield();
+            }
+            token.cancel();
+        });
+        canceller.start();
+        try {
+            dagsp.findCriticalPath();
+            fail("Expected CancellationException");
+        } catch (CancellationException e) {
+            assertTrue(token.getVerticesFinished() < 3000L * 3000);
+        } finally {
+            canceller.join();
+        }
+    }
+
+    // The shared NONE token never fires, even when cancelled, and keeps no totals
+    @Test
+    public void testNone() {
+        Graph graph = GraphGenerator.randomGraph(2000, 10000, 9, 5L);
+        CancellationToken.NONE.cancel();
+        TarjanSCC tarjan = new TarjanSCC(graph);
+        tarjan.setCancellationToken(CancellationToken.NONE);
+        assertEquals(new TarjanSCC(graph).findSCCs().getComponents(), tarjan.findSCCs().getComponents());
+        assertFalse(CancellationToken.NONE.isCancelled());
+        assertEquals(0, CancellationToken.NONE.getEdgesScanned());
+    }
+}
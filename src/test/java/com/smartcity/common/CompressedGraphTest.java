@@ -0,0 +1,99 @@
+package com.smartcity.common;
+
+import com.smartcity.graph.dagsp.DAGShortestPath;
+import com.smartcity.graph.scc.TarjanSCC;
+import com.smartcity.graph.topo.KahnTopologicalSort;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+public class CompressedGraphTest {
+
+    private Map<Integer, List<Integer>> sortedAdjacency(Graph graph, int u) {
+        Map<Integer, List<Integer>> byTarget = new TreeMap<>();
+        for (Graph.Edge edge : graph.getAdjacentEdges(u)) {
+            byTarget.computeIfAbsent(edge.to, k -> new ArrayList<>()).add(edge.weight);
+        }
+        for (List<Integer> weights : byTarget.values()) {
+            Collections.sort(weights);
+        }
+        return byTarget;
+    }
+
+    // Decoded neighbor lists contain the same (target, weight) pairs
+    @Test
+    public void testRoundTrip() {
+        Graph graph = GraphGenerator.randomGraph(500, 4000, 1000, 9L);
+        graph.addEdge(0, 0, -7);
+        graph.addEdge(499, 0, Integer.MAX_VALUE);
+        CompressedGraph compressed = CompressedGraph.of(graph);
+
+        assertEquals(graph.getVertices(), compressed.getVertices());
+        assertEquals(4002, compressed.getEdgeCount());
+        for (int u = 0; u < graph.getVertices(); u++) {
+            assertEquals(sortedAdjacency(graph, u), sortedAdjacency(compressed, u));
+        }
+        assertTrue(compressed.getBitsPerEdge() < 64);
+    }
+
+    // Neighbor lists come back sorted and the cursor agrees with the list view
+    @Test
+    public void testCursorAndOrdering() {
+        Graph graph = new Graph(4, true);
+        graph.addEdge(2, 3, 5);
+        graph.addEdge(2, 0, 1);
+        graph.addEdge(2, 1, 2);
+        CompressedGraph compressed = CompressedGraph.of(graph);
+
+        CompressedGraph.NeighborCursor cursor = compressed.cursor().reset(2);
+        int[] expectedTargets = {0, 1, 3};
+        int[] expectedWeights = {1, 2, 5};
+        for (int i = 0; i < 3; i++) {
+            assertTrue(cursor.next());
+            assertEquals(expectedTargets[i], cursor.target());
+            assertEquals(expectedWeights[i], cursor.weight());
+            assertEquals(expectedTargets[i], compressed.getAdjacentEdges(2).get(i).to);
+        }
+        assertFalse(cursor.next());
+        assertEquals(0, compressed.degree(0));
+    }
+
+    // Existing algorithms run unchanged on the compressed representation
+    @Test
+    public void testAlgorithmsOnCompressedGraph() {
+        Graph graph = GraphGenerator.randomGraph(300, 900, 9, 4L);
+        CompressedGraph compressed = CompressedGraph.of(graph);
+
+        assertEquals(new TarjanSCC(graph).findSCCs().getComponents().size(),
+                new TarjanSCC(compressed).findSCCs().getComponents().size());
+
+        Graph dag = GraphGenerator.randomDag(300, 900, 9, 4L);
+        CompressedGraph compressedDag = CompressedGraph.of(dag);
+        assertTrue(new KahnTopologicalSort(compressedDag).topologicalSort().isDAG());
+        assertArrayEquals(new DAGShortestPath(dag).shortestPaths(0).getDistances(),
+                new DAGShortestPath(compressedDag).shortestPaths(0).getDistances());
+    }
+
+    // Edge lists are read sequentially: a 200k-edge star would take minutes if every edge decoded from the list start
+    @Test(timeout = 10000)
+    public void testHighDegreeScansAreLinear() {
+        int leaves = 200_000;
+        Graph star = new Graph(leaves + 1, true);
+        for (int v = 1; v <= leaves; v++) {
+            star.addEdge(0, v, v % 7);
+        }
+        CompressedGraph compressed = CompressedGraph.of(star);
+
+        assertTrue(new KahnTopologicalSort(compressed).topologicalSort().isDAG());
+        assertEquals(leaves + 1, new TarjanSCC(compressed).findSCCs().getComponents().size());
+        long[] distances = new DAGShortestPath(compressed, new AlgorithmWorkspace()).shortestPaths(0).getDistances();
+        assertEquals((leaves - 1) % 7, distances[leaves - 1]);
+    }
+
+    // The compressed graph is read-only
+    @Test(expected = UnsupportedOperationException.class)
+    public void testReadOnly() {
+        CompressedGraph.of(new Graph(2, true)).addEdge(0, 1, 1);
+    }
+}
@@ -0,0 +1,94 @@
+package com.smartcity.common;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+
+public class EdgeListLoaderTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File toEdgeList(GraphLoader.GraphData data) throws IOException {
+        File file = folder.newFile();
+        try (PrintWriter out = new PrintWriter(file, "UTF-8")) {
+            Graph graph = data.graph;
+            out.println("# directed=" + graph.isDirected() + " n=" + graph.getVertices());
+            out.println("# source=" + data.source + " weight_model=" + data.weightModel);
+            for (int u = 0; u < graph.getVertices(); u++) {
+                for (Graph.Edge edge : graph.getAdjacentEdges(u)) {
+                    out.println(u + " " + edge.to + "\t" + edge.weight);
+                }
+            }
+        }
+        return file;
+    }
+
+    private void assertSameGraph(GraphLoader.GraphData expected, GraphLoader.GraphData actual) {
+        assertEquals(expected.source, actual.source);
+        assertEquals(expected.weightModel, actual.weightModel);
+        assertEquals(expected.graph.getVertices(), actual.graph.getVertices());
+        assertEquals(expected.graph.isDirected(), actual.graph.isDirected());
+        for (int u = 0; u < expected.graph.getVertices(); u++) {
+            assertEquals(expected.graph.getAdjacentEdges(u).size(), actual.graph.getAdjacentEdges(u).size());
+            for (int i = 0; i < expected.graph.getAdjacentEdges(u).size(); i++) {
+                assertEquals(expected.graph.getAdjacentEdges(u).get(i).to, actual.graph.getAdjacentEdges(u).get(i).to);
+                assertEquals(expected.graph.getAdjacentEdges(u).get(i).weight,
+                        actual.graph.getAdjacentEdges(u).get(i).weight);
+            }
+        }
+    }
+
+    // Every bundled dataset loads identically from its edge-list form
+    @Test
+    public void testMatchesJsonLoader() throws IOException {
+        for (File json : new File("data").listFiles((dir, name) -> name.endsWith(".json"))) {
+            GraphLoader.GraphData expected = GraphLoader.loadFromFile(json.getPath());
+            File edgeList = toEdgeList(expected);
+
+            assertSameGraph(expected, EdgeListLoader.loadFromFile(edgeList.getPath()));
+            // Tiny pieces force many newline-aligned chunks and worker groups
+            assertSameGraph(expected, new EdgeListLoader(4, 16).load(edgeList.toPath()).getGraphData());
+        }
+    }
+
+    // Undirected lists, default weights, comments and missing header
+    @Test
+    public void testUndirectedAndDefaults() throws IOException {
+        File file = folder.newFile();
+        Files.write(file.toPath(), "# directed=false\n0 1\n\n# note\r\n1 2 -4\r\n2 2 7".getBytes("UTF-8"));
+
+        Graph expected = new Graph(3, false);
+        expected.addEdge(0, 1, 1);
+        expected.addEdge(1, 2, -4);
+        expected.addEdge(2, 2, 7);
+
+        EdgeListLoader.LoadResult result = new EdgeListLoader(3, 4).load(file.toPath());
+
+        assertSameGraph(new GraphLoader.GraphData(expected, 0, "edge"), result.getGraphData());
+        assertTrue(result.getGigabytesPerSecond() > 0);
+        assertEquals(3, result.getMetrics().getOperations(OperationType.EDGE_SCANS));
+        assertEquals(3, result.getMetrics().getOperations());
+    }
+
+    // Malformed lines are reported as IOException
+    @Test(expected = IOException.class)
+    public void testMalformedLine() throws IOException {
+        File file = folder.newFile();
+        Files.write(file.toPath(), "0 1 2\n3 x\n".getBytes("UTF-8"));
+        EdgeListLoader.loadFromFile(file.getPath());
+    }
+
+    // Ids beyond the declared vertex count are rejected
+    @Test(expected = IOException.class)
+    public void testIdOutOfRange() throws IOException {
+        File file = folder.newFile();
+        Files.write(file.toPath(), "# n=2\n0 5 1\n".getBytes("UTF-8"));
+        EdgeListLoader.loadFromFile(file.getPath());
+    }
+}
@@ -0,0 +1,123 @@
+package com.smartcity.common;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+public class GraphBuilderTest {
+
+    private List<String> adjacency(Graph graph) {
+        List<String> lines = new ArrayList<>();
+        for (int u = 0; u < graph.getVertices(); u++) {
+            StringBuilder line = new StringBuilder();
+            for (Graph.Edge edge : graph.getAdjacentEdges(u)) {
+                line.append(edge.to).append(':').append(edge.weight).append(' ');
+            }
+            lines.add(line.toString());
+        }
+        return lines;
+    }
+
+    // Parallel CSR assembly keeps insertion order, across many buffer chunks
+    @Test
+    public void testMatchesAddEdge() {
+        for (boolean directed : new boolean[] {true, false}) {
+            int n = 5000;
+            Graph expected = new Graph(n, directed);
+            GraphBuilder builder = new GraphBuilder(n, directed).parallelism(4);
+            SplittableRandom random = new SplittableRandom(7);
+            for (int i = 0; i < 200_000; i++) {
+                int u = random.nextInt(n);
+                int v = random.nextInt(n);
+                int w = random.nextInt(100);
+                expected.addEdge(u, v, w);
+                builder.addEdge(u, v, w);
+            }
+            Graph built = builder.build();
+
+            assertEquals(200_000, builder.getEdgeCount());
+            assertEquals(directed, built.isDirected());
+            assertEquals(adjacency(expected), adjacency(built));
+        }
+    }
+
+    // Sorting orders neighbors by target and keeps ties in insertion order
+    @Test
+    public void testSortNeighbors() {
+        CsrGraph csr = new GraphBuilder(3, true)
+                .sortNeighbors(true)
+                .addEdge(0, 2, 5)
+                .addEdge(0, 1, 4)
+                .addEdge(0, 2, 3)
+                .addEdge(1, 0, 1)
+                .buildCsr();
+
+        assertArrayEquals(new int[] {0, 3, 4, 4}, csr.offsets());
+        assertArrayEquals(new int[] {1, 2, 2, 0}, Arrays.copyOf(csr.targets(), 4));
+        assertArrayEquals(new int[] {4, 5, 3, 1}, Arrays.copyOf(csr.weights(), 4));
+    }
+
+    // Parallel edges collapse into one edge per merge rule
+    @Test
+    public void testMergeMultiEdges() {
+        int[] us = {0, 0, 0, 1, 1, 2};
+        int[] vs = {1, 1, 2, 2, 2, 0};
+        int[] ws = {7, 3, 1, 4, 6, 9};
+        int[][] expectedWeights = {
+            {3, 1, 4, 9},
+            {7, 1, 6, 9},
+            {10, 1, 10, 9}
+        };
+        GraphBuilder.MultiEdgeMerge[] rules = GraphBuilder.MultiEdgeMerge.values();
+        for (int r = 0; r < rules.length; r++) {
+            CsrGraph csr = new GraphBuilder(3, true)
+                    .parallelism(2)
+                    .mergeMultiEdges(rules[r])
+                    .addEdges(us, vs, ws)
+                    .buildCsr();
+            assertArrayEquals(new int[] {0, 2, 3, 4}, csr.offsets());
+            assertArrayEquals(new int[] {1, 2, 2, 0}, csr.targets());
+            assertArrayEquals(rules[r].name(), expectedWeights[r], csr.weights());
+        }
+    }
+
+    // Built graphs keep no CSR copy: every flattening sees the current edges, however they changed
+    @Test
+    public void testCsrFollowsEdits() {
+        Graph graph = new GraphBuilder(3, true).addEdge(0, 1, 2).build();
+        CsrGraph csr = CsrGraph.of(graph);
+        assertNotSame(csr, CsrGraph.of(graph));
+
+        graph.addEdge(1, 2, 3);
+        assertEquals(2, CsrGraph.of(graph).getEdgeCount());
+        graph.getAdjacentEdges(1).clear();
+        assertEquals(1, CsrGraph.of(graph).getEdgeCount());
+    }
+
+    // The parallel transpose (above the threshold) equals the sequential one and getReverse reverses every edge
+    @Test
+    public void testTransposeAndReverse() {
+        Graph graph = GraphGenerator.randomGraph(2000, 100_000, 50, 3L);
+        CsrGraph csr = CsrGraph.of(graph);
+        CsrGraph sequential = csr.transpose();
+        CsrGraph parallel = csr.transpose(4);
+        assertArrayEquals(sequential.offsets(), parallel.offsets());
+        assertArrayEquals(sequential.targets(), parallel.targets());
+        assertArrayEquals(sequential.weights(), parallel.weights());
+
+        Graph expected = new Graph(graph.getVertices(), true);
+        for (int u = 0; u < graph.getVertices(); u++) {
+            for (Graph.Edge edge : graph.getAdjacentEdges(u)) {
+                expected.addEdge(edge.to, u, edge.weight);
+            }
+        }
+        assertEquals(adjacency(expected), adjacency(graph.getReverse()));
+    }
+
+    // Out-of-range endpoints are rejected when added
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsOutOfRange() {
+        new GraphBuilder(2, true).addEdge(0, 2, 1);
+    }
+}
@@ -0,0 +1,118 @@
+package com.smartcity.common;
+
+import com.smartcity.graph.scc.TarjanSCC;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+
+public class LabelDictionaryTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File writeJson(String json) throws IOException {
+        File file = folder.newFile();
+        Files.write(file.toPath(), json.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    // Ids are sorted ranks of distinct labels and map back both ways
+    @Test
+    public void testRoundTrip() {
+        LabelDictionary dictionary = LabelDictionary.of(Arrays.asList(
+                "DIST-04/ROAD-1187", "DIST-01/ROAD-0002", "Straße-7", "DIST-04/ROAD-1187", ""));
+
+        assertEquals(4, dictionary.size());
+        assertEquals("", dictionary.labelOf(0));
+        assertEquals("DIST-01/ROAD-0002", dictionary.labelOf(1));
+        assertEquals("DIST-04/ROAD-1187", dictionary.labelOf(2));
+        assertEquals("Straße-7", dictionary.labelOf(3));
+        for (int id = 0; id < dictionary.size(); id++) {
+            assertEquals(id, dictionary.idOf(dictionary.labelOf(id)));
+        }
+        assertEquals(-1, dictionary.idOf("DIST-04/ROAD-1188"));
+        assertEquals(Arrays.asList("Straße-7", ""), dictionary.labelsOf(Arrays.asList(3, 0)));
+    }
+
+    // Many labels stay compact compared to boxed HashMap entries
+    @Test
+    public void testLargeDictionary() {
+        List<String> labels = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            labels.add(String.format("DIST-%02d/ROAD-%05d", i % 97, i));
+        }
+        LabelDictionary dictionary = LabelDictionary.of(labels);
+
+        assertEquals(labels.size(), dictionary.size());
+        for (String label : labels) {
+            assertEquals(label, dictionary.labelOf(dictionary.idOf(label)));
+        }
+        assertTrue(dictionary.getFootprintBytes() < 25L * labels.size());
+    }
+
+    // String ids in JSON are remapped to dense ints and mapped back at output
+    @Test
+    public void testLoadLabeledGraph() throws IOException {
+        File file = writeJson("{\"directed\": true, \"source\": \"depot\","
+                + " \"nodes\": [\"idle\"],"
+                + " \"edges\": ["
+                + "{\"u\": \"depot\", \"v\": \"road-2\", \"w\": 3},"
+                + "{\"u\": \"road-2\", \"v\": \"road-1\", \"w\": 1},"
+                + "{\"u\": \"road-1\", \"v\": \"road-2\", \"w\": 2}]}");
+        GraphLoader.GraphData data = GraphLoader.loadFromFile(file.getPath());
+
+        assertNotNull(data.labels);
+        assertEquals(4, data.graph.getVertices());
+        assertEquals("depot", data.labelOf(data.source));
+        TarjanSCC.SCCResult scc = new TarjanSCC(data.graph).findSCCs();
+        Set<String> cycle = null;
+        for (List<Integer> component : scc.getComponents()) {
+            if (component.size() == 2) {
+                cycle = new HashSet<>(data.labels.labelsOf(component));
+            }
+        }
+        assertEquals(new HashSet<>(Arrays.asList("road-1", "road-2")), cycle);
+    }
+
+    // Integer datasets keep loading without a dictionary
+    @Test
+    public void testUnlabeledGraph() throws IOException {
+        GraphLoader.GraphData data = GraphLoader.loadFromFile("data/small_dag_1.json");
+        assertNull(data.labels);
+        assertEquals(String.valueOf(data.source), data.labelOf(data.source));
+    }
+
+    // An unknown source label is rejected
+    @Test(expected = IOException.class)
+    public void testUnknownSource() throws IOException {
+        File file = writeJson("{\"directed\": true, \"source\": \"x\","
+                + " \"edges\": [{\"u\": \"a\", \"v\": \"b\", \"w\": 1}]}");
+        GraphLoader.loadFromFile(file.getPath());
+    }
+
+    // Node weights load by label, and the node model requires them
+    @Test
+    public void testNodeWeights() throws IOException {
+        File file = writeJson("{\"directed\": true, \"source\": \"a\", \"weight_model\": \"node\","
+                + " \"node_weights\": {\"a\": 4, \"b\": 7},"
+                + " \"edges\": [{\"u\": \"a\", \"v\": \"b\", \"w\": 1}]}");
+        GraphLoader.GraphData data = GraphLoader.loadFromFile(file.getPath());
+        assertEquals(7, data.graph.getNodeWeight(data.labels.idOf("b")));
+
+        File missing = writeJson("{\"directed\": true, \"n\": 2, \"weight_model\": \"node\","
+                + " \"edges\": [{\"u\": 0, \"v\": 1, \"w\": 1}]}");
+        try {
+            GraphLoader.loadFromFile(missing.getPath());
+            fail("Expected missing node_weights to be rejected");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("node_weights"));
+        }
+    }
+}
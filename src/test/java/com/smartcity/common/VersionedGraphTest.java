@@ -0,0 +1,155 @@
+package com.smartcity.common;
+
+import com.smartcity.graph.dagsp.DAGShortestPath;
+import com.smartcity.graph.scc.TarjanSCC;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class VersionedGraphTest {
+
+    // A snapshot keeps seeing its version while writers publish new ones
+    @Test
+    public void testSnapshotIsolation() {
+        VersionedGraph graph = new VersionedGraph(200, true);
+        graph.batch().addEdge(0, 1, 5).addEdge(1, 2, 6).commit();
+
+        try (VersionedGraph.Snapshot before = graph.snapshot()) {
+            assertEquals(2, graph.addEdge(0, 150, 7));
+            assertEquals(1, before.getVersion());
+            assertEquals(1, before.getAdjacentEdges(0).size());
+            assertEquals(2, before.getEdgeCount());
+
+            try (VersionedGraph.Snapshot after = graph.snapshot()) {
+                assertEquals(2, after.getVersion());
+                assertEquals(2, after.getAdjacentEdges(0).size());
+                assertEquals(150, after.getAdjacentEdges(0).get(1).to);
+                // Untouched blocks are shared between versions
+                assertSame(before.getAdjacentEdges(130), after.getAdjacentEdges(130));
+            }
+        }
+    }
+
+    // Existing algorithms run on snapshots and agree with the plain graph
+    @Test
+    public void testAlgorithmsOnSnapshot() {
+        Graph plain = GraphGenerator.randomGraph(500, 1500, 9, 5L);
+        VersionedGraph versioned = new VersionedGraph(500, true);
+        VersionedGraph.Batch batch = versioned.batch();
+        for (int u = 0; u < plain.getVertices(); u++) {
+            for (Graph.Edge edge : plain.getAdjacentEdges(u)) {
+                batch.addEdge(u, edge.to, edge.weight);
+            }
+        }
+        assertEquals(1500, batch.size());
+        batch.commit();
+
+        try (VersionedGraph.Snapshot snapshot = versioned.snapshot()) {
+            assertEquals(new TarjanSCC(plain).findSCCs().getComponents(),
+                    new TarjanSCC(snapshot).findSCCs().getComponents());
+        }
+        try (VersionedGraph.Snapshot copy = VersionedGraph.of(plain).snapshot()) {
+            assertEquals(0, copy.getVersion());
+            assertEquals(1500, copy.getEdgeCount());
+        }
+    }
+
+    // Superseded versions stay pinned only while a snapshot is open
+    @Test
+    public void testPinnedVersions() {
+        VersionedGraph graph = new VersionedGraph(4, false);
+        VersionedGraph.Snapshot first = graph.snapshot();
+        VersionedGraph.Snapshot second = graph.snapshot();
+        graph.addEdge(0, 1, 1);
+        assertEquals(1, graph.getPinnedOldVersions());
+
+        first.close();
+        first.close();
+        assertEquals(1, graph.getPinnedOldVersions());
+        second.close();
+        assertEquals(0, graph.getPinnedOldVersions());
+
+        try (VersionedGraph.Snapshot latest = graph.snapshot()) {
+            assertEquals(0, graph.getPinnedOldVersions());
+            assertEquals(2, latest.getEdgeCount());
+            assertEquals(0, latest.getAdjacentEdges(1).get(0).to);
+        }
+    }
+
+    // Readers never observe half of a batch while a writer commits concurrently
+    @Test
+    public void testConcurrentReadersSeeWholeBatches() throws Exception {
+        int n = 1000;
+        VersionedGraph graph = new VersionedGraph(n, true);
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<String> failure = new AtomicReference<>();
+
+        Thread writer = new Thread(() -> {
+            SplittableRandom random = new SplittableRandom(1);
+            for (int i = 0; i < 2000; i++) {
+                int u = random.nextInt(n);
+                int v = random.nextInt(n);
+                graph.batch().addEdge(u, v, 1).addEdge(v, u, 1).commit();
+            }
+            done.set(true);
+        });
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < 3; r++) {
+            readers.add(new Thread(() -> {
+                while (!done.get() && failure.get() == null) {
+                    try (VersionedGraph.Snapshot snapshot = graph.snapshot()) {
+                        long arcs = 0;
+                        for (int u = 0; u < n; u++) {
+                            arcs += snapshot.getAdjacentEdges(u).size();
+                        }
+                        if (arcs != snapshot.getEdgeCount() || arcs != 2 * snapshot.getVersion()) {
+                            failure.set("version " + snapshot.getVersion() + " has " + arcs + " arcs");
+                        }
+                    }
+                }
+            }));
+        }
+        writer.start();
+        readers.forEach(Thread::start);
+        writer.join();
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        assertNull(failure.get());
+        assertEquals(2000, graph.getVersion());
+        assertEquals(0, graph.getPinnedOldVersions());
+    }
+
+    // Task durations are copied into version 0 and versioned like edges
+    @Test
+    public void testNodeWeights() {
+        Graph chain = new Graph(3, true);
+        chain.addEdge(0, 1, 1);
+        chain.addEdge(1, 2, 1);
+        chain.setWeightModel("node");
+        chain.setNodeWeight(0, 5);
+        chain.setNodeWeight(1, 7);
+        chain.setNodeWeight(2, 11);
+        VersionedGraph versioned = VersionedGraph.of(chain);
+
+        try (VersionedGraph.Snapshot before = versioned.snapshot()) {
+            assertEquals(23, new DAGShortestPath(chain).longestPaths(0).getDistances()[2]);
+            assertEquals(23, new DAGShortestPath(before).longestPaths(0).getDistances()[2]);
+            versioned.batch().setNodeWeight(1, 1).commit();
+            assertEquals(7, before.getNodeWeight(1));
+            try (VersionedGraph.Snapshot after = versioned.snapshot()) {
+                assertEquals(17, new DAGShortestPath(after).longestPaths(0).getDistances()[2]);
+            }
+        }
+    }
+
+    // Snapshots are read-only
+    @Test(expected = UnsupportedOperationException.class)
+    public void testSnapshotReadOnly() {
+        new VersionedGraph(2, true).snapshot().addEdge(0, 1, 1);
+    }
+}
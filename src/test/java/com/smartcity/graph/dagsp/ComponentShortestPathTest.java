@@ -0,0 +1,190 @@
+package com.smartcity.graph.dagsp;
+
+import com.smartcity.common.Graph;
+import com.smartcity.common.GraphGenerator;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class ComponentShortestPathTest {
+
+    // Plain Bellman-Ford over the whole graph
+    private long[] reference(Graph graph, int source) {
+        int n = graph.getVertices();
+        long[] dist = new long[n];
+        Arrays.fill(dist, ComponentShortestPath.UNREACHABLE);
+        dist[source] = 0;
+        for (int round = 0; round < n; round++) {
+            boolean changed = false;
+            for (int u = 0; u < n; u++) {
+                if (dist[u] == ComponentShortestPath.UNREACHABLE) {
+                    continue;
+                }
+                for (Graph.Edge edge : graph.getAdjacentEdges(u)) {
+                    if (dist[u] + edge.weight < dist[edge.to]) {
+                        dist[edge.to] = dist[u] + edge.weight;
+                        changed = true;
+                    }
+                }
+            }
+            if (!changed) {
+                break;
+            }
+        }
+        return dist;
+    }
+
+    private void assertPathsMatch(Graph graph, ComponentShortestPath.TaskPathResult result) {
+        for (int v = 0; v < graph.getVertices(); v++) {
+            List<Integer> path = result.reconstructPath(v);
+            if (!result.isReachable(v)) {
+                assertTrue(path.isEmpty());
+                continue;
+            }
+            long total = 0;
+            for (int i = 0; i + 1 < path.size(); i++) {
+                long best = Long.MAX_VALUE;
+                for (Graph.Edge edge : graph.getAdjacentEdges(path.get(i))) {
+                    if (edge.to == path.get(i + 1)) {
+                        best = Math.min(best, edge.weight);
+                    }
+                }
+                total += best;
+            }
+            assertEquals(result.getDistances()[v], total);
+        }
+    }
+
+    // Many medium SCCs chained by forward edges, with a feasible potential on every edge
+    private Graph clusteredGraph(int clusters, int size, boolean negativeEdges, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int n = clusters * size;
+        int[] potential = new int[n];
+        for (int v = 0; v < n; v++) {
+            potential[v] = negativeEdges ? random.nextInt(20) : 0;
+        }
+        Graph graph = new Graph(n, true);
+        for (int c = 0; c < clusters; c++) {
+            int base = c * size;
+            for (int i = 0; i < size; i++) {
+                int u = base + i;
+                int v = base + (i + 1) % size;
+                graph.addEdge(u, v, 1 + random.nextInt(9) + potential[u] - potential[v]);
+                int w = base + random.nextInt(size);
+                graph.addEdge(u, w, 1 + random.nextInt(9) + potential[u] - potential[w]);
+                if (c + 1 < clusters && random.nextInt(4) == 0) {
+                    int x = (c + 1 + random.nextInt(Math.min(3, clusters - c - 1))) * size + random.nextInt(size);
+                    graph.addEdge(u, x, 1 + random.nextInt(9) + potential[u] - potential[x]);
+                }
+            }
+        }
+        return graph;
+    }
+
+    // Task distances and paths match a whole-graph Bellman-Ford
+    @Test
+    public void testMatchesReference() {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (boolean negativeEdges : new boolean[] {false, true}) {
+                Graph graph = clusteredGraph(60, 25, negativeEdges, 3L);
+                ComponentShortestPath engine = new ComponentShortestPath(graph);
+                assertEquals(60, engine.getCondensation().getComponentCount());
+
+                ComponentShortestPath.TaskPathResult result = engine.shortestPaths(5, executor);
+                assertArrayEquals(reference(graph, 5), result.getDistances());
+                assertPathsMatch(graph, result);
+            }
+
+            Graph random = GraphGenerator.randomGraph(300, 700, 9, 11L);
+            ComponentShortestPath.TaskPathResult result = new ComponentShortestPath(random).shortestPaths(0, executor);
+            assertArrayEquals(reference(random, 0), result.getDistances());
+            assertPathsMatch(random, result);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // Paths run through the inside of a cyclic task group, not just between groups
+    @Test
+    public void testPathInsideComponent() {
+        Graph graph = new Graph(5, true);
+        graph.addEdge(0, 1, 2);
+        graph.addEdge(1, 2, 3);
+        graph.addEdge(2, 3, 1);
+        graph.addEdge(3, 1, 1);
+        graph.addEdge(1, 3, 10);
+        graph.addEdge(3, 4, 2);
+
+        ComponentShortestPath.TaskPathResult result = new ComponentShortestPath(graph).shortestPaths(0);
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4), result.reconstructPath(4));
+        assertEquals(8, result.getDistances()[4]);
+        assertEquals(6, result.getMetrics().getOperations());
+    }
+
+    // A reachable negative cycle is reported, an unreachable one is ignored
+    @Test
+    public void testNegativeCycle() {
+        Graph graph = new Graph(6, true);
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(1, 2, -3);
+        graph.addEdge(2, 1, 1);
+        graph.addEdge(3, 3, -1);
+        graph.addEdge(4, 5, -2);
+
+        ComponentShortestPath engine = new ComponentShortestPath(graph);
+        try {
+            engine.shortestPaths(0);
+            fail("Expected negative cycle");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().contains("Negative cycle"));
+        }
+        ComponentShortestPath.TaskPathResult result = engine.shortestPaths(4);
+        assertEquals(-2, result.getDistances()[5]);
+        assertFalse(result.isReachable(1));
+        assertFalse(result.isReachable(3));
+    }
+
+    // On a DAG every component is trivial and distances match DAGShortestPath under both weight models
+    @Test
+    public void testDagMatchesDagShortestPath() {
+        Graph dag = GraphGenerator.randomDag(400, 1600, 9, 12L);
+        assertArrayEquals(new DAGShortestPath(dag).shortestPaths(0).getDistances(),
+                new ComponentShortestPath(dag).shortestPaths(0).getDistances());
+
+        dag.setWeightModel("node");
+        for (int v = 0; v < dag.getVertices(); v++) {
+            dag.setNodeWeight(v, 1 + v % 7);
+        }
+        assertArrayEquals(new DAGShortestPath(dag).shortestPaths(0).getDistances(),
+                new ComponentShortestPath(dag).shortestPaths(0).getDistances());
+    }
+
+    // Under the node model a path through a cyclic group costs the durations of its tasks
+    @Test
+    public void testNodeModel() {
+        Graph graph = new Graph(4, true);
+        graph.addEdge(0, 1, 100);
+        graph.addEdge(1, 2, 100);
+        graph.addEdge(2, 1, 100);
+        graph.addEdge(2, 3, 100);
+        graph.setWeightModel("node");
+        int[] durations = {5, 7, 11, 2};
+        for (int v = 0; v < 4; v++) {
+            graph.setNodeWeight(v, durations[v]);
+        }
+        ComponentShortestPath.TaskPathResult result = new ComponentShortestPath(graph).shortestPaths(0);
+        assertArrayEquals(new long[] {5, 12, 23, 25}, result.getDistances());
+        assertEquals(Arrays.asList(0, 1, 2, 3), result.reconstructPath(3));
+
+        graph.setWeightModel("duration");
+        try {
+            new ComponentShortestPath(graph);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+}
@@ -1,9 +1,12 @@
 package com.smartcity.graph.dagsp;
 
+import com.smartcity.common.CompressedGraph;
 import com.smartcity.common.Graph;
+import com.smartcity.common.GraphGenerator;
 import org.junit.Test;
 import static org.junit.Assert.*;
 
+import java.util.Arrays;
 import java.util.List;
 
 public class DAGShortestPathTest {
@@ -104,8 +107,8 @@ public class DAGShortestPathTest {
         DAGShortestPath.PathResult result = dagsp.shortestPaths(2);
         
         assertEquals(0, result.getDistances()[2]);
-        assertEquals(Integer.MAX_VALUE, result.getDistances()[0]);
-        assertEquals(Integer.MAX_VALUE, result.getDistances()[1]);
+        assertEquals(DAGShortestPath.UNREACHABLE_SHORTEST, result.getDistances()[0]);
+        assertEquals(DAGShortestPath.UNREACHABLE_SHORTEST, result.getDistances()[1]);
     }
     
     // Test unreachable vertices
@@ -120,8 +123,8 @@ public class DAGShortestPathTest {
         
         assertEquals(0, result.getDistances()[0]);
         assertEquals(2, result.getDistances()[1]);
-        assertEquals(Integer.MAX_VALUE, result.getDistances()[2]);
-        assertEquals(Integer.MAX_VALUE, result.getDistances()[3]);
+        assertEquals(DAGShortestPath.UNREACHABLE_SHORTEST, result.getDistances()[2]);
+        assertEquals(DAGShortestPath.UNREACHABLE_SHORTEST, result.getDistances()[3]);
     }
     
     // Test longest path equals shortest path
@@ -137,4 +140,76 @@ public class DAGShortestPathTest {
         
         assertEquals(shortest.getDistances()[2], longest.getDistances()[2]);
     }
+    
+    // Node model adds task durations, including the source's own
+    @Test
+    public void testNodeWeightModel() {
+        Graph graph = new Graph(4, true);
+        graph.addEdge(0, 1, 100);
+        graph.addEdge(0, 2, 100);
+        graph.addEdge(1, 3, 100);
+        graph.addEdge(2, 3, 100);
+        graph.setWeightModel("node");
+        int[] durations = {2, 5, 1, 3};
+        for (int v = 0; v < 4; v++) {
+            graph.setNodeWeight(v, durations[v]);
+        }
+        
+        DAGShortestPath dagsp = new DAGShortestPath(graph);
+        DAGShortestPath.PathResult shortest = dagsp.shortestPaths(0);
+        DAGShortestPath.PathResult longest = dagsp.longestPaths(0);
+        
+        assertEquals(2, shortest.getDistances()[0]);
+        assertEquals(6, shortest.getDistances()[3]);
+        assertEquals(Arrays.asList(0, 2, 3), shortest.reconstructPath(3));
+        assertEquals(10, longest.getDistances()[3]);
+        assertEquals(10, dagsp.findCriticalPath().getLength());
+    }
+    
+    // Long chains of large weights do not overflow
+    @Test
+    public void testNoOverflow() {
+        int n = 1000;
+        Graph graph = new Graph(n, true);
+        for (int i = 0; i + 1 < n; i++) {
+            graph.addEdge(i, i + 1, Integer.MAX_VALUE);
+        }
+        
+        DAGShortestPath dagsp = new DAGShortestPath(graph);
+        long expected = (long) Integer.MAX_VALUE * (n - 1);
+        assertEquals(expected, dagsp.shortestPaths(0).getDistances()[n - 1]);
+        assertEquals(expected, dagsp.longestPaths(0).getDistances()[n - 1]);
+        assertFalse(dagsp.longestPaths(5).isReachable(0));
+        assertEquals(DAGShortestPath.UNREACHABLE_LONGEST, dagsp.longestPaths(5).getDistances()[0]);
+    }
+    
+    // Compressed graphs are relaxed through their cursor with the same results, in both weight models
+    @Test
+    public void testCompressedGraph() {
+        Graph graph = GraphGenerator.randomDag(500, 2000, 9, 3L);
+        for (String model : new String[] {"edge", "node"}) {
+            graph.setWeightModel(model);
+            for (int v = 0; v < graph.getVertices(); v++) {
+                graph.setNodeWeight(v, v % 7);
+            }
+            CompressedGraph compressed = CompressedGraph.of(graph);
+            DAGShortestPath expected = new DAGShortestPath(graph);
+            DAGShortestPath actual = new DAGShortestPath(compressed);
+            for (int source : new int[] {0, 17}) {
+                assertArrayEquals(expected.shortestPaths(source).getDistances(),
+                        actual.shortestPaths(source).getDistances());
+                assertArrayEquals(expected.longestPaths(source).getDistances(),
+                        actual.longestPaths(source).getDistances());
+            }
+        }
+    }
+    
+    // Unknown weight models are rejected rather than silently treated as edge weights
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownWeightModel() {
+        Graph graph = new Graph(2, true);
+        graph.addEdge(0, 1, 1);
+        graph.setWeightModel("hours");
+        new DAGShortestPath(graph).shortestPaths(0);
+    }
 }
@@ -0,0 +1,208 @@
+package com.smartcity.graph.dagsp;
+
+import com.smartcity.common.Graph;
+import com.smartcity.common.GraphGenerator;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+public class KBestPathsTest {
+
+    // All path lengths from u to an end vertex, one entry per edge sequence
+    private void collect(Graph graph, int u, int target, long length, List<Long> out) {
+        List<Graph.Edge> edges = graph.getAdjacentEdges(u);
+        if (target < 0 ? edges.isEmpty() : u == target) {
+            out.add(length);
+            return;
+        }
+        for (Graph.Edge edge : edges) {
+            collect(graph, edge.to, target, length + edge.weight, out);
+        }
+    }
+
+    private List<Long> bruteForce(Graph graph, int source, int target, boolean longest) {
+        List<Long> lengths = new ArrayList<>();
+        if (source >= 0) {
+            collect(graph, source, target, 0, lengths);
+        } else {
+            boolean[] hasPredecessor = new boolean[graph.getVertices()];
+            for (int u = 0; u < graph.getVertices(); u++) {
+                for (Graph.Edge edge : graph.getAdjacentEdges(u)) {
+                    hasPredecessor[edge.to] = true;
+                }
+            }
+            for (int s = 0; s < graph.getVertices(); s++) {
+                if (!hasPredecessor[s]) {
+                    collect(graph, s, -1, 0, lengths);
+                }
+            }
+        }
+        lengths.sort(longest ? Comparator.reverseOrder() : Comparator.naturalOrder());
+        return lengths;
+    }
+
+    // Every step is an edge and the length lies within the parallel-edge weight range
+    private void assertValidPath(Graph graph, KBestPaths.RankedPath path) {
+        long low = 0;
+        long high = 0;
+        List<Integer> vertices = path.getVertices();
+        for (int i = 0; i + 1 < vertices.size(); i++) {
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            for (Graph.Edge edge : graph.getAdjacentEdges(vertices.get(i))) {
+                if (edge.to == vertices.get(i + 1)) {
+                    min = Math.min(min, edge.weight);
+                    max = Math.max(max, edge.weight);
+                }
+            }
+            assertTrue(min <= max);
+            low += min;
+            high += max;
+        }
+        assertTrue(low <= path.getLength() && path.getLength() <= high);
+    }
+
+    private List<Long> lengths(List<KBestPaths.RankedPath> paths) {
+        List<Long> lengths = new ArrayList<>();
+        for (KBestPaths.RankedPath path : paths) {
+            lengths.add(path.getLength());
+        }
+        return lengths;
+    }
+
+    // Source-to-sink enumeration matches brute force in both directions
+    @Test
+    public void testMatchesBruteForce() {
+        for (long seed = 1; seed <= 20; seed++) {
+            Graph dag = GraphGenerator.randomDag(14, 30, 9, seed);
+            KBestPaths paths = new KBestPaths(dag);
+            for (boolean longest : new boolean[] {true, false}) {
+                List<Long> expected = bruteForce(dag, -1, -1, longest);
+                int k = Math.min(expected.size(), 50);
+                List<KBestPaths.RankedPath> actual = longest ? paths.longestPaths(50) : paths.shortestPaths(50);
+
+                assertEquals(expected.subList(0, k), lengths(actual));
+                for (KBestPaths.RankedPath path : actual) {
+                    assertValidPath(dag, path);
+                    assertTrue(dag.getAdjacentEdges(path.getVertices().get(path.getVertices().size() - 1)).isEmpty());
+                }
+            }
+        }
+    }
+
+    // Pair enumeration ends every path at the target, even if it has successors
+    @Test
+    public void testPairMatchesBruteForce() {
+        Graph dag = GraphGenerator.layeredDag(6, 4, 3, 9, 2L);
+        KBestPaths paths = new KBestPaths(dag);
+        for (int t = 8; t < dag.getVertices(); t += 3) {
+            List<Long> expected = bruteForce(dag, 1, t, true);
+            List<KBestPaths.RankedPath> actual = paths.longestPaths(1, t, 1000);
+            assertEquals(expected.subList(0, Math.min(1000, expected.size())), lengths(actual));
+            for (KBestPaths.RankedPath path : actual) {
+                assertEquals(1, (int) path.getVertices().get(0));
+                assertEquals(t, (int) path.getVertices().get(path.getVertices().size() - 1));
+            }
+            assertEquals(bruteForce(dag, 1, t, false).subList(0, Math.min(7, expected.size())),
+                    lengths(paths.shortestPaths(1, t, 7)));
+        }
+    }
+
+    // Exact path contents and lengths on a small diamond
+    @Test
+    public void testDiamond() {
+        Graph dag = new Graph(4, true);
+        dag.addEdge(0, 1, 5);
+        dag.addEdge(0, 2, 1);
+        dag.addEdge(1, 3, 1);
+        dag.addEdge(2, 3, 2);
+
+        List<KBestPaths.RankedPath> longest = new KBestPaths(dag).longestPaths(5);
+        assertEquals(2, longest.size());
+        assertEquals(Arrays.asList(0, 1, 3), longest.get(0).getVertices());
+        assertEquals(6, longest.get(0).getLength());
+        assertEquals(Arrays.asList(0, 2, 3), longest.get(1).getVertices());
+        assertEquals(3, longest.get(1).getLength());
+        assertTrue(new KBestPaths(dag).longestPaths(3, 0, 5).isEmpty());
+    }
+
+    // The best path agrees with the critical path, and K in the thousands stays cheap
+    @Test
+    public void testLargeK() {
+        Graph dag = GraphGenerator.layeredDag(100, 20, 4, 9, 5L);
+        KBestPaths paths = new KBestPaths(dag);
+        List<KBestPaths.RankedPath> top = paths.longestPaths(5000);
+
+        assertEquals(5000, top.size());
+        assertEquals(new DAGShortestPath(dag).findCriticalPath().getLength(), top.get(0).getLength());
+        for (int i = 1; i < top.size(); i++) {
+            assertTrue(top.get(i - 1).getLength() >= top.get(i).getLength());
+            assertValidPath(dag, top.get(i));
+        }
+    }
+
+    // The best pair path agrees with DAGShortestPath under both weight models
+    @Test
+    public void testBestPathMatchesDagShortestPath() {
+        for (String model : new String[] {"edge", "node"}) {
+            Graph dag = GraphGenerator.layeredDag(12, 6, 3, 9, 6L);
+            dag.setWeightModel(model);
+            for (int v = 0; v < dag.getVertices(); v++) {
+                dag.setNodeWeight(v, 1 + v % 11);
+            }
+            KBestPaths paths = new KBestPaths(dag);
+            DAGShortestPath full = new DAGShortestPath(dag);
+            long[] longest = full.longestPaths(0).getDistances();
+            long[] shortest = full.shortestPaths(0).getDistances();
+            for (int t = 1; t < dag.getVertices(); t++) {
+                if (shortest[t] == DAGShortestPath.UNREACHABLE_SHORTEST) {
+                    assertTrue(paths.longestPaths(0, t, 1).isEmpty());
+                    continue;
+                }
+                List<KBestPaths.RankedPath> top = paths.longestPaths(0, t, 3);
+                assertEquals(longest[t], top.get(0).getLength());
+                assertEquals(shortest[t], paths.shortestPaths(0, t, 1).get(0).getLength());
+                if ("node".equals(model)) {
+                    for (KBestPaths.RankedPath path : top) {
+                        long durations = 0;
+                        for (int v : path.getVertices()) {
+                            durations += dag.getNodeWeight(v);
+                        }
+                        assertEquals(durations, path.getLength());
+                    }
+                }
+            }
+        }
+    }
+
+    // Source-to-sink node-model paths include the duration of the start vertex
+    @Test
+    public void testNodeModelStartDuration() {
+        Graph dag = new Graph(4, true);
+        dag.setWeightModel("node");
+        dag.addEdge(0, 2, 100);
+        dag.addEdge(1, 2, 1);
+        dag.addEdge(2, 3, 1);
+        int[] durations = {1, 9, 4, 2};
+        for (int v = 0; v < 4; v++) {
+            dag.setNodeWeight(v, durations[v]);
+        }
+        List<KBestPaths.RankedPath> longest = new KBestPaths(dag).longestPaths(5);
+        assertEquals(2, longest.size());
+        assertEquals(Arrays.asList(1, 2, 3), longest.get(0).getVertices());
+        assertEquals(15, longest.get(0).getLength());
+        assertEquals(Arrays.asList(0, 2, 3), longest.get(1).getVertices());
+        assertEquals(7, longest.get(1).getLength());
+        assertEquals(7, new KBestPaths(dag).shortestPaths(1).get(0).getLength());
+    }
+
+    // Cyclic graphs are rejected
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsCycle() {
+        Graph graph = new Graph(2, true);
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(1, 0, 1);
+        new KBestPaths(graph);
+    }
+}
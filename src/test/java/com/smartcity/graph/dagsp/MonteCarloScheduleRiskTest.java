@@ -0,0 +1,80 @@
+package com.smartcity.graph.dagsp;
+
+import com.smartcity.common.Graph;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class MonteCarloScheduleRiskTest {
+
+    private Graph diamond() {
+        Graph graph = new Graph(5, true);
+        graph.addEdge(0, 1, 3);
+        graph.addEdge(0, 2, 2);
+        graph.addEdge(1, 3, 4);
+        graph.addEdge(2, 3, 1);
+        graph.addEdge(3, 4, 2);
+        return graph;
+    }
+
+    // Deterministic durations reproduce the critical path length
+    @Test
+    public void testDeterministicModel() {
+        MonteCarloScheduleRisk risk = new MonteCarloScheduleRisk(diamond(),
+                MonteCarloScheduleRisk.DurationModel.deterministic());
+        MonteCarloScheduleRisk.RiskResult result = risk.simulate(1000, 42L, 2);
+
+        assertEquals(1000, result.getSamples());
+        assertEquals(9.0, result.percentile(50), 1e-9);
+        assertEquals(9.0, result.percentile(99), 1e-9);
+        assertEquals(1.0, result.getCriticality(1), 1e-9);
+        assertEquals(0.0, result.getCriticality(2), 1e-9);
+        assertEquals(1.0, result.getEdgeCriticality(1, 3), 1e-9);
+        assertEquals(0.0, result.getEdgeCriticality(2, 3), 1e-9);
+        assertTrue(result.getSamplesPerSecond() > 0);
+    }
+
+    // Results depend on the seed only, not on the thread count
+    @Test
+    public void testReproducibleAcrossParallelism() {
+        MonteCarloScheduleRisk risk = new MonteCarloScheduleRisk(diamond(),
+                MonteCarloScheduleRisk.DurationModel.triangular(0.5, 2.0));
+        MonteCarloScheduleRisk.RiskResult single = risk.simulate(5000, 7L, 1);
+        MonteCarloScheduleRisk.RiskResult parallel = risk.simulate(5000, 7L, 4);
+
+        assertEquals(single.percentile(50), parallel.percentile(50), 0.0);
+        assertEquals(single.percentile(95), parallel.percentile(95), 0.0);
+        assertEquals(single.getCriticality(2), parallel.getCriticality(2), 0.0);
+    }
+
+    // Percentiles are ordered and near-critical branches get some criticality
+    @Test
+    public void testUncertainDurations() {
+        MonteCarloScheduleRisk risk = new MonteCarloScheduleRisk(diamond(),
+                MonteCarloScheduleRisk.DurationModel.triangular(0.2, 4.0));
+        MonteCarloScheduleRisk.RiskResult result = risk.simulate(20000, 1L);
+
+        assertTrue(result.percentile(10) <= result.percentile(50));
+        assertTrue(result.percentile(50) <= result.percentile(90));
+        assertEquals(1.0, result.getCriticality(0), 1e-9);
+        assertTrue(result.getCriticality(2) > 0.0);
+        assertEquals(1.0, result.getCriticality(1) + result.getCriticality(2), 0.05);
+    }
+
+    // Cyclic graphs are rejected
+    @Test(expected = IllegalArgumentException.class)
+    public void testCyclicGraphRejected() {
+        Graph graph = new Graph(2, true);
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(1, 0, 1);
+        new MonteCarloScheduleRisk(graph, MonteCarloScheduleRisk.DurationModel.deterministic());
+    }
+
+    // Node-model durations are not edge weights, so those graphs are rejected rather than misread
+    @Test(expected = IllegalArgumentException.class)
+    public void testNodeModelRejected() {
+        Graph graph = new Graph(2, true);
+        graph.addEdge(0, 1, 1);
+        graph.setWeightModel("node");
+        new MonteCarloScheduleRisk(graph, MonteCarloScheduleRisk.DurationModel.deterministic());
+    }
+}
@@ -0,0 +1,128 @@
+package com.smartcity.graph.dagsp;
+
+import com.smartcity.common.Graph;
+import com.smartcity.common.GraphGenerator;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+public class PairPathQueryTest {
+
+    private long pathWeight(Graph graph, List<Integer> path, boolean longest) {
+        long total = 0;
+        for (int i = 0; i + 1 < path.size(); i++) {
+            long best = longest ? Long.MIN_VALUE : Long.MAX_VALUE;
+            for (Graph.Edge edge : graph.getAdjacentEdges(path.get(i))) {
+                if (edge.to == path.get(i + 1)) {
+                    best = longest ? Math.max(best, edge.weight) : Math.min(best, edge.weight);
+                }
+            }
+            total += best;
+        }
+        return total;
+    }
+
+    // Pair answers match the full single-source passes
+    @Test
+    public void testMatchesSingleSource() {
+        Graph dag = GraphGenerator.randomDag(300, 1500, 20, 8L);
+        DAGShortestPath full = new DAGShortestPath(dag);
+        PairPathQuery query = new PairPathQuery(dag);
+        SplittableRandom random = new SplittableRandom(3);
+
+        for (int q = 0; q < 200; q++) {
+            int s = random.nextInt(300);
+            int t = random.nextInt(300);
+            long shortest = full.shortestPaths(s).getDistances()[t];
+            long longest = full.longestPaths(s).getDistances()[t];
+
+            PairPathQuery.PairResult shortResult = query.shortestPath(s, t);
+            PairPathQuery.PairResult longResult = query.longestPath(s, t);
+            if (shortest == DAGShortestPath.UNREACHABLE_SHORTEST) {
+                assertFalse(shortResult.isReachable());
+                assertEquals(PairPathQuery.UNREACHABLE, longResult.getDistance());
+                assertTrue(longResult.getPath().isEmpty());
+            } else {
+                assertEquals(shortest, shortResult.getDistance());
+                assertEquals(longest, longResult.getDistance());
+                assertEquals(s, (int) shortResult.getPath().get(0));
+                assertEquals(t, (int) longResult.getPath().get(longResult.getPath().size() - 1));
+                assertEquals(shortest, pathWeight(dag, shortResult.getPath(), false));
+                assertEquals(longest, pathWeight(dag, longResult.getPath(), true));
+            }
+        }
+    }
+
+    // Under the node model a pair costs the durations of its path vertices, as in the full pass
+    @Test
+    public void testNodeModelMatchesSingleSource() {
+        Graph dag = GraphGenerator.randomDag(200, 900, 20, 12L);
+        dag.setWeightModel("node");
+        SplittableRandom random = new SplittableRandom(5);
+        for (int v = 0; v < dag.getVertices(); v++) {
+            dag.setNodeWeight(v, 1 + random.nextInt(30));
+        }
+        DAGShortestPath full = new DAGShortestPath(dag);
+        PairPathQuery query = new PairPathQuery(dag);
+
+        for (int q = 0; q < 200; q++) {
+            int s = random.nextInt(200);
+            int t = random.nextInt(200);
+            long shortest = full.shortestPaths(s).getDistances()[t];
+            PairPathQuery.PairResult shortResult = query.shortestPath(s, t);
+            PairPathQuery.PairResult longResult = query.longestPath(s, t);
+            if (shortest == DAGShortestPath.UNREACHABLE_SHORTEST) {
+                assertFalse(shortResult.isReachable());
+                assertFalse(longResult.isReachable());
+            } else {
+                assertEquals(shortest, shortResult.getDistance());
+                assertEquals(full.longestPaths(s).getDistances()[t], longResult.getDistance());
+                long durations = 0;
+                for (int v : longResult.getPath()) {
+                    durations += dag.getNodeWeight(v);
+                }
+                assertEquals(longResult.getDistance(), durations);
+            }
+        }
+        assertEquals(dag.getNodeWeight(7), query.shortestPath(7, 7).getDistance());
+    }
+
+    // Work depends on the vertices between the pair, not on the whole graph
+    @Test
+    public void testPrunesToRelevantSubgraph() {
+        Graph dag = GraphGenerator.layeredDag(200, 50, 3, 9, 4L);
+        PairPathQuery query = new PairPathQuery(dag);
+        long totalEdges = 0;
+        for (int u = 0; u < dag.getVertices(); u++) {
+            totalEdges += dag.getAdjacentEdges(u).size();
+        }
+
+        // Find a reachable pair in neighboring layers
+        int s = 0;
+        int t = dag.getAdjacentEdges(s).get(0).to;
+        PairPathQuery.PairResult result = query.shortestPath(s, t);
+        assertTrue(result.isReachable());
+        assertEquals(2, result.getRelevantVertices());
+        assertTrue(result.getOperations() < totalEdges / 100);
+    }
+
+    // A vertex reaches itself with length zero
+    @Test
+    public void testSameVertex() {
+        Graph dag = new Graph(3, true);
+        dag.addEdge(0, 1, 4);
+        PairPathQuery.PairResult result = new PairPathQuery(dag).longestPath(1, 1);
+        assertEquals(0, result.getDistance());
+        assertEquals(Collections.singletonList(1), result.getPath());
+    }
+
+    // Cyclic graphs are rejected
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsCycle() {
+        Graph graph = new Graph(2, true);
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(1, 0, 1);
+        new PairPathQuery(graph);
+    }
+}
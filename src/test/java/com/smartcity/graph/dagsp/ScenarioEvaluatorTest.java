@@ -0,0 +1,91 @@
+package com.smartcity.graph.dagsp;
+
+import com.smartcity.common.Graph;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ScenarioEvaluatorTest {
+
+    private Graph diamond(int closureDelay) {
+        Graph graph = new Graph(5, true);
+        graph.addEdge(0, 1, 3);
+        graph.addEdge(0, 2, 2 + closureDelay);
+        graph.addEdge(1, 3, 4);
+        graph.addEdge(2, 3, 1 + closureDelay);
+        graph.addEdge(3, 4, 2);
+        return graph;
+    }
+
+    // Baseline scenario matches DAGShortestPath on the base graph
+    @Test
+    public void testBaselineMatchesDAGShortestPath() {
+        ScenarioEvaluator evaluator = new ScenarioEvaluator(diamond(0));
+        List<ScenarioEvaluator.Overlay> scenarios = new ArrayList<>();
+        scenarios.add(evaluator.overlay("baseline"));
+
+        ScenarioEvaluator.ScenarioResult result = evaluator.evaluate(scenarios, 0).get(0);
+        DAGShortestPath dagsp = new DAGShortestPath(diamond(0));
+
+        assertEquals(dagsp.findCriticalPath().getLength(), result.getCriticalPathLength());
+        long[] expected = dagsp.shortestPaths(0).getDistances();
+        for (int v = 0; v < expected.length; v++) {
+            assertEquals(expected[v], result.getDistances()[v]);
+        }
+    }
+
+    // Every overlay gives the same answer as rebuilding the graph
+    @Test
+    public void testOverlaysMatchRebuiltGraphs() {
+        ScenarioEvaluator evaluator = new ScenarioEvaluator(diamond(0));
+        List<ScenarioEvaluator.Overlay> scenarios = new ArrayList<>();
+        for (int delay = 0; delay < 40; delay++) {
+            scenarios.add(evaluator.overlay("closure+" + delay)
+                    .addDelta(0, 2, delay)
+                    .addDelta(2, 3, delay));
+        }
+
+        List<ScenarioEvaluator.ScenarioResult> results = evaluator.evaluate(scenarios, 0, 4);
+
+        assertEquals(40, results.size());
+        for (int delay = 0; delay < 40; delay++) {
+            DAGShortestPath dagsp = new DAGShortestPath(diamond(delay));
+            ScenarioEvaluator.ScenarioResult result = results.get(delay);
+            assertEquals("closure+" + delay, result.getName());
+            assertEquals(dagsp.findCriticalPath().getLength(), result.getCriticalPathLength());
+            assertEquals(dagsp.shortestPaths(0).getDistances()[4], result.getDistances()[4]);
+        }
+    }
+
+    // Unreachable vertices keep the sentinel distance
+    @Test
+    public void testUnreachable() {
+        Graph graph = new Graph(3, true);
+        graph.addEdge(1, 2, 4);
+        ScenarioEvaluator evaluator = new ScenarioEvaluator(graph);
+        List<ScenarioEvaluator.Overlay> scenarios = new ArrayList<>();
+        scenarios.add(evaluator.overlay("only"));
+
+        long[] dist = evaluator.evaluate(scenarios, 0).get(0).getDistances();
+
+        assertEquals(0, dist[0]);
+        assertEquals(ScenarioEvaluator.ScenarioResult.UNREACHABLE, dist[2]);
+    }
+
+    // Overlays must refer to existing edges
+    @Test(expected = IllegalArgumentException.class)
+    public void testMissingEdgeRejected() {
+        ScenarioEvaluator evaluator = new ScenarioEvaluator(diamond(0));
+        evaluator.overlay("bad").addDelta(4, 0, 1);
+    }
+
+    // Overlays act on edge weights, so node-model graphs are rejected rather than misread
+    @Test(expected = IllegalArgumentException.class)
+    public void testNodeModelRejected() {
+        Graph graph = diamond(0);
+        graph.setWeightModel("node");
+        new ScenarioEvaluator(graph);
+    }
+}
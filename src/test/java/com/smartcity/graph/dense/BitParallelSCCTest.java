@@ -0,0 +1,220 @@
+package com.smartcity.graph.dense;
+
+import com.smartcity.common.BitMatrixGraph;
+import com.smartcity.common.Graph;
+import com.smartcity.common.GraphGenerator;
+import com.smartcity.graph.scc.TarjanSCC;
+import com.smartcity.graph.topo.KahnTopologicalSort;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+public class BitParallelSCCTest {
+
+    private Set<Set<Integer>> partition(List<List<Integer>> components) {
+        Set<Set<Integer>> sets = new HashSet<>();
+        for (List<Integer> component : components) {
+            sets.add(new HashSet<>(component));
+        }
+        return sets;
+    }
+
+    // Every edge leads to a component emitted no later than its source's, members ascending
+    private void assertReverseTopological(Graph graph, List<List<Integer>> components) {
+        int[] index = new int[graph.getVertices()];
+        for (int c = 0; c < components.size(); c++) {
+            List<Integer> sorted = new ArrayList<>(components.get(c));
+            Collections.sort(sorted);
+            assertEquals(sorted, components.get(c));
+            for (int v : components.get(c)) {
+                index[v] = c;
+            }
+        }
+        for (int u = 0; u < graph.getVertices(); u++) {
+            for (Graph.Edge edge : graph.getAdjacentEdges(u)) {
+                assertTrue(index[edge.to] <= index[u]);
+            }
+        }
+    }
+
+    private boolean[] bfs(Graph graph, int source) {
+        boolean[] seen = new boolean[graph.getVertices()];
+        Deque<Integer> queue = new ArrayDeque<>();
+        seen[source] = true;
+        queue.add(source);
+        while (!queue.isEmpty()) {
+            for (Graph.Edge edge : graph.getAdjacentEdges(queue.poll())) {
+                if (!seen[edge.to]) {
+                    seen[edge.to] = true;
+                    queue.add(edge.to);
+                }
+            }
+        }
+        return seen;
+    }
+
+    // Districts of near-cliques, optionally linked by one-way roads, plus a sparse suburb
+    private Graph districts(int count, int size, int suburb, boolean linked, long seed) {
+        Random random = new Random(seed);
+        int n = count * size + suburb;
+        Graph graph = new Graph(n, true);
+        for (int d = 0; d < count; d++) {
+            int base = d * size;
+            for (int u = 0; u < size; u++) {
+                for (int v = 0; v < size; v++) {
+                    if (u != v && random.nextInt(4) == 0) {
+                        graph.addEdge(base + u, base + v, 1);
+                    }
+                }
+            }
+            if (linked && d > 0) {
+                graph.addEdge(base, base - size, 1);
+            }
+        }
+        for (int i = 0; i < 2 * suburb; i++) {
+            int u = count * size + random.nextInt(suburb);
+            int v = count * size + random.nextInt(suburb);
+            graph.addEdge(u, v, 1);
+        }
+        return graph;
+    }
+
+    // The matrix keeps distinct edges; transposing reverses them
+    @Test
+    public void testMatrix() {
+        Graph graph = new Graph(70, true);
+        graph.addEdge(0, 69, 1);
+        graph.addEdge(0, 69, 2);
+        graph.addEdge(69, 3, 1);
+        BitMatrixGraph matrix = BitMatrixGraph.of(graph);
+        assertEquals(2, matrix.words());
+        assertEquals(2, matrix.getEdgeCount());
+        assertEquals(2.0 / (70 * 70), matrix.getDensity(), 1e-12);
+        assertTrue(matrix.hasEdge(0, 69));
+        assertFalse(matrix.hasEdge(69, 0));
+        BitMatrixGraph transposed = matrix.transpose();
+        assertTrue(transposed.hasEdge(69, 0));
+        assertTrue(transposed.hasEdge(3, 69));
+        assertEquals(2, transposed.getEdgeCount());
+
+        BitMatrixGraph random = BitMatrixGraph.of(GraphGenerator.randomGraph(150, 3000, 9, 1L));
+        BitMatrixGraph reversed = random.transpose();
+        for (int u = 0; u < 150; u++) {
+            for (int v = 0; v < 150; v++) {
+                assertEquals(random.hasEdge(u, v), reversed.hasEdge(v, u));
+            }
+        }
+    }
+
+    // The bit-parallel partition equals Tarjan's on sparse, dense and mixed graphs
+    @Test
+    public void testMatchesTarjan() {
+        Graph[] graphs = {
+                GraphGenerator.randomGraph(300, 450, 9, 3L),
+                GraphGenerator.randomGraph(200, 4000, 9, 4L),
+                GraphGenerator.randomDag(150, 600, 9, 5L),
+                districts(4, 80, 100, true, 6L)
+        };
+        for (Graph graph : graphs) {
+            List<List<Integer>> components = new BitParallelSCC(graph).findSCCs().getComponents();
+            assertEquals(partition(new TarjanSCC(graph).findSCCs().getComponents()), partition(components));
+            assertReverseTopological(graph, components);
+        }
+    }
+
+    // DAGs get a valid order; a cycle or a self-loop is reported
+    @Test
+    public void testTopologicalSort() {
+        Graph dag = GraphGenerator.randomDag(300, 1500, 9, 7L);
+        KahnTopologicalSort.TopoResult result = new BitParallelSCC(dag).topologicalSort();
+        assertTrue(result.isDAG());
+        int[] position = new int[dag.getVertices()];
+        for (int i = 0; i < result.getOrder().size(); i++) {
+            position[result.getOrder().get(i)] = i;
+        }
+        assertEquals(dag.getVertices(), result.getOrder().size());
+        for (int u = 0; u < dag.getVertices(); u++) {
+            for (Graph.Edge edge : dag.getAdjacentEdges(u)) {
+                assertTrue(position[u] < position[edge.to]);
+            }
+        }
+
+        Graph loop = new Graph(3, true);
+        loop.addEdge(0, 1, 1);
+        loop.addEdge(1, 1, 1);
+        assertFalse(new BitParallelSCC(loop).topologicalSort().isDAG());
+        loop = new Graph(3, true);
+        loop.addEdge(0, 1, 1);
+        loop.addEdge(1, 2, 1);
+        loop.addEdge(2, 1, 1);
+        assertFalse(new BitParallelSCC(loop).topologicalSort().isDAG());
+    }
+
+    // Reachability and the closure agree with BFS; the closure only holds a vertex itself on a cycle
+    @Test
+    public void testReachabilityAndClosure() {
+        Graph graph = districts(3, 70, 60, true, 8L);
+        BitParallelSCC engine = new BitParallelSCC(graph);
+        BitMatrixGraph closure = engine.transitiveClosure();
+        for (int u = 0; u < graph.getVertices(); u++) {
+            boolean[] seen = bfs(graph, u);
+            long[] reached = engine.reachableFrom(u);
+            boolean cyclic = false;
+            for (Graph.Edge edge : graph.getAdjacentEdges(u)) {
+                cyclic |= bfs(graph, edge.to)[u];
+            }
+            for (int v = 0; v < graph.getVertices(); v++) {
+                assertEquals(seen[v], (reached[v >>> 6] & (1L << v)) != 0);
+                assertEquals(v == u ? cyclic : seen[v], closure.hasEdge(u, v));
+            }
+        }
+    }
+
+    // Dense districts go to the bit matrix, the suburb to Tarjan, with Tarjan's partition
+    @Test
+    public void testHybridSelectsDenseDistricts() {
+        Graph graph = districts(3, 100, 500, false, 9L);
+        TarjanSCC.SCCResult result = new HybridSCC(graph).findSCCs();
+        assertEquals("3", result.getMetrics().getTags().get(HybridSCC.DENSE_COMPONENTS_TAG));
+        assertEquals("300", result.getMetrics().getTags().get(HybridSCC.DENSE_VERTICES_TAG));
+        assertEquals(partition(new TarjanSCC(graph).findSCCs().getComponents()), partition(result.getComponents()));
+        assertReverseTopological(graph, result.getComponents());
+
+        Graph sparse = GraphGenerator.randomGraph(400, 600, 9, 10L);
+        TarjanSCC.SCCResult sparseResult = new HybridSCC(sparse).findSCCs();
+        assertEquals("0", sparseResult.getMetrics().getTags().get(HybridSCC.DENSE_COMPONENTS_TAG));
+        assertEquals(partition(new TarjanSCC(sparse).findSCCs().getComponents()),
+                partition(sparseResult.getComponents()));
+    }
+
+    // Roads to and from the suburb join everything into one weak component, yet each district is a dense core
+    @Test
+    public void testHybridFindsDistrictsThroughSparseRoads() {
+        Graph graph = districts(3, 100, 500, false, 11L);
+        for (int d = 0; d < 3; d++) {
+            graph.addEdge(d * 100, 300 + d, 1);
+            graph.addEdge(310 + d, d * 100 + 1, 1);
+        }
+        TarjanSCC.SCCResult result = new HybridSCC(graph).findSCCs();
+        assertEquals("3", result.getMetrics().getTags().get(HybridSCC.DENSE_COMPONENTS_TAG));
+        assertEquals("300", result.getMetrics().getTags().get(HybridSCC.DENSE_VERTICES_TAG));
+        assertEquals(partition(new TarjanSCC(graph).findSCCs().getComponents()), partition(result.getComponents()));
+        assertReverseTopological(graph, result.getComponents());
+
+        // Graphs below minDenseVertices go straight to Tarjan
+        Graph small = new Graph(3, true);
+        small.addEdge(0, 1, 1);
+        small.addEdge(1, 0, 1);
+        small.addEdge(1, 2, 1);
+        TarjanSCC.SCCResult smallResult = new HybridSCC(small).findSCCs();
+        assertEquals("0", smallResult.getMetrics().getTags().get(HybridSCC.DENSE_COMPONENTS_TAG));
+        assertEquals(partition(new TarjanSCC(small).findSCCs().getComponents()), partition(smallResult.getComponents()));
+    }
+
+    // Sources must be vertices
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidSource() {
+        new BitParallelSCC(new Graph(3, true)).reachableFrom(3);
+    }
+}
@@ -0,0 +1,125 @@
+package com.smartcity.graph.reach;
+
+import com.smartcity.common.Graph;
+import com.smartcity.common.GraphGenerator;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+public class DominatorTreeTest {
+
+    // Reachable set from root while skipping one vertex
+    private boolean[] reach(Graph graph, int root, int removed) {
+        boolean[] seen = new boolean[graph.getVertices()];
+        if (root == removed) {
+            return seen;
+        }
+        Deque<Integer> queue = new ArrayDeque<>();
+        seen[root] = true;
+        queue.add(root);
+        while (!queue.isEmpty()) {
+            int u = queue.poll();
+            for (Graph.Edge edge : graph.getAdjacentEdges(u)) {
+                if (edge.to != removed && !seen[edge.to]) {
+                    seen[edge.to] = true;
+                    queue.add(edge.to);
+                }
+            }
+        }
+        return seen;
+    }
+
+    // Definition: d dominates v if v is reachable but not once d is removed
+    private void assertMatchesDefinition(Graph graph, int root, DominatorTree.Dominators dominators) {
+        int n = graph.getVertices();
+        boolean[] reachable = reach(graph, root, -1);
+        boolean[][] dom = new boolean[n][];
+        for (int d = 0; d < n; d++) {
+            dom[d] = reach(graph, root, d);
+        }
+        for (int v = 0; v < n; v++) {
+            assertEquals(reachable[v], dominators.isReachable(v));
+            int strict = 0;
+            for (int d = 0; d < n; d++) {
+                boolean expected = reachable[v] && reachable[d] && (d == v || !dom[d][v]);
+                assertEquals(d + " dom " + v, expected, dominators.dominates(d, v));
+                if (expected && d != v) {
+                    strict++;
+                }
+            }
+            if (reachable[v]) {
+                assertEquals(strict + 1, dominators.getDominators(v).size());
+                int idom = dominators.getImmediateDominator(v);
+                if (v == root) {
+                    assertEquals(-1, idom);
+                } else {
+                    assertEquals(strict, dominators.getDominators(idom).size());
+                }
+            } else {
+                assertEquals(-1, dominators.getImmediateDominator(v));
+                assertEquals(0, dominators.getDominatedCount(v));
+            }
+        }
+    }
+
+    // Diamond with a bypass: 1 and 2 are alternatives, 3 is a single point of failure
+    @Test
+    public void testSmallProject() {
+        Graph graph = new Graph(6, true);
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(0, 2, 1);
+        graph.addEdge(1, 3, 1);
+        graph.addEdge(2, 3, 1);
+        graph.addEdge(3, 4, 1);
+        graph.addEdge(4, 5, 1);
+        graph.addEdge(3, 5, 1);
+
+        DominatorTree tree = new DominatorTree(graph);
+        DominatorTree.Dominators dominators = tree.dominators(0);
+        assertArrayEquals(new int[] {-1, 0, 0, 0, 3, 3}, dominators.getImmediateDominators());
+        assertTrue(dominators.dominates(3, 5));
+        assertFalse(dominators.dominates(4, 5));
+        assertFalse(dominators.dominates(1, 3));
+        assertEquals(Arrays.asList(5, 3, 0), dominators.getDominators(5));
+        assertEquals(3, dominators.getDominatedCount(3));
+
+        DominatorTree.Dominators post = tree.postDominators(5);
+        assertArrayEquals(new int[] {3, 3, 3, 5, 5, -1}, post.getImmediateDominators());
+        assertTrue(post.dominates(3, 0));
+        assertFalse(post.dominates(4, 3));
+    }
+
+    // Random graphs with cycles against the definition, both directions
+    @Test
+    public void testRandomGraphs() {
+        for (long seed = 1; seed <= 30; seed++) {
+            int n = 5 + (int) (seed % 20);
+            Graph graph = GraphGenerator.randomGraph(n, (int) (1.6 * n), 9, seed);
+            DominatorTree tree = new DominatorTree(graph);
+            int root = (int) (seed % n);
+            assertMatchesDefinition(graph, root, tree.dominators(root));
+            assertMatchesDefinition(graph.getReverse(), root, tree.postDominators(root));
+        }
+    }
+
+    // A long chain: every task dominates everything after it
+    @Test
+    public void testDeepChain() {
+        int n = 200_000;
+        Graph graph = new Graph(n, true);
+        for (int v = 0; v + 1 < n; v++) {
+            graph.addEdge(v, v + 1, 1);
+        }
+        DominatorTree.Dominators dominators = new DominatorTree(graph).dominators(0);
+        assertEquals(n - 1, dominators.getImmediateDominator(n - 1) + 1);
+        assertTrue(dominators.dominates(1, n - 1));
+        assertFalse(dominators.dominates(n - 1, 1));
+        assertEquals(n, dominators.getDominatedCount(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSourceOutOfRange() {
+        new DominatorTree(new Graph(3, true)).dominators(3);
+    }
+}
@@ -0,0 +1,128 @@
+package com.smartcity.graph.reach;
+
+import com.smartcity.common.CompressedBitmap;
+import com.smartcity.common.Graph;
+import com.smartcity.graph.scc.CondensationGraph;
+import com.smartcity.graph.scc.TarjanSCC;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+public class MultiSourceReachabilityTest {
+
+    private Graph randomGraph(int n, int m, long seed) {
+        Random random = new Random(seed);
+        Graph graph = new Graph(n, true);
+        for (int i = 0; i < m; i++) {
+            graph.addEdge(random.nextInt(n), random.nextInt(n), 1);
+        }
+        return graph;
+    }
+
+    private Set<Integer> bfs(Graph graph, int source, long[] scans) {
+        Set<Integer> seen = new HashSet<>();
+        Deque<Integer> queue = new ArrayDeque<>();
+        seen.add(source);
+        queue.add(source);
+        while (!queue.isEmpty()) {
+            int u = queue.poll();
+            for (Graph.Edge edge : graph.getAdjacentEdges(u)) {
+                scans[0]++;
+                if (seen.add(edge.to)) {
+                    queue.add(edge.to);
+                }
+            }
+        }
+        return seen;
+    }
+
+    private Set<Integer> toSet(CompressedBitmap bitmap) {
+        Set<Integer> set = new HashSet<>();
+        for (int v : bitmap.toArray()) {
+            set.add(v);
+        }
+        return set;
+    }
+
+    // Bit-parallel BFS agrees with one BFS per source and scans fewer edges
+    @Test
+    public void testMatchesPerSourceBFS() {
+        Graph graph = randomGraph(300, 450, 5L);
+        int[] sources = new int[100];
+        for (int i = 0; i < sources.length; i++) {
+            sources[i] = (i * 7) % 300;
+        }
+
+        MultiSourceReachability.ReachabilityResult result =
+                new MultiSourceReachability().reachFrom(graph, sources);
+
+        long[] scans = new long[1];
+        for (int i = 0; i < sources.length; i++) {
+            assertEquals(bfs(graph, sources[i], scans), toSet(result.getReachable(i)));
+        }
+        assertTrue(result.getEdgeScans() < scans[0]);
+    }
+
+    // Task-level reachability through the condensation matches plain BFS
+    @Test
+    public void testCondensationReachability() {
+        Graph graph = randomGraph(120, 160, 11L);
+        TarjanSCC.SCCResult scc = new TarjanSCC(graph).findSCCs();
+        CondensationGraph condensation = new CondensationGraph(graph, scc.getComponents());
+        int[] sources = {0, 5, 17, 99, 119};
+
+        MultiSourceReachability.ReachabilityResult result =
+                new MultiSourceReachability().reachFromTasks(condensation, sources);
+
+        long[] scans = new long[1];
+        for (int i = 0; i < sources.length; i++) {
+            assertEquals(bfs(graph, sources[i], scans), toSet(result.getReachable(i)));
+        }
+        Graph dag = condensation.getCondensationGraph();
+        long dagEdges = 0;
+        for (int c = 0; c < dag.getVertices(); c++) {
+            dagEdges += dag.getAdjacentEdges(c).size();
+        }
+        assertEquals(dagEdges, result.getEdgeScans());
+    }
+
+    // Component-level sweep on a chain
+    @Test
+    public void testComponentReachability() {
+        Graph graph = new Graph(4, true);
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(1, 0, 1);
+        graph.addEdge(1, 2, 1);
+        graph.addEdge(2, 3, 1);
+        TarjanSCC.SCCResult scc = new TarjanSCC(graph).findSCCs();
+        CondensationGraph condensation = new CondensationGraph(graph, scc.getComponents());
+        int start = condensation.getComponentId(0);
+        int end = condensation.getComponentId(3);
+
+        MultiSourceReachability.ReachabilityResult result =
+                new MultiSourceReachability().reachFromComponents(condensation, new int[] {start, end});
+
+        assertEquals(3, result.getReachable(0).cardinality());
+        assertEquals(1, result.getReachable(1).cardinality());
+        assertTrue(result.getReachable(1).contains(end));
+    }
+
+    // Compressed bitmaps store only non-zero words
+    @Test
+    public void testCompressedBitmap() {
+        CompressedBitmap bitmap = new CompressedBitmap.Builder().add(3).add(3).add(700).add(100000).build();
+
+        assertEquals(3, bitmap.cardinality());
+        assertEquals(3, bitmap.storedWords());
+        assertTrue(bitmap.contains(700));
+        assertFalse(bitmap.contains(701));
+        assertArrayEquals(new int[] {3, 700, 100000}, bitmap.toArray());
+    }
+
+    // 2^16 vertices times 2^21 sources is 2^31 lane words; the size is rejected before allocating
+    @Test(expected = IllegalArgumentException.class)
+    public void testLanesBeyondArrayLimit() {
+        new MultiSourceReachability().reachFrom(new Graph(1 << 16, true), new int[1 << 21]);
+    }
+}
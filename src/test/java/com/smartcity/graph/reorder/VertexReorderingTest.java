@@ -0,0 +1,163 @@
+package com.smartcity.graph.reorder;
+
+import com.smartcity.common.Graph;
+import com.smartcity.common.GraphGenerator;
+import com.smartcity.graph.dagsp.DAGShortestPath;
+import com.smartcity.graph.scc.TarjanSCC;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+public class VertexReorderingTest {
+
+    private Set<Set<Integer>> partition(List<List<Integer>> components) {
+        Set<Set<Integer>> sets = new HashSet<>();
+        for (List<Integer> component : components) {
+            sets.add(new HashSet<>(component));
+        }
+        return sets;
+    }
+
+    private int bandwidth(Graph graph) {
+        int width = 0;
+        for (int u = 0; u < graph.getVertices(); u++) {
+            for (Graph.Edge edge : graph.getAdjacentEdges(u)) {
+                width = Math.max(width, Math.abs(u - edge.to));
+            }
+        }
+        return width;
+    }
+
+    // Every strategy yields a permutation; the reordered graph has the mapped edges, weights and durations
+    @Test
+    public void testApplyPreservesGraph() {
+        Graph graph = GraphGenerator.randomDag(300, 1200, 9, 2L);
+        graph.setWeightModel("node");
+        graph.setNodeWeight(17, 5);
+        for (VertexReordering.Strategy strategy : VertexReordering.Strategy.values()) {
+            VertexReordering reordering = VertexReordering.of(graph, strategy);
+            Graph reordered = reordering.apply(graph);
+            assertEquals("node", reordered.getWeightModel());
+            assertEquals(5, reordered.getNodeWeight(reordering.toReordered(17)));
+            assertEquals(strategy.name(), reordering.getMetrics().getTags().get("reordering"));
+            for (int v = 0; v < graph.getVertices(); v++) {
+                assertEquals(v, reordering.toOriginal(reordering.toReordered(v)));
+                List<Graph.Edge> original = graph.getAdjacentEdges(v);
+                List<Graph.Edge> mapped = reordered.getAdjacentEdges(reordering.toReordered(v));
+                assertEquals(original.size(), mapped.size());
+                for (int i = 0; i < original.size(); i++) {
+                    assertEquals(reordering.toReordered(original.get(i).to), mapped.get(i).to);
+                    assertEquals(original.get(i).weight, mapped.get(i).weight);
+                }
+            }
+        }
+    }
+
+    // SCCs found on a reordered graph map back to the original partition
+    @Test
+    public void testSccsMapBack() {
+        Graph graph = GraphGenerator.randomGraph(400, 600, 9, 8L);
+        Set<Set<Integer>> expected = partition(new TarjanSCC(graph).findSCCs().getComponents());
+        for (VertexReordering.Strategy strategy
+                : new VertexReordering.Strategy[] {VertexReordering.Strategy.RCM, VertexReordering.Strategy.DEGREE}) {
+            VertexReordering reordering = VertexReordering.of(graph, strategy);
+            List<List<Integer>> components = reordering.componentsToOriginal(
+                    new TarjanSCC(reordering.apply(graph)).findSCCs().getComponents());
+            assertEquals(expected, partition(components));
+            for (List<Integer> component : components) {
+                List<Integer> sorted = new ArrayList<>(component);
+                Collections.sort(sorted);
+                assertEquals(sorted, component);
+            }
+        }
+    }
+
+    // Topological ids point every edge forward; distances and parents map back exactly
+    @Test
+    public void testTopologicalPaths() {
+        Graph graph = GraphGenerator.randomDag(500, 2000, 9, 5L);
+        VertexReordering reordering = VertexReordering.of(graph, VertexReordering.Strategy.TOPOLOGICAL);
+        Graph reordered = reordering.apply(graph);
+        for (int u = 0; u < reordered.getVertices(); u++) {
+            for (Graph.Edge edge : reordered.getAdjacentEdges(u)) {
+                assertTrue(u < edge.to);
+            }
+        }
+
+        for (int source : new int[] {reordering.toOriginal(0), 42}) {
+            DAGShortestPath.PathResult expected = new DAGShortestPath(graph).longestPaths(source);
+            DAGShortestPath.PathResult result = new DAGShortestPath(reordered).longestPaths(reordering.toReordered(source));
+            long[] distances = reordering.valuesToOriginal(result.getDistances());
+            assertArrayEquals(expected.getDistances(), distances);
+            int[] parents = reordering.parentsToOriginal(result.getParents());
+            for (int v = 0; v < graph.getVertices(); v++) {
+                if (parents[v] >= 0) {
+                    int weight = Integer.MIN_VALUE;
+                    for (Graph.Edge edge : graph.getAdjacentEdges(parents[v])) {
+                        if (edge.to == v) {
+                            weight = Math.max(weight, edge.weight);
+                        }
+                    }
+                    assertEquals(distances[v], distances[parents[v]] + weight);
+                }
+            }
+            assertEquals(expected.reconstructPath(source), reordering.toOriginal(result.reconstructPath(
+                    reordering.toReordered(source))));
+        }
+    }
+
+    // RCM recovers the locality of a grid whose ids were shuffled
+    @Test
+    public void testRcmReducesBandwidth() {
+        int side = 30;
+        Graph grid = new Graph(side * side, true);
+        for (int r = 0; r < side; r++) {
+            for (int c = 0; c < side; c++) {
+                if (c + 1 < side) {
+                    grid.addEdge(r * side + c, r * side + c + 1, 1);
+                }
+                if (r + 1 < side) {
+                    grid.addEdge(r * side + c, (r + 1) * side + c, 1);
+                }
+            }
+        }
+        int[] shuffle = new int[side * side];
+        for (int i = 0; i < shuffle.length; i++) {
+            shuffle[i] = (i * 577) % shuffle.length;
+        }
+        Graph shuffled = VertexReordering.fromPermutation(shuffle).apply(grid);
+        Graph reordered = VertexReordering.of(shuffled, VertexReordering.Strategy.RCM).apply(shuffled);
+        assertTrue(bandwidth(shuffled) > 400);
+        assertTrue(bandwidth(reordered) <= 2 * side);
+    }
+
+    // Degree order puts hubs first
+    @Test
+    public void testDegreeOrder() {
+        Graph star = new Graph(5, true);
+        for (int v = 0; v < 4; v++) {
+            star.addEdge(v, 4, 1);
+        }
+        star.addEdge(2, 3, 1);
+        VertexReordering reordering = VertexReordering.of(star, VertexReordering.Strategy.DEGREE);
+        assertEquals(4, reordering.toOriginal(0));
+        assertEquals(2, reordering.toOriginal(1));
+        assertEquals(3, reordering.toOriginal(2));
+    }
+
+    // Cyclic graphs have no topological ids
+    @Test(expected = IllegalArgumentException.class)
+    public void testTopologicalRejectsCycle() {
+        Graph cycle = new Graph(2, true);
+        cycle.addEdge(0, 1, 1);
+        cycle.addEdge(1, 0, 1);
+        VertexReordering.of(cycle, VertexReordering.Strategy.TOPOLOGICAL);
+    }
+
+    // Explicit maps must be permutations
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidPermutation() {
+        VertexReordering.fromPermutation(new int[] {0, 2, 2});
+    }
+}
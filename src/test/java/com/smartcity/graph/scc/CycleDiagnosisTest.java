@@ -0,0 +1,118 @@
+package com.smartcity.graph.scc;
+
+import com.smartcity.common.CompressedGraph;
+import com.smartcity.common.Graph;
+import com.smartcity.common.GraphGenerator;
+import com.smartcity.graph.topo.KahnTopologicalSort;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+public class CycleDiagnosisTest {
+
+    private boolean hasEdge(Graph graph, int u, int v) {
+        for (Graph.Edge edge : graph.getAdjacentEdges(u)) {
+            if (edge.to == v) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Graph withoutArcs(Graph graph, List<CycleDiagnosis.FeedbackArc> arcs) {
+        Set<Long> dropped = new HashSet<>();
+        for (CycleDiagnosis.FeedbackArc arc : arcs) {
+            dropped.add(((long) arc.from << 32) | arc.to);
+        }
+        Graph result = new Graph(graph.getVertices(), true);
+        for (int u = 0; u < graph.getVertices(); u++) {
+            for (Graph.Edge edge : graph.getAdjacentEdges(u)) {
+                if (!dropped.contains(((long) u << 32) | edge.to)) {
+                    result.addEdge(u, edge.to, edge.weight);
+                }
+            }
+        }
+        return result;
+    }
+
+    // Witnesses are real cycles inside their component, and dropping the arcs leaves a DAG
+    @Test
+    public void testRandomGraphs() {
+        for (long seed = 1; seed <= 10; seed++) {
+            Graph graph = GraphGenerator.randomGraph(400, 1200, 9, seed);
+            CycleDiagnosis.CycleReport report = new KahnTopologicalSort(graph).diagnoseCycles();
+            assertFalse(report.isAcyclic());
+            assertEquals(report.getCyclicComponents().size(), report.getWitnessCycles().size());
+
+            for (int c = 0; c < report.getWitnessCycles().size(); c++) {
+                List<Integer> cycle = report.getWitnessCycles().get(c);
+                assertTrue(report.getCyclicComponents().get(c).containsAll(cycle));
+                for (int i = 0; i < cycle.size(); i++) {
+                    assertTrue(hasEdge(graph, cycle.get(i), cycle.get((i + 1) % cycle.size())));
+                }
+            }
+            Graph repaired = withoutArcs(graph, report.getFeedbackArcs());
+            assertTrue(new KahnTopologicalSort(repaired).topologicalSort().isDAG());
+            assertTrue(report.getFeedbackArcs().size() < 1200 / 2);
+        }
+    }
+
+    // A compressed graph gets the same cyclic components and witness lengths, and its arcs repair it
+    @Test
+    public void testCompressedGraph() {
+        Graph graph = GraphGenerator.randomGraph(400, 1200, 9, 21L);
+        graph.addEdge(7, 7, 1);
+        CycleDiagnosis.CycleReport plain = new CycleDiagnosis(graph).diagnose();
+        CycleDiagnosis.CycleReport compressed = new CycleDiagnosis(CompressedGraph.of(graph)).diagnose();
+        assertEquals(plain.getCyclicComponents(), compressed.getCyclicComponents());
+        for (int c = 0; c < plain.getWitnessCycles().size(); c++) {
+            assertEquals(plain.getWitnessCycles().get(c).size(), compressed.getWitnessCycles().get(c).size());
+        }
+        assertTrue(new KahnTopologicalSort(withoutArcs(graph, compressed.getFeedbackArcs())).topologicalSort().isDAG());
+    }
+
+    // The witness is a shortest cycle through the component's smallest vertex
+    @Test
+    public void testShortWitnessAndSelfLoop() {
+        Graph graph = new Graph(7, true);
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(1, 2, 1);
+        graph.addEdge(2, 3, 1);
+        graph.addEdge(3, 0, 1);
+        graph.addEdge(1, 0, 1);
+        graph.addEdge(4, 5, 1);
+        graph.addEdge(6, 6, 1);
+
+        CycleDiagnosis.CycleReport report = new CycleDiagnosis(graph).diagnose();
+        assertEquals(2, report.getCyclicComponents().size());
+        assertTrue(report.getWitnessCycles().contains(Arrays.asList(0, 1)));
+        assertTrue(report.getWitnessCycles().contains(Collections.singletonList(6)));
+        assertTrue(new KahnTopologicalSort(withoutArcs(graph, report.getFeedbackArcs())).topologicalSort().isDAG());
+        for (CycleDiagnosis.FeedbackArc arc : report.getFeedbackArcs()) {
+            assertNotEquals(4, arc.from);
+        }
+    }
+
+    // A DAG has nothing to report
+    @Test
+    public void testAcyclic() {
+        CycleDiagnosis.CycleReport report = new CycleDiagnosis(GraphGenerator.randomDag(100, 300, 5, 1L)).diagnose();
+        assertTrue(report.isAcyclic());
+        assertTrue(report.getWitnessCycles().isEmpty());
+        assertTrue(report.getFeedbackArcs().isEmpty());
+    }
+
+    // A long cycle does not overflow the stack and needs a single arc removed
+    @Test
+    public void testDeepCycle() {
+        int n = 200_000;
+        Graph graph = new Graph(n, true);
+        for (int i = 0; i < n; i++) {
+            graph.addEdge(i, (i + 1) % n, 1);
+        }
+        CycleDiagnosis.CycleReport report = new CycleDiagnosis(graph).diagnose();
+        assertEquals(n, report.getWitnessCycles().get(0).size());
+        assertEquals(1, report.getFeedbackArcs().size());
+    }
+}
@@ -0,0 +1,23 @@
+package com.smartcity.graph.scc;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class LongHashSetTest {
+
+    // Edge keys (u << 32 | v) that differ only in their high or only in their low half are all kept once
+    @Test
+    public void testDeduplicatesPackedEdges() {
+        LongHashSet set = new LongHashSet();
+        for (int round = 0; round < 2; round++) {
+            for (long u = 0; u < 300; u++) {
+                for (long v = 0; v < 300; v++) {
+                    assertEquals(round == 0, set.add(u << 32 | v));
+                }
+            }
+        }
+        assertEquals(90_000, set.size());
+        assertTrue(set.add(Long.MIN_VALUE));
+        assertFalse(set.add(Long.MIN_VALUE));
+    }
+}
@@ -0,0 +1,100 @@
+package com.smartcity.graph.scc;
+
+import com.smartcity.common.Graph;
+import com.smartcity.common.GraphGenerator;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+public class PartitionedSCCTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Set<Set<Integer>> asSets(List<List<Integer>> components) {
+        Set<Set<Integer>> sets = new HashSet<>();
+        for (List<Integer> component : components) {
+            sets.add(new HashSet<>(component));
+        }
+        return sets;
+    }
+
+    private Set<List<Integer>> condensationPairs(Graph condensation, List<List<Integer>> components) {
+        // Identify components by their smallest vertex so ids from different runs compare
+        Set<List<Integer>> pairs = new HashSet<>();
+        for (int c = 0; c < condensation.getVertices(); c++) {
+            for (Graph.Edge edge : condensation.getAdjacentEdges(c)) {
+                pairs.add(Arrays.asList(components.get(c).get(0), components.get(edge.to).get(0)));
+            }
+        }
+        return pairs;
+    }
+
+    // Global components and condensation match single-JVM TarjanSCC
+    @Test
+    public void testMatchesTarjan() throws Exception {
+        Graph graph = GraphGenerator.randomGraph(3000, 4500, 9, 11L);
+        TarjanSCC tarjan = new TarjanSCC(graph);
+        TarjanSCC.SCCResult expected = tarjan.findSCCs();
+        Graph expectedCondensation = tarjan.buildCondensationGraph(expected);
+
+        PartitionedSCC.PartitionedResult result =
+                new PartitionedSCC(3, folder.newFolder().toPath()).findSCCs(graph);
+        List<List<Integer>> components = result.getSCCResult().getComponents();
+
+        assertEquals(asSets(expected.getComponents()), asSets(components));
+        assertEquals(condensationPairs(expectedCondensation, expected.getComponents()),
+                condensationPairs(result.getCondensation(), components));
+        for (int v = 0; v < graph.getVertices(); v++) {
+            assertTrue(components.get(result.getComponent(v)).contains(v));
+        }
+        assertEquals(3, result.getWorkers().size());
+        for (PartitionedSCC.WorkerStats worker : result.getWorkers()) {
+            assertTrue(worker.getPeakHeapBytes() > 0);
+            assertTrue(worker.getBoundaryEdges() > 0);
+        }
+    }
+
+    // A cycle that crosses every partition becomes one global component
+    @Test
+    public void testCycleAcrossPartitions() throws Exception {
+        int n = 40;
+        Graph graph = new Graph(n, true);
+        for (int u = 0; u < n; u++) {
+            graph.addEdge(u, (u + 1) % n, 1);
+        }
+        graph.addEdge(5, 5, 1);
+
+        PartitionedSCC.PartitionedResult result =
+                new PartitionedSCC(4, folder.newFolder().toPath()).findSCCs(graph);
+        assertEquals(1, result.getComponentCount());
+        assertEquals(n, result.getSCCResult().getComponents().get(0).size());
+        assertEquals(n, result.getQuotientVertices());
+    }
+
+    // More partitions than vertices leaves some workers empty
+    @Test
+    public void testEmptyPartitions() throws Exception {
+        Graph graph = new Graph(2, true);
+        graph.addEdge(0, 1, 3);
+
+        PartitionedSCC.PartitionedResult result =
+                new PartitionedSCC(4, folder.newFolder().toPath()).findSCCs(graph);
+        assertEquals(2, result.getComponentCount());
+        Graph condensation = result.getCondensation();
+        int from = result.getComponent(0);
+        assertEquals(1, condensation.getAdjacentEdges(from).size());
+        assertEquals(result.getComponent(1), condensation.getAdjacentEdges(from).get(0).to);
+        assertEquals(3, condensation.getAdjacentEdges(from).get(0).weight);
+    }
+
+    // Worker failures surface as IOException with the worker log
+    @Test(expected = java.io.IOException.class)
+    public void testWorkerFailure() throws Exception {
+        new PartitionedSCC(2, folder.newFolder().toPath(), Collections.singletonList("-XX:NoSuchOption"))
+                .findSCCs(new Graph(4, true));
+    }
+}
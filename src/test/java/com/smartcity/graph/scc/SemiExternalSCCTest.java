@@ -0,0 +1,124 @@
+package com.smartcity.graph.scc;
+
+import com.smartcity.common.EdgeFile;
+import com.smartcity.common.Graph;
+import com.smartcity.common.GraphGenerator;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+public class SemiExternalSCCTest {
+    private static final int CHILD_HEAP_MB = 16;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private SemiExternalSCC.SemiExternalResult run(Graph graph) throws Exception {
+        Path path = folder.newFile().toPath();
+        EdgeFile.write(path, graph);
+        try (EdgeFile file = EdgeFile.open(path)) {
+            return new SemiExternalSCC(file).findSCCs();
+        }
+    }
+
+    // Components, their order and the condensation match TarjanSCC
+    @Test
+    public void testMatchesTarjan() throws Exception {
+        for (long seed = 1; seed <= 5; seed++) {
+            Graph graph = GraphGenerator.randomGraph(400, 700, 9, seed);
+            TarjanSCC tarjan = new TarjanSCC(graph);
+            TarjanSCC.SCCResult expected = tarjan.findSCCs();
+            Graph expectedCondensation = tarjan.buildCondensationGraph(expected);
+
+            SemiExternalSCC.SemiExternalResult result = run(graph);
+            assertEquals(expected.getComponents(), result.getSCCResult().getComponents());
+            for (int c = 0; c < result.getComponentCount(); c++) {
+                for (int v : result.getSCCResult().getComponents().get(c)) {
+                    assertEquals(c, result.getComponent(v));
+                }
+                List<Integer> expectedTargets = new ArrayList<>();
+                for (Graph.Edge edge : expectedCondensation.getAdjacentEdges(c)) {
+                    expectedTargets.add(edge.to * 100 + edge.weight);
+                }
+                List<Integer> actualTargets = new ArrayList<>();
+                for (Graph.Edge edge : result.getCondensation().getAdjacentEdges(c)) {
+                    actualTargets.add(edge.to * 100 + edge.weight);
+                }
+                assertEquals(expectedTargets, actualTargets);
+            }
+        }
+    }
+
+    // A long path is handled without deep recursion
+    @Test
+    public void testDeepPath() throws Exception {
+        int n = 200_000;
+        Graph graph = new Graph(n, true);
+        for (int u = 0; u + 1 < n; u++) {
+            graph.addEdge(u, u + 1, 1);
+        }
+        graph.addEdge(n - 1, n / 2, 1);
+
+        SemiExternalSCC.SemiExternalResult result = run(graph);
+        assertEquals(n / 2 + 1, result.getComponentCount());
+        assertEquals(n / 2, result.getSCCResult().getComponents().get(0).size());
+    }
+
+    // An edge file several times larger than the heap is processed in a child JVM
+    @Test
+    public void testEdgeFileLargerThanHeap() throws Exception {
+        int blocks = 10;
+        int blockSize = 10_000;
+        int degree = 64;
+        int n = blocks * blockSize;
+        Path path = folder.newFile("large.edges").toPath();
+        // Each block is a ring plus random intra-block chords; cross edges only go forward
+        EdgeFile.write(path, n, (u, sink) -> {
+            int block = u / blockSize;
+            int base = block * blockSize;
+            SplittableRandom random = new SplittableRandom(u);
+            sink.edge(base + (u - base + 1) % blockSize, 1);
+            for (int i = 1; i < degree; i++) {
+                if ((i & 1) == 0 && block + 1 < blocks) {
+                    int target = block + 1 + random.nextInt(blocks - block - 1);
+                    sink.edge(target * blockSize + random.nextInt(blockSize), 1 + random.nextInt(9));
+                } else {
+                    sink.edge(base + random.nextInt(blockSize), 1 + random.nextInt(9));
+                }
+            }
+        });
+        assertTrue(Files.size(path) > 3L * CHILD_HEAP_MB * 1024 * 1024);
+
+        String classes = Paths.get(SemiExternalSCC.class.getProtectionDomain()
+                .getCodeSource().getLocation().toURI()).toString();
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        Process process = new ProcessBuilder(java, "-Xmx" + CHILD_HEAP_MB + "m", "-cp", classes,
+                SemiExternalSCC.class.getName(), path.toString())
+                .redirectErrorStream(true)
+                .start();
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        assertEquals(output, 0, process.waitFor());
+
+        assertTrue(output, output.contains("vertices=" + n));
+        assertTrue(output, output.contains("edges=" + (long) n * degree));
+        assertTrue(output, output.contains("components=" + blocks + " "));
+        assertTrue(output, output.contains("largest=" + blockSize + " "));
+        assertTrue(output, output.contains("condensationEdges=" + (blocks * (blocks - 1) / 2) + " "));
+    }
+
+    // Files that are not edge files are rejected
+    @Test(expected = java.io.IOException.class)
+    public void testRejectsMalformedFile() throws Exception {
+        File file = folder.newFile();
+        Files.write(file.toPath(), new byte[64]);
+        EdgeFile.open(file.toPath()).close();
+    }
+}
@@ -0,0 +1,129 @@
+package com.smartcity.graph.scc;
+
+import com.smartcity.common.Graph;
+import com.smartcity.common.GraphGenerator;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+public class TransitiveReductionTest {
+
+    private boolean[][] closure(Graph graph) {
+        int n = graph.getVertices();
+        boolean[][] reach = new boolean[n][n];
+        for (int s = 0; s < n; s++) {
+            Deque<Integer> stack = new ArrayDeque<>();
+            stack.push(s);
+            while (!stack.isEmpty()) {
+                int u = stack.pop();
+                for (Graph.Edge edge : graph.getAdjacentEdges(u)) {
+                    if (!reach[s][edge.to]) {
+                        reach[s][edge.to] = true;
+                        stack.push(edge.to);
+                    }
+                }
+            }
+        }
+        return reach;
+    }
+
+    // Shortcut edges implied by longer paths are removed
+    @Test
+    public void testRemovesShortcut() {
+        Graph graph = new Graph(4, true);
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(1, 2, 1);
+        graph.addEdge(0, 2, 5);
+        graph.addEdge(2, 3, 1);
+        graph.addEdge(0, 3, 9);
+
+        TransitiveReduction.ReductionResult result = new TransitiveReduction().reduce(graph);
+
+        assertEquals(5, result.getOriginalEdges());
+        assertEquals(3, result.getReducedEdges());
+        assertEquals(0.4, result.getReductionRatio(), 1e-9);
+        assertEquals(1, result.getReducedGraph().getAdjacentEdges(0).size());
+    }
+
+    // Reachability is preserved on random DAGs, including with tiny chunks
+    @Test
+    public void testPreservesReachability() {
+        Graph graph = GraphGenerator.randomDag(200, 1500, 5, 3L);
+        boolean[][] before = closure(graph);
+
+        TransitiveReduction.ReductionResult small = new TransitiveReduction(1).reduce(graph);
+        TransitiveReduction.ReductionResult large = new TransitiveReduction().reduce(graph);
+
+        assertTrue(Arrays.deepEquals(before, closure(small.getReducedGraph())));
+        assertEquals(small.getReducedEdges(), large.getReducedEdges());
+        assertTrue(small.getReducedEdges() < small.getOriginalEdges());
+
+        // No kept edge is implied by the other kept edges
+        Graph reduced = small.getReducedGraph();
+        boolean[][] reach = closure(reduced);
+        for (int u = 0; u < reduced.getVertices(); u++) {
+            for (Graph.Edge edge : reduced.getAdjacentEdges(u)) {
+                for (Graph.Edge other : reduced.getAdjacentEdges(u)) {
+                    if (other.to != edge.to) {
+                        assertFalse(reach[other.to][edge.to]);
+                    }
+                }
+            }
+        }
+    }
+
+    // Optional condensation stage keeps components and DAG property
+    @Test
+    public void testCondensationStage() {
+        Graph graph = new Graph(5, true);
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(1, 0, 1);
+        graph.addEdge(1, 2, 1);
+        graph.addEdge(2, 3, 1);
+        graph.addEdge(0, 3, 1);
+        graph.addEdge(3, 4, 1);
+        graph.addEdge(2, 4, 1);
+
+        TarjanSCC.SCCResult scc = new TarjanSCC(graph).findSCCs();
+        CondensationGraph full = new CondensationGraph(graph, scc.getComponents());
+        CondensationGraph reduced = full.withTransitiveReduction();
+
+        assertEquals(full.getComponentCount(), reduced.getComponentCount());
+        assertEquals(full.getComponentId(1), reduced.getComponentId(1));
+        assertTrue(reduced.isDAG());
+        int edges = 0;
+        for (int c = 0; c < reduced.getComponentCount(); c++) {
+            edges += reduced.getCondensationGraph().getAdjacentEdges(c).size();
+        }
+        assertEquals(3, edges);
+        assertNull(full.getReduction());
+        assertEquals(5, reduced.getReduction().getOriginalEdges());
+        assertEquals(3, reduced.getReduction().getReducedEdges());
+    }
+
+    // A small memory budget narrows the chunks instead of allocating V rows of the full width
+    @Test
+    public void testMemoryBudget() {
+        TransitiveReduction budgeted = new TransitiveReduction(1024, 1 << 20);
+        assertEquals(6, budgeted.chunkWordsFor(20_000));
+        assertEquals(1, budgeted.chunkWordsFor(3_000_000));
+        assertEquals(1024, budgeted.chunkWordsFor(100));
+        // Without a budget the single-array limit still caps V * words
+        assertEquals((Integer.MAX_VALUE - 8) / 400_000,
+                new TransitiveReduction(Integer.MAX_VALUE, Long.MAX_VALUE).chunkWordsFor(400_000));
+
+        Graph graph = GraphGenerator.randomDag(20_000, 40_000, 5, 6L);
+        assertEquals(new TransitiveReduction().reduce(graph).getReducedEdges(),
+                budgeted.reduce(graph).getReducedEdges());
+    }
+
+    // Cyclic input is rejected
+    @Test(expected = IllegalArgumentException.class)
+    public void testCycleRejected() {
+        Graph graph = new Graph(2, true);
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(1, 0, 1);
+        new TransitiveReduction().reduce(graph);
+    }
+}
@@ -0,0 +1,109 @@
+package com.smartcity.graph.topo;
+
+import com.smartcity.common.Graph;
+import com.smartcity.common.OperationType;
+import com.smartcity.graph.scc.CondensationGraph;
+import com.smartcity.graph.scc.TarjanSCC;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ParallelTaskExecutorTest {
+    private ExecutorService pool;
+
+    @Before
+    public void setUp() {
+        pool = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    // Every task runs once and only after all of its predecessors finished
+    @Test
+    public void testDependenciesRespected() {
+        Graph graph = new Graph(6, true);
+        graph.addEdge(0, 2, 1);
+        graph.addEdge(1, 2, 1);
+        graph.addEdge(2, 3, 1);
+        graph.addEdge(2, 4, 1);
+        graph.addEdge(3, 5, 1);
+        graph.addEdge(4, 5, 1);
+
+        AtomicInteger calls = new AtomicInteger();
+        ParallelTaskExecutor executor = new ParallelTaskExecutor(pool);
+        ParallelTaskExecutor.ExecutionReport report = executor.execute(graph, v -> {
+            calls.incrementAndGet();
+            Thread.sleep(2);
+        });
+
+        assertEquals(6, calls.get());
+        assertEquals(6, report.getTasksExecuted());
+        for (int u = 0; u < graph.getVertices(); u++) {
+            for (Graph.Edge edge : graph.getAdjacentEdges(u)) {
+                assertTrue(report.getEndNanos(u) <= report.getStartNanos(edge.to));
+            }
+        }
+        assertTrue(report.getDurationNanos(3) > 0);
+        assertTrue(report.getTasksPerSecond() > 0);
+        assertEquals(6, report.getMetrics().getOperations(OperationType.EDGE_SCANS));
+    }
+
+    // Components run as units; tasks are reported with original ids
+    @Test
+    public void testCondensationExecution() {
+        Graph graph = new Graph(5, true);
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(1, 0, 1);
+        graph.addEdge(1, 2, 1);
+        graph.addEdge(2, 3, 1);
+        graph.addEdge(3, 2, 1);
+        graph.addEdge(3, 4, 1);
+
+        TarjanSCC.SCCResult scc = new TarjanSCC(graph).findSCCs();
+        CondensationGraph condensation = new CondensationGraph(graph, scc.getComponents());
+
+        ParallelTaskExecutor executor = new ParallelTaskExecutor(pool);
+        ParallelTaskExecutor.ExecutionReport report = executor.execute(condensation, v -> { });
+
+        assertEquals(5, report.getTasksExecuted());
+        assertTrue(report.getEndNanos(1) <= report.getStartNanos(2));
+        assertTrue(report.getEndNanos(3) <= report.getStartNanos(4));
+    }
+
+    // A failing task stops its dependents from being released
+    @Test
+    public void testFailureStopsDependents() {
+        Graph graph = new Graph(3, true);
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(1, 2, 1);
+
+        ParallelTaskExecutor executor = new ParallelTaskExecutor(pool);
+        try {
+            executor.execute(graph, v -> {
+                if (v == 1) {
+                    throw new IllegalStateException("boom");
+                }
+            });
+            fail("Expected failure");
+        } catch (IllegalStateException e) {
+            assertEquals("boom", e.getCause().getMessage());
+        }
+    }
+
+    // Cyclic graphs are rejected before anything runs
+    @Test(expected = IllegalArgumentException.class)
+    public void testCycleRejected() {
+        Graph graph = new Graph(2, true);
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(1, 0, 1);
+        new ParallelTaskExecutor(pool).execute(graph, v -> { });
+    }
+}
@@ -0,0 +1,254 @@
+package com.smartcity.graph.wcc;
+
+import com.smartcity.common.CompressedGraph;
+import com.smartcity.common.ConcurrentUnionFind;
+import com.smartcity.common.Graph;
+import com.smartcity.common.GraphGenerator;
+import com.smartcity.graph.dagsp.ComponentShortestPath;
+import com.smartcity.graph.dagsp.DAGShortestPath;
+import com.smartcity.graph.scc.CondensationGraph;
+import com.smartcity.graph.scc.TarjanSCC;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+public class ShardedPipelineTest {
+
+    // Disjoint districts of random graphs, ids interleaved so shards are not contiguous ranges
+    private Graph districts(int count, int size, int edges, long seed) {
+        int n = count * size;
+        Graph graph = new Graph(n, true);
+        for (int d = 0; d < count; d++) {
+            Graph district = GraphGenerator.randomGraph(size, edges, 9, seed + d);
+            for (int u = 0; u < size; u++) {
+                for (Graph.Edge edge : district.getAdjacentEdges(u)) {
+                    graph.addEdge(u * count + d, edge.to * count + d, edge.weight);
+                }
+            }
+        }
+        return graph;
+    }
+
+    // Reference labels from an undirected BFS, numbered by smallest vertex
+    private int[] bfsLabels(Graph graph) {
+        int n = graph.getVertices();
+        List<List<Integer>> neighbors = new ArrayList<>();
+        for (int v = 0; v < n; v++) {
+            neighbors.add(new ArrayList<>());
+        }
+        for (int u = 0; u < n; u++) {
+            for (Graph.Edge edge : graph.getAdjacentEdges(u)) {
+                neighbors.get(u).add(edge.to);
+                neighbors.get(edge.to).add(u);
+            }
+        }
+        int[] label = new int[n];
+        Arrays.fill(label, -1);
+        int count = 0;
+        for (int s = 0; s < n; s++) {
+            if (label[s] != -1) {
+                continue;
+            }
+            Deque<Integer> queue = new ArrayDeque<>();
+            queue.add(s);
+            label[s] = count;
+            while (!queue.isEmpty()) {
+                for (int v : neighbors.get(queue.poll())) {
+                    if (label[v] == -1) {
+                        label[v] = count;
+                        queue.add(v);
+                    }
+                }
+            }
+            count++;
+        }
+        return label;
+    }
+
+    private Set<Set<Integer>> partition(List<List<Integer>> components) {
+        Set<Set<Integer>> sets = new HashSet<>();
+        for (List<Integer> component : components) {
+            sets.add(new HashSet<>(component));
+        }
+        return sets;
+    }
+
+    // Labels match a BFS for any thread count, including sparse graphs with isolated vertices
+    @Test
+    public void testComponentsMatchBfs() {
+        for (long seed = 1; seed <= 5; seed++) {
+            Graph graph = GraphGenerator.randomGraph(2000, 1500, 9, seed);
+            int[] expected = bfsLabels(graph);
+            for (int parallelism : new int[] {1, 4}) {
+                WeaklyConnectedComponents.WccResult result =
+                        new WeaklyConnectedComponents(graph, parallelism).findComponents();
+                assertArrayEquals(expected, result.getComponentOf());
+                int total = 0;
+                for (int size : result.getSizes()) {
+                    total += size;
+                }
+                assertEquals(2000, total);
+            }
+        }
+    }
+
+    // Undirected graphs give connected components; shards stay undirected
+    @Test
+    public void testUndirected() {
+        Graph graph = new Graph(6, false);
+        graph.addEdge(0, 3, 1);
+        graph.addEdge(3, 5, 2);
+        graph.addEdge(1, 4, 1);
+        WeaklyConnectedComponents wcc = new WeaklyConnectedComponents(graph, 2);
+        WeaklyConnectedComponents.WccResult result = wcc.findComponents();
+        assertArrayEquals(new int[] {0, 1, 2, 0, 1, 0}, result.getComponentOf());
+        assertArrayEquals(new int[] {3, 2, 1}, result.getSizes());
+
+        List<WeaklyConnectedComponents.Shard> shards = wcc.shards(result, 1);
+        assertEquals(3, shards.size());
+        WeaklyConnectedComponents.Shard first = shards.get(0);
+        assertArrayEquals(new int[] {0, 3, 5}, first.getGlobalIds());
+        assertFalse(first.getGraph().isDirected());
+        assertEquals(1, first.getGraph().getAdjacentEdges(0).size());
+        assertEquals(2, first.getGraph().getAdjacentEdges(1).size());
+        assertEquals(-1, first.localId(1));
+        assertEquals(2, first.localId(5));
+
+        ShardedPipeline.ShardedResult run = new ShardedPipeline(graph, 2, 1).run(5);
+        assertEquals(3, run.getComponents().size());
+        assertEquals(3, run.getDistances()[0]);
+        assertEquals(ComponentShortestPath.UNREACHABLE, run.getDistances()[1]);
+        assertEquals(Arrays.asList(5, 3, 0), run.reconstructPath(0));
+    }
+
+    // Small components are packed into shards of the minimum size
+    @Test
+    public void testShardPacking() {
+        Graph graph = districts(10, 20, 30, 11L);
+        WeaklyConnectedComponents wcc = new WeaklyConnectedComponents(graph, 2);
+        WeaklyConnectedComponents.WccResult result = wcc.findComponents();
+        List<WeaklyConnectedComponents.Shard> shards = wcc.shards(result, 50);
+        int covered = 0;
+        Set<Integer> seen = new HashSet<>();
+        for (WeaklyConnectedComponents.Shard shard : shards) {
+            int[] ids = shard.getGlobalIds();
+            for (int i = 0; i < ids.length; i++) {
+                assertTrue(seen.add(ids[i]));
+                assertTrue(i == 0 || ids[i - 1] < ids[i]);
+                for (Graph.Edge edge : shard.getGraph().getAdjacentEdges(i)) {
+                    assertTrue(graph.getAdjacentEdges(ids[i]).stream().anyMatch(e -> e.to == ids[edge.to]));
+                }
+            }
+            covered += ids.length;
+        }
+        assertEquals(200, covered);
+        assertTrue(shards.size() < result.getComponentCount());
+        for (int s = 0; s < shards.size() - 1; s++) {
+            assertTrue(shards.get(s).getGlobalIds().length >= 50);
+        }
+    }
+
+    // Sharded results agree with the whole-graph pipeline
+    @Test
+    public void testMatchesWholeGraph() {
+        for (long seed = 1; seed <= 3; seed++) {
+            Graph graph = districts(8, 40, 70, seed * 100);
+            int source = 3;
+            ShardedPipeline.ShardedResult sharded = new ShardedPipeline(graph, 4, 1).run(source);
+
+            TarjanSCC.SCCResult whole = new TarjanSCC(graph).findSCCs();
+            assertEquals(partition(whole.getComponents()), partition(sharded.getComponents()));
+            assertTrue(sharded.getShardCount() > 1);
+            assertEquals(Integer.toString(sharded.getShardCount()),
+                    sharded.getMetrics().getTags().get(ShardedPipeline.SHARDS_TAG));
+
+            // Global component ids keep reverse topological order; the task order respects every edge
+            int[] position = new int[graph.getVertices()];
+            List<Integer> order = sharded.getTaskOrder();
+            assertEquals(graph.getVertices(), order.size());
+            for (int i = 0; i < order.size(); i++) {
+                position[order.get(i)] = i;
+            }
+            for (int u = 0; u < graph.getVertices(); u++) {
+                for (Graph.Edge edge : graph.getAdjacentEdges(u)) {
+                    int cu = sharded.getComponentId(u);
+                    int cv = sharded.getComponentId(edge.to);
+                    assertTrue(cu >= cv);
+                    assertTrue(cu == cv || position[u] < position[edge.to]);
+                }
+            }
+
+            CondensationGraph condensation = new CondensationGraph(graph, whole.getComponents());
+            DAGShortestPath.CriticalPathResult expected =
+                    new DAGShortestPath(condensation.getCondensationGraph()).findCriticalPath();
+            DAGShortestPath.CriticalPathResult critical = sharded.getCriticalPath();
+            assertEquals(expected.getLength(), critical.getLength());
+            assertEquals(critical.getSource(), (int) critical.getPath().get(0));
+            assertEquals(critical.getDestination(), (int) critical.getPath().get(critical.getPath().size() - 1));
+
+            long[] distances = new ComponentShortestPath(graph).shortestPaths(source).getDistances();
+            assertArrayEquals(distances, sharded.getDistances());
+            for (int v = 0; v < graph.getVertices(); v++) {
+                List<Integer> path = sharded.reconstructPath(v);
+                assertEquals(distances[v] == ComponentShortestPath.UNREACHABLE, path.isEmpty());
+                if (!path.isEmpty()) {
+                    assertEquals(source, (int) path.get(0));
+                    assertEquals(v, (int) path.get(path.size() - 1));
+                }
+            }
+        }
+    }
+
+    // A compressed graph yields compressed shards and the same results as its plain original
+    @Test
+    public void testCompressedGraph() {
+        Graph graph = districts(6, 40, 70, 500L);
+        CompressedGraph compressed = CompressedGraph.of(graph);
+        WeaklyConnectedComponents wcc = new WeaklyConnectedComponents(compressed, 2);
+        for (WeaklyConnectedComponents.Shard shard : wcc.shards(wcc.findComponents(), 1)) {
+            assertTrue(shard.getGraph() instanceof CompressedGraph);
+        }
+
+        int source = 3;
+        ShardedPipeline.ShardedResult plain = new ShardedPipeline(graph, 2, 1).run(source);
+        ShardedPipeline.ShardedResult packed = new ShardedPipeline(compressed, 2, 1).run(source);
+        assertEquals(partition(plain.getComponents()), partition(packed.getComponents()));
+        assertArrayEquals(plain.getDistances(), packed.getDistances());
+        assertArrayEquals(new ComponentShortestPath(graph).shortestPaths(source).getDistances(),
+                new ComponentShortestPath(compressed).shortestPaths(source).getDistances());
+    }
+
+    // Concurrent unions from many threads end in the same sets as sequential ones
+    @Test
+    public void testConcurrentUnionFind() throws InterruptedException {
+        int n = 20000;
+        ConcurrentUnionFind sets = new ConcurrentUnionFind(n);
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            int offset = t;
+            threads[t] = new Thread(() -> {
+                // Every thread links all even vertices, from different starting points
+                for (int i = 0; i < n / 2 - 1; i++) {
+                    int a = 2 * ((i + offset * 997) % (n / 2 - 1));
+                    sets.union(a, a + 2);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (int v = 0; v < n; v++) {
+            assertEquals(v % 2 == 0 ? 0 : v, sets.find(v));
+        }
+        assertTrue(sets.connected(0, n - 2));
+        assertFalse(sets.connected(1, 3));
+    }
+
+    // Sources must be valid vertices
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidSource() {
+        new ShardedPipeline(new Graph(3, true)).run(3);
+    }
+}
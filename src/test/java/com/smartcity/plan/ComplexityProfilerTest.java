@@ -0,0 +1,93 @@
+package com.smartcity.plan;
+
+import com.smartcity.common.Graph;
+import com.smartcity.common.GraphGenerator;
+import com.smartcity.common.Metrics;
+import com.smartcity.common.MetricsImpl;
+import com.smartcity.common.OperationType;
+import com.smartcity.graph.dagsp.DAGShortestPath;
+import com.smartcity.graph.scc.TarjanSCC;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class ComplexityProfilerTest {
+
+    private Metrics counted(OperationType type, long count) {
+        Metrics metrics = new MetricsImpl();
+        metrics.addOperations(type, count);
+        return metrics;
+    }
+
+    // Typed counts add to the total; addAll merges both, reset clears both
+    @Test
+    public void testTypedCounters() {
+        Metrics metrics = new MetricsImpl();
+        metrics.addOperations(OperationType.EDGE_SCANS, 5);
+        metrics.addOperations(OperationType.HASH_PROBES, 2);
+        metrics.addOperations(3);
+        assertEquals(10, metrics.getOperations());
+        assertEquals(5, metrics.getOperations(OperationType.EDGE_SCANS));
+        assertEquals(0, metrics.getOperations(OperationType.RELAXATIONS));
+
+        Metrics total = counted(OperationType.EDGE_SCANS, 1);
+        total.addAll(metrics);
+        assertEquals(11, total.getOperations());
+        assertEquals(6, total.getOperations(OperationType.EDGE_SCANS));
+        assertEquals(2, total.getOperations(OperationType.HASH_PROBES));
+
+        total.reset();
+        assertEquals(0, total.getOperations());
+        assertEquals(0, total.getOperations(OperationType.EDGE_SCANS));
+    }
+
+    // Tarjan visits and pushes every vertex once, pops it once and scans every edge once
+    @Test
+    public void testTarjanCounts() {
+        Graph graph = GraphGenerator.randomGraph(200, 700, 9, 4L);
+        Metrics metrics = new TarjanSCC(graph).findSCCs().getMetrics();
+        assertEquals(200, metrics.getOperations(OperationType.VERTEX_VISITS));
+        assertEquals(700, metrics.getOperations(OperationType.EDGE_SCANS));
+        assertEquals(400, metrics.getOperations(OperationType.STACK_OPS));
+        assertEquals(1300, metrics.getOperations());
+    }
+
+    // Power laws are fitted exactly; only the superlinear one is flagged
+    @Test
+    public void testFitsPowerLaws() {
+        ComplexityProfiler profiler = new ComplexityProfiler(n -> new Graph(n, true), 100, 4, 2, 1);
+        ComplexityProfiler.Profile linear = profiler.profile("linear",
+                graph -> counted(OperationType.EDGE_SCANS, 7L * graph.getVertices()));
+        ComplexityProfiler.Profile quadratic = profiler.profile("quadratic",
+                graph -> counted(OperationType.RELAXATIONS, (long) graph.getVertices() * graph.getVertices()));
+
+        assertArrayEquals(new long[] {100, 200, 400, 800}, linear.getSizes());
+        assertEquals(1.0, linear.getOperationExponent(), 1e-9);
+        assertEquals(1.0, linear.getExponent(OperationType.EDGE_SCANS), 1e-9);
+        assertTrue(Double.isNaN(linear.getExponent(OperationType.RELAXATIONS)));
+        assertFalse(linear.isSuperlinear());
+        assertEquals(2.0, quadratic.getOperationExponent(), 1e-9);
+        assertTrue(quadratic.isSuperlinear());
+        assertTrue(quadratic.toString().contains("SUPERLINEAR"));
+    }
+
+    // Linear pipeline stages pass; the all-sources critical path search is flagged
+    @Test
+    public void testFlagsCriticalPath() {
+        ComplexityProfiler profiler = ComplexityProfiler.randomDags(100, 4);
+        ComplexityProfiler.Profile tarjan = profiler.profile("TarjanSCC",
+                graph -> new TarjanSCC(graph).findSCCs().getMetrics());
+        assertEquals(1.0, tarjan.getOperationExponent(), 0.05);
+        assertFalse(tarjan.isSuperlinear());
+
+        ComplexityProfiler.Profile critical = profiler.profile("findCriticalPath",
+                graph -> new DAGShortestPath(graph).findCriticalPath().getMetrics());
+        assertTrue(critical.isSuperlinear());
+        assertEquals(2.0, critical.getExponent(OperationType.VERTEX_VISITS), 0.05);
+    }
+
+    // A series needs at least two growing sizes
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidSeries() {
+        new ComplexityProfiler(n -> new Graph(n, true), 100, 1, 2);
+    }
+}
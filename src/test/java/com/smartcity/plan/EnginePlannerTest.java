@@ -0,0 +1,244 @@
+package com.smartcity.plan;
+
+import com.smartcity.common.CompressedGraph;
+import com.smartcity.common.Graph;
+import com.smartcity.common.GraphGenerator;
+import com.smartcity.graph.scc.TarjanSCC;
+import com.smartcity.graph.topo.KahnTopologicalSort;
+import com.smartcity.plan.CostProfile.Cost;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+public class EnginePlannerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final long LARGE_HEAP = 1L << 40;
+
+    private Set<Set<Integer>> partition(TarjanSCC.SCCResult result) {
+        Set<Set<Integer>> components = new HashSet<>();
+        for (List<Integer> component : result.getComponents()) {
+            components.add(new HashSet<>(component));
+        }
+        return components;
+    }
+
+    // Components must come in reverse topological order of the condensation
+    private void assertReverseTopological(Graph graph, TarjanSCC.SCCResult result) {
+        int[] componentOf = new int[graph.getVertices()];
+        for (int c = 0; c < result.getComponents().size(); c++) {
+            List<Integer> component = result.getComponents().get(c);
+            for (int v : component) {
+                componentOf[v] = c;
+            }
+            List<Integer> sorted = new ArrayList<>(component);
+            Collections.sort(sorted);
+            assertEquals(sorted, component);
+        }
+        for (int u = 0; u < graph.getVertices(); u++) {
+            for (Graph.Edge edge : graph.getAdjacentEdges(u)) {
+                assertTrue(componentOf[u] >= componentOf[edge.to]);
+            }
+        }
+    }
+
+    // A chain feeding a cycle that feeds another chain: trimming peels both chains
+    @Test
+    public void testStatistics() {
+        Graph graph = new Graph(7, true);
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(1, 2, 1);
+        graph.addEdge(2, 3, 1);
+        graph.addEdge(3, 4, 1);
+        graph.addEdge(4, 2, 1);
+        graph.addEdge(4, 5, 1);
+        graph.addEdge(4, 6, 1);
+
+        GraphStatistics statistics = GraphStatistics.of(graph);
+        assertEquals(7, statistics.getVertices());
+        assertEquals(7, statistics.getEdges());
+        assertEquals(3, statistics.getMaxOutDegree());
+        assertEquals(2, statistics.getMaxInDegree());
+        assertEquals(3.0, statistics.getDegreeSkew(), 1e-9);
+        assertEquals(3, statistics.getCoreVertices());
+        assertEquals(3, statistics.getCoreEdges());
+        assertEquals(4 / 7.0, statistics.getDagFraction(), 1e-9);
+        assertFalse(statistics.isAcyclic());
+        assertArrayEquals(new int[] {0, 1}, statistics.frontOrder());
+        assertArrayEquals(new int[] {5, 6}, statistics.backOrder());
+    }
+
+    // Trimming empties DAGs; self-loops keep their vertex in the core
+    @Test
+    public void testDagFraction() {
+        assertTrue(GraphStatistics.of(GraphGenerator.randomDag(500, 2000, 9, 3L)).isAcyclic());
+        assertEquals(1.0, GraphStatistics.of(new Graph(0, true)).getDagFraction(), 0);
+
+        Graph loop = new Graph(3, true);
+        loop.addEdge(0, 1, 1);
+        loop.addEdge(1, 1, 1);
+        loop.addEdge(1, 2, 1);
+        GraphStatistics statistics = GraphStatistics.of(loop);
+        assertEquals(1, statistics.getCoreVertices());
+        assertEquals(1, statistics.getCoreEdges());
+    }
+
+    // Every SCC engine yields Tarjan's partition in a valid order
+    @Test
+    public void testSccEnginesAgreeWithTarjan() {
+        CostProfile profile = CostProfile.defaults();
+        CostProfile forceTarjan = profile.with(Cost.CORE_SUBGRAPH, 1e9);
+        CostProfile forceTrim = profile.with(Cost.CORE_SUBGRAPH, 0).with(Cost.TARJAN, 1);
+        for (long seed = 1; seed <= 5; seed++) {
+            Graph graph = GraphGenerator.randomGraph(300, 330, 9, seed);
+            Set<Set<Integer>> expected = partition(new TarjanSCC(graph).findSCCs());
+
+            EnginePlan tarjan = new EnginePlanner(forceTarjan, LARGE_HEAP).plan(graph);
+            EnginePlan trimmed = new EnginePlanner(forceTrim, LARGE_HEAP).plan(graph);
+            assertEquals(EnginePlan.SccEngine.TARJAN, tarjan.getSccEngine());
+            assertEquals(EnginePlan.SccEngine.TRIM_TARJAN, trimmed.getSccEngine());
+            for (EnginePlan plan : Arrays.asList(tarjan, trimmed)) {
+                TarjanSCC.SCCResult result = plan.findSCCs(graph);
+                assertEquals(expected, partition(result));
+                assertReverseTopological(graph, result);
+                assertEquals(plan.getSccEngine().name(), result.getMetrics().getTags().get(EnginePlan.SCC_TAG));
+            }
+
+            Graph dag = GraphGenerator.randomDag(300, 900, 9, seed);
+            EnginePlan plan = new EnginePlanner(profile, LARGE_HEAP).plan(dag);
+            assertEquals(EnginePlan.SccEngine.TRIM, plan.getSccEngine());
+            TarjanSCC.SCCResult result = plan.findSCCs(dag);
+            assertEquals(300, result.getComponents().size());
+            assertReverseTopological(dag, result);
+        }
+    }
+
+    // Topological variants follow the cost profile; DFS only for small DAGs
+    @Test
+    public void testTopoVariants() {
+        Graph dag = GraphGenerator.randomDag(200, 600, 9, 7L);
+        CostProfile cheapDfs = CostProfile.defaults().with(Cost.DFS, 0.1);
+        CostProfile cheapCsr = CostProfile.defaults().with(Cost.KAHN_CSR, 0.1).with(Cost.CSR_BUILD, 0.1);
+        CostProfile cheapLists = CostProfile.defaults().with(Cost.KAHN_LISTS, 0.1);
+
+        EnginePlan dfs = new EnginePlanner(cheapDfs, LARGE_HEAP).plan(dag);
+        EnginePlan csr = new EnginePlanner(cheapCsr, LARGE_HEAP).plan(dag);
+        EnginePlan lists = new EnginePlanner(cheapLists, LARGE_HEAP).plan(dag);
+        assertEquals(EnginePlan.TopoVariant.DFS, dfs.getTopoVariant());
+        assertEquals(EnginePlan.TopoVariant.KAHN_CSR, csr.getTopoVariant());
+        assertEquals(EnginePlan.Representation.CSR, csr.getRepresentation());
+        assertEquals(EnginePlan.TopoVariant.KAHN_LISTS, lists.getTopoVariant());
+        assertEquals(EnginePlan.Representation.ADJACENCY_LISTS, lists.getRepresentation());
+
+        for (EnginePlan plan : Arrays.asList(dfs, csr, lists)) {
+            KahnTopologicalSort.TopoResult result = plan.topologicalSort(dag);
+            assertTrue(result.isDAG());
+            int[] position = new int[dag.getVertices()];
+            for (int i = 0; i < result.getOrder().size(); i++) {
+                position[result.getOrder().get(i)] = i;
+            }
+            for (int u = 0; u < dag.getVertices(); u++) {
+                for (Graph.Edge edge : dag.getAdjacentEdges(u)) {
+                    assertTrue(position[u] < position[edge.to]);
+                }
+            }
+            assertEquals(plan.getTopoVariant().name(), result.getMetrics().getTags().get(EnginePlan.TOPO_TAG));
+        }
+
+        Graph cyclic = GraphGenerator.randomGraph(200, 600, 9, 7L);
+        EnginePlan plan = new EnginePlanner(cheapDfs, LARGE_HEAP).plan(cyclic);
+        assertNotEquals(EnginePlan.TopoVariant.DFS, plan.getTopoVariant());
+        assertFalse(plan.topologicalSort(cyclic).isDAG());
+    }
+
+    // Small heaps switch to the compressed representation; large graphs go parallel
+    @Test
+    public void testRepresentationAndParallelism() {
+        Graph graph = GraphGenerator.randomGraph(1000, 4000, 9, 5L);
+        EnginePlan compressed = new EnginePlanner(CostProfile.defaults(), 1000).plan(graph);
+        assertEquals(EnginePlan.Representation.COMPRESSED, compressed.getRepresentation());
+        assertEquals(EnginePlan.TopoVariant.KAHN_LISTS, compressed.getTopoVariant());
+        Graph prepared = compressed.prepare(graph);
+        assertEquals(partition(new TarjanSCC(graph).findSCCs()), partition(compressed.findSCCs(prepared)));
+
+        assertEquals(1, new EnginePlanner(CostProfile.defaults(), LARGE_HEAP).plan(graph).getParallelism());
+        EnginePlan parallel = new EnginePlanner(CostProfile.defaults().withParallelMinEdges(4000), LARGE_HEAP)
+                .plan(graph);
+        assertTrue(parallel.getParallelism() >= 1);
+        assertEquals(Integer.toString(parallel.getParallelism()),
+                parallel.findSCCs(graph).getMetrics().getTags().get(EnginePlan.PARALLELISM_TAG));
+    }
+
+    // A compressed hub with 100k out-edges is planned, decomposed and sorted without indexed list access
+    @Test(timeout = 10000)
+    public void testSkewedCompressedGraph() {
+        int leaves = 100_000;
+        Graph graph = new Graph(leaves + 2, true);
+        for (int v = 1; v <= leaves; v++) {
+            graph.addEdge(0, v, 1);
+        }
+        for (int v = 1; v <= leaves / 2; v++) {
+            graph.addEdge(v, 0, 1);
+        }
+        graph.addEdge(leaves + 1, 0, 1);
+        CompressedGraph compressed = CompressedGraph.of(graph);
+        Set<Set<Integer>> expected = partition(new TarjanSCC(graph).findSCCs());
+
+        CostProfile forceTarjan = CostProfile.defaults().with(Cost.CORE_SUBGRAPH, 1e9);
+        CostProfile forceTrim = CostProfile.defaults().with(Cost.CORE_SUBGRAPH, 0).with(Cost.TARJAN, 1);
+        for (CostProfile profile : Arrays.asList(forceTarjan, forceTrim)) {
+            EnginePlan plan = new EnginePlanner(profile, LARGE_HEAP).plan(compressed);
+            assertEquals(EnginePlan.Representation.COMPRESSED, plan.getRepresentation());
+            assertEquals(EnginePlan.TopoVariant.KAHN_LISTS, plan.getTopoVariant());
+            assertEquals(leaves / 2 + 1, plan.getStatistics().getCoreVertices());
+            assertEquals(expected, partition(plan.findSCCs(compressed)));
+            assertFalse(plan.topologicalSort(compressed).isDAG());
+        }
+    }
+
+    // Profiles survive a save/load round trip; incomplete files are rejected
+    @Test
+    public void testProfileFile() throws IOException {
+        Path path = folder.newFile().toPath();
+        CostProfile profile = CostProfile.defaults().with(Cost.TARJAN, 12.5).withParallelMinEdges(123);
+        profile.save(path);
+        CostProfile loaded = CostProfile.load(path);
+        for (Cost cost : Cost.values()) {
+            assertEquals(profile.get(cost), loaded.get(cost), 0);
+        }
+        assertEquals(123, loaded.getParallelMinEdges());
+
+        Files.write(path, "tarjan=1.0\n".getBytes(StandardCharsets.UTF_8));
+        try {
+            CostProfile.load(path);
+            fail("Expected IOException");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("core.subgraph"));
+        }
+    }
+
+    // Calibration yields positive coefficients for every engine
+    @Test
+    public void testCalibrate() {
+        CostProfile profile = CostProfile.calibrate();
+        for (Cost cost : Cost.values()) {
+            assertTrue(profile.get(cost) > 0);
+        }
+    }
+
+    // Plans are bound to the vertex count of their graph
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongGraphRejected() {
+        EnginePlan plan = new EnginePlanner(CostProfile.defaults()).plan(new Graph(3, true));
+        plan.findSCCs(new Graph(4, true));
+    }
+}